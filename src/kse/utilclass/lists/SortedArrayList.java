@@ -24,10 +24,14 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
 /** A list structure derived from {@code ArrayList<E>} which orders its 
@@ -72,10 +76,7 @@ public class SortedArrayList<E> extends ArrayList<E> {
 	 * @param c {@code E[]}, may be null
 	 */
     public SortedArrayList (E[] c) {
-    	if (c != null)
-    	for (E e : c) {
-    		add(e);
-    	}
+    	addAll(c);
     }
 
 	/** New {@code SortedArrayList} with natural ordering of its elements
@@ -128,6 +129,7 @@ public class SortedArrayList<E> extends ArrayList<E> {
 
 	/** Adds the specified element to this list. If the element is not 
 	 * comparable with the other elements of this list, an exception is thrown.
+	 * The element is inserted behind all elements of equal sorting value.
 	 * <p>NOTE: <b>null</b> is a legal value if and only if a comparator has 
 	 * been set up allowing for such comparison. 
 	 * 
@@ -143,53 +145,80 @@ public class SortedArrayList<E> extends ArrayList<E> {
 		if (e == null && comparator == null)
 			throw new NullPointerException();
 		
-		int i = binarySearch(0, size(), e);
-		if (i < 0) i = -(i+1);
-		super.add(i, e);
+		super.add(upperBound(0, size(), e), e);
 		return true;
 	}
     
-	/** Returns either the object (if found) or the insert position of 'key'.
-	 * The insert position x is coded as '-(x + 1)'.
-	 *  
-	 * @param fromIndex int start index (inclusive)
-	 * @param toIndex int end index (exclusive)
-	 * @param key E candidate
-	 * @return int index position for key, may be negative for insert position
-	 * @throws ClassCastException
-	 * @throws NullPointerException
+	/** Returns the index of the first element in this list which does not 
+	 * sort lower than the given key. If there is no such element, size() is
+	 * returned. If the key is contained, this is the start of the sequence of 
+	 * elements of equal sorting value. Costs O(log n) time.
+	 * 
+	 * @param key E search value
+	 * @return int index position, 0..size()
+	 * @throws ClassCastException if the key cannot be compared
+	 * @throws NullPointerException if the key is null and this list uses
+	 *         natural ordering 
 	 */
-    @SuppressWarnings("unchecked")
-	private int binarySearch (int fromIndex, int toIndex, E key) {
-        int low = fromIndex;
-        int high = toIndex - 1;
-        int size = size();
-
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            E midVal = get(mid);
-            int cmp = comparator == null ? ((Comparable<E>)midVal).compareTo(key) 
-            		  : comparator.compare(midVal, key);
-
-            if (cmp < 0) {
-                low = mid + 1;
-            } else if (cmp > 0) {
-                high = mid - 1;
-            } else {
-            	// search for last element in a sequence of identical entries
-            	midVal = null;
-            	while (mid < size-1 && cmp == 0) {
-                    midVal = get(++mid);
-            		cmp = comparator == null ? ((Comparable<E>)midVal).compareTo(key) 
-                  		  : comparator.compare(midVal, key);
-            	}
-    			if (cmp != 0 && midVal != null) mid--;
-            	
-                return mid; // key found
-            }
-        }
-        return -(low + 1);  // key not found.
-    }
+	public int lowerBound (E key) {
+		checkKey(key);
+		return lowerBound(0, size(), key);
+	}
+	
+	/** Returns the index of the first element in this list which sorts 
+	 * greater than the given key. If there is no such element, size() is
+	 * returned. If the key is contained, this is the end (exclusive) of the
+	 * sequence of elements of equal sorting value. Costs O(log n) time.
+	 * 
+	 * @param key E search value
+	 * @return int index position, 0..size()
+	 * @throws ClassCastException if the key cannot be compared
+	 * @throws NullPointerException if the key is null and this list uses
+	 *         natural ordering 
+	 */
+	public int upperBound (E key) {
+		checkKey(key);
+		return upperBound(0, size(), key);
+	}
+	
+	/** Returns the number of elements in this list which have the same 
+	 * sorting value as the given key. Costs O(log n) time.
+	 * 
+	 * @param key E search value
+	 * @return int number of elements
+	 * @throws ClassCastException if the key cannot be compared
+	 * @throws NullPointerException if the key is null and this list uses
+	 *         natural ordering 
+	 */
+	public int countOf (E key) {
+		checkKey(key);
+		int low = lowerBound(0, size(), key);
+		return upperBound(low, size(), key) - low;
+	}
+	
+	/** Returns a read-only view of the sequence of elements in this list 
+	 * which have the same sorting value as the given key. The view is empty
+	 * if there is no such element. The view is backed by this list and 
+	 * becomes invalid with a structural modification of this list. Costs
+	 * O(log n) time.
+	 * 
+	 * @param key E search value
+	 * @return {@code List<E>}
+	 * @throws ClassCastException if the key cannot be compared
+	 * @throws NullPointerException if the key is null and this list uses
+	 *         natural ordering 
+	 */
+	public List<E> subListOf (E key) {
+		checkKey(key);
+		int low = lowerBound(0, size(), key);
+		int high = upperBound(low, size(), key);
+		return Collections.unmodifiableList(subList(low, high));
+	}
+	
+	private void checkKey (E key) {
+		if (key == null && comparator == null)
+			throw new NullPointerException();
+	}
     
     /** This method has been overridden to be equivalent with 'add(e)', i.e.
      * the index parameter is ignored as pointed insertion is not allowed in a
@@ -225,7 +254,10 @@ public class SortedArrayList<E> extends ArrayList<E> {
     	return addAll(c);
     }
     
-    /** Adds all elements of the given collection to this list.
+    /** Adds all elements of the given collection to this list. The elements
+     * are sorted as a batch and merged into this list in a single pass.
+     * Elements are placed behind existing elements of equal sorting value
+     * and keep the order of the collection's iterator among themselves.
      * 
 	 * @param c {@code Collection<? extends E>}, may be null
 	 * @throws ClassCastException if some object in the collection cannot be 
@@ -237,14 +269,12 @@ public class SortedArrayList<E> extends ArrayList<E> {
     @Override
 	public boolean addAll (Collection<? extends E> c) {
     	if (c == null) return false;
-    	int sz = size();
-    	for (Iterator<? extends E> it = c.iterator(); it.hasNext();) {
-    		add(it.next());
-    	}
-    	return size() > sz;
+    	return mergeBatch(c.toArray());
     }
     
-    /** Adds all elements of the given value array to this list.
+    /** Adds all elements of the given value array to this list. The 
+     * elements are sorted as a batch and merged into this list in a single
+     * pass. The argument array is not modified.
      * 
 	 * @param arr E[] array of entries to add, may be null
      * @return boolean true iff this list changed through this method
@@ -256,12 +286,115 @@ public class SortedArrayList<E> extends ArrayList<E> {
      */
 	public boolean addAll (E[] arr) {
     	if (arr == null) return false;
-    	int sz = size();
-    	for (E e : arr) {
-    		add(e);
-    	}
-    	return size() > sz;
+    	return mergeBatch(arr.clone());
+    }
+
+    /** Inserts a batch of new elements into this list. The batch is sorted
+     * (stable) and then merged into the list in a single pass from the end
+     * of the list, so that the cost is O(n + m*log m) with n = size() and
+     * m = batch size. Elements of the batch are placed behind existing 
+     * elements of equal sorting value and maintain the order of the batch 
+     * among themselves, which is the same result as adding the elements 
+     * individually. The list remains unchanged if an exception is thrown.
+     * 
+     * @param batch Object[] elements to add; is modified by this method
+     * @return boolean true iff this list changed
+	 * @throws ClassCastException if some object of the batch cannot be 
+	 *  	   compared
+	 * @throws NullPointerException if some object of the batch is null 
+	 * 	       and this list uses natural ordering
+     */
+	@SuppressWarnings("unchecked")
+	private boolean mergeBatch (Object[] batch) {
+		int m = batch.length;
+		if (m == 0) return false;
+		if (comparator == null) {
+			for (Object e : batch) {
+				if (e == null) throw new NullPointerException();
+			}
+		}
+		Arrays.sort(batch, (Comparator<Object>) comparator);
+		
+		// determine the insert positions of the batch elements (read-only)
+		int n = size();
+		int[] pos = new int[m];
+		boolean search = m < n >>> 4;
+		for (int j = 0, i = 0; j < m; j++) {
+			E key = (E) batch[j];
+			if (search) {
+				i = upperBound(i, n, key);
+			} else {
+				while (i < n && compare(get(i), key) <= 0) {
+					i++;
+				}
+			}
+			pos[j] = i;
+		}
+		
+		// extend the list and move elements backwards into their places
+		super.addAll(Arrays.asList((E[]) batch));
+		int k = n + m - 1;
+		int i = n - 1;
+		for (int j = m - 1; j > -1; j--) {
+			while (i >= pos[j]) {
+				super.set(k--, get(i--));
+			}
+			super.set(k--, (E) batch[j]);
+		}
+		return true;
+	}
+	
+    @SuppressWarnings("unchecked")
+	private int compare (E a, E b) {
+    	return comparator == null ? ((Comparable<E>)a).compareTo(b) 
+    			: comparator.compare(a, b);
     }
+	
+	/** Returns the index of the first element in the given index range which
+	 * does not sort lower than the given key, or {@code toIndex} if there is
+	 * no such element.
+	 * 
+	 * @param fromIndex int start index (inclusive)
+	 * @param toIndex int end index (exclusive)
+	 * @param key E search value
+	 * @return int index position
+	 */
+	private int lowerBound (int fromIndex, int toIndex, E key) {
+		int low = fromIndex;
+		int high = toIndex;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(get(mid), key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+	
+	/** Returns the index of the first element in the given index range which
+	 * sorts greater than the given key, or {@code toIndex} if there is no 
+	 * such element.
+	 * 
+	 * @param fromIndex int start index (inclusive)
+	 * @param toIndex int end index (exclusive)
+	 * @param key E search value
+	 * @return int index position
+	 */
+	private int upperBound (int fromIndex, int toIndex, E key) {
+		int low = fromIndex;
+		int high = toIndex;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(get(mid), key) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
 
 	
     /** Adds all elements of the given value array from this list.
@@ -305,13 +438,10 @@ public class SortedArrayList<E> extends ArrayList<E> {
 	
     /** Resorts the content of this list according to the active sorting.
      */
-	@SuppressWarnings("unchecked")
 	protected void resort () {
 		Object arr[] = toArray();
 		clear();
-		for (Object e : arr) {
-			add((E)e);
-		}
+		mergeBatch(arr);
 	}
 
 	/** Replaces the element at the specified position in this list with the
@@ -358,5 +488,59 @@ public class SortedArrayList<E> extends ArrayList<E> {
 		throw new UnsupportedOperationException();
 	}
 
+	/** Returns a spliterator over the elements of this list. In addition to
+	 * the characteristics of the {@code ArrayList} spliterator (SIZED, 
+	 * SUBSIZED, ORDERED; constant time splitting) this reports SORTED and
+	 * the comparator of this list.
+	 * 
+	 * @return {@code Spliterator<E>}
+	 */
+	@Override
+	public Spliterator<E> spliterator () {
+		return new SortedSpliterator(super.spliterator());
+	}
+	
+	/** Spliterator which adds the SORTED characteristic to the array-list 
+	 * spliterator.
+	 */
+	private class SortedSpliterator implements Spliterator<E> {
+		private final Spliterator<E> base;
+		
+		SortedSpliterator (Spliterator<E> base) {
+			this.base = base;
+		}
+		
+		@Override
+		public boolean tryAdvance (Consumer<? super E> action) {
+			return base.tryAdvance(action);
+		}
+
+		@Override
+		public void forEachRemaining (Consumer<? super E> action) {
+			base.forEachRemaining(action);
+		}
+
+		@Override
+		public Spliterator<E> trySplit () {
+			Spliterator<E> split = base.trySplit();
+			return split == null ? null : new SortedSpliterator(split);
+		}
+
+		@Override
+		public long estimateSize () {
+			return base.estimateSize();
+		}
+
+		@Override
+		public int characteristics () {
+			return base.characteristics() | Spliterator.SORTED;
+		}
+
+		@Override
+		public Comparator<? super E> getComparator () {
+			return comparator;
+		}
+	}
+
 	
 }
@@ -11,9 +11,12 @@ import java.io.NotSerializableException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -407,6 +410,126 @@ public class TestC_SortedArrayList {
 		assertTrue(Util.isSortedSet(list1, comp));
 	}
 	
+	@Test
+	public void bulk_merge () {
+		// comparator on string length produces many equal sorting values
+		Comparator<String> comp = new LengthComparator();
+		SortedArrayList<String> list1 = new SortedArrayList<>(comp);
+		List<String> list2 = new ArrayList<>();
+		
+		for (int round = 0; round < 4; round++) {
+			// batches of different sizes (merge walk and binary search)
+			int n = round == 2 ? 3 : 200;
+			List<String> batch = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				batch.add(Util.randomString(12));
+			}
+			
+			// bulk addition equals stable sorting, incl. order of equals
+			assertTrue(list1.addAll(batch));
+			list2.addAll(batch);
+			Collections.sort(list2, comp);
+			assertTrue(list1.size() == list2.size());
+			for (int i = 0; i < list1.size(); i++) {
+				assertTrue("element mismatch at " + i, list1.get(i) == list2.get(i));
+			}
+			assertTrue(Util.isSortedSet(list1, comp));
+		}
+		
+		// array and constructor variants
+		String[] arr = list1.toArray(new String[0]);
+		Collections.reverse(Arrays.asList(arr));
+		SortedArrayList<String> list3 = new SortedArrayList<>(arr);
+		assertTrue(list3.size() == arr.length);
+		assertTrue(Util.isSortedSet(list3, null));
+		list3 = new SortedArrayList<>(Arrays.asList(arr));
+		assertTrue(list3.size() == arr.length);
+		assertTrue(Util.isSortedSet(list3, null));
+		assertTrue(list3.addAll(arr));
+		assertTrue(list3.size() == 2 * arr.length);
+		assertTrue(Util.isSortedSet(list3, null));
+		assertFalse(list3.addAll(new String[0]));
+		assertFalse(list3.addAll(new ArrayList<String>()));
+		
+		// failing batch leaves the list unchanged
+		int size = list3.size();
+		try {
+			list3.addAll(new String[] {"a", null, "b"});
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+		}
+		assertTrue(list3.size() == size);
+		assertTrue(Util.isSortedSet(list3, null));
+	}
+	
+	@Test
+	public void equal_key_ranges () {
+		Comparator<String> comp = new LengthComparator();
+		SortedArrayList<String> list1 = new SortedArrayList<>(comp);
+		List<String> list2 = new ArrayList<>();
+		
+		// single additions keep the order of addition among equal values
+		for (int i = 0; i < 500; i++) {
+			String s = Util.randomString(8);
+			list1.add(s);
+			list2.add(s);
+		}
+		Collections.sort(list2, comp);
+		for (int i = 0; i < list1.size(); i++) {
+			assertTrue("element mismatch at " + i, list1.get(i) == list2.get(i));
+		}
+		
+		// bounds and counts for each key length
+		int total = 0;
+		for (int len = 0; len < 10; len++) {
+			String key = "xxxxxxxxxxxx".substring(0, len);
+			int low = list1.lowerBound(key);
+			int high = list1.upperBound(key);
+			int count = list1.countOf(key);
+			List<String> sub = list1.subListOf(key);
+			
+			assertTrue(high - low == count);
+			assertTrue(sub.size() == count);
+			for (String s : sub) {
+				assertTrue(s.length() == len);
+			}
+			assertTrue(low == 0 || list1.get(low-1).length() < len);
+			assertTrue(high == list1.size() || list1.get(high).length() > len);
+			total += count;
+		}
+		assertTrue(total == list1.size());
+		
+		// the view is read-only
+		try {
+			list1.subListOf("abc").clear();
+			fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+		}
+		
+		// natural ordering: non-contained key and null key
+		SortedArrayList<String> list3 = new SortedArrayList<>(new String[] {"b", "d", "d", "f"});
+		assertTrue(list3.lowerBound("a") == 0);
+		assertTrue(list3.upperBound("g") == 4);
+		assertTrue(list3.lowerBound("d") == 1);
+		assertTrue(list3.upperBound("d") == 3);
+		assertTrue(list3.lowerBound("c") == 1);
+		assertTrue(list3.upperBound("c") == 1);
+		assertTrue(list3.countOf("c") == 0);
+		assertTrue(list3.subListOf("c").isEmpty());
+		try {
+			list3.countOf(null);
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+		}
+	}
+	
+	private static class LengthComparator implements Comparator<String> {
+		@Override
+		public int compare (String o1, String o2) {
+			return o1.length() - o2.length();
+		}
+	}
+	
 	private static class ReverseComparator<E extends Comparable<E>> implements Comparator<E>, Serializable {
 	    private static final long serialVersionUID = 988276557223200L;
 
@@ -429,4 +552,23 @@ public class TestC_SortedArrayList {
 			return -c;
 		}
 	}
+	@Test
+	public void spliterator () {
+		SortedArrayList<String> list1 = preloadedStr(1000);
+		Spliterator<String> sp = list1.spliterator();
+		assertTrue(sp.hasCharacteristics(Spliterator.SORTED));
+		assertTrue(sp.hasCharacteristics(Spliterator.SIZED));
+		assertTrue(sp.hasCharacteristics(Spliterator.SUBSIZED));
+		assertNull(sp.getComparator());
+		Spliterator<String> sp2 = sp.trySplit();
+		assertTrue(sp2.hasCharacteristics(Spliterator.SORTED));
+		assertTrue(sp.estimateSize() + sp2.estimateSize() == 1000);
+		
+		Comparator<String> comp = new ReverseComparator<String>();
+		list1.setComparator(comp);
+		assertTrue(list1.spliterator().getComparator() == comp);
+		List<String> list2 = list1.parallelStream().collect(Collectors.toList());
+		assertTrue(list2.equals(list1));
+	}
+
 }
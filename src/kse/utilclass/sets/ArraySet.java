@@ -26,11 +26,15 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /** ArraySet is a {@code java.util.AbstractSet} which implements the 
  * package own {@code OperatingSet} interface for convenient set operations. 
@@ -42,10 +46,17 @@ import java.util.SortedSet;
  * causes less heap segmentation. There is, however, a disadvantage in higher
  * cardinalities, and in particular with the set operations, for their execution
  * time.
+ * <p>From a size of {@code HASH_INDEX_THRESHOLD} elements on, membership
+ * requests are served by a hash index which is built lazily over the 
+ * element array. The index does not change the element order (which remains
+ * the insertion order) and can be switched off with 
+ * {@code setHashIndexing(false)}. It relies on a consistent implementation
+ * of {@code hashCode()} and {@code equals()} of the elements.
  * <p><b>Complexities (of the implementation of this class)</b>
- * <br>Single item: insertion costs O(1), iteration, removal and membership 
- * cost O(n) execution time, with n = size(). Set operations (s1, s2)
- * ({@code OperatingSet}) cost O(n*m) with n=|s1|, m=|s2|.
+ * <br>Single item: insertion and membership cost O(1) with hash index, O(n)
+ * without; iteration and removal cost O(n) execution time, with n = size().
+ * Set operations (s1, s2) ({@code OperatingSet}) cost O(n+m) with hash 
+ * index and O(n*m) without, with n=|s1|, m=|s2|.
  *  
  * @param <E> element type of this container class
  */
@@ -72,6 +83,17 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
      */
     private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
+    /**
+     * The set size from which on a hash index is used for membership
+     * requests, if hash indexing is enabled.
+     */
+    public static final int HASH_INDEX_THRESHOLD = 16;
+
+    /**
+     * The maximum length of the hash index table (power of 2).
+     */
+    private static final int MAX_HASH_TABLE = 1 << 30;
+
     /**
      * The array buffer into which the elements of the ArrayList are stored.
      * The capacity of the ArrayList is the length of this array buffer. Any
@@ -89,6 +111,17 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
     
     protected int modCount;
 
+    /**
+     * Open-addressing (linear probing) hash table over the element array.
+     * A slot holds the index position + 1 of an element in elementData or 
+     * zero for an empty slot. The table length is a power of 2 and at least
+     * twice the set size. Null if the index is not available.
+     */
+    private transient int[] hashIndex;
+    
+    /** Whether hash indexing has been switched off by the user. */
+    private boolean hashIndexOff;
+
     /**
      * Constructs an empty set with the specified initial capacity.
      *
@@ -186,6 +219,163 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
        }
     }
     
+    /** Sets whether this set uses a hash index for membership requests when
+     * its size reaches {@code HASH_INDEX_THRESHOLD}. The default value is 
+     * <b>true</b>. 
+     * 
+     * @param v boolean true = use hash index, false = linear search only
+     */
+    public void setHashIndexing (boolean v) {
+    	hashIndexOff = !v;
+    	if (!v) {
+    		hashIndex = null;
+    	}
+    }
+    
+    /** Whether this set uses a hash index for membership requests when its
+     * size reaches {@code HASH_INDEX_THRESHOLD}.
+     * 
+     * @return boolean
+     */
+    public boolean isHashIndexing () {
+    	return !hashIndexOff;
+    }
+    
+    /** Discards the hash index of this set, if available. Subclasses which 
+     * modify the element array directly must call this method if they make
+     * use of the inherited membership functions. The index is rebuilt on 
+     * demand.
+     */
+    protected void invalidateHashIndex () {
+    	hashIndex = null;
+    }
+    
+    /** Whether the hash index is available for searching; builds the index
+     * if required and feasible.
+     * 
+     * @return boolean true = index is available
+     */
+    private boolean hashIndexActive () {
+    	if (hashIndex == null) {
+    		if (hashIndexOff || size < HASH_INDEX_THRESHOLD || size > MAX_HASH_TABLE / 2) 
+    			return false;
+    		buildHashIndex();
+    	}
+    	return true;
+    }
+    
+    /** Spreads the hash value of the given object for use as a table 
+     * position.
+     * 
+     * @param o Object, may be null
+     * @return int hash value
+     */
+    private static int spread (Object o) {
+    	int h = o == null ? 0 : o.hashCode() * 0x9E3779B9;
+    	return h ^ (h >>> 16);
+    }
+    
+    /** Creates a new hash index for the current element array. The table 
+     * length is chosen to be at least 2.5 times the set size.
+     */
+    private void buildHashIndex () {
+    	int n = 64;
+    	int min = size * 2 + size / 2;
+    	while (n < min && n < MAX_HASH_TABLE) {
+    		n <<= 1;
+    	}
+    	
+    	int[] tab = new int[n];
+    	int mask = n - 1;
+    	for (int k = 0; k < size; k++) {
+    		int i = spread(elementData[k]) & mask;
+    		while (tab[i] != 0) {
+    			i = (i + 1) & mask;
+    		}
+    		tab[i] = k + 1;
+    	}
+    	hashIndex = tab;
+    }
+    
+    /** Returns the index position of the given object in the element array
+     * by means of the hash index, or -1 if it is not contained. The hash
+     * index must be available.
+     * 
+     * @param o Object, may be null
+     * @return int index position or -1
+     */
+    private int hashSearch (Object o) {
+    	int[] tab = hashIndex;
+    	int mask = tab.length - 1;
+    	for (int i = spread(o) & mask;; i = (i + 1) & mask) {
+    		int p = tab[i];
+    		if (p == 0) return -1;
+    		Object e = elementData[p - 1];
+    		if (o == e || (o != null && o.equals(e))) return p - 1;
+    	}
+    }
+    
+    /** Enters the element at the given position of the element array into
+     * the hash index, if the index is available. 
+     * 
+     * @param pos int element position
+     */
+    private void hashInsert (int pos) {
+    	int[] tab = hashIndex;
+    	if (tab == null) return;
+
+    	// rebuild a larger table if the load exceeds one half
+    	if (size * 2 > tab.length) {
+    		hashIndex = null;
+    		hashIndexActive();
+    		return;
+    	}
+    	
+    	int mask = tab.length - 1;
+    	int i = spread(elementData[pos]) & mask;
+		while (tab[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		tab[i] = pos + 1;
+    }
+    
+    /** Removes the element at the given position of the element array from
+     * the hash index, if the index is available, and adjusts the entries of
+     * the index for the following closing of the gap in the element array.
+     * This must be called before the element array is modified.
+     * 
+     * @param pos int element position
+     */
+    private void hashDelete (int pos) {
+    	int[] tab = hashIndex;
+    	if (tab == null) return;
+    	
+    	// find the slot of the element
+    	int mask = tab.length - 1;
+    	int i = spread(elementData[pos]) & mask;
+    	while (tab[i] != pos + 1) {
+    		i = (i + 1) & mask;
+    	}
+    	
+    	// close the slot by shifting back following entries of the cluster
+    	for (int j = (i + 1) & mask; tab[j] != 0; j = (j + 1) & mask) {
+    		int h = spread(elementData[tab[j] - 1]) & mask;
+    		boolean stays = i < j ? h > i && h <= j : h > i || h <= j;
+    		if (!stays) {
+    			tab[i] = tab[j];
+    			i = j;
+    		}
+    	}
+    	tab[i] = 0;
+    	
+    	// renumber elements behind the removed position
+    	for (int k = 0; k < tab.length; k++) {
+    		if (tab[k] > pos + 1) {
+    			tab[k]--;
+    		}
+    	}
+    }
+    
     /**
      * Increases the capacity to ensure that it can hold at least the
      * number of elements specified by the minimum capacity argument.
@@ -219,6 +409,18 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
       return new ASIterator();
    }
 
+   /** Returns a spliterator over the element array of this set. The 
+    * spliterator splits in constant time, reports exact sizes and has the
+    * characteristics SIZED, SUBSIZED, ORDERED and DISTINCT; for sorted
+    * sets additionally SORTED. It is late-binding and fail-fast.
+    * 
+    * @return {@code Spliterator<E>}
+    */
+   @Override
+   public Spliterator<E> spliterator() {
+      return new ASSpliterator(0, -1, 0);
+   }
+
    @Override
    public int size() {
       return size;
@@ -233,9 +435,22 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
       ensureCapacity(size + 1);
       elementData[size++] = e;
       modCount++;
+      hashInsert(size - 1);
       return true;
    }
 
+   @Override
+   public boolean remove (Object o) {
+	   int i = indexOf(o);
+	   if (i < 0) return false;
+	   
+	   hashDelete(i);
+	   System.arraycopy(elementData, i+1, elementData, i, --size-i);
+	   elementData[size] = null;
+	   modCount++;
+	   return true;
+   }
+
    /** Returns the index position of the given element in this array-set or
     * -1 if it is not contained.
     * 
@@ -243,6 +458,10 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
     * @return index position or -1
     */
    public int indexOf (Object o) {
+	   if (hashIndexActive()) {
+		   return hashSearch(o);
+	   }
+	   
 	   if (o == null) {
 		   for (int i = 0; i < size; i++) {
 			   if (elementData[i] == null) {
@@ -314,6 +533,7 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
    public void clear() {
 	  if (size > 0) {
 		  elementData = EMPTY_ELEMENTDATA;
+		  hashIndex = null;
 		  size = 0;
 		  modCount++;
 	  }
@@ -329,6 +549,7 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
       try {
 		 ArraySet<E> copy = (ArraySet<E>)super.clone();
          copy.elementData = Arrays.copyOf(elementData, size);
+         copy.hashIndex = hashIndex == null ? null : hashIndex.clone();
          return copy;
       } catch (CloneNotSupportedException e) {
          return null;
@@ -336,10 +557,21 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
    }
 
    protected ArraySet<E> emptyClone () {
+      return emptyClone(2*DEFAULT_CAPACITY);
+   }
+
+   /** Returns an empty shallow clone of this ArraySet with an element array
+    * of the given capacity.
+    * 
+    * @param capacity int initial capacity of the clone
+    * @return {@code ArraySet<E>}
+    */
+   protected ArraySet<E> emptyClone (int capacity) {
       try {
     	@SuppressWarnings("unchecked")
 		ArraySet<E> copy = (ArraySet<E>)super.clone();
-         copy.elementData = new Object[2*DEFAULT_CAPACITY];
+         copy.elementData = capacity == 0 ? EMPTY_ELEMENTDATA : new Object[capacity];
+         copy.hashIndex = null;
          copy.size = 0;
          copy.modCount = 0;
          return copy;
@@ -453,10 +685,13 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
             try {
             	// remove element index = lastRet from array
             	int i = lastRet;
+            	hashIndex = null;
             	System.arraycopy(elementData, i+1, elementData, i, --size-i);
             	elementData[size] = null;
                 cursor = lastRet;
                 lastRet = -1;
+                modCount++;
+                expectedModCount = modCount;
                 
             } catch (IndexOutOfBoundsException ex) {
                 throw new ConcurrentModificationException(ex);
@@ -478,4 +713,88 @@ public class ArraySet<E> extends AbstractSet<E> implements OperatingSet<E>,
 		}
     }
 
+    /**
+     * Spliterator over an index range of the element data of this ArraySet.
+     */
+    protected class ASSpliterator implements Spliterator<E> {
+        private int index;      // current index, modified on advance/split
+        private int fence;      // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        ASSpliterator (int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { 
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = modCount;
+                hi = fence = size;
+            }
+            return hi;
+        }
+
+        @Override
+        public ASSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return lo >= mid ? null : 
+                   new ASSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept((E) elementData[i]);
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            Object[] data = elementData;
+            int hi = getFence(), i = index;
+            index = hi;
+            if (hi > data.length)
+                throw new ConcurrentModificationException();
+            for (; i < hi; i++) {
+                action.accept((E) data[i]);
+            }
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            int c = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED 
+            		| Spliterator.DISTINCT;
+            return ArraySet.this instanceof SortedSet ? c | Spliterator.SORTED : c;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            if (ArraySet.this instanceof SortedSet) {
+                @SuppressWarnings("unchecked")
+                Comparator<? super E> comp = ((SortedSet<E>)ArraySet.this).comparator(); 
+                return comp;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
 }
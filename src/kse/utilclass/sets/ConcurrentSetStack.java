@@ -0,0 +1,456 @@
+package kse.utilclass.sets;
+
+/*
+*  File: ConcurrentSetStack.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A thread-safe most-recently-used (MRU) stack which works as
+ * {@code Set<E>} and offers the stack functions of {@code SetStack}. Each
+ * push of an element relocates it to the top of the stack; an element is
+ * contained only once.
+ *
+ * <p>Elements are indexed by a {@code ConcurrentHashMap} and ordered by a
+ * doubly linked list of nodes. Modifications are performed by a single
+ * writer at a time (lock); {@code contains()}, {@code size()},
+ * {@code peek()} and iteration operate without locking.
+ *
+ * <p>An optional capacity bound can be set at construction. If a push
+ * exceeds the capacity, the eldest element (bottom of the stack) is removed.
+ *
+ * <p>Iterators run from the top of the stack to the bottom and are weakly
+ * consistent: they never throw {@code ConcurrentModificationException},
+ * return each element at most once and reflect modifications since their
+ * creation only in part. Elements pushed after the creation of an iterator
+ * are not returned by it. Null elements are not permitted.
+ *
+ * <p><b>Complexities:</b>
+ * <br>{@code push()}, {@code touch()}, {@code remove()}, {@code pop()},
+ * {@code peek()} and {@code contains()} cost O(1) execution time;
+ * {@code search()} costs O(n) as it counts the distance from the top.
+ *
+ * @param <E>
+ */
+public class ConcurrentSetStack<E> extends AbstractSet<E> implements Serializable {
+
+	private static final long serialVersionUID = 8223386640083767901L;
+
+	/** Node of the ordering list. A node is never relocated; a touched
+	 * element receives a new node at the top of the stack, the old node is
+	 * marked dead. Dead nodes keep their 'next' reference, so that iterators
+	 * positioned on them can continue towards the bottom.
+	 */
+	private static final class Node<E> {
+		final E item;
+		volatile Node<E> next;
+		Node<E> prev;
+		volatile boolean dead;
+
+		Node (E item) {
+			this.item = item;
+		}
+	}
+
+	private final int capacity;
+	private transient ConcurrentHashMap<E, Node<E>> index;
+	private transient volatile Node<E> head;  // top of stack
+	private transient Node<E> tail;           // bottom of stack
+	private transient volatile int size;
+	private transient Object lock;
+
+	/** Creates a new stack without capacity bound.
+	 */
+	public ConcurrentSetStack () {
+		this(0);
+	}
+
+	/** Creates a new stack with the given capacity bound. If the number of
+	 * elements exceeds the capacity, the eldest element is removed.
+	 *
+	 * @param capacity int maximum number of elements, 0 for unbounded
+	 * @throws IllegalArgumentException if the argument is negative
+	 */
+	public ConcurrentSetStack (int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity is negative");
+		this.capacity = capacity;
+		init();
+	}
+
+	/** Creates a new unbounded stack with the given collection as initial
+	 * content. The last element will be the top of the stack.
+	 *
+	 * @param c {@code Collection<E>}
+	 */
+	public ConcurrentSetStack (Collection<E> c) {
+		this(0);
+		for (E e : c) {
+			push(e);
+		}
+	}
+
+	private void init () {
+		index = new ConcurrentHashMap<>();
+		lock = new Object();
+	}
+
+	/** Returns the capacity bound of this stack.
+	 *
+	 * @return int maximum number of elements, 0 for unbounded
+	 */
+	public int getCapacity () {
+		return capacity;
+	}
+
+	// ---------- list operations (to be called under lock) ----------
+
+	private void linkFirst (Node<E> node) {
+		Node<E> h = head;
+		node.next = h;
+		if (h == null) {
+			tail = node;
+		} else {
+			h.prev = node;
+		}
+		head = node;
+		size++;
+	}
+
+	private void unlink (Node<E> node) {
+		Node<E> p = node.prev, n = node.next;
+		node.dead = true;
+		if (p == null) {
+			head = n;
+		} else {
+			p.next = n;
+		}
+		if (n == null) {
+			tail = p;
+		} else {
+			n.prev = p;
+		}
+		size--;
+	}
+
+	// -----------------------------------------------------------------
+
+	/** Pushes a new element on top of this stack. If an equal element is
+	 * already contained, it is removed before the new element is inserted.
+	 * If the capacity bound is exceeded, the eldest element is removed.
+	 *
+	 * @param item E
+	 * @return E the added element
+	 */
+	public E push (E item) {
+		Objects.requireNonNull(item);
+		synchronized (lock) {
+			Node<E> old = index.get(item);
+			if (old != null) {
+				unlink(old);
+			}
+			Node<E> node = new Node<>(item);
+			linkFirst(node);
+			index.put(item, node);
+
+			if (capacity > 0 && size > capacity) {
+				Node<E> t = tail;
+				unlink(t);
+				index.remove(t.item, t);
+			}
+		}
+		return item;
+	}
+
+	/** Relocates the given element to the top of the stack if it is
+	 * contained. Other than {@code push()} this does not insert the element
+	 * if it is not contained.
+	 *
+	 * @param item E
+	 * @return boolean true = element was contained and relocated
+	 */
+	public boolean touch (E item) {
+		Objects.requireNonNull(item);
+		if (!index.containsKey(item)) return false;
+
+		synchronized (lock) {
+			Node<E> old = index.get(item);
+			if (old == null) return false;
+			if (old != head) {
+				unlink(old);
+				Node<E> node = new Node<>(old.item);
+				linkFirst(node);
+				index.put(node.item, node);
+			}
+			return true;
+		}
+	}
+
+	/** Adds the specified element to this set on top of the stack and
+	 * removes any previous occurrence of the entry if it was already present.
+	 * Works as {@code push()}.
+	 *
+	 * @param e E entry to add
+	 * @return boolean true
+	 */
+	@Override
+	public boolean add (E e) {
+		push(e);
+		return true;
+	}
+
+	/** Returns the top element of this stack by removing it
+	 * or null if this stack is empty.
+	 *
+	 * @return E or null
+	 */
+	public E pop () {
+		synchronized (lock) {
+			Node<E> h = head;
+			if (h == null) return null;
+			unlink(h);
+			index.remove(h.item, h);
+			return h.item;
+		}
+	}
+
+	/** Returns the top element of this stack without removing it
+	 * or null if the stack is empty.
+	 *
+	 * @return E or null
+	 */
+	public E peek () {
+		Node<E> h = head;
+		return h == null ? null : h.item;
+	}
+
+	/** Returns the bottom element (eldest entry) of this stack without
+	 * removing it or null if the stack is empty.
+	 *
+	 * @return E or null
+	 */
+	public E peekEldest () {
+		synchronized (lock) {
+			Node<E> t = tail;
+			return t == null ? null : t.item;
+		}
+	}
+
+	/** Returns the distance of object o from the top of the stack, starting
+	 * with 1 at the top position, or -1 if the object is not contained.
+	 *
+	 * @param o Object to search
+	 * @return distance in 1-steps from top or -1 if object is not contained
+	 */
+	public int search (Object o) {
+		if (o == null || !index.containsKey(o)) return -1;
+
+		synchronized (lock) {
+			int dist = 1;
+			for (Node<E> n = head; n != null; n = n.next, dist++) {
+				if (n.item.equals(o)) return dist;
+			}
+			return -1;
+		}
+	}
+
+	/** Whether this stack contains no elements. Same as "isEmpty()", this is
+	 * a convenience method to comply with the {@code Stack} interface.
+	 *
+	 * @return boolean
+	 */
+	public boolean empty () {return isEmpty();}
+
+	@Override
+	public boolean contains (Object o) {
+		return o != null && index.containsKey(o);
+	}
+
+	@Override
+	public boolean remove (Object o) {
+		if (o == null || !index.containsKey(o)) return false;
+
+		synchronized (lock) {
+			Node<E> node = index.remove(o);
+			if (node == null) return false;
+			unlink(node);
+			return true;
+		}
+	}
+
+	@Override
+	public int size () {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	@Override
+	public void clear () {
+		synchronized (lock) {
+			for (Node<E> n = head; n != null; n = n.next) {
+				n.dead = true;
+			}
+			index.clear();
+			head = tail = null;
+			size = 0;
+		}
+	}
+
+	/** Returns an iterator over the elements in this stack in the order
+	 * of the stack-list, from top of the stack to the bottom. The iterator
+	 * is weakly consistent.
+	 *
+	 * @return {@code Iterator<E>}
+	 */
+	@Override
+	public Iterator<E> iterator () {
+		return new StackIterator();
+	}
+
+	/** Returns a list of the elements of this stack ordered from the
+	 * youngest to the oldest entries by the index growing, i.e. index zero
+	 * is the top of the stack. The list is a copy and can be modified without
+	 * striking through to this stack.
+	 *
+	 * @return {@code List<E>}
+	 */
+	public List<E> getStackList () {
+		synchronized (lock) {
+			List<E> list = new ArrayList<>(size);
+			for (Node<E> n = head; n != null; n = n.next) {
+				list.add(n.item);
+			}
+			return list;
+		}
+	}
+
+	/** Returns a list of the elements of this stack ordered from the oldest
+	 * to the youngest entries by the index growing. The list is a copy
+	 * and modifications do not write through to this stack.
+	 *
+	 * @return {@code List<E>}
+	 */
+	public List<E> getList () {
+		List<E> list = getStackList();
+		Collections.reverse(list);
+		return list;
+	}
+
+	private void writeObject (ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		List<E> list = getList();
+		out.writeInt(list.size());
+		for (E e : list) {
+			out.writeObject(e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject (ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		init();
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			push((E) in.readObject());
+		}
+	}
+
+// ----------------------------------------------------------
+
+	/** Weakly consistent iterator from top to bottom of the stack. Dead
+	 * nodes (removed or relocated elements) are skipped. The element of the
+	 * next node is pinned when {@code hasNext()} reports it and returned by
+	 * {@code next()} even if its node died since.
+	 */
+	private class StackIterator implements Iterator<E> {
+		private Node<E> next;
+		/** element of 'next' as reported by hasNext(); null if not pinned */
+		private E nextItem;
+		private Node<E> lastRet;
+
+		StackIterator () {
+			next = head;
+		}
+
+		private Node<E> advance (Node<E> n) {
+			while (n != null && n.dead) {
+				n = n.next;
+			}
+			return n;
+		}
+
+		@Override
+		public boolean hasNext () {
+			if (nextItem == null) {
+				// skip a node which died after it was reached
+				next = advance(next);
+				if (next != null) {
+					nextItem = next.item;
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public E next () {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Node<E> n = next;
+			E item = nextItem;
+			lastRet = n;
+			next = n.next;
+			nextItem = null;
+			return item;
+		}
+
+		@Override
+		public void remove () {
+			Node<E> n = lastRet;
+			if (n == null)
+				throw new IllegalStateException();
+			lastRet = null;
+
+			// remove only if the element was not relocated meanwhile
+			synchronized (lock) {
+				if (!n.dead && index.remove(n.item, n)) {
+					unlink(n);
+				}
+			}
+		}
+	}
+}
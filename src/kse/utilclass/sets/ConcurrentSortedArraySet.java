@@ -0,0 +1,680 @@
+package kse.utilclass.sets;
+
+/*
+*  File: ConcurrentSortedArraySet.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * {@code ConcurrentSortedArraySet} is a thread-safe variant of
+ * {@code SortedArraySet} for read-mostly workloads. The content of the set
+ * is held in an immutable sorted array (snapshot) which is published through
+ * a volatile reference. Readers operate on the current snapshot without
+ * locking; membership tests are binary searches and iterators traverse the
+ * snapshot which was current at their creation (they never throw
+ * {@code ConcurrentModificationException}).
+ *
+ * <p>Writers are serialised by a lock and publish a new snapshot for each
+ * modifying call. Several modifications can be performed with a single copy
+ * of the snapshot by {@code update(Consumer)}, which hands a mutable
+ * {@code SortedArraySet} to the caller and publishes its result. Bulk
+ * operations ({@code addAll()}, {@code removeAll()}, {@code retainAll()} and
+ * the {@code OperatingSet} methods) are performed as merges on a single copy.
+ *
+ * <p>Null elements are not permitted. Sub-set views are backed by this set
+ * and resolve their bounds on the current snapshot for each call. If
+ * instances have to be serialised, any comparator supplied needs to implement
+ * the {@code java.io.Serializable} interface.
+ *
+ * <p><b>Complexities:</b>
+ * <br>Membership O(log n) without locking; single insertion and removal O(n)
+ * (array copy); iteration O(n) on a snapshot. Set operations cost as
+ * described for {@code SortedArraySet}.
+ *
+ * @param <E>
+ */
+
+public class ConcurrentSortedArraySet<E> extends AbstractSet<E>
+             implements OperatingSet<E>, SortedSet<E>, Serializable, Cloneable {
+
+    private static final long serialVersionUID = -30952581123900427L;
+	private static final Object[] EMPTY_ELEMENTDATA = new Object[0];
+
+	private final Comparator<? super E> comparator;
+
+	/** the current snapshot; sorted, free of duplicates and never modified */
+	private transient volatile Object[] array = EMPTY_ELEMENTDATA;
+
+	/** lock object for writers */
+	private transient Object lock = new Object();
+
+	/** Creates an empty set with natural sorting of its elements.
+	 */
+	public ConcurrentSortedArraySet () {
+		comparator = null;
+	}
+
+	/** Creates an empty set with the given element comparator.
+	 *
+	 * @param comparator {@code Comparator<? super E>}, may be null
+	 */
+	public ConcurrentSortedArraySet (Comparator<? super E> comparator) {
+		this.comparator = comparator;
+	}
+
+	/** Creates a new set with natural sorting and the given collection as
+	 * initial content. The collection is not required to be sorted and may
+	 * contain duplicate entries.
+	 *
+	 * @param c {@code Collection<? extends E>}, may be null
+	 */
+	public ConcurrentSortedArraySet (Collection<? extends E> c) {
+		comparator = null;
+		if (c != null) {
+			array = new SortedArraySet<E>(c).toArray();
+		}
+	}
+
+	/** Creates a new set with the given {@code SortedSet} as initial content
+	 * and the argument's comparator as sorting. A null argument creates an
+	 * empty set with natural sorting.
+	 *
+	 * @param c {@code SortedSet<E>}, may be null
+	 */
+	public ConcurrentSortedArraySet (SortedSet<E> c) {
+		if (c == null) {
+			comparator = null;
+		} else {
+			comparator = c.comparator();
+			array = c.toArray();
+		}
+	}
+
+	/** Internal constructor for a set on an array which is known to be
+	 * sorted and free of duplicates by the given comparator.
+	 */
+	private ConcurrentSortedArraySet (Comparator<? super E> comparator, Object[] sorted) {
+		this.comparator = comparator;
+		array = sorted;
+	}
+
+	@Override
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	/** Returns the index position of the given object in the given snapshot
+	 * or (-insertPosition -1) if the object is not present.
+	 *
+	 * @param a Object[] snapshot
+	 * @param o Object search object
+	 * @return int index or insert position
+	 * @throws NullPointerException if argument is null
+	 * @throws ClassCastException if the argument cannot be compared with 
+	 *         the elements
+	 */
+	@SuppressWarnings("unchecked")
+	private int position (Object[] a, Object o) {
+		Objects.requireNonNull(o);
+		return Arrays.binarySearch((E[]) a, (E) o, comparator);
+	}
+
+	/** Returns a mutable {@code SortedArraySet} with the content of the
+	 * given snapshot.
+	 *
+	 * @param a Object[] snapshot
+	 * @return {@code SortedArraySet<E>}
+	 */
+	private SortedArraySet<E> workingSet (Object[] a) {
+		SortedArraySet<E> set = new SortedArraySet<E>(comparator, 0);
+		set.elementData = a.clone();
+		set.size = a.length;
+		return set;
+	}
+
+	/** Returns a new {@code SortedArraySet} with the current content of this
+	 * set. The result is not backed by this set.
+	 *
+	 * @return {@code SortedArraySet<E>}
+	 */
+	public SortedArraySet<E> snapshot () {
+		return workingSet(array);
+	}
+
+	/** Performs a batch of modifications on this set. The given action
+	 * receives a mutable copy of the current content, on which it may perform
+	 * any number of operations. After the action returns, the result is
+	 * published as the new content of this set in a single step. Other
+	 * writers are blocked during the action; readers continue to see the
+	 * previous content. The action must not retain a reference to the
+	 * argument and must not change its comparator.
+	 *
+	 * @param action {@code Consumer<? super SortedArraySet<E>>}
+	 * @return boolean true = content of this set was modified
+	 * @throws IllegalStateException if the action changed the comparator;
+	 *         the content of this set remains unchanged
+	 */
+	public boolean update (Consumer<? super SortedArraySet<E>> action) {
+		Objects.requireNonNull(action);
+		synchronized (lock) {
+			SortedArraySet<E> set = workingSet(array);
+			int mc = set.modCount;
+			action.accept(set);
+			if (set.comparator() != comparator)
+				throw new IllegalStateException("comparator changed by update action");
+			if (set.modCount == mc) return false;
+			array = set.toArray();
+			return true;
+		}
+	}
+
+	@Override
+	public int size() {
+		return array.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return array.length == 0;
+	}
+
+	@Override
+	public boolean contains (Object o) {
+		try {
+			return position(array, o) > -1;
+		} catch (ClassCastException e) {
+			return false;
+		}
+	}
+
+	/** Returns the index position of the given object in the sorted sequence
+	 * of the current content or -1 if it is not an element.
+	 *
+	 * @param o Object search object
+	 * @return int index position or -1
+	 */
+	public int indexOf (Object o) {
+		try {
+			int pos = position(array, o);
+			return pos > -1 ? pos : -1;
+		} catch (ClassCastException e) {
+			return -1;
+		}
+	}
+
+	/** Returns the element at the given index position in the sorted
+	 * sequence of the current content.
+	 *
+	 * @param index int index position counting from 0
+	 * @return E
+	 * @throws IndexOutOfBoundsException
+	 */
+	@SuppressWarnings("unchecked")
+	public E getElement (int index) {
+		return (E) array[index];
+	}
+
+	@Override
+	public boolean add (E e) {
+		synchronized (lock) {
+			Object[] a = array;
+			int pos = position(a, e);
+			if (pos > -1) return false;
+			pos = -(pos + 1);
+
+			Object[] b = new Object[a.length + 1];
+			System.arraycopy(a, 0, b, 0, pos);
+			b[pos] = e;
+			System.arraycopy(a, pos, b, pos + 1, a.length - pos);
+			array = b;
+			return true;
+		}
+	}
+
+	@Override
+	public boolean remove (Object o) {
+		synchronized (lock) {
+			Object[] a = array;
+			int pos = position(a, o);
+			if (pos < 0) return false;
+
+			Object[] b = new Object[a.length - 1];
+			System.arraycopy(a, 0, b, 0, pos);
+			System.arraycopy(a, pos + 1, b, pos, b.length - pos);
+			array = b;
+			return true;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (lock) {
+			array = EMPTY_ELEMENTDATA;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean addAll (Collection<? extends E> c) {
+		Objects.requireNonNull(c);
+		if (c.isEmpty()) return false;
+		Set<E> s = c instanceof Set ? (Set<E>) c : new ArraySet<E>(c);
+		return bulkUpdate(set -> set.uniteWith(s));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean removeAll (Collection<?> c) {
+		Objects.requireNonNull(c);
+		if (c.isEmpty()) return false;
+		Set<E> s = c instanceof Set ? (Set<E>) c : new ArraySet<E>((Collection<E>) c);
+		return bulkUpdate(set -> set.exclude(s));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean retainAll (Collection<?> c) {
+		Objects.requireNonNull(c);
+		Set<E> s = c instanceof Set ? (Set<E>) c : new ArraySet<E>((Collection<E>) c);
+		return bulkUpdate(set -> set.intersectWith(s));
+	}
+
+	/** Performs a modification which either only adds or only removes 
+	 * elements and returns whether the size of this set has changed.
+	 */
+	private boolean bulkUpdate (Consumer<SortedArraySet<E>> action) {
+		synchronized (lock) {
+			int n = array.length;
+			update(action);
+			return array.length != n;
+		}
+	}
+
+	/** Returns an iterator over the snapshot of this set which is current at
+	 * the time of the call. The iterator does not reflect later modifications
+	 * of this set. Its {@code remove()} method removes the last returned
+	 * element from this set.
+	 *
+	 * @return {@code Iterator<E>}
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		Object[] a = array;
+		return new SnapshotIterator(a, 0, a.length);
+	}
+
+	/** Returns a spliterator over the snapshot of this set which is current
+	 * at the time of the call.
+	 *
+	 * @return {@code Spliterator<E>}
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		int ch = Spliterator.ORDERED | Spliterator.DISTINCT |
+				 Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+		// array spliterators report natural ordering only
+		if (comparator == null) {
+			ch |= Spliterator.SORTED;
+		}
+		return Spliterators.spliterator(array, ch);
+	}
+
+	@Override
+	public Object[] toArray() {
+		return array.clone();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray (T[] a) {
+		Object[] s = array;
+		int n = s.length;
+        T[] res = a.length >= n ? a : (T[])java.lang.reflect.Array
+                .newInstance(a.getClass().getComponentType(), n);
+		System.arraycopy(s, 0, res, 0, n);
+		if (res.length > n) {
+			res[n] = null;
+		}
+		return res;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E first() {
+		Object[] a = array;
+		return a.length == 0 ? null : (E) a[0];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E last() {
+		Object[] a = array;
+		return a.length == 0 ? null : (E) a[a.length - 1];
+	}
+
+	@Override
+	public SortedSet<E> subSet (E fromElement, E toElement) {
+		Objects.requireNonNull(toElement, "toElement is null");
+		Objects.requireNonNull(fromElement, "fromElement is null");
+		return new SubSet(fromElement, toElement);
+	}
+
+	@Override
+	public SortedSet<E> headSet (E toElement) {
+		Objects.requireNonNull(toElement);
+		return new SubSet(null, toElement);
+	}
+
+	@Override
+	public SortedSet<E> tailSet (E fromElement) {
+		Objects.requireNonNull(fromElement);
+		return new SubSet(fromElement, null);
+	}
+
+	/** Returns a shallow clone of this set. The clone shares the current
+	 * (immutable) snapshot with this set.
+	 *
+	 * @return Object
+	 */
+	@Override
+	public Object clone() {
+		try {
+			@SuppressWarnings("unchecked")
+			ConcurrentSortedArraySet<E> copy = (ConcurrentSortedArraySet<E>)super.clone();
+			copy.lock = new Object();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public OperatingSet<E> intersected (Set<E> a) {
+		return operated(a, set -> set.intersectWith(a));
+	}
+
+	@Override
+	public OperatingSet<E> united (Set<E> a) {
+		return operated(a, set -> set.uniteWith(a));
+	}
+
+	@Override
+	public OperatingSet<E> without (Set<E> a) {
+		return operated(a, set -> set.exclude(a));
+	}
+
+	@Override
+	public OperatingSet<E> xored (Set<E> a) {
+		return operated(a, set -> set.xorWith(a));
+	}
+
+	@Override
+	public void intersectWith (Set<E> a) {
+		Objects.requireNonNull(a);
+		update(set -> set.intersectWith(a));
+	}
+
+	@Override
+	public void uniteWith (Set<E> a) {
+		Objects.requireNonNull(a);
+		update(set -> set.uniteWith(a));
+	}
+
+	@Override
+	public void exclude (Set<E> a) {
+		Objects.requireNonNull(a);
+		update(set -> set.exclude(a));
+	}
+
+	@Override
+	public void xorWith (Set<E> a) {
+		Objects.requireNonNull(a);
+		update(set -> set.xorWith(a));
+	}
+
+	/** Performs the given set operation on a working copy of the current
+	 * snapshot and returns the result as a new instance of this class.
+	 */
+	private OperatingSet<E> operated (Set<E> a, Consumer<SortedArraySet<E>> op) {
+		Objects.requireNonNull(a);
+		SortedArraySet<E> set = workingSet(array);
+		op.accept(set);
+		return new ConcurrentSortedArraySet<E>(comparator, set.toArray());
+	}
+
+	private void writeObject (ObjectOutputStream out) throws IOException {
+		Object[] a = array;
+		out.defaultWriteObject();
+		out.writeInt(a.length);
+		for (Object o : a) {
+			out.writeObject(o);
+		}
+	}
+
+	private void readObject (ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int n = in.readInt();
+		Object[] a = new Object[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = in.readObject();
+		}
+		lock = new Object();
+		array = a;
+	}
+
+// ----------------------------------------------------------
+
+	/** Iterator over an index range of a snapshot array. Removal of elements
+	 * is performed on the enclosing set.
+	 */
+	private class SnapshotIterator implements Iterator<E> {
+		private final Object[] snapshot;
+		private final int fence;
+		private int cursor;
+		private int lastRet = -1;
+
+		SnapshotIterator (Object[] snapshot, int origin, int fence) {
+			this.snapshot = snapshot;
+			this.cursor = origin;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return cursor < fence;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (cursor >= fence)
+				throw new NoSuchElementException();
+			lastRet = cursor++;
+			return (E) snapshot[lastRet];
+		}
+
+		@Override
+		public void remove() {
+			if (lastRet < 0)
+				throw new IllegalStateException();
+			ConcurrentSortedArraySet.this.remove(snapshot[lastRet]);
+			lastRet = -1;
+		}
+	}
+
+	/** A view on a value range of the enclosing set. The bounds are resolved
+	 * by binary search on the current snapshot for each call.
+	 */
+	private class SubSet extends AbstractSet<E> implements SortedSet<E>, Serializable {
+	    private static final long serialVersionUID = -30932555128001427L;
+		private E lowBound, highBound;
+
+		SubSet (E lowBound, E highBound) {
+			if (lowBound != null && highBound != null && compare(highBound, lowBound) < 0) {
+				throw new IllegalArgumentException("high < low");
+			}
+			this.lowBound = lowBound;
+			this.highBound = highBound;
+		}
+
+		@SuppressWarnings("unchecked")
+		private int compare (E a, E b) {
+			return comparator == null ? ((Comparable<E>)a).compareTo(b)
+					: comparator.compare(a, b);
+		}
+
+		private boolean isInbounds (E v) {
+			return (lowBound == null || compare(v, lowBound) >= 0) &&
+				   (highBound == null || compare(v, highBound) < 0);
+		}
+
+		/** Whether the given value is a legal upper bound for a view within
+		 * this view.
+		 */
+		private boolean isHighBound (E v) {
+			return (lowBound == null || compare(v, lowBound) >= 0) &&
+				   (highBound == null || compare(v, highBound) <= 0);
+		}
+
+		/** Returns the index of the first element not lower than the given
+		 * bound in the given snapshot.
+		 */
+		private int boundIndex (Object[] a, E bound) {
+			int pos = position(a, bound);
+			return pos > -1 ? pos : -(pos + 1);
+		}
+
+		private int fromIndex (Object[] a) {
+			return lowBound == null ? 0 : boundIndex(a, lowBound);
+		}
+
+		private int toIndex (Object[] a) {
+			return highBound == null ? a.length :
+				Math.max(boundIndex(a, highBound), fromIndex(a));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean contains (Object o) {
+			return isInbounds((E) o) && ConcurrentSortedArraySet.this.contains(o);
+		}
+
+		@Override
+		public boolean add (E e) {
+			if (!isInbounds(e))
+				throw new IllegalArgumentException("value out of range: " + e);
+			return ConcurrentSortedArraySet.this.add(e);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove (Object o) {
+			Objects.requireNonNull(o);
+			return isInbounds((E) o) && ConcurrentSortedArraySet.this.remove(o);
+		}
+
+		/** Returns the value range of this view on the given set.
+		 */
+		private SortedSet<E> rangeOf (SortedArraySet<E> set) {
+			if (lowBound == null) {
+				return highBound == null ? set : set.headSet(highBound);
+			}
+			return highBound == null ? set.tailSet(lowBound) : set.subSet(lowBound, highBound);
+		}
+
+		@Override
+		public void clear () {
+			update(set -> rangeOf(set).clear());
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			Object[] a = array;
+			return new SnapshotIterator(a, fromIndex(a), toIndex(a));
+		}
+
+		@Override
+		public int size() {
+			Object[] a = array;
+			return toIndex(a) - fromIndex(a);
+		}
+
+		@Override
+		public Comparator<? super E> comparator() {
+			return comparator;
+		}
+
+		@Override
+		public SortedSet<E> subSet (E fromElement, E toElement) {
+			if (!isInbounds(fromElement) || !isHighBound(toElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(fromElement, toElement);
+		}
+
+		@Override
+		public SortedSet<E> headSet (E toElement) {
+			if (!isHighBound(toElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(lowBound, toElement);
+		}
+
+		@Override
+		public SortedSet<E> tailSet (E fromElement) {
+			if (!isInbounds(fromElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(fromElement, highBound);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E first() {
+			Object[] a = array;
+			int from = fromIndex(a);
+			return from < toIndex(a) ? (E) a[from] : null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E last() {
+			Object[] a = array;
+			int to = toIndex(a);
+			return to > fromIndex(a) ? (E) a[to - 1] : null;
+		}
+	}
+}
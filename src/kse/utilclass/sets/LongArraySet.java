@@ -0,0 +1,665 @@
+package kse.utilclass.sets;
+
+/*
+*  File: LongArraySet.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/** LongArraySet is a set of primitive {@code long} values which implements
+ * the package own {@code OperatingSet} interface for {@code Long} elements.
+ * It is the primitive counterpart of {@code ArraySet<Long>}: values are
+ * stored in a {@code long[]} in the order of their insertion, which avoids
+ * the overhead of boxed objects. The methods {@code addLong()},
+ * {@code containsLong()}, {@code removeLong()} and the iterator's
+ * {@code nextLong()} operate without allocation of objects.
+ * <b>null</b> is not a legal element.
+ * <p>From a size of {@code ArraySet.HASH_INDEX_THRESHOLD} elements on,
+ * membership requests are served by a hash index which is built lazily over
+ * the value array.
+ * <p><b>Complexities (of the implementation of this class)</b>
+ * <br>Single item: insertion and membership cost O(1) with hash index, O(n)
+ * without; iteration and removal cost O(n) execution time, with n = size().
+ * Set operations (s1, s2) ({@code OperatingSet}) cost O(n+m) with n=|s1|,
+ * m=|s2| if s2 is a {@code LongArraySet}.
+ */
+public class LongArraySet extends AbstractSet<Long> implements OperatingSet<Long>,
+			java.io.Serializable, Cloneable
+{
+    private static final long serialVersionUID = -2218806514393340521L;
+
+    /**
+     * Shared empty array instance used for empty instances.
+     */
+    private static final long[] EMPTY_ELEMENTDATA = {};
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The maximum length of the hash index table (power of 2).
+     */
+    private static final int MAX_HASH_TABLE = 1 << 30;
+
+    /**
+     * The array buffer into which the values of this set are stored.
+     */
+    protected long[] elementData = EMPTY_ELEMENTDATA;
+
+    /**
+     * The number of values contained in this set.
+     *
+     * @serial
+     */
+    protected int size;
+
+    protected int modCount;
+
+    /**
+     * Open-addressing (linear probing) hash table over the value array.
+     * A slot holds the index position + 1 of a value in elementData or
+     * zero for an empty slot. Null if the index is not available.
+     */
+    private transient int[] hashIndex;
+
+    /**
+     * Constructs an empty set with the specified initial capacity.
+     *
+     * @param  initialCapacity  the initial capacity of the set
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is negative
+     */
+    public LongArraySet (int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("initialCapacity < 0");
+
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Constructs an empty set.
+     */
+    public LongArraySet () {
+    }
+
+    /**
+     * Constructs a set containing the elements of the specified collection,
+     * excluding duplicates.
+     *
+     * @param c {@code Collection<Long>} initial content of this set; may be null
+     * @throws NullPointerException if the collection contains null
+     */
+    public LongArraySet (Collection<Long> c) {
+    	if (c != null) {
+	    	ensureCapacity(c.size());
+        	addAll(c);
+    	}
+    }
+
+    /**
+     * Constructs a set containing the values of the specified array,
+     * excluding duplicates in the series of its growing index.
+     *
+     * @param a {@code long[]} initial content of this set; may be null
+     */
+    public LongArraySet (long[] a) {
+        if (a != null) {
+        	ensureCapacity(a.length);
+    		for (long v : a) addLong(v);
+        }
+    }
+
+    /** Length of the current value array.
+     *
+     * @return int
+     */
+    int getCurrentCapacity () {
+    	return elementData.length;
+    }
+
+    /** Enlarges the capacity of this set if necessary to encompass at
+     * least the number of elements given by the parameter.
+     *
+     * @param minCapacity int minimum capacity
+     */
+    public void ensureCapacity (int minCapacity) {
+        if (minCapacity > elementData.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /** If applicable, shrinks the capacity of this set to a value
+     * (size + size/4). This does not operate to enlarge the capacity.
+     */
+    public void taylorCapacity () {
+       int capacity = size + size/4;
+       if (capacity < elementData.length) {
+          elementData = Arrays.copyOf(elementData, capacity);
+       }
+    }
+
+    private void grow (int minCapacity) {
+        if (minCapacity < 0)
+            throw new IllegalArgumentException("minCapacity < 0");
+        if (minCapacity > MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("requested oversized array capacity");
+
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + Math.max(ArraySet.DEFAULT_CAPACITY, oldCapacity / 2);
+        if (newCapacity < 0 | newCapacity > MAX_ARRAY_SIZE) {
+        	newCapacity = MAX_ARRAY_SIZE;
+        }
+        newCapacity = Math.max(minCapacity, newCapacity);
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+//  ---------------  hash index  ---------------
+
+    /** Discards the hash index of this set, if available. Subclasses which
+     * modify the value array directly must call this method if they make
+     * use of the inherited membership functions.
+     */
+    protected void invalidateHashIndex () {
+    	hashIndex = null;
+    }
+
+    private boolean hashIndexActive () {
+    	if (hashIndex == null) {
+    		if (size < ArraySet.HASH_INDEX_THRESHOLD || size > MAX_HASH_TABLE / 2)
+    			return false;
+    		buildHashIndex();
+    	}
+    	return true;
+    }
+
+    private static int spread (long v) {
+    	int h = (int)(v ^ (v >>> 32)) * 0x9E3779B9;
+    	return h ^ (h >>> 16);
+    }
+
+    private void buildHashIndex () {
+    	int n = 64;
+    	int min = size * 2 + size / 2;
+    	while (n < min && n < MAX_HASH_TABLE) {
+    		n <<= 1;
+    	}
+
+    	int[] tab = new int[n];
+    	int mask = n - 1;
+    	for (int k = 0; k < size; k++) {
+    		int i = spread(elementData[k]) & mask;
+    		while (tab[i] != 0) {
+    			i = (i + 1) & mask;
+    		}
+    		tab[i] = k + 1;
+    	}
+    	hashIndex = tab;
+    }
+
+    private int hashSearch (long v) {
+    	int[] tab = hashIndex;
+    	int mask = tab.length - 1;
+    	for (int i = spread(v) & mask;; i = (i + 1) & mask) {
+    		int p = tab[i];
+    		if (p == 0) return -1;
+    		if (elementData[p - 1] == v) return p - 1;
+    	}
+    }
+
+    private void hashInsert (int pos) {
+    	int[] tab = hashIndex;
+    	if (tab == null) return;
+    	if (size * 2 > tab.length) {
+    		hashIndex = null;
+    		hashIndexActive();
+    		return;
+    	}
+
+    	int mask = tab.length - 1;
+    	int i = spread(elementData[pos]) & mask;
+		while (tab[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		tab[i] = pos + 1;
+    }
+
+    private void hashDelete (int pos) {
+    	int[] tab = hashIndex;
+    	if (tab == null) return;
+
+    	int mask = tab.length - 1;
+    	int i = spread(elementData[pos]) & mask;
+    	while (tab[i] != pos + 1) {
+    		i = (i + 1) & mask;
+    	}
+    	for (int j = (i + 1) & mask; tab[j] != 0; j = (j + 1) & mask) {
+    		int h = spread(elementData[tab[j] - 1]) & mask;
+    		boolean stays = i < j ? h > i && h <= j : h > i || h <= j;
+    		if (!stays) {
+    			tab[i] = tab[j];
+    			i = j;
+    		}
+    	}
+    	tab[i] = 0;
+
+    	for (int k = 0; k < tab.length; k++) {
+    		if (tab[k] > pos + 1) {
+    			tab[k]--;
+    		}
+    	}
+    }
+
+//  ---------------  primitive access  ---------------
+
+    /** Returns the index position of the given value in this set or
+     * -1 if it is not contained.
+     *
+     * @param v long value
+     * @return index position or -1
+     */
+    public int indexOfLong (long v) {
+    	if (hashIndexActive()) {
+    		return hashSearch(v);
+    	}
+    	for (int i = 0; i < size; i++) {
+    		if (elementData[i] == v) return i;
+    	}
+    	return -1;
+    }
+
+    /** Whether the given value is contained in this set.
+     *
+     * @param v long value
+     * @return boolean
+     */
+    public boolean containsLong (long v) {
+    	return indexOfLong(v) > -1;
+    }
+
+    /** Adds the given value to this set if it is not already contained.
+     *
+     * @param v long value
+     * @return boolean true = set has changed, false = value was contained
+     */
+    public boolean addLong (long v) {
+    	if (containsLong(v)) return false;
+
+    	ensureCapacity(size + 1);
+    	elementData[size++] = v;
+    	modCount++;
+    	hashInsert(size - 1);
+    	return true;
+    }
+
+    /** Removes the given value from this set if it is contained.
+     *
+     * @param v long value
+     * @return boolean true = set has changed, false = value was not contained
+     */
+    public boolean removeLong (long v) {
+    	int i = indexOfLong(v);
+    	if (i < 0) return false;
+    	removeAt(i);
+    	return true;
+    }
+
+    /** Removes the value at the given index position of the value array.
+     *
+     * @param index int
+     */
+    protected void removeAt (int index) {
+    	hashDelete(index);
+    	System.arraycopy(elementData, index+1, elementData, index, --size-index);
+    	modCount++;
+    }
+
+    /** Returns the value at the given index position.
+     *
+     * @param index int index of value
+     * @return long value
+     * @throws IndexOutOfBoundsException
+     */
+    public long getLong (int index) {
+    	if (index < 0 | index >= size)
+    		throw new IndexOutOfBoundsException("index out of range: " + index);
+    	return elementData[index];
+    }
+
+    /** Returns a new array containing the values of this set.
+     *
+     * @return long[]
+     */
+    public long[] toLongArray () {
+    	return Arrays.copyOf(elementData, size);
+    }
+
+    /** Returns a sequential stream over the values of this set.
+     *
+     * @return {@code LongStream}
+     */
+    public LongStream longStream () {
+    	return Arrays.stream(elementData, 0, size);
+    }
+
+    /** Performs the given action for each value of this set in the order of
+     * the iterator.
+     *
+     * @param action {@code LongConsumer}
+     */
+    public void forEachLong (LongConsumer action) {
+    	Objects.requireNonNull(action);
+    	int expected = modCount;
+    	for (int i = 0; i < size && modCount == expected; i++) {
+    		action.accept(elementData[i]);
+    	}
+    	if (modCount != expected)
+    		throw new ConcurrentModificationException();
+    }
+
+//  ---------------  Set interface  ---------------
+
+    @Override
+    public PrimitiveIterator.OfLong iterator () {
+    	return new LongIterator();
+    }
+
+    @Override
+    public int size () {
+    	return size;
+    }
+
+    @Override
+    public boolean add (Long e) {
+    	return addLong(e.longValue());
+    }
+
+    @Override
+    public boolean contains (Object o) {
+    	return o instanceof Long && containsLong((Long)o);
+    }
+
+    @Override
+    public boolean remove (Object o) {
+    	return o instanceof Long && removeLong((Long)o);
+    }
+
+    @Override
+    public void clear () {
+    	if (size > 0) {
+    		elementData = EMPTY_ELEMENTDATA;
+    		hashIndex = null;
+    		size = 0;
+    		modCount++;
+    	}
+    }
+
+    @Override
+    public int hashCode () {
+    	int hash = 0;
+    	for (int i = 0; i < size; i++) {
+    		hash += Long.hashCode(elementData[i]);
+    	}
+    	return hash;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+    	if (o == this) return true;
+    	if (o instanceof LongArraySet) {
+    		LongArraySet s = (LongArraySet) o;
+    		if (s.size != size) return false;
+    		for (int i = 0; i < size; i++) {
+    			if (!s.containsLong(elementData[i])) return false;
+    		}
+    		return true;
+    	}
+    	return super.equals(o);
+    }
+
+    /** Returns a shallow clone of this set.
+     *
+     * @return Object
+     */
+    @Override
+    public Object clone () {
+    	try {
+    		LongArraySet copy = (LongArraySet)super.clone();
+    		copy.elementData = Arrays.copyOf(elementData, size);
+    		copy.hashIndex = hashIndex == null ? null : hashIndex.clone();
+    		return copy;
+    	} catch (CloneNotSupportedException e) {
+    		return null;
+    	}
+    }
+
+    /** Returns an empty clone of this set with a value array of the given
+     * capacity.
+     *
+     * @param capacity int initial capacity of the clone
+     * @return {@code LongArraySet}
+     */
+    protected LongArraySet emptyClone (int capacity) {
+    	try {
+    		LongArraySet copy = (LongArraySet)super.clone();
+    		copy.elementData = capacity == 0 ? EMPTY_ELEMENTDATA : new long[capacity];
+    		copy.hashIndex = null;
+    		copy.size = 0;
+    		copy.modCount = 0;
+    		return copy;
+    	} catch (CloneNotSupportedException e) {
+    		return null;
+    	}
+    }
+
+//  ---------------  set operations  ---------------
+
+    /** Whether the given value is contained in the given set, avoiding
+     * boxing for {@code LongArraySet} arguments.
+     */
+    private static boolean isMember (Set<Long> a, long v) {
+    	return a instanceof LongArraySet ? ((LongArraySet)a).containsLong(v)
+    			: a.contains(v);
+    }
+
+    /** Adds all values of the given set to this set, avoiding boxing for
+     * {@code LongArraySet} arguments.
+     */
+    private void addAllOf (Set<Long> a) {
+    	if (a instanceof LongArraySet) {
+    		LongArraySet s = (LongArraySet) a;
+    		long[] data = s == this ? toLongArray() : s.elementData;
+    		ensureCapacity(size + s.size);
+    		for (int i = 0, n = s.size; i < n; i++) {
+    			addLong(data[i]);
+    		}
+    	} else {
+    		for (Long v : a) {
+    			addLong(v);
+    		}
+    	}
+    }
+
+    /** Retains or removes values of this set depending on their membership
+     * in the given set.
+     *
+     * @param a {@code Set<Long>}
+     * @param keep boolean true = keep members, false = keep non-members
+     */
+    private void filter (Set<Long> a, boolean keep) {
+    	int k = 0;
+    	for (int i = 0; i < size; i++) {
+    		long v = elementData[i];
+    		if (isMember(a, v) == keep) {
+    			elementData[k++] = v;
+    		}
+    	}
+    	if (k < size) {
+    		size = k;
+    		hashIndex = null;
+    		modCount++;
+    	}
+    }
+
+	@Override
+	public OperatingSet<Long> intersected (Set<Long> a) {
+		LongArraySet set = emptyClone(size);
+		for (int i = 0; i < size; i++) {
+			long v = elementData[i];
+			if (isMember(a, v)) {
+				set.elementData[set.size++] = v;
+			}
+		}
+		return set;
+	}
+
+	@Override
+	public OperatingSet<Long> united (Set<Long> a) {
+		LongArraySet set = (LongArraySet) clone();
+		set.addAllOf(a);
+		return set;
+	}
+
+	@Override
+	public OperatingSet<Long> without (Set<Long> a) {
+		LongArraySet set = emptyClone(size);
+		for (int i = 0; i < size; i++) {
+			long v = elementData[i];
+			if (!isMember(a, v)) {
+				set.elementData[set.size++] = v;
+			}
+		}
+		return set;
+	}
+
+	@Override
+	public OperatingSet<Long> xored (Set<Long> a) {
+		LongArraySet set = (LongArraySet) without(a);
+		if (a instanceof LongArraySet) {
+			LongArraySet s = (LongArraySet) a;
+			for (int i = 0; i < s.size; i++) {
+				long v = s.elementData[i];
+				if (!containsLong(v)) {
+					set.addLong(v);
+				}
+			}
+		} else {
+			for (Long v : a) {
+				if (!containsLong(v)) {
+					set.addLong(v);
+				}
+			}
+		}
+		return set;
+	}
+
+	@Override
+	public void intersectWith (Set<Long> a) {
+		filter(a, true);
+	}
+
+	@Override
+	public void uniteWith (Set<Long> a) {
+		addAllOf(a);
+	}
+
+	@Override
+	public void exclude (Set<Long> a) {
+		if (a == this) {
+			clear();
+		} else {
+			filter(a, false);
+		}
+	}
+
+	@Override
+	public void xorWith (Set<Long> a) {
+		LongArraySet set = (LongArraySet) xored(a);
+		elementData = set.elementData;
+		size = set.size;
+		hashIndex = set.hashIndex;
+		modCount++;
+	}
+
+//  -----------------------------------------------
+
+    /**
+     * Iterator over the values of this set. The method {@code nextLong()}
+     * renders values without object allocation.
+     */
+    protected class LongIterator implements PrimitiveIterator.OfLong {
+        int cursor;       // index of next element to return
+        int lastRet = -1; // index of last element returned; -1 if no such
+        int expectedModCount = modCount;
+
+        @Override
+		public boolean hasNext () {
+            return cursor < size;
+        }
+
+        @Override
+        public long nextLong () {
+            checkForComodification();
+            int i = cursor;
+            if (i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return elementData[lastRet = i];
+        }
+
+        @Override
+        public void forEachRemaining (LongConsumer action) {
+        	Objects.requireNonNull(action);
+        	while (cursor < size) {
+        		checkForComodification();
+        		action.accept(elementData[lastRet = cursor++]);
+        	}
+        }
+
+        @Override
+		public void remove () {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+
+            removeAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        final void checkForComodification () {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+}
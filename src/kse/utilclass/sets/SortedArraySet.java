@@ -28,8 +28,11 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
@@ -37,7 +40,7 @@ import java.util.SortedSet;
 
 /**
  * {@code SortedArraySet} is an extension of {@code ArraySet} implementing the
- * {@code SortedSet} interface.
+ * {@code SortedSet} and {@code NavigableSet} interfaces.
  * All elements inserted into this set must implement the {@code Comparable} 
  * interface or be accepted by a specified comparator.
  * A sorted set has advantage when a single set is used iteratively with
@@ -50,17 +53,30 @@ import java.util.SortedSet;
  * <p><b>Complexities (of the implementation of this class):</b>
  * <br>Single item: insertion, removal and iteration cost O(n), membership 
  * O(log n) execution time, n = size(). Set operations (s1, s2)
- * ({@code OperatingSet}) cost O(n+m) with n=|s1|, m=|s2|.
+ * ({@code OperatingSet}) cost O(n+m) with n=|s1|, m=|s2|, if s2 is a sorted
+ * set of the same ordering; they are then performed as a single merge pass.
+ * With other argument sets, the membership test of s2 (intersection and
+ * exclusion) or a sorting of s2, O(m*log m), (union and XOR) adds to the cost.
+ * Sub-set views ({@code subSet()}, {@code headSet()}, {@code tailSet()}) 
+ * resolve their bounds by binary search; their {@code size()}, 
+ * {@code first()}, {@code last()} and indexed access cost O(log n). The
+ * navigation methods ({@code lower()}, {@code floor()}, {@code ceiling()},
+ * {@code higher()}) cost O(log n), {@code pollFirst()} and 
+ * {@code pollLast()} O(n) and O(1) respectively.
  *   
  * @param <E>
  */
 
-public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
+public class SortedArraySet<E> extends ArraySet<E>  implements NavigableSet<E> {
 	
     private static final long serialVersionUID = -30952581123900119L;
 	
 	private Comparator<? super E> comparator;
 
+	/** Operation modes of the merge engine for set operations. */
+	private static final int MERGE_INTERSECT = 0, MERGE_UNITE = 1, 
+			MERGE_WITHOUT = 2, MERGE_XOR = 3;
+
 	/** Creates an empty sorted-set with natural sorting of its elements.
 	 */
 	public SortedArraySet () {
@@ -268,29 +284,96 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 		int pos = objectPosition(o);
 		if (pos < 0) return false;
 
-		System.arraycopy(elementData, pos+1, elementData, pos, --size-pos);
-	    elementData[size] = null;
-	    modCount++;
+		removeRange(pos, pos + 1);
 	    return true;
 	}
 
 	@Override
-	public SortedSet<E> subSet (E fromElement, E toElement) {
+	public SubSortedSet subSet (E fromElement, E toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public SubSortedSet headSet (E toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public SubSortedSet tailSet (E fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+	@Override
+	public SubSortedSet subSet (E fromElement, boolean fromInclusive, 
+			                    E toElement, boolean toInclusive) {
 		Objects.requireNonNull(toElement, "toElement is null");
 		Objects.requireNonNull(fromElement, "fromElement is null");
-		return new SubSortedSet(this, fromElement, toElement);
+		return new SubSortedSet(fromElement, fromInclusive, toElement, toInclusive);
 	}
 
 	@Override
-	public SortedSet<E> headSet (E toElement) {
+	public SubSortedSet headSet (E toElement, boolean inclusive) {
 		Objects.requireNonNull(toElement);
-		return new SubSortedSet(this, null, toElement);
+		return new SubSortedSet(null, false, toElement, inclusive);
 	}
 
 	@Override
-	public SortedSet<E> tailSet (E fromElement) {
+	public SubSortedSet tailSet (E fromElement, boolean inclusive) {
 		Objects.requireNonNull(fromElement);
-		return new SubSortedSet(this, fromElement, null);
+		return new SubSortedSet(fromElement, inclusive, null, false);
+	}
+
+	@Override
+	public E lower (E e) {
+		return elementOrNull(lowerIndex(e) - 1);
+	}
+
+	@Override
+	public E floor (E e) {
+		return elementOrNull(upperIndex(e) - 1);
+	}
+
+	@Override
+	public E ceiling (E e) {
+		return elementOrNull(lowerIndex(e));
+	}
+
+	@Override
+	public E higher (E e) {
+		return elementOrNull(upperIndex(e));
+	}
+
+	@Override
+	public E pollFirst () {
+		E e = first();
+		if (e != null) {
+			removeRange(0, 1);
+		}
+		return e;
+	}
+
+	@Override
+	public E pollLast () {
+		E e = last();
+		if (e != null) {
+			removeRange(size - 1, size);
+		}
+		return e;
+	}
+
+	/** Returns a reverse order view of the elements contained in this set.
+	 * The view is backed by this set; changes are reflected in both.
+	 * 
+	 * @return {@code NavigableSet<E>}
+	 */
+	@Override
+	public NavigableSet<E> descendingSet () {
+		return new DescendingSet(this);
+	}
+
+	@Override
+	public Iterator<E> descendingIterator () {
+		return new SubSortedSet(null, false, null, false).descendingIterator();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -315,38 +398,350 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 	public E getElement (int index) {
 		return get(index);
 	}
+
+	@Override
+	public OperatingSet<E> intersected (Set<E> a) {
+		return merged(a, MERGE_INTERSECT);
+	}
+
+	@Override
+	public OperatingSet<E> united (Set<E> a) {
+		return merged(a, MERGE_UNITE);
+	}
+
+	@Override
+	public OperatingSet<E> without (Set<E> a) {
+		return merged(a, MERGE_WITHOUT);
+	}
+
+	@Override
+	public OperatingSet<E> xored (Set<E> a) {
+		return merged(a, MERGE_XOR);
+	}
+
+	@Override
+	public void intersectWith (Set<E> a) {
+		mergeWith(a, MERGE_INTERSECT);
+	}
+
+	@Override
+	public void uniteWith (Set<E> a) {
+		mergeWith(a, MERGE_UNITE);
+	}
+
+	@Override
+	public void exclude (Set<E> a) {
+		mergeWith(a, MERGE_WITHOUT);
+	}
+
+	@Override
+	public void xorWith (Set<E> a) {
+		mergeWith(a, MERGE_XOR);
+	}
+
+//  ---------------  merge engine for set operations  ---------------
+	
+	@SuppressWarnings("unchecked")
+	private int compare (Object a, Object b) {
+		return comparator == null ? ((Comparable<Object>)a).compareTo(b) 
+				: ((Comparator<Object>)comparator).compare(a, b);
+	}
+	
+	/** Whether the given set is a {@code SortedSet} which is ordered by the
+	 * same comparator as this set, so that its iteration renders the
+	 * sequence of this set's ordering.
+	 * 
+	 * @param a {@code Set<E>}
+	 * @return boolean
+	 */
+	private boolean isSameOrder (Set<E> a) {
+		return a instanceof SortedSet && 
+				Objects.equals(comparator, ((SortedSet<E>)a).comparator());
+	}
+	
+	/** Returns the elements of the given set as an array in the ordering of 
+	 * this set and free of duplicates in the sense of this set's ordering.
+	 * 
+	 * @param a {@code Set<E>}
+	 * @return Object[]
+	 * @throws ClassCastException if some element is not comparable
+	 * @throws NullPointerException if some element is null
+	 */
+	@SuppressWarnings("unchecked")
+	private Object[] sortedOperand (Set<E> a) {
+		Object[] arr = a.toArray();
+		if (isSameOrder(a)) return arr;
+		
+		Arrays.sort(arr, (Comparator<Object>)comparator);
+		int k = 0;
+		for (int i = 0; i < arr.length; i++) {
+			if (k == 0 || compare(arr[k-1], arr[i]) != 0) {
+				arr[k++] = arr[i];
+			}
+		}
+		return k == arr.length ? arr : Arrays.copyOf(arr, k);
+	}
+	
+	/** Merges the element array of this set with the given sorted array 
+	 * according to the given operation mode and writes the result into the
+	 * target array. Both operands must be free of duplicates and sorted in
+	 * the order of this set. The target may be the element array of this set
+	 * for modes MERGE_INTERSECT and MERGE_WITHOUT. Elements of this set take
+	 * precedence over equal elements of the argument. 
+	 * 
+	 * @param b Object[] sorted operand
+	 * @param m int number of elements in b
+	 * @param mode int operation mode
+	 * @param target Object[] result array of sufficient length
+	 * @return int number of elements in the result 
+	 */
+	private int merge (Object[] b, int m, int mode, Object[] target) {
+		Object[] a = elementData;
+		int n = size, i = 0, j = 0, k = 0;
+		boolean takeB = mode == MERGE_UNITE | mode == MERGE_XOR;
+		
+		while (i < n && j < m) {
+			int c = compare(a[i], b[j]);
+			if (c < 0) {
+				if (mode != MERGE_INTERSECT) {
+					target[k++] = a[i];
+				}
+				i++;
+			} else if (c > 0) {
+				if (takeB) {
+					target[k++] = b[j];
+				}
+				j++;
+			} else {
+				if (mode == MERGE_INTERSECT | mode == MERGE_UNITE) {
+					target[k++] = a[i];
+				}
+				i++; j++;
+			}
+		}
+		
+		// copy the remaining tails
+		if (mode != MERGE_INTERSECT && i < n) {
+			System.arraycopy(a, i, target, k, n-i);
+			k += n-i;
+		}
+		if (takeB && j < m) {
+			System.arraycopy(b, j, target, k, m-j);
+			k += m-j;
+		}
+		return k;
+	}
+	
+	/** Filters the element array of this set against membership in the 
+	 * given set (which has an unknown ordering) and writes the result into 
+	 * the target array, which may be the element array of this set.
+	 * 
+	 * @param a {@code Set<E>} 
+	 * @param keep boolean true = keep contained elements, false = keep
+	 *        non-contained elements
+	 * @param target Object[] result array of sufficient length
+	 * @return int number of elements in the result 
+	 */
+	private int filter (Set<E> a, boolean keep, Object[] target) {
+		int k = 0;
+		for (int i = 0; i < size; i++) {
+			Object e = elementData[i];
+			if (a.contains(e) == keep) {
+				target[k++] = e;
+			}
+		}
+		return k;
+	}
+	
+	/** Returns a new set which is the result of the given set operation
+	 * of this set with the argument set. 
+	 * 
+	 * @param a {@code Set<E>} 
+	 * @param mode int operation mode
+	 * @return {@code SortedArraySet<E>}
+	 */
+	@SuppressWarnings("unchecked")
+	private SortedArraySet<E> merged (Set<E> a, int mode) {
+		boolean filtering = (mode == MERGE_INTERSECT | mode == MERGE_WITHOUT) 
+				&& !isSameOrder(a);
+		SortedArraySet<E> set;
+		
+		if (filtering) {
+			// the argument's membership may extend beyond its size
+			set = (SortedArraySet<E>) emptyClone(size);
+			set.size = filter(a, mode == MERGE_INTERSECT, set.elementData);
+			
+		} else {
+			Object[] b;
+			int m;
+			if (a instanceof SortedArraySet && isSameOrder(a)) {
+				b = ((SortedArraySet<E>)a).elementData;
+				m = ((SortedArraySet<E>)a).size;
+			} else {
+				b = sortedOperand(a);
+				m = b.length;
+			}
+			int cap = mode == MERGE_INTERSECT ? Math.min(size, m) : 
+				      mode == MERGE_WITHOUT ? size : size + m;
+			set = (SortedArraySet<E>) emptyClone(cap);
+			set.size = merge(b, m, mode, set.elementData);
+		}
+		return set;
+	}
+	
+	/** Performs the given set operation on this set with the argument set.
+	 * 
+	 * @param a {@code Set<E>} 
+	 * @param mode int operation mode
+	 */
+	@SuppressWarnings("unchecked")
+	private void mergeWith (Set<E> a, int mode) {
+		boolean reducing = mode == MERGE_INTERSECT | mode == MERGE_WITHOUT;
+		int n = size, k;
+		
+		if (reducing && !isSameOrder(a)) {
+			k = filter(a, mode == MERGE_INTERSECT, elementData);
+			
+		} else {
+			Object[] b;
+			int m;
+			if (a == this) {
+				b = toArray();
+				m = size;
+			} else if (a instanceof SortedArraySet && isSameOrder(a)) {
+				b = ((SortedArraySet<E>)a).elementData;
+				m = ((SortedArraySet<E>)a).size;
+			} else {
+				b = sortedOperand(a);
+				m = b.length;
+			}
+			
+			if (reducing) {
+				k = merge(b, m, mode, elementData);
+			} else {
+				if (m == 0) return;
+				Object[] target = new Object[n + m];
+				k = merge(b, m, mode, target);
+				elementData = target;
+				size = k;
+				modCount++;
+				return;
+			}
+		}
+
+		// clear the vacated tail of the element array
+		if (k < n) {
+			Arrays.fill(elementData, k, n, null);
+			size = k;
+			modCount++;
+		}
+	}
 	
 // ----------------------------------------------------------
 	
-	private class SubSortedSet extends AbstractSet<E> implements OperatingSet<E>, SortedSet<E>, Serializable {
+	/** Returns the index position of the first element in the element array
+	 * which is not lower than the given bound value.
+	 * 
+	 * @param bound E bound value
+	 * @return int index position, 0..size
+	 */
+	private int lowerIndex (E bound) {
+		int pos = objectPosition(bound);
+		return pos > -1 ? pos : -(pos + 1);
+	}
+	
+	/** Returns the index position of the first element in the element array
+	 * which is greater than the given bound value.
+	 * 
+	 * @param bound E bound value
+	 * @return int index position, 0..size
+	 */
+	private int upperIndex (E bound) {
+		int pos = objectPosition(bound);
+		return pos > -1 ? pos + 1 : -(pos + 1);
+	}
+	
+	/** Returns the element at the given index position or null if the 
+	 * position is outside of the element range.
+	 * 
+	 * @param index int
+	 * @return E or null
+	 */
+	@SuppressWarnings("unchecked")
+	private E elementOrNull (int index) {
+		return index > -1 && index < size ? (E) elementData[index] : null;
+	}
+	
+	/** Removes the elements in the index range [from, to) of the element 
+	 * array.
+	 * 
+	 * @param from int first index (incl.)
+	 * @param to int last index (excl.)
+	 */
+	private void removeRange (int from, int to) {
+		int n = to - from;
+		if (n < 1) return;
+		
+		System.arraycopy(elementData, to, elementData, from, size - to);
+		Arrays.fill(elementData, size - n, size, null);
+		size -= n;
+		modCount++;
+	}
+	
+	/** A view on a value range of the enclosing {@code SortedArraySet}. 
+	 * The bounds of the view are resolved into an index range of the element
+	 * array of the enclosing set by binary search. The resolved range is 
+	 * cached and only renewed after the enclosing set was modified; hence
+	 * {@code size()}, {@code isEmpty()}, {@code first()}, {@code last()} and
+	 * {@code getElement(int)} cost O(log n) execution time at most and O(1)
+	 * on an unmodified set. Iteration is performed directly on the array 
+	 * slice. Each of the bounds may be defined inclusive or exclusive.
+	 */
+	public class SubSortedSet extends AbstractSet<E> implements OperatingSet<E>, NavigableSet<E>, Serializable {
 	    private static final long serialVersionUID = -30932555128001208L;
-		private SortedSet<E> parentSet;
 		private E lowBound, highBound;
+		private boolean lowInclusive, highInclusive;
+		
+		// cached index range [fromIndex, toIndex) for 'boundsModCount'
+		private transient int fromIndex, toIndex;
+		private transient int boundsModCount;
+		private transient boolean resolved;
 
-		public SubSortedSet (SortedSet<E> set, E lowBound, E highBound) {
-			super();
-			
-			// take over from set (i.e.redirect element data)
-			setComparator(set.comparator());
-			parentSet = set;
+		private SubSortedSet (E lowBound, boolean lowInclusive, 
+				              E highBound, boolean highInclusive) {
 			this.lowBound = lowBound;
+			this.lowInclusive = lowInclusive;
 			this.highBound = highBound;
+			this.highInclusive = highInclusive;
 
 			// if both bound values are defined, check for consistency
 			if (lowBound != null && highBound != null) {
-				// compare low and high bound
-				Comparator<? super E> comp = comparator();
-				@SuppressWarnings("unchecked")
-				int c = comp == null ? ((Comparable<E>)highBound).compareTo(lowBound)
-						: comp.compare(highBound, lowBound);
-				
-				// control consistency of bounds parameters
-				if (c < 0) {
+				if (compare(highBound, lowBound) < 0) {
 					throw new IllegalArgumentException("high < low");
 				}
 			}			
 		}
 
+		/** Resolves the value bounds of this view into the index range
+		 * [fromIndex, toIndex) of the enclosing set's element array, if
+		 * the enclosing set has been modified since the last resolution.
+		 */
+		private void resolveBounds () {
+			int mc = SortedArraySet.this.modCount;
+			if (resolved && boundsModCount == mc) return;
+			
+			int n = SortedArraySet.this.size;
+			fromIndex = lowBound == null ? 0 : 
+				lowInclusive ? lowerIndex(lowBound) : upperIndex(lowBound);
+			toIndex = highBound == null ? n : 
+				highInclusive ? upperIndex(highBound) : lowerIndex(highBound);
+			if (toIndex < fromIndex) {
+				toIndex = fromIndex;
+			}
+			boundsModCount = mc;
+			resolved = true;
+		}
+		
 		/** Whether the given element value is within the value bounds set up 
 		 * for this instance. Either one or two bounds can be set. If there are
 		 * no bounds set, this always returns true.
@@ -354,30 +749,44 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 		 * @param v E
 		 * @return boolean true = in range, false = out of range 
 		 */
-		@SuppressWarnings("unchecked")
 		private boolean isInbounds (E v) {
-			Comparator<? super E> comp = comparator();
-			
-			// verify lower bound compliance if defined
-			if (lowBound != null) {
-				int c = comp == null ? ((Comparable<E>)v).compareTo(lowBound)
-						: comp.compare(v, lowBound);
-				if (c < 0) return false;
-			}
-
-			// verify lower bound compliance if defined
-			if (highBound != null) {
-				int c = comp == null ? ((Comparable<E>)v).compareTo(highBound)
-						: comp.compare(v, highBound);
-				if (c >= 0) return false;
-			}
-			return true;
+			return !tooLow(v, lowInclusive) && !tooHigh(v, highInclusive);
+		}
+		
+		private boolean tooLow (E v, boolean inclusive) {
+			if (lowBound == null) return false;
+			int c = compare(v, lowBound);
+			return c < 0 || c == 0 && !inclusive;
+		}
+		
+		private boolean tooHigh (E v, boolean inclusive) {
+			if (highBound == null) return false;
+			int c = compare(v, highBound);
+			return c > 0 || c == 0 && !inclusive;
+		}
+		
+		/** Whether the given value is admissible as a bound of a sub-view of 
+		 * this view. A value equal to one of our bounds is admissible if 
+		 * either our bound is inclusive or the new bound is exclusive.
+		 * 
+		 * @param v E bound value
+		 * @param inclusive boolean whether the new bound is inclusive
+		 * @return boolean
+		 */
+		private boolean isBoundInRange (E v, boolean inclusive) {
+			return inclusive ? isInbounds(v) : !tooLow(v, true) && !tooHigh(v, true);
+		}
+		
+		private void checkBound (E v, boolean inclusive) {
+			Objects.requireNonNull(v);
+			if (!isBoundInRange(v, inclusive))
+				throw new IllegalArgumentException("value out of range: " + v);
 		}
 		
 		@SuppressWarnings("unchecked")
 		@Override
 		public boolean contains (Object o) {
-			return isInbounds((E) o) && parentSet.contains(o);
+			return isInbounds((E) o) && SortedArraySet.this.contains(o);
 		}
 
 		@Override
@@ -386,8 +795,7 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 			if (!isInbounds(e)) 
 				throw new IllegalArgumentException("value out of range: " + e);
 			
-			boolean ok = parentSet.add(e);
-			return ok;
+			return SortedArraySet.this.add(e);
 		}
 
 		@SuppressWarnings("unchecked")
@@ -396,117 +804,224 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 			Objects.requireNonNull(o);
 			if (!isInbounds((E) o)) return false;
 			
-			boolean ok = parentSet.remove(o);
-			return ok;
+			return SortedArraySet.this.remove(o);
+		}
+
+		@Override
+		public void clear () {
+			resolveBounds();
+			removeRange(fromIndex, toIndex);
 		}
 
 		@Override
 		public Iterator<E> iterator() {
-			return new BoundsIterator((BackstepIterator<E>) parentSet.iterator());
+			return new RangeIterator(false);
+		}
+
+		@Override
+		public Iterator<E> descendingIterator() {
+			return new RangeIterator(true);
 		}
 
 		@Override
 		public int size() {
-			int count = 0;
-			for (@SuppressWarnings("unused") E e : this) {
-				count++;
-			}
-			return count;
+			resolveBounds();
+			return toIndex - fromIndex;
 		}
 
-		private class BoundsIterator implements Iterator<E> {
-			private BackstepIterator<E> parent;
-			private E next;
-			private E current;
+		@Override
+		public boolean isEmpty() {
+			return size() == 0;
+		}
 
-			BoundsIterator (BackstepIterator<E> parent) {
-				this.parent = parent;
-				getNext();
-			}
-			
-			private E getNext () {
-				next = null;
-				while (parent.hasNext() && next == null) {
-					E pNext = parent.next();
-					if (isInbounds(pNext)) {
-						next = pNext;
-					}
-				}
-				return next;
+		/** Returns the element at the given index position in the sorted 
+		 * sequence of this view.  
+		 * 
+		 * @param index int index position counting from 0
+		 * @return E
+		 * @throws IndexOutOfBoundsException
+		 */
+		@SuppressWarnings("unchecked")
+		public E getElement (int index) {
+			int n = size();
+			if (index < 0 || index >= n)
+				throw new IndexOutOfBoundsException("index " + index + ", size " + n);
+			return (E) elementData[fromIndex + index];
+		}
+
+		@Override
+		public Object[] toArray () {
+			resolveBounds();
+			return Arrays.copyOfRange(elementData, fromIndex, toIndex);
+		}
+
+		/** Iterator over the resolved array slice of the view, either in
+		 * ascending or descending order. Removal of elements is performed on 
+		 * the enclosing set.
+		 */
+		private class RangeIterator implements Iterator<E> {
+			private final boolean descending;
+			private int cursor, origin, fence;
+			private int lastRet = -1;
+			private int expectedModCount;
+
+			RangeIterator (boolean descending) {
+				resolveBounds();
+				this.descending = descending;
+				origin = fromIndex;
+				fence = toIndex;
+				cursor = descending ? fence - 1 : origin;
+				expectedModCount = SortedArraySet.this.modCount;
 			}
 			
 			@Override
 			public boolean hasNext() {
-				return next != null;
+				return descending ? cursor >= origin : cursor < fence;
 			}
 
+			@SuppressWarnings("unchecked")
 			@Override
 			public E next() {
-				if (next == null)
+				checkForComodification();
+				if (!hasNext())
 					throw new NoSuchElementException();
-				current = next;
-				getNext();
-				return current;
+				lastRet = cursor;
+				cursor += descending ? -1 : 1;
+				return (E) elementData[lastRet];
 			}
 
 			@Override
 			public void remove() {
-				if (current == null)
+				if (lastRet < 0)
 					throw new IllegalStateException();
+				checkForComodification();
 
-				int ct = modCount;
-				SubSortedSet.this.remove(current);
-				parent.backstep();
-				current = null;
-				modCount = ct;
+				removeRange(lastRet, lastRet + 1);
+				if (!descending) {
+					cursor = lastRet;
+				}
+				fence--;
+				lastRet = -1;
+				expectedModCount = SortedArraySet.this.modCount;
+			}
+			
+			private void checkForComodification () {
+				if (SortedArraySet.this.modCount != expectedModCount)
+					throw new ConcurrentModificationException();
 			}
 		}
 
 		@Override
-		public boolean isEmpty() {
-			return !iterator().hasNext();
+		public Comparator<? super E> comparator() {
+			return comparator;
 		}
 
 		@Override
-		public Comparator<? super E> comparator() {
-			return parentSet.comparator();
+		public SubSortedSet subSet(E fromElement, E toElement) {
+			return subSet(fromElement, true, toElement, false);
 		}
 
 		@Override
-		public SortedSet<E> subSet(E fromElement, E toElement) {
-			if (!isInbounds(toElement) || !isInbounds(fromElement))
-				throw new IllegalArgumentException("value out of range");
-			return new SubSortedSet(this, fromElement, toElement);
+		public SubSortedSet headSet(E toElement) {
+			return headSet(toElement, false);
 		}
 
 		@Override
-		public SortedSet<E> headSet(E toElement) {
-			if (!isInbounds(toElement))
-				throw new IllegalArgumentException("value out of range");
-			return new SubSortedSet(this, null, toElement);
+		public SubSortedSet tailSet(E fromElement) {
+			return tailSet(fromElement, true);
 		}
 
 		@Override
-		public SortedSet<E> tailSet(E fromElement) {
-			if (!isInbounds(fromElement))
-				throw new IllegalArgumentException("value out of range");
-			return new SubSortedSet(this, fromElement, null);
+		public SubSortedSet subSet(E fromElement, boolean fromInclusive, 
+				                   E toElement, boolean toInclusive) {
+			checkBound(fromElement, fromInclusive);
+			checkBound(toElement, toInclusive);
+			return new SubSortedSet(fromElement, fromInclusive, toElement, toInclusive);
+		}
+
+		@Override
+		public SubSortedSet headSet(E toElement, boolean inclusive) {
+			checkBound(toElement, inclusive);
+			return new SubSortedSet(lowBound, lowInclusive, toElement, inclusive);
 		}
 
+		@Override
+		public SubSortedSet tailSet(E fromElement, boolean inclusive) {
+			checkBound(fromElement, inclusive);
+			return new SubSortedSet(fromElement, inclusive, highBound, highInclusive);
+		}
+
+		@Override
+		public NavigableSet<E> descendingSet() {
+			return new DescendingSet(this);
+		}
+
+		/** Returns the element at the given index position of the enclosing 
+		 * set, where the position is clipped to the index range [origin, fence)
+		 * of this view. Returns null if the clipped position is not within 
+		 * the range.
+		 */
+		@SuppressWarnings("unchecked")
+		private E clippedElement (int index, int origin, int fence) {
+			return index >= origin && index < fence ? (E) elementData[index] : null;
+		}
+		
+		@Override
+		public E lower(E e) {
+			resolveBounds();
+			int i = Math.min(lowerIndex(e), toIndex) - 1;
+			return clippedElement(i, fromIndex, toIndex);
+		}
+
+		@Override
+		public E floor(E e) {
+			resolveBounds();
+			int i = Math.min(upperIndex(e), toIndex) - 1;
+			return clippedElement(i, fromIndex, toIndex);
+		}
+
+		@Override
+		public E ceiling(E e) {
+			resolveBounds();
+			int i = Math.max(lowerIndex(e), fromIndex);
+			return clippedElement(i, fromIndex, toIndex);
+		}
+
+		@Override
+		public E higher(E e) {
+			resolveBounds();
+			int i = Math.max(upperIndex(e), fromIndex);
+			return clippedElement(i, fromIndex, toIndex);
+		}
+
+		@Override
+		public E pollFirst() {
+			E e = first();
+			if (e != null) {
+				removeRange(fromIndex, fromIndex + 1);
+			}
+			return e;
+		}
+
+		@Override
+		public E pollLast() {
+			E e = last();
+			if (e != null) {
+				removeRange(toIndex - 1, toIndex);
+			}
+			return e;
+		}
+
+		@SuppressWarnings("unchecked")
 		@Override
 		public E first() {
-			Iterator<E> it = iterator();
-			return it.hasNext() ? it.next(): null;
+			return isEmpty() ? null : (E) elementData[fromIndex];
 		}
 
+		@SuppressWarnings("unchecked")
 		@Override
 		public E last() {
-			E element = null;
-			Iterator<E> it = iterator();
-			while (it.hasNext()) {
-				element = it.next();
-			}
-			return element;
+			return isEmpty() ? null : (E) elementData[toIndex - 1];
 		}
 
 		@Override
@@ -582,4 +1097,141 @@ public class SortedArraySet<E> extends ArraySet<E>  implements SortedSet<E> {
 			exclude(intersection);
 		}
 	}
+
+// ----------------------------------------------------------
+	
+	/** A reverse order view on a navigable set of the enclosing 
+	 * {@code SortedArraySet}, i.e. the set itself or one of its sub-set views.
+	 * All operations are mapped onto the base set.
+	 */
+	private class DescendingSet extends AbstractSet<E> implements NavigableSet<E>, Serializable {
+	    private static final long serialVersionUID = -30932555128001209L;
+		private NavigableSet<E> base;
+		
+		DescendingSet (NavigableSet<E> base) {
+			this.base = base;
+		}
+
+		@Override
+		public Comparator<? super E> comparator() {
+			return Collections.reverseOrder(base.comparator());
+		}
+
+		@Override
+		public int size() {
+			return base.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return base.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return base.contains(o);
+		}
+
+		@Override
+		public boolean add(E e) {
+			return base.add(e);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return base.remove(o);
+		}
+
+		@Override
+		public void clear() {
+			base.clear();
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return base.descendingIterator();
+		}
+
+		@Override
+		public Iterator<E> descendingIterator() {
+			return base.iterator();
+		}
+
+		@Override
+		public NavigableSet<E> descendingSet() {
+			return base;
+		}
+
+		@Override
+		public E first() {
+			return base.last();
+		}
+
+		@Override
+		public E last() {
+			return base.first();
+		}
+
+		@Override
+		public E lower(E e) {
+			return base.higher(e);
+		}
+
+		@Override
+		public E floor(E e) {
+			return base.ceiling(e);
+		}
+
+		@Override
+		public E ceiling(E e) {
+			return base.floor(e);
+		}
+
+		@Override
+		public E higher(E e) {
+			return base.lower(e);
+		}
+
+		@Override
+		public E pollFirst() {
+			return base.pollLast();
+		}
+
+		@Override
+		public E pollLast() {
+			return base.pollFirst();
+		}
+
+		@Override
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, 
+				                      E toElement, boolean toInclusive) {
+			return new DescendingSet(base.subSet(toElement, toInclusive, 
+					fromElement, fromInclusive));
+		}
+
+		@Override
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+			return new DescendingSet(base.tailSet(toElement, inclusive));
+		}
+
+		@Override
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+			return new DescendingSet(base.headSet(fromElement, inclusive));
+		}
+
+		@Override
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> headSet(E toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> tailSet(E fromElement) {
+			return tailSet(fromElement, true);
+		}
+	}
 }
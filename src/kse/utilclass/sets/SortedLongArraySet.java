@@ -0,0 +1,532 @@
+package kse.utilclass.sets;
+
+/*
+*  File: SortedLongArraySet.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * {@code SortedLongArraySet} is an extension of {@code LongArraySet}
+ * implementing the {@code SortedSet} interface for the natural ordering of
+ * {@code long} values. It is the primitive counterpart of
+ * {@code SortedArraySet<Long>}. Membership is searched with
+ * {@code Arrays.binarySearch()} on the value array.
+ *
+ * <p><b>Complexities (of the implementation of this class):</b>
+ * <br>Single item: insertion and removal cost O(n), membership O(log n)
+ * execution time, n = size(). Bulk insertion ({@code addAll()}) costs
+ * O(n + m*log m). Set operations (s1, s2) ({@code OperatingSet}) cost O(n+m)
+ * with n=|s1|, m=|s2|, if s2 is a {@code SortedLongArraySet}, otherwise
+ * the sorting of s2, O(m*log m), adds to the cost.
+ */
+public class SortedLongArraySet extends LongArraySet implements SortedSet<Long> {
+
+    private static final long serialVersionUID = 2675127300158733021L;
+
+	/** Operation modes of the merge engine for set operations. */
+	private static final int MERGE_INTERSECT = 0, MERGE_UNITE = 1,
+			MERGE_WITHOUT = 2, MERGE_XOR = 3;
+
+	/** Creates an empty sorted-set.
+	 */
+	public SortedLongArraySet () {
+	}
+
+	/** Creates an empty sorted-set with the given initial capacity.
+	 *
+	 * @param initialCapacity int
+	 */
+	public SortedLongArraySet (int initialCapacity) {
+		super(initialCapacity);
+	}
+
+	/** Creates a new sorted-set with the given collection as initial content.
+	 * The collection is not required to be sorted and may contain duplicate
+	 * entries.
+	 *
+	 * @param c {@code Collection<Long>}, may be null
+	 * @throws NullPointerException if the collection contains null
+	 */
+	public SortedLongArraySet (Collection<Long> c) {
+		super(c);
+	}
+
+	/** Creates a new sorted-set with the values of the given array as initial
+	 * content. The array is not required to be sorted and may contain
+	 * duplicate entries.
+	 *
+	 * @param a {@code long[]}, may be null
+	 */
+	public SortedLongArraySet (long[] a) {
+		if (a != null) {
+			long[] arr = a.clone();
+			Arrays.sort(arr);
+			mergeWith(arr, distinct(arr), MERGE_UNITE);
+		}
+	}
+
+	@Override
+	public Comparator<? super Long> comparator () {
+		return null;
+	}
+
+	/** Returns the insert position of the given value, i.e. the index of the
+	 * first value in this set which is not smaller than the argument.
+	 *
+	 * @param v long value
+	 * @return int index position, 0..size()
+	 */
+	private int lowerIndex (long v) {
+		int pos = Arrays.binarySearch(elementData, 0, size, v);
+		return pos < 0 ? -(pos + 1) : pos;
+	}
+
+	@Override
+	public int indexOfLong (long v) {
+		int pos = Arrays.binarySearch(elementData, 0, size, v);
+		return pos < 0 ? -1 : pos;
+	}
+
+	@Override
+	public boolean addLong (long v) {
+		int ipos = Arrays.binarySearch(elementData, 0, size, v);
+
+		// ignore duplicates
+		if (ipos > -1) return false;
+		ipos = -(ipos + 1);
+
+	    ensureCapacity(size + 1);
+	    System.arraycopy(elementData, ipos, elementData, ipos+1, size-ipos);
+	    elementData[ipos] = v;
+	    size++;
+	    modCount++;
+	    return true;
+	}
+
+	/** Adds all elements of the given collection to this set. The elements
+	 * are sorted as a batch and merged into this set in a single pass.
+	 *
+	 * @param c {@code Collection<? extends Long>}
+	 * @return boolean true iff this set has changed
+	 * @throws NullPointerException if the collection contains null
+	 */
+	@Override
+	public boolean addAll (Collection<? extends Long> c) {
+		int n = size;
+		if (c instanceof SortedLongArraySet) {
+			SortedLongArraySet s = (SortedLongArraySet) c;
+			mergeWith(s == this ? s.toLongArray() : s.elementData, s.size, MERGE_UNITE);
+		} else {
+			long[] arr = new long[c.size()];
+			int i = 0;
+			for (Long v : c) {
+				arr[i++] = v;
+			}
+			Arrays.sort(arr, 0, i);
+			mergeWith(arr, distinct(arr, i), MERGE_UNITE);
+		}
+		return size != n;
+	}
+
+	/** Returns the lowest value of this set.
+	 *
+	 * @return long
+	 * @throws NoSuchElementException if this set is empty
+	 */
+	public long firstLong () {
+		if (size == 0) throw new NoSuchElementException();
+		return elementData[0];
+	}
+
+	/** Returns the highest value of this set.
+	 *
+	 * @return long
+	 * @throws NoSuchElementException if this set is empty
+	 */
+	public long lastLong () {
+		if (size == 0) throw new NoSuchElementException();
+		return elementData[size-1];
+	}
+
+	@Override
+	public Long first () {
+		return size == 0 ? null : elementData[0];
+	}
+
+	@Override
+	public Long last () {
+		return size == 0 ? null : elementData[size-1];
+	}
+
+	@Override
+	public SortedSet<Long> subSet (Long fromElement, Long toElement) {
+		return new SubSet(true, fromElement, true, toElement);
+	}
+
+	@Override
+	public SortedSet<Long> headSet (Long toElement) {
+		return new SubSet(false, 0, true, toElement);
+	}
+
+	@Override
+	public SortedSet<Long> tailSet (Long fromElement) {
+		return new SubSet(true, fromElement, false, 0);
+	}
+
+//  ---------------  merge engine for set operations  ---------------
+
+	/** Removes duplicates from the sorted head of the given array.
+	 *
+	 * @param arr long[] sorted array
+	 * @param n int number of values to consider
+	 * @return int number of distinct values at the head of the array
+	 */
+	private static int distinct (long[] arr, int n) {
+		int k = 0;
+		for (int i = 0; i < n; i++) {
+			if (k == 0 || arr[k-1] != arr[i]) {
+				arr[k++] = arr[i];
+			}
+		}
+		return k;
+	}
+
+	private static int distinct (long[] arr) {
+		return distinct(arr, arr.length);
+	}
+
+	/** Returns the values of the given set as a sorted array free of
+	 * duplicates. The array may be longer than the number of values, which
+	 * is written into the first element of {@code length}.
+	 *
+	 * @param a {@code Set<Long>}
+	 * @param length int[] output of length 1
+	 * @return long[]
+	 */
+	private long[] sortedOperand (Set<Long> a, int[] length) {
+		if (a instanceof SortedLongArraySet) {
+			SortedLongArraySet s = (SortedLongArraySet) a;
+			length[0] = s.size;
+			return s == this ? toLongArray() : s.elementData;
+		}
+
+		long[] arr;
+		int n;
+		if (a instanceof LongArraySet) {
+			arr = ((LongArraySet) a).toLongArray();
+			n = arr.length;
+		} else {
+			arr = new long[a.size()];
+			n = 0;
+			for (Long v : a) {
+				arr[n++] = v;
+			}
+		}
+		Arrays.sort(arr, 0, n);
+		length[0] = distinct(arr, n);
+		return arr;
+	}
+
+	/** Merges the values of this set with the given sorted array according
+	 * to the given operation mode and writes the result into the target
+	 * array, which may be the value array of this set for modes
+	 * MERGE_INTERSECT and MERGE_WITHOUT.
+	 *
+	 * @param b long[] sorted operand
+	 * @param m int number of values in b
+	 * @param mode int operation mode
+	 * @param target long[] result array of sufficient length
+	 * @return int number of values in the result
+	 */
+	private int merge (long[] b, int m, int mode, long[] target) {
+		long[] a = elementData;
+		int n = size, i = 0, j = 0, k = 0;
+		boolean takeB = mode == MERGE_UNITE | mode == MERGE_XOR;
+
+		while (i < n && j < m) {
+			long x = a[i], y = b[j];
+			if (x < y) {
+				if (mode != MERGE_INTERSECT) {
+					target[k++] = x;
+				}
+				i++;
+			} else if (x > y) {
+				if (takeB) {
+					target[k++] = y;
+				}
+				j++;
+			} else {
+				if (mode == MERGE_INTERSECT | mode == MERGE_UNITE) {
+					target[k++] = x;
+				}
+				i++; j++;
+			}
+		}
+
+		if (mode != MERGE_INTERSECT && i < n) {
+			System.arraycopy(a, i, target, k, n-i);
+			k += n-i;
+		}
+		if (takeB && j < m) {
+			System.arraycopy(b, j, target, k, m-j);
+			k += m-j;
+		}
+		return k;
+	}
+
+	private SortedLongArraySet merged (Set<Long> a, int mode) {
+		int[] len = new int[1];
+		long[] b = sortedOperand(a, len);
+		int m = len[0];
+		int cap = mode == MERGE_INTERSECT ? Math.min(size, m) :
+			      mode == MERGE_WITHOUT ? size : size + m;
+		SortedLongArraySet set = (SortedLongArraySet) emptyClone(cap);
+		set.size = merge(b, m, mode, set.elementData);
+		return set;
+	}
+
+	private void mergeWith (long[] b, int m, int mode) {
+		int n = size, k;
+		if (mode == MERGE_INTERSECT | mode == MERGE_WITHOUT) {
+			k = merge(b, m, mode, elementData);
+			if (k == n) return;
+		} else {
+			if (m == 0) return;
+			long[] target = new long[n + m];
+			k = merge(b, m, mode, target);
+			elementData = target;
+		}
+		size = k;
+		modCount++;
+	}
+
+	private void mergeWith (Set<Long> a, int mode) {
+		int[] len = new int[1];
+		long[] b = sortedOperand(a, len);
+		mergeWith(b, len[0], mode);
+	}
+
+	@Override
+	public OperatingSet<Long> intersected (Set<Long> a) {
+		return merged(a, MERGE_INTERSECT);
+	}
+
+	@Override
+	public OperatingSet<Long> united (Set<Long> a) {
+		return merged(a, MERGE_UNITE);
+	}
+
+	@Override
+	public OperatingSet<Long> without (Set<Long> a) {
+		return merged(a, MERGE_WITHOUT);
+	}
+
+	@Override
+	public OperatingSet<Long> xored (Set<Long> a) {
+		return merged(a, MERGE_XOR);
+	}
+
+	@Override
+	public void intersectWith (Set<Long> a) {
+		mergeWith(a, MERGE_INTERSECT);
+	}
+
+	@Override
+	public void uniteWith (Set<Long> a) {
+		mergeWith(a, MERGE_UNITE);
+	}
+
+	@Override
+	public void exclude (Set<Long> a) {
+		mergeWith(a, MERGE_WITHOUT);
+	}
+
+	@Override
+	public void xorWith (Set<Long> a) {
+		mergeWith(a, MERGE_XOR);
+	}
+
+// ----------------------------------------------------------
+
+	/** A range view of the parent set. The bounds are resolved to index
+	 * positions by binary search for each operation.
+	 */
+	private class SubSet extends AbstractSet<Long> implements SortedSet<Long>, Serializable {
+	    private static final long serialVersionUID = -2806178850149203389L;
+		private final boolean hasLow, hasHigh;
+		private final long low, high;
+
+		SubSet (boolean hasLow, long low, boolean hasHigh, long high) {
+			if (hasLow && hasHigh && high < low)
+				throw new IllegalArgumentException("high < low");
+			this.hasLow = hasLow;
+			this.hasHigh = hasHigh;
+			this.low = low;
+			this.high = high;
+		}
+
+		private boolean isInbounds (long v) {
+			return (!hasLow || v >= low) && (!hasHigh || v < high);
+		}
+
+		/** Whether the given value is a legal upper bound for a view within
+		 * this view.
+		 */
+		private boolean isHighBound (long v) {
+			return (!hasLow || v >= low) && (!hasHigh || v <= high);
+		}
+
+		private int fromIndex () {
+			return hasLow ? lowerIndex(low) : 0;
+		}
+
+		private int toIndex () {
+			return hasHigh ? lowerIndex(high) : size;
+		}
+
+		@Override
+		public int size () {
+			return Math.max(0, toIndex() - fromIndex());
+		}
+
+		@Override
+		public boolean isEmpty () {
+			return size() == 0;
+		}
+
+		@Override
+		public boolean contains (Object o) {
+			if (!(o instanceof Long)) return false;
+			long v = (Long) o;
+			return isInbounds(v) && containsLong(v);
+		}
+
+		@Override
+		public boolean add (Long e) {
+			if (!isInbounds(e))
+				throw new IllegalArgumentException("value out of range: " + e);
+			return addLong(e);
+		}
+
+		@Override
+		public boolean remove (Object o) {
+			if (!(o instanceof Long)) return false;
+			long v = (Long) o;
+			return isInbounds(v) && removeLong(v);
+		}
+
+		@Override
+		public Iterator<Long> iterator () {
+			return new RangeIterator(fromIndex(), toIndex());
+		}
+
+		@Override
+		public Comparator<? super Long> comparator () {
+			return null;
+		}
+
+		@Override
+		public SortedSet<Long> subSet (Long fromElement, Long toElement) {
+			if (!isInbounds(fromElement) || !isHighBound(toElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(true, fromElement, true, toElement);
+		}
+
+		@Override
+		public SortedSet<Long> headSet (Long toElement) {
+			if (!isHighBound(toElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(hasLow, low, true, toElement);
+		}
+
+		@Override
+		public SortedSet<Long> tailSet (Long fromElement) {
+			if (!isInbounds(fromElement))
+				throw new IllegalArgumentException("value out of range");
+			return new SubSet(true, fromElement, hasHigh, high);
+		}
+
+		@Override
+		public Long first () {
+			int i = fromIndex();
+			return i < toIndex() ? elementData[i] : null;
+		}
+
+		@Override
+		public Long last () {
+			int i = toIndex();
+			return i > fromIndex() ? elementData[i-1] : null;
+		}
+	}
+
+	/** Iterator over an index range of the value array.
+	 */
+	private class RangeIterator implements PrimitiveIterator.OfLong {
+		int cursor, end;
+		int lastRet = -1;
+		int expectedModCount = modCount;
+
+		RangeIterator (int from, int to) {
+			cursor = from;
+			end = to;
+		}
+
+		@Override
+		public boolean hasNext () {
+			return cursor < end;
+		}
+
+		@Override
+		public long nextLong () {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (cursor >= end)
+				throw new NoSuchElementException();
+			return elementData[lastRet = cursor++];
+		}
+
+		@Override
+		public void remove () {
+			if (lastRet < 0)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+
+			removeAt(lastRet);
+			cursor = lastRet;
+			lastRet = -1;
+			end--;
+			expectedModCount = modCount;
+		}
+	}
+}
@@ -35,6 +35,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.ConcurrentModificationException;
 
 import org.junit.Test;
 
@@ -756,4 +758,100 @@ public void serialisation () throws IOException {
 	
 }
 
+@Test
+public void hash_index () {
+	int n = 2000;
+	ArraySet<String> set1 = new ArraySet<String>();
+	ArraySet<String> set2 = new ArraySet<String>();
+	set2.setHashIndexing(false);
+	assertTrue(set1.isHashIndexing());
+	assertFalse(set2.isHashIndexing());
+	List<String> list = new ArrayList<>();
+	
+	// load both sets with identical content incl. duplicates and null
+	for (int i = 0; i < n; i++) {
+		String s = i % 7 == 0 ? null : randomString();
+		list.add(s);
+		assertTrue(set1.add(s) == set2.add(s));
+	}
+	assertTrue(set1.size() == set2.size());
+	assertTrue(Arrays.equals(set1.toArray(), set2.toArray()));
+	assertTrue(set1.contains(null));
+	for (String s : list) {
+		assertTrue(set1.contains(s));
+		assertTrue(set1.indexOf(s) == set2.indexOf(s));
+	}
+	assertFalse(set1.contains("ABC"));
+	assertTrue(set1.indexOf("ABC") == -1);
+	
+	// remove elements (direct and via iterator) and control positions
+	for (int i = 0; i < n; i += 3) {
+		String s = list.get(i);
+		assertTrue(set1.remove(s) == set2.remove(s));
+		assertFalse(set1.contains(s));
+	}
+	for (Iterator<String> it = set1.iterator(); it.hasNext();) {
+		String s = it.next();
+		if (s != null && s.length() < 5) {
+			it.remove();
+			set2.remove(s);
+		}
+	}
+	assertTrue(set1.size() == set2.size());
+	assertTrue(Arrays.equals(set1.toArray(), set2.toArray()));
+	for (String s : set2) {
+		assertTrue(set1.contains(s));
+		assertTrue(set1.indexOf(s) == set2.indexOf(s));
+	}
+	
+	// clone is independent
+	@SuppressWarnings("unchecked")
+	ArraySet<String> set3 = (ArraySet<String>) set1.clone();
+	String s = set1.get(set1.size() / 2);
+	set1.remove(s);
+	assertTrue(set3.contains(s));
+	assertTrue(set3.indexOf(s) == set2.indexOf(s));
+	assertTrue(set3.add("ABC"));
+	assertFalse(set1.contains("ABC"));
+
+	// switching off retains content
+	set3.setHashIndexing(false);
+	assertTrue(set3.contains("ABC"));
+	assertTrue(set3.contains(s));
+}
+
+@Test
+public void spliterator () {
+	ArraySet<String> set = preloadedStr(1000);
+	Spliterator<String> sp = set.spliterator();
+	assertTrue(sp.hasCharacteristics(Spliterator.SIZED));
+	assertTrue(sp.hasCharacteristics(Spliterator.SUBSIZED));
+	assertTrue(sp.hasCharacteristics(Spliterator.DISTINCT));
+	assertTrue(sp.hasCharacteristics(Spliterator.ORDERED));
+	assertFalse(sp.hasCharacteristics(Spliterator.SORTED));
+	assertTrue(sp.estimateSize() == 1000);
+	
+	// split into halves of exact size
+	Spliterator<String> sp2 = sp.trySplit();
+	assertNotNull(sp2);
+	assertTrue(sp.getExactSizeIfKnown() + sp2.getExactSizeIfKnown() == 1000);
+	List<String> list = new ArrayList<>();
+	sp2.forEachRemaining(list::add);
+	assertTrue(sp.tryAdvance(list::add));
+	sp.forEachRemaining(list::add);
+	assertTrue(Arrays.equals(list.toArray(), set.toArray()));
+	
+	// parallel stream
+	assertTrue(set.parallelStream().count() == 1000);
+	assertTrue(set.parallelStream().mapToInt(String::length).sum() == 
+			set.stream().mapToInt(String::length).sum());
+	
+	// fail-fast
+	try {
+		set.stream().forEach(s -> set.add("ABC"));
+		fail("expected ConcurrentModificationException");
+	} catch (ConcurrentModificationException e) {
+	}
+}
+
 }
@@ -0,0 +1,221 @@
+package kse.utilclass.sets;
+
+/*
+*  File: TestC_ConcurrentSetStack.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import kse.utilclass.io.Serialiser;
+
+public class TestC_ConcurrentSetStack {
+
+@Test
+public void stack_operations () {
+	ConcurrentSetStack<String> stack = new ConcurrentSetStack<>();
+	assertTrue(stack.empty());
+	assertNull(stack.peek());
+	assertNull(stack.pop());
+	assertEquals(-1, stack.search("a"));
+	
+	try {
+		stack.push(null);
+		fail("expected NullPointerException");
+	} catch (NullPointerException e) {
+	}
+	
+	stack.push("a");
+	stack.push("b");
+	stack.push("c");
+	assertEquals(3, stack.size());
+	assertEquals("c", stack.peek());
+	assertEquals("a", stack.peekEldest());
+	assertEquals(1, stack.search("c"));
+	assertEquals(3, stack.search("a"));
+	assertEquals(-1, stack.search("x"));
+	assertEquals(Arrays.asList("c", "b", "a"), stack.getStackList());
+	assertEquals(Arrays.asList("a", "b", "c"), stack.getList());
+	
+	// push of a contained element relocates it
+	assertTrue(stack.add("a"));
+	assertEquals(3, stack.size());
+	assertEquals(Arrays.asList("a", "c", "b"), stack.getStackList());
+	assertTrue(stack.touch("b"));
+	assertFalse(stack.touch("x"));
+	assertFalse(stack.contains("x"));
+	assertEquals(Arrays.asList("b", "a", "c"), new ArrayList<>(stack));
+	
+	// removal
+	assertTrue(stack.remove("a"));
+	assertFalse(stack.remove("a"));
+	assertEquals(Arrays.asList("b", "c"), stack.getStackList());
+	assertEquals("b", stack.pop());
+	assertEquals("c", stack.pop());
+	assertNull(stack.pop());
+	assertTrue(stack.isEmpty());
+	
+	stack.addAll(Arrays.asList("x", "y", "z"));
+	stack.clear();
+	assertTrue(stack.isEmpty());
+	assertFalse(stack.iterator().hasNext());
+	assertNull(stack.peekEldest());
+}
+
+@Test
+public void capacity_bound () {
+	ConcurrentSetStack<Integer> stack = new ConcurrentSetStack<>(5);
+	assertEquals(5, stack.getCapacity());
+	for (int i = 0; i < 10; i++) {
+		stack.push(i);
+	}
+	assertEquals(5, stack.size());
+	assertEquals(Arrays.asList(9, 8, 7, 6, 5), stack.getStackList());
+	
+	// touched elements survive eviction
+	stack.touch(5);
+	stack.push(10);
+	assertEquals(Arrays.asList(10, 5, 9, 8, 7), stack.getStackList());
+	assertFalse(stack.contains(6));
+	
+	try {
+		new ConcurrentSetStack<Integer>(-1);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+@Test
+public void weak_iteration () {
+	ConcurrentSetStack<Integer> stack = new ConcurrentSetStack<>();
+	for (int i = 0; i < 10; i++) {
+		stack.push(i);
+	}
+	
+	// modifications during iteration: no exception, no element twice
+	Iterator<Integer> it = stack.iterator();
+	assertEquals(Integer.valueOf(9), it.next());
+	stack.touch(3);
+	stack.remove(8);
+	stack.push(20);
+	List<Integer> seen = new ArrayList<>();
+	while (it.hasNext()) {
+		seen.add(it.next());
+	}
+	assertEquals(Arrays.asList(7, 6, 5, 4, 2, 1, 0), seen);
+	
+	// iterator removal
+	it = stack.iterator();
+	while (it.hasNext()) {
+		if (it.next() % 2 == 0) {
+			it.remove();
+		}
+	}
+	assertEquals(Arrays.asList(3, 9, 7, 5, 1), stack.getStackList());
+	assertEquals(5, stack.size());
+	try {
+		it.remove();
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+}
+
+@Test
+public void concurrent_access () throws InterruptedException {
+	ConcurrentSetStack<Integer> stack = new ConcurrentSetStack<>(500);
+	AtomicInteger errors = new AtomicInteger();
+	AtomicReference<Throwable> failure = new AtomicReference<>();
+	List<Thread> threads = new ArrayList<>();
+	for (int t = 0; t < 6; t++) {
+		final int base = t * 1000;
+		threads.add(new Thread(() -> {
+			try {
+				for (int r = 0; r < 20; r++) {
+					for (int i = 0; i < 200; i++) {
+						stack.push(base + i);
+						stack.touch(base + (i / 2));
+						if (i % 3 == 0) {
+							stack.remove(base + i);
+						}
+					}
+					// iteration returns no duplicates
+					Set<Integer> set = new HashSet<>();
+					for (Integer v : stack) {
+						if (!set.add(v)) errors.incrementAndGet();
+					}
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			}
+		}));
+	}
+	for (Thread th : threads) {
+		th.start();
+	}
+	for (Thread th : threads) {
+		th.join();
+	}
+	
+	assertNull(String.valueOf(failure.get()), failure.get());
+	assertEquals(0, errors.get());
+	assertTrue(stack.size() <= 500);
+	List<Integer> list = stack.getStackList();
+	assertEquals(stack.size(), list.size());
+	assertEquals(list.size(), new HashSet<>(list).size());
+	for (Integer v : list) {
+		assertTrue(stack.contains(v));
+	}
+}
+
+@SuppressWarnings("unchecked")
+@Test
+public void serialisation () throws IOException {
+	ConcurrentSetStack<String> stack = new ConcurrentSetStack<>(10);
+	for (String s : new String[] {"ab", "cd", "ef", "gh", "ab"}) {
+		stack.push(s);
+	}
+	Serialiser sss = new Serialiser();
+	byte[] ser = sss.serialise(stack);
+	ConcurrentSetStack<String> stack2 = (ConcurrentSetStack<String>) sss.deserialiseObject(ser);
+	assertEquals(stack.getStackList(), stack2.getStackList());
+	assertEquals(10, stack2.getCapacity());
+	stack2.push("cd");
+	assertEquals("cd", stack2.peek());
+}
+
+}
@@ -0,0 +1,364 @@
+package kse.utilclass.sets;
+
+/*
+*  File: TestC_ConcurrentSortedArraySet.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import kse.utilclass.io.Serialiser;
+import kse.utilclass.misc.Util;
+
+public class TestC_ConcurrentSortedArraySet {
+
+private ConcurrentSortedArraySet<String> preloadedStr (int n) {
+	ConcurrentSortedArraySet<String> set = new ConcurrentSortedArraySet<String>();
+	while (set.size() < n) {
+		set.add(Util.randomString(50));
+	}
+	return set;
+}
+
+@Test
+public void basic_operations () {
+	ConcurrentSortedArraySet<String> set = new ConcurrentSortedArraySet<>();
+	assertTrue(set.isEmpty());
+	assertNull(set.first());
+	assertNull(set.last());
+	
+	try {
+		set.add(null);
+		fail("expected NullPointerException");
+	} catch (NullPointerException e) {
+	}
+	
+	assertTrue(set.add("mouse"));
+	assertTrue(set.add("cat"));
+	assertTrue(set.add("elephant"));
+	assertFalse(set.add("cat"));
+	assertEquals(3, set.size());
+	assertEquals(Arrays.asList("cat", "elephant", "mouse"), new ArrayList<>(set));
+	assertEquals("cat", set.first());
+	assertEquals("mouse", set.last());
+	assertEquals("elephant", set.getElement(1));
+	assertEquals(2, set.indexOf("mouse"));
+	assertEquals(-1, set.indexOf("dog"));
+	assertTrue(set.contains("elephant"));
+	assertFalse(set.contains("dog"));
+	assertFalse(set.contains(Integer.valueOf(3)));
+	
+	assertTrue(set.remove("elephant"));
+	assertFalse(set.remove("elephant"));
+	assertEquals(Arrays.asList("cat", "mouse"), new ArrayList<>(set));
+	
+	// bulk operations
+	assertTrue(set.addAll(Arrays.asList("dog", "ant", "dog", "cat")));
+	assertFalse(set.addAll(Arrays.asList("dog", "ant")));
+	assertEquals(Arrays.asList("ant", "cat", "dog", "mouse"), new ArrayList<>(set));
+	assertTrue(set.removeAll(Arrays.asList("ant", "bee")));
+	assertFalse(set.removeAll(Arrays.asList("ant", "bee")));
+	assertTrue(set.retainAll(Arrays.asList("cat", "mouse", "bee")));
+	assertEquals(Arrays.asList("cat", "mouse"), new ArrayList<>(set));
+	
+	set.clear();
+	assertTrue(set.isEmpty());
+	
+	// comparator ordering
+	Comparator<String> rev = Collections.reverseOrder();
+	ConcurrentSortedArraySet<String> set2 = new ConcurrentSortedArraySet<>(rev);
+	set2.addAll(Arrays.asList("b", "c", "a"));
+	assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<>(set2));
+	assertTrue(set2.comparator() == rev);
+	assertTrue(set2.contains("a"));
+	
+	// copy constructors
+	ConcurrentSortedArraySet<String> set3 = new ConcurrentSortedArraySet<>((SortedSet<String>) set2);
+	assertEquals(new ArrayList<>(set2), new ArrayList<>(set3));
+	assertTrue(set3.comparator() == rev);
+	set3 = new ConcurrentSortedArraySet<>((SortedSet<String>) null);
+	assertTrue(set3.isEmpty());
+	assertNull(set3.comparator());
+	assertTrue(new ConcurrentSortedArraySet<>((List<String>) null).isEmpty());
+}
+
+@Test
+public void snapshot_iteration () {
+	ConcurrentSortedArraySet<String> set = preloadedStr(100);
+	assertTrue(Util.isSortedSet(set, null));
+	Object[] before = set.toArray();
+	
+	// iterator does not see later modifications and does not fail
+	Iterator<String> it = set.iterator();
+	set.add("0000");
+	set.remove(before[50]);
+	List<Object> list = new ArrayList<>();
+	while (it.hasNext()) {
+		list.add(it.next());
+	}
+	assertTrue(Arrays.equals(before, list.toArray()));
+	assertEquals(100, set.size());
+	
+	// iterator removal works on the set
+	it = set.iterator();
+	while (it.hasNext()) {
+		if (it.next().compareTo("M") < 0) {
+			it.remove();
+		}
+	}
+	for (String s : set) {
+		assertTrue(s.compareTo("M") >= 0);
+	}
+	
+	// snapshot copy is independent
+	SortedArraySet<String> snap = set.snapshot();
+	assertEquals(set, snap);
+	snap.clear();
+	assertFalse(set.isEmpty());
+}
+
+@Test
+public void batch_update () {
+	ConcurrentSortedArraySet<Integer> set = new ConcurrentSortedArraySet<>();
+	assertTrue(set.update(s -> {
+		for (int i = 0; i < 100; i++) {
+			s.add(i);
+		}
+		s.remove(50);
+	}));
+	assertEquals(99, set.size());
+	assertFalse(set.contains(50));
+	assertFalse(set.update(s -> s.contains(5)));
+	
+	// an action changing the comparator is refused, the content unchanged
+	try {
+		set.update(s -> s.setComparator(Comparator.reverseOrder()));
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	assertEquals(99, set.size());
+	assertEquals(Integer.valueOf(0), set.first());
+	assertTrue(set.contains(2));
+	assertTrue(set.contains(98));
+	
+	// set operations
+	TreeSet<Integer> even = new TreeSet<>();
+	for (int i = 0; i < 200; i += 2) {
+		even.add(i);
+	}
+	TreeSet<Integer> ref = new TreeSet<>(set);
+	ref.retainAll(even);
+	assertEquals(ref, set.intersected(even));
+	assertTrue(set.intersected(even) instanceof ConcurrentSortedArraySet);
+	ref = new TreeSet<>(set);
+	ref.addAll(even);
+	assertEquals(ref, set.united(even));
+	ref = new TreeSet<>(set);
+	ref.removeAll(even);
+	assertEquals(ref, set.without(even));
+	
+	ref = new TreeSet<>(set);
+	ref.removeAll(even);
+	set.exclude(even);
+	assertEquals(ref, set);
+	set.xorWith(even);
+	assertEquals(150, set.size());
+	set.intersectWith(even);
+	assertEquals(even, set);
+}
+
+@Test
+public void sub_sets () {
+	ConcurrentSortedArraySet<Integer> set = new ConcurrentSortedArraySet<>();
+	for (int i = 0; i < 100; i++) {
+		set.add(i);
+	}
+	
+	SortedSet<Integer> sub = set.subSet(20, 40);
+	assertEquals(20, sub.size());
+	assertEquals(Integer.valueOf(20), sub.first());
+	assertEquals(Integer.valueOf(39), sub.last());
+	assertTrue(sub.contains(25));
+	assertFalse(sub.contains(40));
+	
+	// view follows the set
+	set.remove(20);
+	assertEquals(19, sub.size());
+	assertEquals(Integer.valueOf(21), sub.first());
+	assertTrue(sub.add(20));
+	assertTrue(set.contains(20));
+	try {
+		sub.add(50);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	assertEquals(30, set.headSet(30).size());
+	assertEquals(10, set.tailSet(90).size());
+	assertEquals(5, sub.tailSet(35).size());
+	
+	// nested views may end at the upper bound of the enclosing view
+	assertEquals(10, set.headSet(10).headSet(10).size());
+	assertEquals(5, set.subSet(5, 10).subSet(5, 10).size());
+	assertEquals(20, sub.headSet(40).size());
+	try {
+		sub.headSet(41);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	sub.clear();
+	assertTrue(sub.isEmpty());
+	assertEquals(80, set.size());
+	assertTrue(set.contains(19));
+	assertTrue(set.contains(40));
+}
+
+@Test
+public void concurrent_access () throws InterruptedException {
+	ConcurrentSortedArraySet<Integer> set = new ConcurrentSortedArraySet<>();
+	for (int i = 0; i < 1000; i += 2) {
+		set.add(i);
+	}
+	AtomicBoolean stop = new AtomicBoolean();
+	AtomicInteger errors = new AtomicInteger();
+	
+	// readers check that even values are always present and order is kept 
+	List<Thread> threads = new ArrayList<>();
+	for (int t = 0; t < 4; t++) {
+		threads.add(new Thread(() -> {
+			while (!stop.get()) {
+				for (int i = 0; i < 1000; i += 2) {
+					if (!set.contains(i)) errors.incrementAndGet();
+				}
+				int prev = -1;
+				for (Integer v : set) {
+					if (v <= prev) errors.incrementAndGet();
+					prev = v;
+				}
+			}
+		}));
+	}
+	
+	// writers add and remove odd values
+	for (int t = 0; t < 2; t++) {
+		final int start = t;
+		threads.add(new Thread(() -> {
+			for (int r = 0; r < 20; r++) {
+				for (int i = 1 + 2*start; i < 1000; i += 4) {
+					set.add(i);
+				}
+				for (int i = 1 + 2*start; i < 1000; i += 4) {
+					set.remove(i);
+				}
+			}
+		}));
+	}
+	
+	for (Thread th : threads) {
+		th.start();
+	}
+	for (Thread th : threads.subList(4, 6)) {
+		th.join();
+	}
+	stop.set(true);
+	for (Thread th : threads.subList(0, 4)) {
+		th.join();
+	}
+	
+	assertEquals(0, errors.get());
+	assertEquals(500, set.size());
+}
+
+@SuppressWarnings("unchecked")
+@Test
+public void serialisation () throws IOException {
+	ConcurrentSortedArraySet<String> set1 = preloadedStr(50);
+	Serialiser sss = new Serialiser();
+	byte[] ser = sss.serialise(set1);
+	ConcurrentSortedArraySet<String> set2 = (ConcurrentSortedArraySet<String>) sss.deserialiseObject(ser);
+	assertEquals(set1, set2);
+	assertTrue(Arrays.equals(set1.toArray(), set2.toArray()));
+	
+	// de-serialised set is operable
+	assertTrue(set2.add("new entry"));
+	assertEquals(51, set2.size());
+	
+	// clone shares the content, not the modifications
+	ConcurrentSortedArraySet<String> set3 = (ConcurrentSortedArraySet<String>) set1.clone();
+	assertEquals(set1, set3);
+	set3.add("new entry");
+	assertEquals(50, set1.size());
+}
+
+@Test
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public void update_iterator_and_incomparable () {
+	ConcurrentSortedArraySet<Integer> set = new ConcurrentSortedArraySet<>();
+	for (int i = 0; i < 10; i++) {
+		set.add(i);
+	}
+	
+	// removals through the working set's iterator are published
+	assertTrue(set.update(s -> s.removeIf(v -> v % 2 == 0)));
+	assertEquals(Arrays.asList(1, 3, 5, 7, 9), new ArrayList<>(set));
+	assertTrue(set.update(s -> s.retainAll(Arrays.asList(3, 7))));
+	assertEquals(Arrays.asList(3, 7), new ArrayList<>(set));
+	assertFalse(set.update(s -> s.removeIf(v -> v > 100)));
+	
+	// an element which cannot be compared is rejected
+	Set raw = set;
+	try {
+		raw.add("x");
+		fail("expected ClassCastException");
+	} catch (ClassCastException e) {
+	}
+	try {
+		raw.remove("x");
+		fail("expected ClassCastException");
+	} catch (ClassCastException e) {
+	}
+	assertEquals(Arrays.asList(3, 7), new ArrayList<>(set));
+	assertFalse(set.contains("x"));
+	assertEquals(-1, set.indexOf("x"));
+}
+
+}
@@ -0,0 +1,302 @@
+package kse.utilclass.sets;
+
+/*
+*  File: TestC_PrimitiveArraySets.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import kse.utilclass.io.Serialiser;
+
+public class TestC_PrimitiveArraySets {
+
+	private Random random = new Random();
+
+private long[] randomLongs (int n, int range) {
+	long[] arr = new long[n];
+	for (int i = 0; i < n; i++) {
+		arr[i] = random.nextInt(range) - range / 2;
+	}
+	return arr;
+}
+
+@Test
+public void long_set () {
+	long[] values = randomLongs(3000, 4000);
+	LongArraySet set1 = new LongArraySet();
+	ArraySet<Long> ctrl = new ArraySet<>();
+	
+	// add values and compare with boxed set (incl. order of insertion)
+	for (long v : values) {
+		assertTrue(set1.addLong(v) == ctrl.add(v));
+	}
+	assertTrue(set1.size() == ctrl.size());
+	for (int i = 0; i < ctrl.size(); i++) {
+		assertTrue(set1.getLong(i) == ctrl.get(i));
+	}
+	assertTrue(set1.equals(ctrl));
+	assertTrue(ctrl.equals(set1));
+	assertTrue(set1.hashCode() == new HashSet<Long>(ctrl).hashCode());
+	assertFalse(set1.contains(null));
+	assertFalse(set1.contains("ABC"));
+	assertFalse(set1.containsLong(5000));
+	
+	// remove values directly and via iterator
+	for (int i = 0; i < values.length; i += 4) {
+		assertTrue(set1.removeLong(values[i]) == ctrl.remove(values[i]));
+	}
+	for (PrimitiveIterator.OfLong it = set1.iterator(); it.hasNext();) {
+		long v = it.nextLong();
+		if (v % 3 == 0) {
+			it.remove();
+			ctrl.remove(v);
+		}
+	}
+	assertTrue(set1.size() == ctrl.size());
+	for (Long v : ctrl) {
+		assertTrue(set1.containsLong(v));
+		assertTrue(set1.indexOfLong(v) == ctrl.indexOf(v));
+	}
+	assertTrue(set1.longStream().count() == ctrl.size());
+	
+	// null element fails
+	try {
+		set1.add(null);
+		fail("expected NullPointerException");
+	} catch (NullPointerException e) {
+	}
+	
+	// clone
+	LongArraySet set2 = (LongArraySet) set1.clone();
+	assertTrue(set2.equals(set1));
+	set2.addLong(9999);
+	assertFalse(set1.containsLong(9999));
+}
+
+@Test
+public void int_set () {
+	IntArraySet set1 = new IntArraySet();
+	ArraySet<Integer> ctrl = new ArraySet<>();
+	for (int i = 0; i < 3000; i++) {
+		int v = random.nextInt(4000);
+		assertTrue(set1.addInt(v) == ctrl.add(v));
+	}
+	assertTrue(set1.equals(ctrl));
+	for (int i = 0; i < ctrl.size(); i++) {
+		assertTrue(set1.getInt(i) == ctrl.get(i));
+	}
+	for (int i = 0; i < 4000; i += 3) {
+		assertTrue(set1.removeInt(i) == ctrl.remove(i));
+	}
+	assertTrue(set1.equals(ctrl));
+	assertTrue(set1.intStream().sum() == ctrl.stream().mapToInt(Integer::intValue).sum());
+	
+	// set operations
+	IntArraySet set2 = new IntArraySet(new int[] {1, 2, 3, 4, 5});
+	IntArraySet set3 = new IntArraySet(new int[] {4, 5, 6, 7});
+	assertEquals(new IntArraySet(new int[] {4, 5}), set2.intersected(set3));
+	assertEquals(new IntArraySet(new int[] {1, 2, 3, 4, 5, 6, 7}), set2.united(set3));
+	assertEquals(new IntArraySet(new int[] {1, 2, 3}), set2.without(set3));
+	assertEquals(new IntArraySet(new int[] {1, 2, 3, 6, 7}), set2.xored(set3));
+	set2.xorWith(set3);
+	assertEquals(new IntArraySet(new int[] {1, 2, 3, 6, 7}), set2);
+	set2.intersectWith(new HashSet<Integer>(set3));
+	assertEquals(new IntArraySet(new int[] {6, 7}), set2);
+	
+	// operand whose membership extends beyond its size (equal by parity)
+	TreeSet<Integer> even = new TreeSet<>(Comparator.comparing((Integer v) -> v & 1));
+	even.add(0);
+	set3 = new IntArraySet(new int[] {1, 2, 3, 4, 6});
+	assertEquals(new IntArraySet(new int[] {2, 4, 6}), set3.intersected(even));
+	
+	LongArraySet lset = new LongArraySet(new long[] {1, 2, 3, 4, 6});
+	TreeSet<Long> leven = new TreeSet<>(Comparator.comparing((Long v) -> v & 1));
+	leven.add(0L);
+	assertEquals(new LongArraySet(new long[] {2, 4, 6}), lset.intersected(leven));
+}
+
+@Test
+public void long_set_operations () {
+	LongArraySet set1 = new LongArraySet(randomLongs(500, 1000));
+	LongArraySet set2 = new LongArraySet(randomLongs(500, 1000));
+	Set<Long> s1 = new HashSet<>(set1);
+	Set<Long> s2 = new HashSet<>(set2);
+	
+	Set<Long> inter = new HashSet<>(s1); inter.retainAll(s2);
+	Set<Long> union = new HashSet<>(s1); union.addAll(s2);
+	Set<Long> without = new HashSet<>(s1); without.removeAll(s2);
+	Set<Long> xor = new HashSet<>(union); xor.removeAll(inter);
+	
+	for (Set<Long> op : Arrays.asList(set2, s2, new SortedLongArraySet(set2))) {
+		assertEquals(inter, set1.intersected(op));
+		assertEquals(union, set1.united(op));
+		assertEquals(without, set1.without(op));
+		assertEquals(xor, set1.xored(op));
+		
+		LongArraySet set = (LongArraySet) set1.clone();
+		set.intersectWith(op);
+		assertEquals(inter, set);
+		set = (LongArraySet) set1.clone();
+		set.uniteWith(op);
+		assertEquals(union, set);
+		set = (LongArraySet) set1.clone();
+		set.exclude(op);
+		assertEquals(without, set);
+		set = (LongArraySet) set1.clone();
+		set.xorWith(op);
+		assertEquals(xor, set);
+	}
+}
+
+@Test
+public void sorted_long_set () {
+	long[] values = randomLongs(3000, 4000);
+	SortedLongArraySet set1 = new SortedLongArraySet();
+	TreeSet<Long> ctrl = new TreeSet<>();
+	assertNull(set1.first());
+	try {
+		set1.firstLong();
+		fail("expected NoSuchElementException");
+	} catch (NoSuchElementException e) {
+	}
+	
+	for (long v : values) {
+		assertTrue(set1.addLong(v) == ctrl.add(v));
+	}
+	assertTrue(set1.size() == ctrl.size());
+	assertTrue(new ArrayList<>(set1).equals(new ArrayList<>(ctrl)));
+	assertTrue(set1.firstLong() == ctrl.first());
+	assertTrue(set1.lastLong() == ctrl.last());
+	assertNull(set1.comparator());
+	
+	// bulk constructors
+	assertTrue(new ArrayList<>(new SortedLongArraySet(values)).equals(new ArrayList<>(ctrl)));
+	List<Long> list = new ArrayList<>();
+	for (long v : values) list.add(v);
+	SortedLongArraySet set2 = new SortedLongArraySet(list);
+	assertTrue(new ArrayList<>(set2).equals(new ArrayList<>(ctrl)));
+	assertFalse(set2.addAll(list));
+	
+	// removal
+	for (int i = 0; i < values.length; i += 3) {
+		assertTrue(set1.removeLong(values[i]) == ctrl.remove(values[i]));
+	}
+	assertTrue(new ArrayList<>(set1).equals(new ArrayList<>(ctrl)));
+	
+	// set operations with merge
+	SortedLongArraySet set3 = new SortedLongArraySet(randomLongs(1000, 4000));
+	for (Set<Long> op : Arrays.asList(set3, new HashSet<Long>(set3), new LongArraySet(set3))) {
+		TreeSet<Long> inter = new TreeSet<>(ctrl); inter.retainAll(set3);
+		TreeSet<Long> union = new TreeSet<>(ctrl); union.addAll(set3);
+		TreeSet<Long> xor = new TreeSet<>(union); xor.removeAll(inter);
+		assertTrue(new ArrayList<>(set1.intersected(op)).equals(new ArrayList<>(inter)));
+		assertTrue(new ArrayList<>(set1.united(op)).equals(new ArrayList<>(union)));
+		assertTrue(new ArrayList<>(set1.xored(op)).equals(new ArrayList<>(xor)));
+		SortedLongArraySet set = new SortedLongArraySet(set1);
+		set.exclude(op);
+		TreeSet<Long> without = new TreeSet<>(ctrl); without.removeAll(set3);
+		assertTrue(new ArrayList<>(set).equals(new ArrayList<>(without)));
+	}
+}
+
+@Test
+public void sorted_long_subsets () {
+	SortedLongArraySet set1 = new SortedLongArraySet(new long[] {10, 20, 30, 40, 50, 60});
+	SortedSet<Long> sub = set1.subSet(20L, 50L);
+	assertTrue(sub.size() == 3);
+	assertTrue(sub.first() == 20);
+	assertTrue(sub.last() == 40);
+	assertTrue(sub.contains(30L));
+	assertFalse(sub.contains(50L));
+	assertTrue(set1.headSet(30L).size() == 2);
+	assertTrue(set1.tailSet(30L).size() == 4);
+	assertTrue(set1.subSet(21L, 29L).isEmpty());
+	assertNull(set1.subSet(21L, 29L).first());
+	
+	// write-through
+	assertTrue(sub.add(25L));
+	assertTrue(set1.containsLong(25));
+	assertTrue(sub.size() == 4);
+	set1.addLong(45);
+	assertTrue(sub.size() == 5);
+	try {
+		sub.add(55L);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	// iterator removal
+	for (Iterator<Long> it = sub.iterator(); it.hasNext();) {
+		if (it.next() % 10 == 5) it.remove();
+	}
+	assertTrue(sub.size() == 3);
+	assertTrue(set1.size() == 6);
+	
+	// nested views
+	SortedSet<Long> sub2 = sub.headSet(40L);
+	assertTrue(sub2.size() == 2);
+	try {
+		sub.tailSet(10L);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+@Test
+public void serialisation () throws IOException {
+	Serialiser sss = new Serialiser();
+	LongArraySet set1 = new LongArraySet(randomLongs(200, 1000));
+	SortedLongArraySet set2 = new SortedLongArraySet(randomLongs(200, 1000));
+	IntArraySet set3 = new IntArraySet(new int[] {3, 1, 2});
+	
+	LongArraySet set4 = (LongArraySet) sss.deserialiseObject(sss.serialise(set1));
+	assertNotNull(set4);
+	assertTrue(set4.equals(set1));
+	assertTrue(set4.containsLong(set1.getLong(100)));
+	SortedLongArraySet set5 = (SortedLongArraySet) sss.deserialiseObject(sss.serialise(set2));
+	assertTrue(new ArrayList<>(set5).equals(new ArrayList<>(set2)));
+	IntArraySet set6 = (IntArraySet) sss.deserialiseObject(sss.serialise(set3));
+	assertTrue(set6.equals(set3));
+}
+
+}
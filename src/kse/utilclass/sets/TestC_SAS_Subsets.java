@@ -30,6 +30,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.SortedSet;
 
 import org.junit.Test;
@@ -372,5 +375,102 @@ public void headSet_basic () {
 	assertTrue(sa2.first().equals(v));
 }
 
+@Test
+public void indexed_views () {
+	SortedArraySet<String> sa = preloadedStr(40);
+	String bLow = sa.getElement(10);
+	String bHigh = sa.getElement(30);
+	SortedArraySet<String>.SubSortedSet sub = sa.subSet(bLow, bHigh);
+	
+	// size, bounds and indexed access
+	assertEquals(20, sub.size());
+	assertEquals(bLow, sub.first());
+	assertEquals(sa.getElement(29), sub.last());
+	for (int i = 0; i < 20; i++) {
+		assertEquals(sa.getElement(10 + i), sub.getElement(i));
+	}
+	try {
+		sub.getElement(20);
+		fail("expected IndexOutOfBoundsException");
+	} catch (IndexOutOfBoundsException e) {
+	}
+	assertTrue(Arrays.equals(Arrays.copyOfRange(sa.toArray(), 10, 30), sub.toArray()));
+	
+	// view follows modifications of the parent
+	String v = sa.getElement(15);
+	assertTrue(sa.remove(v));
+	assertEquals(19, sub.size());
+	assertEquals(sa.getElement(10), sub.getElement(0));
+	assertTrue(sa.add(v));
+	assertEquals(20, sub.size());
+	
+	// nested views resolve against the parent set
+	SortedArraySet<String>.SubSortedSet sub2 = sub.tailSet(sub.getElement(5));
+	assertEquals(15, sub2.size());
+	assertEquals(bLow, sub.headSet(sub.getElement(5)).first());
+	assertEquals(5, sub.headSet(sub.getElement(5)).size());
+	
+	// iterator removal works on the parent
+	Iterator<String> it = sub2.iterator();
+	int ct = 0;
+	while (it.hasNext()) {
+		it.next();
+		if (ct++ % 2 == 0) {
+			it.remove();
+		}
+	}
+	assertEquals(15, ct);
+	assertEquals(7, sub2.size());
+	assertEquals(12, sub.size());
+	assertEquals(32, sa.size());
+	assertTrue(Util.isSortedSet(sa, null));
+	
+	// modification of parent fails a running iterator
+	it = sub.iterator();
+	it.next();
+	sa.add(Util.randomString(50));
+	try {
+		it.next();
+		fail("expected ConcurrentModificationException");
+	} catch (ConcurrentModificationException e) {
+	}
+	
+	// clearing the view removes the range
+	sub.clear();
+	assertTrue(sub.isEmpty());
+	assertNull(sub.first());
+	assertFalse(sa.contains(bLow));
+	assertTrue(sa.contains(bHigh));
+}
+
+@Test
+public void parent_iterator_remove () {
+	SortedArraySet<Integer> sa = new SortedArraySet<>();
+	for (int i = 0; i < 10; i++) {
+		sa.add(i);
+	}
+	SortedSet<Integer> head = sa.headSet(6);
+	assertEquals(6, head.size());
+	
+	// removal through the parent's iterator re-resolves the view's bounds
+	Iterator<Integer> it = sa.iterator();
+	it.next();
+	it.remove();
+	assertEquals(5, head.size());
+	assertEquals(Integer.valueOf(1), head.first());
+	assertEquals(Integer.valueOf(5), head.last());
+	assertEquals(Arrays.asList(1, 2, 3, 4, 5), Arrays.asList(head.toArray()));
+	
+	// a view iterator fails after removal through the parent's iterator
+	Iterator<Integer> hit = head.iterator();
+	hit.next();
+	it.next();
+	it.remove();
+	try {
+		hit.next();
+		fail("expected ConcurrentModificationException");
+	} catch (ConcurrentModificationException e) {
+	}
+}
 
 }
@@ -23,6 +23,7 @@ write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
 Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 */
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -34,8 +35,15 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -749,4 +757,203 @@ private static class ReverseComparator2<E extends Comparable<E>> implements Comp
 		return -c;
 	}
 }
+@Test
+public void merge_operations () {
+	SortedArraySet<String> set1 = preloadedStr(300);
+	SortedArraySet<String> set2 = preloadedStr(200);
+	
+	// create overlap between the sets
+	int i = 0;
+	for (String s : set1.toArray(new String[0])) {
+		if (i++ % 3 == 0) set2.add(s);
+	}
+	
+	// operands of different structure with identical content
+	List<Set<String>> operands = new ArrayList<>();
+	operands.add(set2);
+	operands.add(new TreeSet<String>(set2));
+	operands.add(new HashSet<String>(set2));
+	operands.add(new SortedArraySet<String>(set2).tailSet(""));
+	
+	TreeSet<String> ctrlInter = new TreeSet<>(set1);
+	ctrlInter.retainAll(set2);
+	TreeSet<String> ctrlUnion = new TreeSet<>(set1);
+	ctrlUnion.addAll(set2);
+	TreeSet<String> ctrlWithout = new TreeSet<>(set1);
+	ctrlWithout.removeAll(set2);
+	TreeSet<String> ctrlXor = new TreeSet<>(ctrlUnion);
+	ctrlXor.removeAll(ctrlInter);
+	
+	for (Set<String> op : operands) {
+		// external results
+		assertEquals(ctrlInter, set1.intersected(op));
+		assertEquals(ctrlUnion, set1.united(op));
+		assertEquals(ctrlWithout, set1.without(op));
+		assertEquals(ctrlXor, set1.xored(op));
+		assertTrue(set1.size() == 300);
+		assertTrue(Util.isSortedSet(set1.xored(op), null));
+		
+		// internal results
+		SortedArraySet<String> set = new SortedArraySet<>(set1);
+		set.intersectWith(op);
+		assertEquals(ctrlInter, set);
+		set = new SortedArraySet<>(set1);
+		set.uniteWith(op);
+		assertEquals(ctrlUnion, set);
+		set = new SortedArraySet<>(set1);
+		set.exclude(op);
+		assertEquals(ctrlWithout, set);
+		set = new SortedArraySet<>(set1);
+		set.xorWith(op);
+		assertEquals(ctrlXor, set);
+		assertTrue(Util.isSortedSet(set, null));
+	}
+	
+	// operation with itself
+	SortedArraySet<String> set = new SortedArraySet<>(set1);
+	assertTrue(set.xored(set).isEmpty());
+	assertEquals(set1, set.united(set));
+	set.intersectWith(set);
+	assertEquals(set1, set);
+	set.uniteWith(set);
+	assertEquals(set1, set);
+	set.xorWith(set);
+	assertTrue(set.isEmpty());
+	
+	// operands with a different ordering
+	SortedArraySet<String> set3 = new SortedArraySet<>(new ReverseComparator<String>());
+	set3.addAll(set2);
+	assertEquals(ctrlInter, set1.intersected(set3));
+	assertEquals(ctrlUnion, set1.united(set3));
+	assertEquals(ctrlXor, set1.xored(set3));
+	set = new SortedArraySet<>(set3);
+	set.uniteWith(set1);
+	assertTrue(Util.isSortedSet(set, new ReverseComparator<String>()));
+	assertTrue(set.size() == ctrlUnion.size());
+	
+	// operand whose membership extends beyond its size
+	set = new SortedArraySet<>(Arrays.asList("a", "A", "b"));
+	TreeSet<String> ci = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+	ci.add("a");
+	assertEquals(new TreeSet<>(Arrays.asList("A", "a")), set.intersected(ci));
+	assertEquals(new TreeSet<>(Arrays.asList("b")), set.without(ci));
+}
+
+@Test
+public void spliterator () {
+	SortedArraySet<String> set = preloadedStr(1000);
+	Spliterator<String> sp = set.spliterator();
+	assertTrue(sp.hasCharacteristics(Spliterator.SORTED));
+	assertTrue(sp.hasCharacteristics(Spliterator.DISTINCT));
+	assertTrue(sp.hasCharacteristics(Spliterator.SUBSIZED));
+	assertTrue(sp.getComparator() == null);
+	assertTrue(sp.getExactSizeIfKnown() == 1000);
+	
+	set.setComparator(new ReverseComparator<String>());
+	sp = set.spliterator();
+	assertTrue(sp.getComparator() instanceof ReverseComparator);
+	assertTrue(sp.trySplit().getComparator() instanceof ReverseComparator);
+	
+	// parallel stream keeps the order
+	List<String> list = set.parallelStream().collect(Collectors.toList());
+	assertTrue(Arrays.equals(list.toArray(), set.toArray()));
+}
+
+/** Compares the navigation results of the given sets for a series of 
+ * probe values.
+ */
+private void compareNavigation (NavigableSet<Integer> s1, NavigableSet<Integer> s2) {
+	assertEquals(new ArrayList<>(s2), new ArrayList<>(s1));
+	assertEquals(s2.size(), s1.size());
+	if (!s2.isEmpty()) {
+		assertEquals(s2.first(), s1.first());
+		assertEquals(s2.last(), s1.last());
+	}
+	for (int v = -2; v < 102; v++) {
+		assertEquals(s2.lower(v), s1.lower(v));
+		assertEquals(s2.floor(v), s1.floor(v));
+		assertEquals(s2.ceiling(v), s1.ceiling(v));
+		assertEquals(s2.higher(v), s1.higher(v));
+		assertEquals(s2.contains(v), s1.contains(v));
+	}
+	List<Integer> desc = new ArrayList<>();
+	for (Iterator<Integer> it = s1.descendingIterator(); it.hasNext();) {
+		desc.add(it.next());
+	}
+	assertEquals(new ArrayList<>(s2.descendingSet()), desc);
+}
+
+@Test
+public void navigable_set () {
+	Random rand = new Random(77);
+	SortedArraySet<Integer> set = new SortedArraySet<>();
+	TreeSet<Integer> tree = new TreeSet<>();
+	for (int i = 0; i < 60; i++) {
+		int v = rand.nextInt(100);
+		set.add(v);
+		tree.add(v);
+	}
+	
+	compareNavigation(set, tree);
+	compareNavigation(set.descendingSet(), tree.descendingSet());
+	
+	// sub-views with all combinations of bound inclusion
+	boolean[] bools = {true, false};
+	for (boolean fi : bools) {
+		for (boolean ti : bools) {
+			Integer lo = tree.ceiling(20), hi = tree.floor(70);
+			compareNavigation(set.subSet(lo, fi, hi, ti), tree.subSet(lo, fi, hi, ti));
+			compareNavigation(set.headSet(hi, ti), tree.headSet(hi, ti));
+			compareNavigation(set.tailSet(lo, fi), tree.tailSet(lo, fi));
+			compareNavigation(set.subSet(lo, fi, hi, ti).descendingSet(), 
+					tree.subSet(lo, fi, hi, ti).descendingSet());
+			compareNavigation(set.descendingSet().subSet(hi, ti, lo, fi), 
+					tree.descendingSet().subSet(hi, ti, lo, fi));
+			
+			// nested views
+			compareNavigation(set.subSet(lo, fi, hi, ti).headSet(50, true).tailSet(30, false), 
+					tree.subSet(lo, fi, hi, ti).headSet(50, true).tailSet(30, false));
+		}
+	}
+	
+	// sub-view bound outside of range fails
+	try {
+		set.subSet(20, false, 70, false).tailSet(20, true);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	set.subSet(20, true, 70, false).tailSet(20, true);
+	set.subSet(20, false, 70, false).tailSet(20, false);
+	
+	// poll first and last, also on views and descending sets
+	assertEquals(tree.pollFirst(), set.pollFirst());
+	assertEquals(tree.pollLast(), set.pollLast());
+	assertEquals(tree.descendingSet().pollFirst(), set.descendingSet().pollFirst());
+	assertEquals(tree.subSet(30, true, 60, false).pollFirst(), set.subSet(30, 60).pollFirst());
+	assertEquals(tree.subSet(30, true, 60, false).pollLast(), set.subSet(30, 60).pollLast());
+	compareNavigation(set, tree);
+	
+	// removal by descending iterator
+	Iterator<Integer> it1 = set.headSet(50).descendingIterator();
+	Iterator<Integer> it2 = tree.headSet(50, false).descendingIterator();
+	while (it2.hasNext()) {
+		Integer v = it2.next();
+		assertEquals(v, it1.next());
+		if (v % 3 == 0) {
+			it1.remove();
+			it2.remove();
+		}
+	}
+	assertFalse(it1.hasNext());
+	compareNavigation(set, tree);
+	
+	// empty set
+	SortedArraySet<Integer> empty = new SortedArraySet<>();
+	assertTrue(empty.pollFirst() == null);
+	assertTrue(empty.pollLast() == null);
+	assertTrue(empty.lower(5) == null);
+	assertTrue(empty.ceiling(5) == null);
+	assertFalse(empty.descendingIterator().hasNext());
+}
+
 }
@@ -0,0 +1,126 @@
+package kse.utilclass.sets;
+
+/*
+*  File: Test_ArraySetBenchmark.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.Random;
+
+/** Execution time benchmark for {@code ArraySet} which compares the linear
+ * search with the hash index over a series of set sizes. It shows the size
+ * from which on the hash index is of advantage (crossover), in relation to
+ * {@code ArraySet.HASH_INDEX_THRESHOLD}. 
+ * <p>The tested cycle consists of building a set by adding elements (which
+ * includes membership tests) and a series of membership requests of 
+ * contained and non-contained elements. 
+ */
+public class Test_ArraySetBenchmark {
+
+	private static final int[] SIZES = {4, 8, 16, 24, 32, 48, 64, 128, 256, 
+			1024, 4096, 16384};
+	
+	private Random random = new Random(44);
+	
+private String[] randomStrings (int n) {
+	String[] arr = new String[n];
+	for (int i = 0; i < n; i++) {
+		arr[i] = Long.toHexString(random.nextLong());
+	}
+	return arr;
+}
+
+/** Executes one test cycle and returns a checksum to prevent elimination
+ * of the code.
+ * 
+ * @param values String[] values to insert
+ * @param probes String[] values to search
+ * @param hashing boolean whether hash indexing is active
+ * @return int checksum
+ */
+private int cycle (String[] values, String[] probes, boolean hashing) {
+	ArraySet<String> set = new ArraySet<>();
+	set.setHashIndexing(hashing);
+	for (String s : values) {
+		set.add(s);
+	}
+	int ct = 0;
+	for (String s : values) {
+		if (set.contains(s)) ct++;
+	}
+	for (String s : probes) {
+		if (set.contains(s)) ct++;
+	}
+	return ct + set.size();
+}
+
+/** Returns the average time in nanoseconds per element for the test cycle
+ * of the given set size.
+ * 
+ * @param n int set size
+ * @param hashing boolean whether hash indexing is active
+ * @return double nanoseconds per element 
+ */
+private double measure (int n, boolean hashing) {
+	String[] values = randomStrings(n);
+	String[] probes = randomStrings(n);
+	int rounds = Math.max(3, 2000000 / (n * (hashing ? 1 : Math.min(n, 512))));
+	int check = 0;
+	
+	// warm-up
+	for (int i = 0; i < rounds; i++) {
+		check += cycle(values, probes, hashing);
+	}
+	
+	long start = System.nanoTime();
+	for (int i = 0; i < rounds; i++) {
+		check += cycle(values, probes, hashing);
+	}
+	long time = System.nanoTime() - start;
+	if (check == 0) System.out.print("");
+	return (double) time / rounds / n;
+}
+
+public void run () {
+	System.out.println("ArraySet benchmark: add + contains per element (ns), hash threshold = " 
+			+ ArraySet.HASH_INDEX_THRESHOLD);
+	System.out.println("      size     linear     hashed");
+	int crossover = -1;
+	for (int n : SIZES) {
+		double t1 = measure(n, false);
+		double t2 = measure(n, true);
+		
+		// the crossover is the smallest size from which on hashing stays ahead
+		if (t2 < t1) {
+			if (crossover == -1) crossover = n;
+		} else {
+			crossover = -1;
+		}
+		System.out.println(String.format("%10d %10.1f %10.1f", n, t1, t2));
+	}
+	System.out.println("crossover at size: " + crossover);
+}
+
+public static void main (String[] args) {
+	new Test_ArraySetBenchmark().run();
+}
+
+}
@@ -32,6 +32,8 @@ import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import kse.utilclass.misc.Util;
 
@@ -54,13 +56,22 @@ import kse.utilclass.misc.Util;
  * and disregard position settings or parameters. In APPEND mode truncation of
  * the channel is disallowed. 
  * 
+ * <p>Concurrency: operations which modify the channel position, size or 
+ * content take the write lock of the channel and thus are performed 
+ * exclusively. The positional read {@code read(ByteBuffer, long)} runs
+ * under the read lock, concurrently with other positional reads, if the 
+ * sub-class supports it ({@code isConcurrentReadable()}); otherwise it is
+ * exclusive as well. Sub-classes use the same lock ({@code getLock()}) for
+ * their additional methods.
+ * 
  *  @author Wolfgang Keller
  */
 public abstract class AbstractByteChannel implements SeekableByteChannel, 
 			GatheringByteChannel, ScatteringByteChannel {
 
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 	private long position;
-	private boolean isClosed;
+	private volatile boolean isClosed;
 	private boolean canRead;
 	private boolean canWrite;
 	private boolean isAppend;
@@ -91,14 +102,27 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 
 	public boolean isAppend () {return isAppend;}
 
+	/** Returns the lock of this channel. Methods of sub-classes which modify
+	 * the channel or release resources have to hold the write lock, methods
+	 * which only read may hold the read lock.
+	 * 
+	 * @return {@code ReentrantReadWriteLock}
+	 */
+	protected final ReentrantReadWriteLock getLock () {return lock;}
+	
 	@Override
-	public synchronized boolean isOpen() {return !isClosed;}
+	public boolean isOpen() {return !isClosed;}
 
 	@Override
-	public synchronized void close() throws IOException {
-		if (!isClosed) {
-			closeImpl();
-			isClosed = true;
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (!isClosed) {
+				closeImpl();
+				isClosed = true;
+			}
+		} finally {
+			lock.writeLock().unlock();
 		}
 	}
 
@@ -137,17 +161,22 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	}
 
 	@Override
-	public synchronized long write (ByteBuffer[] srcs, int offset, int length) throws IOException {
-		checkCanWrite();
-		Objects.requireNonNull(srcs, "buffer array is null");
-		if (length < 0 | offset < 0 | offset+length > srcs.length)
-			throw new IndexOutOfBoundsException();
-
-		long sum = 0;
-		for (int i = offset; i < offset+length; i++) {
-			sum += write(srcs[i]);
+	public long write (ByteBuffer[] srcs, int offset, int length) throws IOException {
+		lock.writeLock().lock();
+		try {
+			checkCanWrite();
+			Objects.requireNonNull(srcs, "buffer array is null");
+			if (length < 0 | offset < 0 | offset+length > srcs.length)
+				throw new IndexOutOfBoundsException();
+	
+			long sum = 0;
+			for (int i = offset; i < offset+length; i++) {
+				sum += write(srcs[i]);
+			}
+			return sum;
+		} finally {
+			lock.writeLock().unlock();
 		}
-		return sum;
 	}
 
 	@Override
@@ -156,22 +185,28 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	}
 
 	@Override
-	public synchronized long read (ByteBuffer[] dsts, int offset, int length) throws IOException {
-		checkCanRead();
-		Objects.requireNonNull(dsts, "array is null");
-		if (length < 0 | offset < 0 | offset+length > dsts.length)
-			throw new IndexOutOfBoundsException();
-
-		long oldPos = position;
-		long sum = 0;
-		int rl = 0;
-		for (int i = offset; i < offset+length; i++) {
-			rl = readImpl(dsts[i]);
-			if (rl == -1) break;
-			sum += rl;
-			position = oldPos + sum;
+	public long read (ByteBuffer[] dsts, int offset, int length) throws IOException {
+		lock.writeLock().lock();
+		try {
+			checkCanRead();
+			Objects.requireNonNull(dsts, "array is null");
+			if (length < 0 | offset < 0 | offset+length > dsts.length)
+				throw new IndexOutOfBoundsException();
+	
+			long oldPos = position;
+			long sum = 0;
+			int rl = 0;
+			for (int i = offset; i < offset+length; i++) {
+				rl = readImpl(dsts[i]);
+				if (rl == -1) break;
+				sum += rl;
+				position = oldPos + sum;
+			}
+			// end-of-file signal only if no data was read
+			return rl == -1 && sum == 0 ? -1 : sum;
+		} finally {
+			lock.writeLock().unlock();
 		}
-		return rl == -1 ? -1 : sum;
 	}
 
 	@Override
@@ -181,41 +216,62 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	
 
 	@Override
-	public synchronized long position () throws ClosedChannelException {
-		checkClosedState();
-		return position;
+	public long position () throws ClosedChannelException {
+		lock.readLock().lock();
+		try {
+			checkClosedState();
+			return position;
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	@Override
-	public synchronized long size () throws IOException {
-		checkClosedState();
-		return getChannelSize();
+	public long size () throws IOException {
+		lock.readLock().lock();
+		try {
+			checkClosedState();
+			return getChannelSize();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	@Override
-	public synchronized SeekableByteChannel position (long newPosition) throws IOException {
-		checkClosedState();
-		Util.requirePositive(newPosition, "newPosition");
-		position = newPosition;
-		return this;
+	public SeekableByteChannel position (long newPosition) throws IOException {
+		lock.writeLock().lock();
+		try {
+			checkClosedState();
+			Util.requirePositive(newPosition, "newPosition");
+			position = newPosition;
+			return this;
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 	
 	
 
 	@Override
-	public synchronized int read (ByteBuffer dst) throws IOException {
-		checkCanRead();
-		Objects.requireNonNull(dst);
-		
-		long oldPos = position;
-		int rlen = readImpl(dst);
-		position = oldPos + Math.max(0, rlen); 
-		return rlen;
+	public int read (ByteBuffer dst) throws IOException {
+		lock.writeLock().lock();
+		try {
+			checkCanRead();
+			Objects.requireNonNull(dst);
+			
+			long oldPos = position;
+			int rlen = readImpl(dst);
+			position = oldPos + Math.max(0, rlen); 
+			return rlen;
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	/** Reads a sequence of bytes from this channel into the given buffer, 
 	 * starting at the given channel position. This method does not involve
-	 * the channel's current position.
+	 * the channel's current position. If the sub-class supports it, 
+	 * positional reads of several threads are performed concurrently.
 	 *  
 	 * @param dst {@code ByteBuffer} target data buffer
 	 * @param offset long start position in the channel
@@ -223,38 +279,44 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	 * position is greater than or equal to the channel's current size
 	 * @throws IOException 
 	 */
-	public synchronized int read (ByteBuffer dst, long offset) throws IOException {
-		checkCanRead();
-		Util.requirePositive(offset, "position");
-		long oldPos = position;
-		position = offset;
+	public int read (ByteBuffer dst, long offset) throws IOException {
+		Lock l = isConcurrentReadable() ? lock.readLock() : lock.writeLock();
+		l.lock();
 		try {
-			return readImpl(dst);
+			checkCanRead();
+			Objects.requireNonNull(dst);
+			Util.requirePositive(offset, "position");
+			return readImpl(dst, offset);
 		} finally {
-			position = oldPos;
+			l.unlock();
 		}
 	}
 	
 	@Override
-	public synchronized int write (ByteBuffer src) throws IOException {
-		checkCanWrite();
-		Objects.requireNonNull(src);
-		
-		long oldPos = position;
-		if (isAppend) {
-			position = getChannelSize();
-		}
-		int wlen = 0;
+	public int write (ByteBuffer src) throws IOException {
+		lock.writeLock().lock();
 		try {
-			wlen = writeImpl(src);
-		} finally {
+			checkCanWrite();
+			Objects.requireNonNull(src);
+			
+			long oldPos = position;
 			if (isAppend) {
-				position = oldPos;
-			} else {
-				position = oldPos + wlen;
+				position = getChannelSize();
+			}
+			int wlen = 0;
+			try {
+				wlen = writeImpl(src);
+			} finally {
+				if (isAppend) {
+					position = oldPos;
+				} else {
+					position = oldPos + wlen;
+				}
 			}
+			return wlen;
+		} finally {
+			lock.writeLock().unlock();
 		}
-		return wlen;
 	}
 
 	/** Writes a sequence of bytes to this channel from the given buffer, 
@@ -266,42 +328,52 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	 * @return int length of data written, possibly zero 
 	 * @throws IOException 
 	 */
-	public synchronized int write (ByteBuffer src, long offset) throws IOException  {
-		checkCanWrite();
-		Objects.requireNonNull(src);
-		Util.requirePositive(offset, "position");
-		
-		long oldPos = position;
-		position = offset;
+	public int write (ByteBuffer src, long offset) throws IOException  {
+		lock.writeLock().lock();
 		try {
-			return write(src);
+			checkCanWrite();
+			Objects.requireNonNull(src);
+			Util.requirePositive(offset, "position");
+			
+			long oldPos = position;
+			position = offset;
+			try {
+				return write(src);
+			} finally {
+				position = oldPos;
+			}
 		} finally {
-			position = oldPos;
+			lock.writeLock().unlock();
 		}
 	}
 	
 	@Override
-	public synchronized SeekableByteChannel truncate (long size) throws IOException {
-		checkCanWrite();
-		Util.requirePositive(size, "size");
-		if (isAppend) 
-			throw new UnsupportedOperationException("forbidden to truncate in APPEND mode");
-		
-		if (size < getChannelSize()) {
-			truncateImpl(size);
-		}
-
-		// catch high-flying channel position
-		if (position > size) {
-			position = size;
+	public SeekableByteChannel truncate (long size) throws IOException {
+		lock.writeLock().lock();
+		try {
+			checkCanWrite();
+			Util.requirePositive(size, "size");
+			if (isAppend) 
+				throw new UnsupportedOperationException("forbidden to truncate in APPEND mode");
+			
+			if (size < getChannelSize()) {
+				truncateImpl(size);
+			}
+	
+			// catch high-flying channel position
+			if (position > size) {
+				position = size;
+			}
+			return this;
+		} finally {
+			lock.writeLock().unlock();
 		}
-		return this;
 	}
 
 	/** Basic read method as described in 
 	 * java.nio.channels.ReadableByteChannel.read(ByteBuffer).
-	 * This implementation does not need to synchronise or call 
-	 * {@code checkCanRead()}. It also does not need to update the channels
+	 * This implementation is called under the write lock and does not need 
+	 * to synchronise or call {@code checkCanRead()}. It also does not need to update the channels
 	 * 'position' value.
 	 * 
 	 * @param dst {@code ByteBuffer}
@@ -311,6 +383,41 @@ public abstract class AbstractByteChannel implements SeekableByteChannel,
 	 */
 	protected abstract int readImpl (ByteBuffer dst) throws IOException;
 
+	/** Whether the sub-class implements the positional read method
+	 * {@code readImpl(ByteBuffer, long)} for concurrent calls. The default
+	 * returns false.
+	 * 
+	 * @return boolean
+	 */
+	protected boolean isConcurrentReadable () {return false;}
+	
+	/** Basic positional read method as described in 
+	 * {@code read(ByteBuffer, long)}. It does not need to call 
+	 * {@code checkCanRead()}. If {@code isConcurrentReadable()} returns true,
+	 * it is called under the read lock and thus may run concurrently in 
+	 * several threads; it must not modify the state of the channel. 
+	 * Otherwise it is called under the write lock. 
+	 * <p>The default implementation sets the channel position to the given 
+	 * value, calls {@code readImpl(ByteBuffer)} and restores the previous 
+	 * position. As this modifies the channel, sub-classes which return true
+	 * from {@code isConcurrentReadable()} must override it.
+	 * 
+	 * @param dst {@code ByteBuffer}
+	 * @param position long start position in the channel
+	 * @return int number of bytes read, possibly zero, -1 if end of channel
+	 *         is reached
+	 * @throws IOException
+	 */
+	protected int readImpl (ByteBuffer dst, long position) throws IOException {
+		long oldPos = this.position;
+		this.position = position;
+		try {
+			return readImpl(dst);
+		} finally {
+			this.position = oldPos;
+		}
+	}
+
 	/** Basic write method as described in 
 	 * java.nio.channels.WritableByteChannel.write(ByteBuffer).
 	 * This implementation does not need to synchronise or call 
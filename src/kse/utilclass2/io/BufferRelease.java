@@ -0,0 +1,101 @@
+package kse.utilclass2.io;
+
+/*
+*  File: BufferRelease.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import kse.utilclass.misc.Log;
+
+/** Explicit release of the memory of direct and mapped {@code ByteBuffer}s,
+ * which otherwise is only released when the buffer is garbage collected.
+ * Uses {@code sun.misc.Unsafe.invokeCleaner()} where available (Java 9+)
+ * and the buffer's cleaner otherwise (Java 8). If neither is accessible,
+ * release is left to the garbage collector.
+ * 
+ * <p>A released buffer must not be accessed anymore; this would crash the
+ * VM. Callers have to guarantee this, e.g. by closing under lock.
+ */
+public final class BufferRelease {
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	private static final Method CLEANER;
+	private static final Method CLEAN;
+	
+	static {
+		Object unsafe = null;
+		Method invoke = null, cleaner = null, clean = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			invoke = c.getMethod("invokeCleaner", ByteBuffer.class);
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+		} catch (Exception e) {
+			invoke = null;
+			try {
+				cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			} catch (Exception e2) {
+				Log.log(3, "(BufferRelease) no explicit buffer release available: " + e2);
+			}
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invoke;
+		CLEANER = cleaner;
+		CLEAN = clean;
+	}
+	
+	private BufferRelease () {
+	}
+	
+	/** Releases the memory of the given direct buffer. Buffers which are 
+	 * not direct or which are slices or duplicates of other buffers are 
+	 * ignored.
+	 * 
+	 * @param buffer {@code ByteBuffer}, may be null
+	 * @return boolean true = memory was released
+	 */
+	public static boolean release (ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) return false;
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				return true;
+			}
+			if (CLEANER != null) {
+				Object c = CLEANER.invoke(buffer);
+				if (c != null) {
+					CLEAN.invoke(c);
+					return true;
+				}
+			}
+		} catch (Exception e) {
+			// slices and duplicates are refused
+		}
+		return false;
+	}
+}
@@ -24,6 +24,7 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 */
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.GatheringByteChannel;
@@ -33,7 +34,9 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ConcurrentModificationException;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 
 import kse.utilclass.misc.Util;
 
@@ -46,6 +49,12 @@ import kse.utilclass.misc.Util;
  * for transferring data between channels ({@code transferTo()} and {@code 
  * transferFrom()}).
  * 
+ * <p>The content can be inspected without copying through the read-only 
+ * views {@code slice()}, {@code asReadOnlyBuffer()} and {@code 
+ * getInputStream()}. Views of type {@code CoreByteChannel.Slice} fail fast 
+ * with a {@code ConcurrentModificationException} after the content of the 
+ * channel has been modified (write, transfer-in, truncate or close).
+ * 
  * <p>Operation modi can be set over the constructor. They are:
  * <br>READ-ONLY, WRITE-ONLY, READ-WRITE, APPEND-ONLY, READ-APPEND. In both
  * APPEND modi all write-methods will always append to the top of the channel
@@ -59,6 +68,8 @@ public class CoreByteChannel extends AbstractByteChannel
 
 	private byte[] buffer = new byte[0];
 	private int channelSize;
+	/** number of content modifications, validates views */
+	private volatile int modCount;
 
 	/** Creates a new, empty {@code CoreByteChannel} with default properties.
 	 * <p>This channel is open for reading and writing.
@@ -110,6 +121,7 @@ public class CoreByteChannel extends AbstractByteChannel
 	protected void closeImpl() {
 		buffer = null;
 		channelSize = 0;
+		modCount++;
 	}
 
 	private void checkPositionValue (long value) {
@@ -119,8 +131,16 @@ public class CoreByteChannel extends AbstractByteChannel
 	
 	@Override
 	protected int readImpl (ByteBuffer dst) throws IOException {
-		checkPositionValue(position());
-		int position = (int) position();
+		return readImpl(dst, position());
+	}
+
+	@Override
+	protected boolean isConcurrentReadable () {return true;}
+	
+	@Override
+	protected int readImpl (ByteBuffer dst, long offset) throws IOException {
+		checkPositionValue(offset);
+		int position = (int) offset;
 		
 		// end-of-file signal
 		if (position >= channelSize) return -1;
@@ -144,6 +164,9 @@ public class CoreByteChannel extends AbstractByteChannel
 		// transfer from source buffer
 		src.get(buffer, position, tlen);
 		channelSize = Math.max(channelSize, clen);
+		if (tlen > 0) {
+			modCount++;
+		}
 		return tlen;
 	}
 
@@ -161,6 +184,7 @@ public class CoreByteChannel extends AbstractByteChannel
 				buffer = newBuf;
 			}
 			channelSize = request;
+			modCount++;
 		}
 	}
 
@@ -170,11 +194,16 @@ public class CoreByteChannel extends AbstractByteChannel
 	 * @throws ClosedChannelException 
 	 */
 	public byte[] toArray () throws ClosedChannelException   {
-		checkClosedState();
-		int length = channelSize;
-		byte[] a = new byte[length];
-		System.arraycopy(buffer, 0, a, 0, length);
-		return a;
+		getLock().readLock().lock();
+		try {
+			checkClosedState();
+			int length = channelSize;
+			byte[] a = new byte[length];
+			System.arraycopy(buffer, 0, a, 0, length);
+			return a;
+		} finally {
+			getLock().readLock().unlock();
+		}
 	}
 	
 	/** Ensures this channel's buffer size is adequate to the given channel 
@@ -218,6 +247,7 @@ public class CoreByteChannel extends AbstractByteChannel
 		length = src.read(buf);
 		if (length > 0) {
 			channelSize = Math.max(channelSize, offset + length);
+			modCount++;
 		}
 	}
 	return Math.max(length, 0);
@@ -242,13 +272,18 @@ public class CoreByteChannel extends AbstractByteChannel
 	 * @throws NonWritableChannelException
 	 * @throws IOException
 	 */
-	public synchronized int transferFrom (ReadableByteChannel src, int position, int count) 
+	public int transferFrom (ReadableByteChannel src, int position, int count) 
 			throws IOException {
-		checkCanWrite();
-		if (isAppend()) {
-			position = channelSize;
+		getLock().writeLock().lock();
+		try {
+			checkCanWrite();
+			if (isAppend()) {
+				position = channelSize;
+			}
+			return transferImpl2(src, this, position, count);
+		} finally {
+			getLock().writeLock().unlock();
 		}
-		return transferImpl2(src, this, position, count);
 	}
 	
 	/** Transfers bytes from this channel to the given writable byte channel,
@@ -270,14 +305,309 @@ public class CoreByteChannel extends AbstractByteChannel
 	 * @throws NonWritableChannelException
 	 * @throws IOException
 	 */
-	public synchronized int transferTo (int position, int count, WritableByteChannel target) 
+	public int transferTo (int position, int count, WritableByteChannel target) 
 			throws IOException {
-		checkCanRead();
-		return  transferImpl2(this, target, position, count);
+		// the write lock is required for a transfer into this channel itself,
+		// where the target re-enters this channel to write; a read lock 
+		// cannot be upgraded
+		getLock().writeLock().lock();
+		try {
+			checkCanRead();
+			return  transferImpl2(this, target, position, count);
+		} finally {
+			getLock().writeLock().unlock();
+		}
 	}
 
+	/** Returns a read-only view of the given section of this channel's 
+	 * content. The view shares the memory of this channel, no data is copied.
+	 * The view becomes invalid with the next modification of the content.
+	 * 
+	 * @param position int start position in this channel
+	 * @param length int length of the section
+	 * @return {@code CoreByteChannel.Slice}
+	 * @throws IllegalArgumentException if an argument is negative
+	 * @throws IndexOutOfBoundsException if the section exceeds the channel size
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 */
+	public Slice slice (int position, int length) throws ClosedChannelException {
+		Util.requirePositive(position, "position");
+		Util.requirePositive(length, "length");
+		getLock().readLock().lock();
+		try {
+			checkCanRead();
+			if ((long) position + length > channelSize)
+				throw new IndexOutOfBoundsException("section exceeds channel size: " 
+						+ position + ", " + length);
+			return new Slice(buffer, position, length, modCount);
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	/** Returns a read-only view of the entire content of this channel. 
+	 * The view shares the memory of this channel, no data is copied.
+	 * The view becomes invalid with the next modification of the content.
+	 * 
+	 * @return {@code CoreByteChannel.Slice}
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 */
+	public Slice slice () throws ClosedChannelException {
+		getLock().readLock().lock();
+		try {
+			return slice(0, channelSize);
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	/** Returns a read-only {@code ByteBuffer} of the current content of this 
+	 * channel without copying. The buffer's position is zero and its limit 
+	 * is the channel size.
+	 * <p>NOTE: The returned buffer cannot detect modifications of the 
+	 * channel. Its content is undefined after the next modification; for a 
+	 * view which fails fast see {@code slice()}.
+	 * 
+	 * @return {@code ByteBuffer}
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 */
+	public ByteBuffer asReadOnlyBuffer () throws ClosedChannelException {
+		return slice().asReadOnlyBuffer();
+	}
+	
+	/** Returns an input stream which reads the current content of this 
+	 * channel without copying. The stream is independent of the channel
+	 * position. Reading from the stream throws a {@code 
+	 * ConcurrentModificationException} after the content was modified.
+	 * 
+	 * @return {@code InputStream}
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 */
+	public InputStream getInputStream () throws ClosedChannelException {
+		return slice().getInputStream();
+	}
+	
 	@Override
 	protected long getChannelSize() throws IOException {
 		return channelSize;
 	}
+	
+	// ----------------------------------------------------------
+	
+	/** A read-only section of the content of a {@code CoreByteChannel} which
+	 * shares the memory of the channel. A slice is valid until the content
+	 * of the channel is modified, afterwards its methods throw 
+	 * {@code ConcurrentModificationException}. Data is read from the slice 
+	 * under the read lock of the channel, so that reads do not overlap 
+	 * modifications.
+	 */
+	public final class Slice {
+		private final byte[] array;
+		private final int offset;
+		private final int length;
+		private final int expectedModCount;
+		
+		private Slice (byte[] array, int offset, int length, int modCount) {
+			this.array = array;
+			this.offset = offset;
+			this.length = length;
+			this.expectedModCount = modCount;
+		}
+		
+		private void checkValid () {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException("channel content modified");
+		}
+		
+		/** Whether this slice still reflects the content of its channel.
+		 * 
+		 * @return boolean
+		 */
+		public boolean isValid () {return modCount == expectedModCount;}
+		
+		/** Returns the number of bytes of this slice.
+		 * 
+		 * @return int
+		 */
+		public int size () {return length;}
+		
+		/** Returns the start position of this slice in its channel.
+		 * 
+		 * @return int
+		 */
+		public int getPosition () {return offset;}
+		
+		/** Returns the byte at the given index of this slice.
+		 * 
+		 * @param index int index relative to the slice
+		 * @return byte
+		 * @throws IndexOutOfBoundsException
+		 * @throws ConcurrentModificationException
+		 */
+		public byte get (int index) {
+			if (index < 0 | index >= length)
+				throw new IndexOutOfBoundsException("index: " + index);
+			getLock().readLock().lock();
+			try {
+				checkValid();
+				return array[offset + index];
+			} finally {
+				getLock().readLock().unlock();
+			}
+		}
+		
+		/** Returns a slice of the given section of this slice. 
+		 * 
+		 * @param position int start index relative to this slice
+		 * @param length int length of the section
+		 * @return {@code CoreByteChannel.Slice}
+		 * @throws IndexOutOfBoundsException
+		 * @throws ConcurrentModificationException
+		 */
+		public Slice slice (int position, int length) {
+			if (position < 0 | length < 0 | (long) position + length > this.length)
+				throw new IndexOutOfBoundsException("illegal section: " + position + ", " + length);
+			checkValid();
+			return new Slice(array, offset + position, length, expectedModCount);
+		}
+		
+		/** Returns a read-only {@code ByteBuffer} over the content of this 
+		 * slice. The buffer itself does not detect later modifications of 
+		 * the channel.
+		 * 
+		 * @return {@code ByteBuffer}
+		 * @throws ConcurrentModificationException
+		 */
+		public ByteBuffer asReadOnlyBuffer () {
+			checkValid();
+			return ByteBuffer.wrap(array, offset, length).slice().asReadOnlyBuffer();
+		}
+		
+		/** Writes the content of this slice to the given channel. Fewer bytes 
+		 * are written if the target is non-blocking and cannot accept more.
+		 * 
+		 * @param target {@code WritableByteChannel}
+		 * @return int number of bytes written
+		 * @throws ConcurrentModificationException if the channel content was
+		 *         modified before the operation
+		 * @throws IOException
+		 */
+		public int writeTo (WritableByteChannel target) throws IOException {
+			Objects.requireNonNull(target);
+			// a target re-entering the channel to write needs the write lock
+			Lock lock = target == CoreByteChannel.this ? getLock().writeLock() 
+					: getLock().readLock();
+			lock.lock();
+			try {
+				checkValid();
+				ByteBuffer buf = ByteBuffer.wrap(array, offset, length).asReadOnlyBuffer();
+				while (buf.hasRemaining()) {
+					if (target.write(buf) == 0) break;
+				}
+				return buf.position() - offset;
+			} finally {
+				lock.unlock();
+			}
+		}
+		
+		/** Returns a new byte array containing the content of this slice.
+		 * 
+		 * @return byte[]
+		 * @throws ConcurrentModificationException
+		 */
+		public byte[] toArray () {
+			getLock().readLock().lock();
+			try {
+				checkValid();
+				return Util.arraycopy(array, offset, length);
+			} finally {
+				getLock().readLock().unlock();
+			}
+		}
+		
+		/** Copies a section of this slice into the given array. */
+		private void copy (int index, byte[] b, int off, int n) {
+			getLock().readLock().lock();
+			try {
+				checkValid();
+				System.arraycopy(array, offset + index, b, off, n);
+			} finally {
+				getLock().readLock().unlock();
+			}
+		}
+		
+		/** Returns an input stream reading the content of this slice. 
+		 * The stream supports mark and reset.
+		 * 
+		 * @return {@code InputStream}
+		 */
+		public InputStream getInputStream () {
+			return new SliceInputStream(this);
+		}
+		
+		@Override
+		public String toString () {
+			return "CoreByteChannel.Slice [" + offset + ", " + length + "]";
+		}
+	}
+	
+	/** Input stream over a slice; fails fast when the slice becomes invalid. */
+	private static final class SliceInputStream extends InputStream {
+		private final Slice slice;
+		private int pos;
+		private int mark;
+		
+		SliceInputStream (Slice slice) {
+			this.slice = slice;
+		}
+		
+		@Override
+		public int read () throws IOException {
+			if (pos >= slice.length) return -1;
+			return slice.get(pos++) & 0xFF;
+		}
+
+		@Override
+		public int read (byte[] b, int off, int len) throws IOException {
+			Objects.requireNonNull(b);
+			if (off < 0 | len < 0 | len > b.length - off)
+				throw new IndexOutOfBoundsException();
+			if (len == 0) return 0;
+			if (pos >= slice.length) return -1;
+			
+			int n = Math.min(len, slice.length - pos);
+			slice.copy(pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public long skip (long n) throws IOException {
+			long k = Math.max(0, Math.min(n, slice.length - pos));
+			pos += k;
+			return k;
+		}
+
+		@Override
+		public int available () throws IOException {
+			return slice.length - pos;
+		}
+
+		@Override
+		public boolean markSupported () {return true;}
+
+		@Override
+		public synchronized void mark (int readlimit) {
+			mark = pos;
+		}
+
+		@Override
+		public synchronized void reset () throws IOException {
+			pos = mark;
+		}
+	}
 }
@@ -0,0 +1,107 @@
+package kse.utilclass2.io;
+
+/*
+*  File: DirectByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.nio.ByteBuffer;
+
+/** This class implements the {@code SeekableByteChannel} interface with an
+ * off-heap memory base of direct {@code ByteBuffer} segments of a fixed 
+ * size. The content does not burden the garbage collector, and transfers 
+ * to and from NIO channels ({@code transferTo()} and {@code transferFrom()})
+ * hand the segments to the other channel directly, avoiding the temporary
+ * direct buffer copy which the JDK makes for heap buffers. Channel size and
+ * position are of the 'long' value range; growth adds segments without 
+ * copying content, truncation releases whole segments.
+ * 
+ * <p>The memory of the segments is released explicitly when the channel
+ * is closed. Segments are allocated on first write; regions which were never
+ * written read as zeros.
+ * 
+ * <p>Operation modi can be set over the constructor. They are:
+ * <br>READ-ONLY, WRITE-ONLY, READ-WRITE, APPEND-ONLY, READ-APPEND. In both
+ * APPEND modi all write-methods will always append to the top of the channel
+ * and disregard position settings or parameters. In APPEND mode truncation of
+ * the channel is disallowed. 
+ * 
+ *  @author Wolfgang Keller
+ */
+public class DirectByteChannel extends SegmentedByteChannel {
+
+	/** default size of a segment (1 MB) */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+	
+	/** Creates a new, empty {@code DirectByteChannel} with the default 
+	 * segment size. 
+	 * <p>This channel is open for reading and writing.
+	 */
+	public DirectByteChannel () {
+		this(DEFAULT_SEGMENT_SIZE, "rw");
+	}
+
+	/** Creates a new, empty {@code DirectByteChannel} with the default 
+	 * segment size and properties as given in the modus parameter.
+	 * <p>This channel is open for possibly reduced or specialised abilities 
+	 * for reading and writing. As modus can be stated: 'r' for reading,
+	 * 'w' for writing, 'rw' for reading and writing, 'a' for append mode
+	 * (writing only) and 'ra' for append mode with reading. 
+	 * 
+	 * @param modus String operation parameters
+	 */
+	public DirectByteChannel (String modus) {
+		this(DEFAULT_SEGMENT_SIZE, modus);
+	}
+
+	/** Creates a new, empty {@code DirectByteChannel} with the given segment
+	 * size and properties as given in the modus parameter.
+	 * 
+	 * @param segmentSize int size of a segment, a power of 2 
+	 * @param modus String operation parameters
+	 * @throws IllegalArgumentException if segmentSize is not a positive power of 2
+	 */
+	public DirectByteChannel (int segmentSize, String modus) {
+		super(segmentSize, modus);
+	}
+
+	/** Creates a new {@code DirectByteChannel} with the default segment size
+	 * and the given initial content. The channel's position is at zero; 
+	 * the argument is copied into the segments.
+	 * <p>This channel is open for reading and writing.
+	 * 
+	 * @param content byte[] initial content
+	 */
+	public DirectByteChannel (byte[] content) {
+		this(DEFAULT_SEGMENT_SIZE, "rw");
+		writeAt(ByteBuffer.wrap(content), 0);
+	}
+
+	@Override
+	protected ByteBuffer allocateSegment (int size) {
+		return ByteBuffer.allocateDirect(size);
+	}
+	
+	@Override
+	protected void releaseSegment (ByteBuffer segment) {
+		BufferRelease.release(segment);
+	}
+}
@@ -0,0 +1,436 @@
+package kse.utilclass2.io;
+
+/*
+*  File: MappedFileByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import kse.utilclass.misc.Log;
+
+/** This class implements the {@code SeekableByteChannel} interface over a
+ * memory-mapped file. The file is mapped in windows (regions) of a fixed
+ * size, which are mapped on first access, so that files far larger than 
+ * 2 GB can be handled with 'long' positions. Reads and writes operate on the
+ * mapped memory and thus reach the speed of the page cache for random 
+ * access.
+ * 
+ * <p>When writing beyond the mapped extent, the file is enlarged in steps 
+ * (doubling, at most by one region) and the last region is mapped again.
+ * While the channel is open, the file may therefore be longer than the 
+ * channel size; it is cut to the channel size by {@code close()}.
+ * 
+ * <p>Data written reaches the mapped memory of the operating system and is
+ * written to the storage device by the system at its discretion. It can be
+ * forced to the device explicitly by {@code force()}, periodically by
+ * {@code startPeriodicFlush()} and on close (default, see 
+ * {@code setFlushOnClose()}).
+ * 
+ * <p>Operation modi can be set over the constructor. They are:
+ * <br>READ-ONLY, WRITE-ONLY, READ-WRITE, APPEND-ONLY, READ-APPEND. In both
+ * APPEND modi all write-methods will always append to the top of the channel
+ * and disregard position settings or parameters. In APPEND mode truncation of
+ * the channel is disallowed. A read-only channel requires an existing file,
+ * the other modi create the file if it does not exist.
+ * 
+ * <p>NOTE: The file should not be modified by other means while it is open 
+ * in this channel.
+ * 
+ *  @author Wolfgang Keller
+ */
+public class MappedFileByteChannel extends AbstractByteChannel 
+							 implements SeekableByteChannel, GatheringByteChannel, ScatteringByteChannel {
+
+	/** default size of a mapped region (64 MB) */
+	public static final int DEFAULT_REGION_SIZE = 1 << 26;
+	/** minimum step of file enlargement */
+	private static final long MIN_GROWTH = 1 << 16;
+	
+	/** shared daemon thread for periodic flushing of all channels */
+	private static Timer flushTimer;
+	
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final MapMode mapMode;
+	private final int regionSize;
+	private final int regionShift;
+	/** mapped regions; null for regions not mapped. Regions are mapped by
+	 * concurrent readers, the array is replaced only under the write lock */
+	private AtomicReferenceArray<MappedByteBuffer> regions;
+	/** current file length, the extent available for mapping */
+	private long capacity;
+	private long channelSize;
+	private volatile boolean flushOnClose = true;
+	private TimerTask flushTask;
+
+	/** Creates a new {@code MappedFileByteChannel} for the given file with
+	 * the default region size. The channel's position is at zero.
+	 * <p>This channel is open for possibly reduced or specialised abilities 
+	 * for reading and writing. As modus can be stated: 'r' for reading,
+	 * 'w' for writing, 'rw' for reading and writing, 'a' for append mode
+	 * (writing only) and 'ra' for append mode with reading. 
+	 * 
+	 * @param file File 
+	 * @param modus String operation parameters
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedFileByteChannel (File file, String modus) throws IOException {
+		this(file, modus, DEFAULT_REGION_SIZE);
+	}
+
+	/** Creates a new {@code MappedFileByteChannel} for the given file with
+	 * the given region size. The channel's position is at zero.
+	 * 
+	 * @param file File 
+	 * @param modus String operation parameters
+	 * @param regionSize int size of a mapped region, a power of 2
+	 * @throws IllegalArgumentException if regionSize is not a positive power of 2
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedFileByteChannel (File file, String modus, int regionSize) throws IOException {
+		super(modus);
+		Objects.requireNonNull(file, "file is null");
+		if (regionSize <= 0 || Integer.bitCount(regionSize) != 1)
+			throw new IllegalArgumentException("region size must be a power of 2: " + regionSize);
+		
+		boolean writable = modus.indexOf('w') > -1 || modus.indexOf('a') > -1;
+		this.file = file;
+		this.regionSize = regionSize;
+		regionShift = Integer.numberOfTrailingZeros(regionSize);
+		mapMode = writable ? MapMode.READ_WRITE : MapMode.READ_ONLY;
+		raf = new RandomAccessFile(file, writable ? "rw" : "r");
+		channel = raf.getChannel();
+		channelSize = capacity = channel.size();
+		regions = new AtomicReferenceArray<>(Math.max(regionIndex(capacity) + 1, 16));
+	}
+
+	/** Returns the file of this channel.
+	 * 
+	 * @return File
+	 */
+	public File getFile () {return file;}
+	
+	/** Returns the size of the mapped regions of this channel.
+	 * 
+	 * @return int bytes
+	 */
+	public int getRegionSize () {return regionSize;}
+	
+	/** Sets whether the content is forced to the storage device when this 
+	 * channel is closed. The default is true.
+	 * 
+	 * @param flush boolean
+	 */
+	public void setFlushOnClose (boolean flush) {
+		flushOnClose = flush;
+	}
+	
+	/** Whether the content is forced to the storage device when this 
+	 * channel is closed.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isFlushOnClose () {return flushOnClose;}
+	
+	/** Forces all modifications of the content to the storage device.
+	 * 
+	 * @throws ClosedChannelException
+	 * @throws IOException
+	 */
+	public void force () throws IOException {
+		getLock().readLock().lock();
+		try {
+			checkClosedState();
+			if (mapMode == MapMode.READ_ONLY) return;
+			for (int i = 0; i < regions.length(); i++) {
+				MappedByteBuffer b = regions.get(i);
+				if (b != null) {
+					b.force();
+				}
+			}
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	/** Starts forcing the content to the storage device in the given 
+	 * period. A previous periodic flush of this channel is replaced. The 
+	 * flush runs in a shared daemon thread and ends when this channel is 
+	 * closed.
+	 * 
+	 * @param period long milliseconds
+	 * @throws IllegalArgumentException if period is not positive
+	 * @throws ClosedChannelException
+	 */
+	public void startPeriodicFlush (long period) throws ClosedChannelException {
+		getLock().writeLock().lock();
+		try {
+			checkClosedState();
+			if (period <= 0)
+				throw new IllegalArgumentException("period must be positive");
+			stopPeriodicFlush();
+			flushTask = new FlushTask(this);
+			getFlushTimer().schedule(flushTask, period, period);
+		} finally {
+			getLock().writeLock().unlock();
+		}
+	}
+	
+	/** Stops the periodic flush of this channel, if it is active. */
+	public void stopPeriodicFlush () {
+		getLock().writeLock().lock();
+		try {
+			if (flushTask != null) {
+				flushTask.cancel();
+				flushTask = null;
+			}
+		} finally {
+			getLock().writeLock().unlock();
+		}
+	}
+	
+	/** Whether a periodic flush of this channel is active.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isPeriodicFlushActive () {
+		getLock().readLock().lock();
+		try {
+			return flushTask != null;
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	private static synchronized Timer getFlushTimer () {
+		if (flushTimer == null) {
+			flushTimer = new Timer("MappedFileByteChannel-Flush", true);
+		}
+		return flushTimer;
+	}
+	
+	/** Flushes, unmaps the regions, cuts the file to the channel size and 
+	 * closes the file.
+	 */
+	@Override
+	protected void closeImpl() throws IOException {
+		stopPeriodicFlush();
+		try {
+			if (flushOnClose) {
+				force();
+			}
+		} finally {
+			releaseRegions(0);
+			try {
+				if (mapMode == MapMode.READ_WRITE && capacity != channelSize) {
+					raf.setLength(channelSize);
+				}
+			} finally {
+				raf.close();
+			}
+		}
+	}
+
+	private int regionIndex (long position) {
+		long index = position >>> regionShift;
+		if (index >= Integer.MAX_VALUE - 8) 
+			throw new IndexOutOfBoundsException("illegal channel position: " + position);
+		return (int) index;
+	}
+	
+	/** Returns the mapped region of the given index, mapping it if required. 
+	 * The region covers the file up to its current length. May be called
+	 * concurrently by readers; the index must lie below the capacity.
+	 */
+	private MappedByteBuffer region (int index) throws IOException {
+		AtomicReferenceArray<MappedByteBuffer> a = regions;
+		MappedByteBuffer b = a.get(index);
+		if (b == null) {
+			synchronized (a) {
+				b = a.get(index);
+				if (b == null) {
+					long start = (long) index << regionShift;
+					long length = Math.min(regionSize, capacity - start);
+					b = channel.map(mapMode, start, length);
+					a.set(index, b);
+				}
+			}
+		}
+		return b;
+	}
+	
+	/** Unmaps the regions from the given index on. */
+	private void releaseRegions (int from) {
+		for (int i = from; i < regions.length(); i++) {
+			MappedByteBuffer b = regions.getAndSet(i, null);
+			if (b != null) {
+				BufferRelease.release(b);
+			}
+		}
+	}
+	
+	/** Returns a buffer which covers the given region of a mapping. The 
+	 * mapping's own position and limit are not touched.
+	 */
+	private static ByteBuffer slice (ByteBuffer region, int offset, int length) {
+		ByteBuffer b = region.duplicate();
+		b.limit(offset + length).position(offset);
+		return b;
+	}
+	
+	/** Enlarges the file so that it covers the given position. The region
+	 * which covered the previous end of the file is mapped again on its next 
+	 * use.
+	 */
+	private void ensureCapacity (long end) throws IOException {
+		if (end <= capacity) return;
+		long grow = Math.min(Math.max(capacity, MIN_GROWTH), regionSize);
+		long length = Math.max(end, capacity + grow);
+		length = Math.min(length, (end + regionSize - 1) & -regionSize);
+		
+		int last = regionIndex(Math.max(capacity - 1, 0));
+		MappedByteBuffer b = regions.getAndSet(last, null);
+		if (b != null) {
+			BufferRelease.release(b);
+		}
+		raf.setLength(length);
+		capacity = length;
+		
+		// the region table covers the capacity, so that readers need not grow it
+		int count = regionIndex(length - 1) + 1;
+		if (count > regions.length()) {
+			AtomicReferenceArray<MappedByteBuffer> a = new AtomicReferenceArray<>(
+					Math.max(count, regions.length() * 2));
+			for (int i = 0; i < regions.length(); i++) {
+				a.set(i, regions.get(i));
+			}
+			regions = a;
+		}
+	}
+	
+	@Override
+	protected int readImpl (ByteBuffer dst) throws IOException {
+		return readImpl(dst, position());
+	}
+	
+	@Override
+	protected boolean isConcurrentReadable () {return true;}
+	
+	@Override
+	protected int readImpl (ByteBuffer dst, long position) throws IOException {
+		// end-of-file signal
+		if (position >= channelSize) return -1;
+		
+		int len = (int) Math.min(channelSize - position, dst.remaining());
+		int rest = len;
+		while (rest > 0) {
+			int offset = (int) position & (regionSize - 1);
+			int n = Math.min(regionSize - offset, rest);
+			dst.put(slice(region(regionIndex(position)), offset, n));
+			position += n;
+			rest -= n;
+		}
+		return len;
+	}
+
+	@Override
+	protected int writeImpl (ByteBuffer src) throws IOException {
+		int tlen = src.remaining();
+		if (tlen == 0) return 0;
+		long position = position();
+		ensureCapacity(position + tlen);
+		
+		int rest = tlen;
+		long pos = position;
+		int limit = src.limit();
+		try {
+			while (rest > 0) {
+				int offset = (int) pos & (regionSize - 1);
+				int n = Math.min(regionSize - offset, rest);
+				src.limit(src.position() + n);
+				slice(region(regionIndex(pos)), offset, n).put(src);
+				pos += n;
+				rest -= n;
+			}
+		} finally {
+			src.limit(limit);
+		}
+		channelSize = Math.max(channelSize, position + tlen);
+		return tlen;
+	}
+
+	/** Unmaps the regions beyond the new size and cuts the file. */
+	@Override
+	protected void truncateImpl (long size) throws IOException {
+		if (size >= channelSize) return;
+		
+		releaseRegions(size == 0 ? 0 : regionIndex(size - 1));
+		raf.setLength(size);
+		capacity = channelSize = size;
+	}
+
+	@Override
+	protected long getChannelSize() throws IOException {
+		return channelSize;
+	}
+	
+	/** Periodic flush of a channel; ends when the channel is collected. */
+	private static final class FlushTask extends TimerTask {
+		private final WeakReference<MappedFileByteChannel> ref;
+		
+		FlushTask (MappedFileByteChannel channel) {
+			ref = new WeakReference<>(channel);
+		}
+
+		@Override
+		public void run () {
+			MappedFileByteChannel ch = ref.get();
+			if (ch == null || !ch.isOpen()) {
+				cancel();
+				return;
+			}
+			try {
+				ch.force();
+			} catch (ClosedChannelException e) {
+				cancel();
+			} catch (IOException e) {
+				Log.log(1, "(MappedFileByteChannel.FlushTask) flush failed: " + e);
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package kse.utilclass2.io;
+
+/*
+*  File: PagedByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.nio.ByteBuffer;
+
+/** This class implements the {@code SeekableByteChannel} interface with a 
+ * core memory base organised in pages of a fixed size. Other than 
+ * {@code CoreByteChannel}, channel size and position are of the 'long' 
+ * value range, and growth of the channel never copies existing content: new
+ * pages are added as required, truncation releases whole pages. Pages are
+ * allocated on first write, so that regions of the channel which were never
+ * written (e.g. beyond a position set past the channel size) occupy no 
+ * memory and read as zeros.
+ * 
+ * <p>Transfers to and from other channels ({@code transferTo()} and {@code 
+ * transferFrom()}) work directly on the pages; a {@code transferTo()} into a 
+ * {@code GatheringByteChannel} hands all pages concerned in one call.
+ * 
+ * <p>Operation modi can be set over the constructor. They are:
+ * <br>READ-ONLY, WRITE-ONLY, READ-WRITE, APPEND-ONLY, READ-APPEND. In both
+ * APPEND modi all write-methods will always append to the top of the channel
+ * and disregard position settings or parameters. In APPEND mode truncation of
+ * the channel is disallowed. 
+ * 
+ *  @author Wolfgang Keller
+ */
+public class PagedByteChannel extends SegmentedByteChannel {
+
+	/** default size of a page (64 KB) */
+	public static final int DEFAULT_PAGE_SIZE = 1 << 16;
+	
+	/** Creates a new, empty {@code PagedByteChannel} with the default page 
+	 * size. 
+	 * <p>This channel is open for reading and writing.
+	 */
+	public PagedByteChannel () {
+		this(DEFAULT_PAGE_SIZE, "rw");
+	}
+
+	/** Creates a new, empty {@code PagedByteChannel} with the default page
+	 * size and properties as given in the modus parameter.
+	 * <p>This channel is open for possibly reduced or specialised abilities 
+	 * for reading and writing. As modus can be stated: 'r' for reading,
+	 * 'w' for writing, 'rw' for reading and writing, 'a' for append mode
+	 * (writing only) and 'ra' for append mode with reading. 
+	 * 
+	 * @param modus String operation parameters
+	 */
+	public PagedByteChannel (String modus) {
+		this(DEFAULT_PAGE_SIZE, modus);
+	}
+
+	/** Creates a new, empty {@code PagedByteChannel} with the given page
+	 * size and properties as given in the modus parameter.
+	 * 
+	 * @param pageSize int size of a page, a power of 2 
+	 * @param modus String operation parameters
+	 * @throws IllegalArgumentException if pageSize is not a positive power of 2
+	 */
+	public PagedByteChannel (int pageSize, String modus) {
+		super(pageSize, modus);
+	}
+
+	/** Creates a new {@code PagedByteChannel} with the default page size and
+	 * the given initial content. The channel's position is at zero; 
+	 * the argument is copied into the pages.
+	 * <p>This channel is open for reading and writing.
+	 * 
+	 * @param content byte[] initial content
+	 */
+	public PagedByteChannel (byte[] content) {
+		this(DEFAULT_PAGE_SIZE, "rw");
+		writeAt(ByteBuffer.wrap(content), 0);
+	}
+
+	/** Returns the page size of this channel.
+	 * 
+	 * @return int bytes
+	 */
+	public int getPageSize () {return getSegmentSize();}
+	
+	@Override
+	protected ByteBuffer allocateSegment (int size) {
+		return ByteBuffer.allocate(size);
+	}
+}
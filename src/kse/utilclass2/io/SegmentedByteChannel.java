@@ -0,0 +1,459 @@
+package kse.utilclass2.io;
+
+/*
+*  File: SegmentedByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+
+import kse.utilclass.misc.Util;
+
+/** Abstract class to implement a {@code SeekableByteChannel} over a memory
+ * base organised in segments of a fixed size. Channel size and position are
+ * of the 'long' value range, and growth of the channel never copies existing
+ * content: new segments are added as required, truncation releases whole
+ * segments. Segments are allocated on first write, so that regions of the 
+ * channel which were never written (e.g. beyond a position set past the 
+ * channel size) occupy no memory and read as zeros.
+ * 
+ * <p>Sub-classes determine the kind of memory by implementing {@code 
+ * allocateSegment()} and, if the memory requires explicit release, {@code 
+ * releaseSegment()}. 
+ * 
+ * <p>Transfers to and from other channels ({@code transferTo()} and {@code 
+ * transferFrom()}) work directly on the segments. 
+ * 
+ * <p>Operation modi can be set over the constructor. They are:
+ * <br>READ-ONLY, WRITE-ONLY, READ-WRITE, APPEND-ONLY, READ-APPEND. In both
+ * APPEND modi all write-methods will always append to the top of the channel
+ * and disregard position settings or parameters. In APPEND mode truncation of
+ * the channel is disallowed. 
+ * 
+ *  @author Wolfgang Keller
+ */
+public abstract class SegmentedByteChannel extends AbstractByteChannel 
+							 implements SeekableByteChannel, GatheringByteChannel, ScatteringByteChannel {
+
+	private final int segmentSize;
+	private final int segmentShift;
+	/** segment table; entries are null for segments not allocated */
+	private ByteBuffer[] segments = new ByteBuffer[16];
+	private long channelSize;
+
+	/** Creates a new, empty {@code SegmentedByteChannel} with the given 
+	 * segment size and properties as given in the modus parameter.
+	 * <p>This channel is open for possibly reduced or specialised abilities 
+	 * for reading and writing. As modus can be stated: 'r' for reading,
+	 * 'w' for writing, 'rw' for reading and writing, 'a' for append mode
+	 * (writing only) and 'ra' for append mode with reading. 
+	 * 
+	 * @param segmentSize int size of a segment, a power of 2 
+	 * @param modus String operation parameters
+	 * @throws IllegalArgumentException if segmentSize is not a positive power of 2
+	 */
+	protected SegmentedByteChannel (int segmentSize, String modus) {
+		super(modus);
+		if (segmentSize <= 0 || Integer.bitCount(segmentSize) != 1)
+			throw new IllegalArgumentException("segment size must be a power of 2: " + segmentSize);
+		this.segmentSize = segmentSize;
+		segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+	}
+
+	/** Returns a new, zeroed segment of the given size. 
+	 * 
+	 * @param size int segment size
+	 * @return {@code ByteBuffer} 
+	 */
+	protected abstract ByteBuffer allocateSegment (int size);
+	
+	/** Releases the memory of a segment which is no longer used by this 
+	 * channel. The default implementation does nothing.
+	 * 
+	 * @param segment {@code ByteBuffer}
+	 */
+	protected void releaseSegment (ByteBuffer segment) {
+	}
+	
+	/** Returns the segment size of this channel.
+	 * 
+	 * @return int bytes
+	 */
+	public int getSegmentSize () {return segmentSize;}
+	
+	/** Returns the amount of memory allocated for segments.
+	 * 
+	 * @return long bytes
+	 */
+	public long getAllocated () {
+		getLock().readLock().lock();
+		try {
+			long n = 0;
+			if (segments != null) {
+				for (ByteBuffer b : segments) {
+					if (b != null) n += segmentSize;
+				}
+			}
+			return n;
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	/** Releases the memory of all segments. */
+	@Override
+	protected void closeImpl() {
+		for (ByteBuffer b : segments) {
+			if (b != null) {
+				releaseSegment(b);
+			}
+		}
+		segments = null;
+		channelSize = 0;
+	}
+
+	private int segmentIndex (long position) {
+		long index = position >>> segmentShift;
+		if (index >= Integer.MAX_VALUE) 
+			throw new IndexOutOfBoundsException("illegal channel position: " + position);
+		return (int) index;
+	}
+	
+	/** Returns the segment of the given index, allocating it if required. */
+	private ByteBuffer segment (int index) {
+		if (index >= segments.length) {
+			// the segment table grows, segments are not copied
+			long len = Math.max((long) index + 1, segments.length * 2L);
+			segments = Arrays.copyOf(segments, (int) Math.min(len, Integer.MAX_VALUE - 8));
+		}
+		ByteBuffer b = segments[index];
+		if (b == null) {
+			b = segments[index] = allocateSegment(segmentSize);
+		}
+		return b;
+	}
+	
+	/** Returns a buffer which covers the given region of a segment. The 
+	 * segment's own position and limit are not touched.
+	 */
+	private static ByteBuffer region (ByteBuffer segment, int offset, int length) {
+		ByteBuffer b = segment.duplicate();
+		b.limit(offset + length).position(offset);
+		return b;
+	}
+	
+	@Override
+	protected int readImpl (ByteBuffer dst) throws IOException {
+		return readImpl(dst, position());
+	}
+	
+	@Override
+	protected boolean isConcurrentReadable () {return true;}
+	
+	@Override
+	protected int readImpl (ByteBuffer dst, long position) throws IOException {
+		// end-of-file signal
+		if (position >= channelSize) return -1;
+		
+		int len = (int) Math.min(channelSize - position, dst.remaining());
+		readAt(dst, position, len);
+		return len;
+	}
+	
+	/** Transfers the given number of bytes from the given channel position 
+	 * into the buffer, segment by segment. Segments not allocated read as 
+	 * zeros. 
+	 */
+	private void readAt (ByteBuffer dst, long position, int len) {
+		while (len > 0) {
+			int index = segmentIndex(position);
+			int offset = (int) position & (segmentSize - 1);
+			int n = Math.min(segmentSize - offset, len);
+			ByteBuffer b = index < segments.length ? segments[index] : null;
+			if (b == null) {
+				for (int i = 0; i < n; i++) {
+					dst.put((byte) 0);
+				}
+			} else if (b.hasArray()) {
+				dst.put(b.array(), b.arrayOffset() + offset, n);
+			} else {
+				dst.put(region(b, offset, n));
+			}
+			position += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	protected int writeImpl (ByteBuffer src) throws ClosedChannelException {
+		return writeAt(src, position());
+	}
+
+	/** Transfers the remaining bytes of the buffer into the segments from the 
+	 * given channel position, updating the channel size. This does not modify
+	 * the position pointer of this channel.
+	 * 
+	 * @param src {@code ByteBuffer} 
+	 * @param position long start position in this channel
+	 * @return int number of bytes written
+	 */
+	protected final int writeAt (ByteBuffer src, long position) {
+		int tlen = src.remaining();
+		if (tlen == 0) return 0;
+		segmentIndex(position + tlen - 1);
+		
+		int len = tlen;
+		long pos = position;
+		int limit = src.limit();
+		try {
+			while (len > 0) {
+				ByteBuffer b = segment(segmentIndex(pos));
+				int offset = (int) pos & (segmentSize - 1);
+				int n = Math.min(segmentSize - offset, len);
+				src.limit(src.position() + n);
+				region(b, offset, n).put(src);
+				pos += n;
+				len -= n;
+			}
+		} finally {
+			src.limit(limit);
+		}
+		channelSize = Math.max(channelSize, position + tlen);
+		return tlen;
+	}
+
+	@Override
+	protected void truncateImpl (long size) throws ClosedChannelException {
+		if (size >= channelSize) return;
+		
+		// release the segments beyond the new size 
+		int keep = (int) ((size + segmentSize - 1) >>> segmentShift);
+		for (int i = keep; i < segments.length; i++) {
+			if (segments[i] != null) {
+				releaseSegment(segments[i]);
+				segments[i] = null;
+			}
+		}
+		if (keep < segments.length / 4 && segments.length > 16) {
+			segments = Arrays.copyOf(segments, Math.max(keep * 2, 16));
+		}
+		
+		// clear the remainder of the last segment, as it may be exposed by growth
+		int offset = (int) size & (segmentSize - 1);
+		ByteBuffer last = offset > 0 ? segments[keep - 1] : null;
+		if (last != null && last.hasArray()) {
+			int start = last.arrayOffset();
+			Arrays.fill(last.array(), start + offset, start + segmentSize, (byte) 0);
+		} else if (last != null) {
+			ByteBuffer b = region(last, offset, segmentSize - offset);
+			while (b.remaining() >= 8) {
+				b.putLong(0);
+			}
+			while (b.hasRemaining()) {
+				b.put((byte) 0);
+			}
+		}
+		channelSize = size;
+	}
+
+	/** Returns a new byte array containing the current content of this channel.
+	 * 
+	 * @return byte[]
+	 * @throws ClosedChannelException 
+	 * @throws IllegalStateException if the channel size exceeds the range of
+	 *         an array
+	 */
+	public byte[] toArray () throws ClosedChannelException {
+		getLock().readLock().lock();
+		try {
+			checkClosedState();
+			if (channelSize > Integer.MAX_VALUE - 8)
+				throw new IllegalStateException("channel too large for an array: " + channelSize);
+			byte[] a = new byte[(int) channelSize];
+			readAt(ByteBuffer.wrap(a), 0, a.length);
+			return a;
+		} finally {
+			getLock().readLock().unlock();
+		}
+	}
+	
+	/** Returns buffers which map the given channel region onto the segments,
+	 * one buffer per segment. Missing segments are represented by zero 
+	 * buffers.
+	 */
+	private ByteBuffer[] segmentBuffers (long position, long count) {
+		int first = segmentIndex(position);
+		int last = segmentIndex(position + count - 1);
+		ByteBuffer[] bufs = new ByteBuffer[last - first + 1];
+		long pos = position;
+		long end = position + count;
+		for (int i = 0; i < bufs.length; i++) {
+			int offset = (int) pos & (segmentSize - 1);
+			int n = (int) Math.min(segmentSize - offset, end - pos);
+			int index = first + i;
+			if (index < segments.length && segments[index] != null) {
+				bufs[i] = region(segments[index], offset, n);
+			} else {
+				bufs[i] = ByteBuffer.allocate(n);
+			}
+			pos += n;
+		}
+		return bufs;
+	}
+	
+	/** Transfers bytes into this channel from the given readable byte channel,
+	 * starting to write at the given position in this channel. This will not
+	 * modify the position pointer of this channel. The data is read directly
+	 * into the segments, one segment at a time; segments are allocated as 
+	 * they are filled, so that a large count costs no memory beyond the data 
+	 * read.
+	 * <p>Fewer than the requested number of bytes will be transferred if the 
+	 * source channel has fewer than count bytes remaining, or if the source 
+	 * is non-blocking and has fewer than count bytes available in its input 
+	 * buffer. If the given position is greater than the current size then
+	 * this channel will be expanded accordingly. 
+	 *   
+	 * @param src {@code ReadableByteChannel}
+	 * @param position long start position in this channel
+	 * @param count long number of bytes to read
+	 * @return long number of bytes transferred
+	 * @throws IllegalArgumentException
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 * @throws NonWritableChannelException
+	 * @throws IOException
+	 */
+	public long transferFrom (ReadableByteChannel src, long position, long count) 
+			throws IOException {
+		getLock().writeLock().lock();
+		try {
+			checkCanWrite();
+			Objects.requireNonNull(src);
+			Util.requirePositive(position, "position");
+			Util.requirePositive(count, "count");
+			if (isAppend()) {
+				position = channelSize;
+			}
+			if (count == 0) return 0;
+		
+			// segments are filled one after the other and only allocated when
+			// about to be filled; the transfer ends with a short read
+			long length = 0;
+			while (length < count) {
+				long pos = position + length;
+				int index = segmentIndex(pos);
+				int offset = (int) pos & (segmentSize - 1);
+				int n = (int) Math.min(segmentSize - offset, count - length);
+				boolean fresh = index >= segments.length || segments[index] == null;
+				int r = src.read(region(segment(index), offset, n));
+				if (r <= 0 && fresh) {
+					releaseSegment(segments[index]);
+					segments[index] = null;
+				}
+				if (r > 0) length += r;
+				if (r < n) break;
+			}
+			if (length > 0) {
+				channelSize = Math.max(channelSize, position + length);
+			}
+			return length;
+		} finally {
+			getLock().writeLock().unlock();
+		}
+	}
+	
+	/** Transfers bytes from this channel to the given writable byte channel,
+	 * starting to read from the given position in this channel. This will not
+	 * modify the position pointer of this channel. The segments are handed to
+	 * the target directly; a {@code GatheringByteChannel} target receives all 
+	 * segments concerned in one call.
+	 * <p>Fewer than the requested number of bytes will be transferred if this 
+	 * channel has fewer than count bytes remaining from the given position or
+	 * if the target channel is non-blocking and it has fewer than count bytes 
+	 * free in its output buffer. If the given position is greater than the 
+	 * current size of this channel then no bytes will be transferred.
+	 * <p>The transfer runs under the read lock, concurrently with positional
+	 * reads and other transfers from this channel. A transfer into this 
+	 * channel itself runs under the write lock, as the target re-enters this
+	 * channel to write; the section is then copied before it is written.
+	 * 
+	 * @param position long start position in this channel
+	 * @param count long number of bytes to write
+	 * @param target {@code WritableByteChannel}
+	 * @return long number of bytes transferred
+	 * @throws IllegalArgumentException
+	 * @throws ClosedChannelException
+	 * @throws NonReadableChannelException
+	 * @throws IOException
+	 */
+	public long transferTo (long position, long count, WritableByteChannel target) 
+			throws IOException {
+		// the read lock cannot be upgraded for a write into this channel
+		Lock lock = target == this ? getLock().writeLock() : getLock().readLock();
+		lock.lock();
+		try {
+			checkCanRead();
+			Objects.requireNonNull(target);
+			Util.requirePositive(position, "position");
+			Util.requirePositive(count, "count");
+			count = Math.min(count, channelSize - position);
+			if (count <= 0) return 0;
+
+			ByteBuffer[] bufs = segmentBuffers(position, count);
+			if (target == this) {
+				// the write may overlap the segment regions still to be read
+				for (int i = 0; i < bufs.length; i++) {
+					ByteBuffer b = ByteBuffer.allocate(bufs[i].remaining());
+					b.put(bufs[i]).flip();
+					bufs[i] = b;
+				}
+			}
+			if (target instanceof GatheringByteChannel) {
+				return ((GatheringByteChannel) target).write(bufs);
+			}
+			long length = 0;
+			for (ByteBuffer b : bufs) {
+				length += target.write(b);
+				if (b.hasRemaining()) break;
+			}
+			return length;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected long getChannelSize() throws IOException {
+		return channelSize;
+	}
+}
@@ -28,11 +28,19 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonReadableChannelException;
 import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -1126,4 +1134,298 @@ public class TestC_CoreByteChannel {
 		ch.close();
 	}
 		
+
+	@Test
+	public void concurrent_read () throws Exception {
+		final byte[] data = Util.randBytes(100000);
+		final CoreByteChannel ch = new CoreByteChannel(data);
+		ch.position(5000);
+		final AtomicInteger errors = new AtomicInteger();
+		
+		// readers compare random blocks of the fixed part with the data
+		Thread[] readers = new Thread[4];
+		for (int i = 0; i < readers.length; i++) {
+			final Random random = new Random(i);
+			readers[i] = new Thread() {
+				@Override
+				public void run () {
+					ByteBuffer buf = ByteBuffer.allocate(1000);
+					try {
+						for (int j = 0; j < 5000; j++) {
+							int pos = random.nextInt(data.length - 1000);
+							buf.clear();
+							if (ch.read(buf, pos) != 1000) {
+								errors.incrementAndGet();
+							}
+							byte[] block = Util.arraycopy(data, pos, 1000);
+							if (!Util.equalArrays(buf.array(), block)) {
+								errors.incrementAndGet();
+							}
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					}
+				}
+			};
+			readers[i].start();
+		}
+		
+		// a writer extends the channel meanwhile
+		ByteBuffer src = ByteBuffer.wrap(Util.randBytes(100));
+		for (int j = 0; j < 2000; j++) {
+			src.clear();
+			ch.write(src, data.length + j * 100L);
+		}
+		for (Thread t : readers) {
+			t.join();
+		}
+		assertTrue("errors in concurrent reads: " + errors.get(), errors.get() == 0);
+		assertTrue(ch.position() == 5000);
+		assertTrue(ch.size() == data.length + 200000);
+		ch.close();
+	}
+
+	@Test
+	public void views () throws IOException {
+		byte[] data = Util.randBytes(5000);
+		CoreByteChannel ch = new CoreByteChannel(data);
+		
+		// read-only buffer
+		ByteBuffer bb = ch.asReadOnlyBuffer();
+		assertTrue(bb.isReadOnly());
+		assertTrue(bb.position() == 0 && bb.remaining() == 5000);
+		byte[] a = new byte[5000];
+		bb.get(a);
+		assertTrue(Util.equalArrays(a, data));
+		
+		// slice and sub-slice
+		CoreByteChannel.Slice slice = ch.slice(1000, 2000);
+		assertTrue(slice.isValid());
+		assertTrue(slice.size() == 2000 && slice.getPosition() == 1000);
+		assertTrue(slice.get(0) == data[1000]);
+		assertTrue(Util.equalArrays(slice.toArray(), Util.arraycopy(data, 1000, 2000)));
+		CoreByteChannel.Slice sub = slice.slice(500, 100);
+		assertTrue(Util.equalArrays(sub.toArray(), Util.arraycopy(data, 1500, 100)));
+		assertTrue(slice.asReadOnlyBuffer().remaining() == 2000);
+		try {
+			ch.slice(4000, 1001);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		
+		// slice writes to a channel
+		CoreByteChannel target = new CoreByteChannel();
+		assertTrue(slice.writeTo(target) == 2000);
+		assertTrue(Util.equalArrays(target.toArray(), slice.toArray()));
+		
+		// input stream
+		InputStream in = ch.getInputStream();
+		assertTrue(in.available() == 5000);
+		assertTrue(in.read() == (data[0] & 0xFF));
+		in.mark(0);
+		byte[] b = new byte[100];
+		assertTrue(in.read(b) == 100);
+		assertTrue(Util.equalArrays(b, Util.arraycopy(data, 1, 100)));
+		in.reset();
+		assertTrue(in.skip(10000) == 4999);
+		assertTrue(in.read() == -1);
+		InputStream in2 = slice.getInputStream();
+		
+		// views fail after a modification, the channel position is unchanged
+		ch.write(ByteBuffer.wrap(new byte[10]), 0);
+		assertFalse(slice.isValid());
+		assertFalse(sub.isValid());
+		assertTrue(ch.position() == 0);
+		try {
+			slice.get(0);
+			fail("expected ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+		}
+		try {
+			slice.writeTo(target);
+			fail("expected ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+		}
+		try {
+			in2.read(b);
+			fail("expected ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+		}
+		
+		// truncate invalidates
+		slice = ch.slice();
+		assertTrue(slice.size() == 5000 && slice.isValid());
+		ch.truncate(100);
+		assertFalse(slice.isValid());
+		
+		// close invalidates
+		slice = ch.slice();
+		ch.close();
+		assertFalse(slice.isValid());
+		try {
+			ch.slice();
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+		
+		// not available in write-only mode
+		ch = new CoreByteChannel("w");
+		try {
+			ch.asReadOnlyBuffer();
+			fail("expected NonReadableChannelException");
+		} catch (NonReadableChannelException e) {
+		}
+	}
+	
+	@Test
+	public void views_concurrent_write () throws Exception {
+		final int length = 65536;
+		final CoreByteChannel ch = new CoreByteChannel(new byte[length]);
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicInteger errors = new AtomicInteger();
+		final AtomicInteger reads = new AtomicInteger();
+		
+		// readers see the content of one write or fail, never torn data
+		Thread[] readers = new Thread[3];
+		for (int i = 0; i < readers.length; i++) {
+			final boolean stream = i == 0;
+			readers[i] = new Thread() {
+				@Override
+				public void run () {
+					byte[] b = new byte[length];
+					try {
+						while (!done.get()) {
+							try {
+								if (stream) {
+									InputStream in = ch.getInputStream();
+									if (in.read(b) != length) errors.incrementAndGet();
+								} else {
+									b = ch.slice().toArray();
+								}
+								for (int j = 1; j < length; j++) {
+									if (b[j] != b[0]) {
+										errors.incrementAndGet();
+										break;
+									}
+								}
+								reads.incrementAndGet();
+							} catch (ConcurrentModificationException e) {
+							}
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					}
+				}
+			};
+			readers[i].start();
+		}
+		
+		// a writer replaces the entire content with uniform blocks
+		byte[] block = new byte[length];
+		for (int j = 0; j < 2000; j++) {
+			Arrays.fill(block, (byte) j);
+			ch.write(ByteBuffer.wrap(block), 0);
+		}
+		done.set(true);
+		for (Thread t : readers) {
+			t.join();
+		}
+		assertTrue("torn reads: " + errors.get(), errors.get() == 0);
+		assertTrue(reads.get() > 0);
+		
+		// a write started during writeTo() waits until the slice is written
+		final CoreByteChannel.Slice slice = ch.slice(0, 100);
+		final byte[] first = slice.toArray();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Thread writer = new Thread() {
+			@Override
+			public void run () {
+				try {
+					ch.write(ByteBuffer.wrap(new byte[100], 0, 100), 0);
+				} catch (IOException e) {
+					errors.incrementAndGet();
+				}
+			}
+		};
+		WritableByteChannel target = new WritableByteChannel() {
+			@Override
+			public int write (ByteBuffer src) throws IOException {
+				writer.start();
+				try {
+					writer.join(200);
+				} catch (InterruptedException e) {
+				}
+				int n = src.remaining();
+				byte[] b = new byte[n];
+				src.get(b);
+				out.write(b);
+				return n;
+			}
+			@Override
+			public boolean isOpen () {return true;}
+			@Override
+			public void close () {}
+		};
+		assertTrue(slice.writeTo(target) == 100);
+		assertTrue(Util.equalArrays(out.toByteArray(), first));
+		writer.join();
+		assertTrue(errors.get() == 0);
+		assertFalse(slice.isValid());
+		
+		// a slice can be written into its own channel
+		CoreByteChannel.Slice slice2 = ch.slice(0, 100);
+		ch.position(length);
+		assertTrue(slice2.writeTo(ch) == 100);
+		assertTrue(ch.size() == length + 100);
+		assertFalse(slice2.isValid());
+		ch.close();
+	}
+	
+	/** Minimal channel which supplies no positional read of its own. */
+	private static class ArrayChannel extends AbstractByteChannel {
+		private final byte[] data;
+		
+		ArrayChannel (byte[] data) {
+			super("r");
+			this.data = data;
+		}
+
+		@Override
+		protected int readImpl (ByteBuffer dst) throws IOException {
+			long pos = position();
+			if (pos >= data.length) return -1;
+			int len = (int) Math.min(data.length - pos, dst.remaining());
+			dst.put(data, (int) pos, len);
+			return len;
+		}
+
+		@Override
+		protected int writeImpl (ByteBuffer src) {return 0;}
+
+		@Override
+		protected void truncateImpl (long size) {}
+
+		@Override
+		protected long getChannelSize () {return data.length;}
+
+		@Override
+		protected void closeImpl () {}
+	}
+	
+	@Test
+	public void positional_read_fallback () throws IOException {
+		byte[] data = Util.randBytes(1000);
+		ArrayChannel ch = new ArrayChannel(data);
+		ch.position(100);
+		
+		// the default positional read restores the channel position
+		ByteBuffer buf = ByteBuffer.allocate(300);
+		assertTrue(ch.read(buf, 500) == 300);
+		assertTrue(Util.equalArrays(buf.array(), Util.arraycopy(data, 500, 300)));
+		assertTrue(ch.position() == 100);
+		buf.clear();
+		assertTrue(ch.read(buf, 1000) == -1);
+		assertTrue(ch.position() == 100);
+		ch.close();
+	}
 }
@@ -0,0 +1,188 @@
+package kse.utilclass2.io;
+
+/*
+*  File: TestC_DirectByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import kse.utilclass.misc.Util;
+
+public class TestC_DirectByteChannel {
+
+	@Test
+	public void read_write () throws IOException {
+		DirectByteChannel ch = new DirectByteChannel(64, "rw");
+		assertTrue(ch.size() == 0);
+		assertTrue(ch.getSegmentSize() == 64);
+		byte[] data = Util.randBytes(1000);
+		
+		int pos = 0;
+		for (int len = 1; pos + len <= 1000; pos += len, len += 5) {
+			assertTrue(ch.write(ByteBuffer.wrap(data, pos, len)) == len);
+		}
+		ch.write(ByteBuffer.wrap(data, pos, 1000 - pos));
+		assertTrue(ch.size() == 1000);
+		assertTrue(ch.position() == 1000);
+		assertTrue(ch.getAllocated() == 16 * 64);
+		assertTrue("write data error", Util.equalArrays(data, ch.toArray()));
+		
+		ByteBuffer buf = ByteBuffer.allocate(100);
+		ch.position(950);
+		assertTrue(ch.read(buf) == 50);
+		assertTrue(Util.equalArrays(Util.arraycopy(buf.array(), 0, 50), Util.arraycopy(data, 950, 50)));
+		assertTrue(ch.read(buf) == -1);
+		
+		// direct source and target buffers
+		ByteBuffer dbuf = ByteBuffer.allocateDirect(300);
+		dbuf.put(data, 0, 300).flip();
+		assertTrue(ch.write(dbuf, 2000) == 300);
+		assertTrue(ch.size() == 2300);
+		dbuf.clear();
+		assertTrue(ch.read(dbuf, 1900) == 300);
+		dbuf.flip();
+		for (int i = 0; i < 100; i++) {
+			assertTrue("zero expected", dbuf.get() == 0);
+		}
+		byte[] a = new byte[200];
+		dbuf.get(a);
+		assertTrue(Util.equalArrays(a, Util.arraycopy(data, 0, 200)));
+		
+		// truncation releases segments
+		ch.truncate(100);
+		assertTrue(ch.size() == 100);
+		assertTrue(ch.getAllocated() == 2 * 64);
+		ch.write(ByteBuffer.wrap(data, 0, 1), 200);
+		a = ch.toArray();
+		for (int i = 100; i < 200; i++) {
+			assertTrue("zero expected at " + i, a[i] == 0);
+		}
+		
+		ch.close();
+		assertFalse(ch.isOpen());
+		assertTrue(ch.getAllocated() == 0);
+		try {
+			ch.read(buf);
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+		try {
+			ch.toArray();
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+	}
+
+	@Test
+	public void transfer () throws IOException {
+		byte[] data = Util.randBytes(100000);
+		DirectByteChannel ch = new DirectByteChannel(4096, "rw");
+		ch.write(ByteBuffer.wrap(data));
+		
+		File f = File.createTempFile("direct-", ".dat");
+		f.deleteOnExit();
+		try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ, 
+				StandardOpenOption.WRITE)) {
+			assertTrue(ch.transferTo(1000, 98000, fc) == 98000);
+			assertTrue(fc.size() == 98000);
+			
+			DirectByteChannel ch2 = new DirectByteChannel();
+			fc.position(0);
+			assertTrue(ch2.transferFrom(fc, 0, 200000) == 98000);
+			assertTrue(ch2.size() == 98000);
+			assertTrue(Util.equalArrays(ch2.toArray(), Util.arraycopy(data, 1000, 98000)));
+			ch2.close();
+		}
+		f.delete();
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ch.transferTo(99500, 1000, Channels.newChannel(out)) == 500);
+		assertTrue(Util.equalArrays(out.toByteArray(), Util.arraycopy(data, 99500, 500)));
+		ch.close();
+		
+		// read-only channel
+		DirectByteChannel ch3 = new DirectByteChannel("r");
+		try {
+			ch3.write(ByteBuffer.wrap(data));
+			fail("expected NonWritableChannelException");
+		} catch (NonWritableChannelException e) {
+		}
+		ch3.close();
+	}
+
+	@Test
+	public void transfer_to_self () throws IOException {
+		// the written section overlaps the section still to be read
+		byte[] data = Util.randBytes(10000);
+		DirectByteChannel ch = new DirectByteChannel(4096, "rw");
+		ch.write(ByteBuffer.wrap(data));
+		ch.position(50);
+		assertTrue(ch.transferTo(0, 8000, ch) == 8000);
+		assertTrue(ch.position() == 8050);
+		assertTrue(ch.size() == 10000);
+		byte[] expected = data.clone();
+		System.arraycopy(data, 0, expected, 50, 8000);
+		assertTrue(Util.equalArrays(ch.toArray(), expected));
+		ch.close();
+	}
+	
+	@Test
+	public void transfer_short_source () throws IOException {
+		byte[] data = Util.randBytes(100);
+		DirectByteChannel ch = new DirectByteChannel();
+		
+		// only the segment which receives data is allocated
+		long len = ch.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(data)), 
+				0, Long.MAX_VALUE);
+		assertTrue(len == 100);
+		assertTrue(ch.size() == 100);
+		assertTrue(ch.getAllocated() == DirectByteChannel.DEFAULT_SEGMENT_SIZE);
+		assertTrue(Util.equalArrays(ch.toArray(), data));
+		
+		len = ch.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(new byte[0])), 
+				10L << 20, 1L << 30);
+		assertTrue(len == 0);
+		assertTrue(ch.getAllocated() == DirectByteChannel.DEFAULT_SEGMENT_SIZE);
+		ch.close();
+	}
+
+	@Test
+	public void buffer_release () {
+		assertTrue(BufferRelease.release(ByteBuffer.allocateDirect(1000)));
+		assertFalse(BufferRelease.release(ByteBuffer.allocate(1000)));
+		assertFalse(BufferRelease.release(null));
+	}
+}
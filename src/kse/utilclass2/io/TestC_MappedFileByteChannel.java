@@ -0,0 +1,217 @@
+package kse.utilclass2.io;
+
+/*
+*  File: TestC_MappedFileByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import kse.utilclass.misc.Util;
+
+public class TestC_MappedFileByteChannel {
+
+	private static File tempFile () throws IOException {
+		File f = File.createTempFile("mapped-", ".dat");
+		f.deleteOnExit();
+		return f;
+	}
+	
+	@Test
+	public void read_write () throws IOException {
+		File f = tempFile();
+		MappedFileByteChannel ch = new MappedFileByteChannel(f, "rw", 4096);
+		assertTrue(ch.size() == 0);
+		assertTrue(ch.getRegionSize() == 4096);
+		assertTrue(ch.isFlushOnClose());
+		byte[] data = Util.randBytes(50000);
+		
+		// writes across regions with file growth
+		int pos = 0;
+		for (int len = 1; pos + len <= 50000; pos += len, len += 97) {
+			assertTrue(ch.write(ByteBuffer.wrap(data, pos, len)) == len);
+		}
+		ch.write(ByteBuffer.wrap(data, pos, 50000 - pos));
+		assertTrue(ch.size() == 50000);
+		assertTrue(ch.position() == 50000);
+		assertTrue(f.length() >= 50000);
+		
+		ByteBuffer buf = ByteBuffer.allocate(50000);
+		assertTrue(ch.read(buf, 0) == 50000);
+		assertTrue("read data error", Util.equalArrays(buf.array(), data));
+		buf.clear();
+		ch.position(49000);
+		assertTrue(ch.read(buf) == 1000);
+		assertTrue(ch.read(buf) == -1);
+		
+		// truncation and growth expose zeros
+		ch.truncate(10000);
+		assertTrue(ch.size() == 10000);
+		assertTrue(f.length() == 10000);
+		ch.write(ByteBuffer.wrap(data, 0, 10), 20000);
+		buf = ByteBuffer.allocate(10000);
+		assertTrue(ch.read(buf, 10000) == 10000);
+		for (byte b : buf.array()) {
+			assertTrue(b == 0);
+		}
+		ch.force();
+		ch.close();
+		assertFalse(ch.isOpen());
+		
+		// the file holds the channel content
+		byte[] content = Files.readAllBytes(f.toPath());
+		assertTrue(content.length == 20010);
+		assertTrue(Util.equalArrays(Util.arraycopy(content, 0, 10000), Util.arraycopy(data, 0, 10000)));
+		assertTrue(Util.equalArrays(Util.arraycopy(content, 20000, 10), Util.arraycopy(data, 0, 10)));
+		
+		try {
+			ch.read(buf);
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+		
+		// read-only
+		ch = new MappedFileByteChannel(f, "r", 4096);
+		assertTrue(ch.size() == 20010);
+		buf = ByteBuffer.allocate(100);
+		assertTrue(ch.read(buf, 20000) == 10);
+		try {
+			ch.write(ByteBuffer.wrap(data));
+			fail("expected NonWritableChannelException");
+		} catch (NonWritableChannelException e) {
+		}
+		ch.close();
+		assertTrue(f.length() == 20010);
+		f.delete();
+	}
+
+	@Test
+	public void append_flush () throws IOException, InterruptedException {
+		File f = tempFile();
+		byte[] data = Util.randBytes(3000);
+		Files.write(f.toPath(), Util.arraycopy(data, 0, 1000));
+		
+		MappedFileByteChannel ch = new MappedFileByteChannel(f, "ra", 1024);
+		assertTrue(ch.size() == 1000);
+		ch.position(10);
+		ch.write(ByteBuffer.wrap(data, 1000, 2000));
+		assertTrue(ch.size() == 3000);
+		assertTrue(ch.position() == 10);
+		
+		ch.setFlushOnClose(false);
+		ch.startPeriodicFlush(10);
+		assertTrue(ch.isPeriodicFlushActive());
+		Thread.sleep(50);
+		ch.stopPeriodicFlush();
+		assertFalse(ch.isPeriodicFlushActive());
+		ch.startPeriodicFlush(10);
+		ch.close();
+		assertFalse(ch.isPeriodicFlushActive());
+		assertTrue(Util.equalArrays(Files.readAllBytes(f.toPath()), data));
+		
+		try {
+			ch.startPeriodicFlush(10);
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+		f.delete();
+	}
+
+	@Test
+	public void large_file () throws IOException {
+		File f = tempFile();
+		long far = 3L * Integer.MAX_VALUE;
+		byte[] data = Util.randBytes(5000);
+		
+		MappedFileByteChannel ch = new MappedFileByteChannel(f, "rw", 1 << 20);
+		ch.position(far);
+		assertTrue(ch.write(ByteBuffer.wrap(data)) == 5000);
+		assertTrue(ch.size() == far + 5000);
+		ByteBuffer buf = ByteBuffer.allocate(5000);
+		assertTrue(ch.read(buf, far) == 5000);
+		assertTrue(Util.equalArrays(buf.array(), data));
+		ch.close();
+		assertTrue(f.length() == far + 5000);
+		
+		ch = new MappedFileByteChannel(f, "r");
+		buf.clear();
+		assertTrue(ch.read(buf, far) == 5000);
+		assertTrue(Util.equalArrays(buf.array(), data));
+		ch.close();
+		f.delete();
+	}
+
+	@Test
+	public void concurrent_read () throws Exception {
+		File f = tempFile();
+		final byte[] data = Util.randBytes(1 << 20);
+		MappedFileByteChannel ch = new MappedFileByteChannel(f, "rw");
+		ch.write(ByteBuffer.wrap(data));
+		ch.close();
+		
+		// small regions are mapped by concurrent readers
+		final MappedFileByteChannel rch = new MappedFileByteChannel(f, "r", 1 << 12);
+		final AtomicInteger errors = new AtomicInteger();
+		Thread[] readers = new Thread[4];
+		for (int i = 0; i < readers.length; i++) {
+			final Random random = new Random(i);
+			readers[i] = new Thread() {
+				@Override
+				public void run () {
+					ByteBuffer buf = ByteBuffer.allocate(10000);
+					try {
+						for (int j = 0; j < 500; j++) {
+							int pos = random.nextInt(data.length - 10000);
+							buf.clear();
+							rch.read(buf, pos);
+							byte[] block = Util.arraycopy(data, pos, 10000);
+							if (!Util.equalArrays(buf.array(), block)) {
+								errors.incrementAndGet();
+							}
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					}
+				}
+			};
+			readers[i].start();
+		}
+		for (Thread t : readers) {
+			t.join();
+		}
+		assertTrue("errors in concurrent reads: " + errors.get(), errors.get() == 0);
+		rch.close();
+		f.delete();
+	}
+}
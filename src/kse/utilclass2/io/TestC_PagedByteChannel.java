@@ -0,0 +1,274 @@
+package kse.utilclass2.io;
+
+/*
+*  File: TestC_PagedByteChannel.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import kse.utilclass.misc.Util;
+
+public class TestC_PagedByteChannel {
+
+	@Test
+	public void init () throws IOException {
+		PagedByteChannel ch = new PagedByteChannel();
+		assertTrue(ch.isOpen());
+		assertTrue(ch.size() == 0);
+		assertTrue(ch.getPageSize() == PagedByteChannel.DEFAULT_PAGE_SIZE);
+		assertTrue(ch.toArray().length == 0);
+		ch.close();
+		assertFalse(ch.isOpen());
+		
+		byte[] data = Util.randBytes(200000);
+		ch = new PagedByteChannel(data);
+		assertTrue(ch.size() == 200000);
+		assertTrue(ch.position() == 0);
+		assertTrue("initial content error", Util.equalArrays(data, ch.toArray()));
+		assertTrue(ch.getAllocated() == 4 * PagedByteChannel.DEFAULT_PAGE_SIZE);
+		ch.close();
+		
+		try {
+			new PagedByteChannel(1000, "rw");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void read_write () throws IOException {
+		PagedByteChannel ch = new PagedByteChannel(16, "rw");
+		byte[] data = Util.randBytes(1000);
+		
+		// writes and reads across page boundaries
+		int pos = 0;
+		for (int len = 1; pos + len <= 1000; pos += len, len += 3) {
+			assertTrue(ch.write(ByteBuffer.wrap(data, pos, len)) == len);
+		}
+		ch.write(ByteBuffer.wrap(data, pos, 1000 - pos));
+		assertTrue(ch.size() == 1000);
+		assertTrue(ch.position() == 1000);
+		assertTrue("write data error", Util.equalArrays(data, ch.toArray()));
+		
+		ByteBuffer buf = ByteBuffer.allocate(37);
+		ch.position(5);
+		assertTrue(ch.read(buf) == 37);
+		assertTrue("read data error", Util.equalArrays(buf.array(), Util.arraycopy(data, 5, 37)));
+		
+		// scattering read and gathering write
+		ByteBuffer[] bufs = {ByteBuffer.allocate(20), ByteBuffer.allocate(7), ByteBuffer.allocate(50)};
+		ch.position(990);
+		assertTrue(ch.read(bufs) == 10);
+		assertTrue(ch.read(bufs) == -1);
+		
+		ch.position(100);
+		bufs = new ByteBuffer[] {ByteBuffer.wrap(data, 0, 20), ByteBuffer.wrap(data, 20, 30)};
+		assertTrue(ch.write(bufs) == 50);
+		assertTrue(Util.equalArrays(Util.arraycopy(ch.toArray(), 100, 50), Util.arraycopy(data, 0, 50)));
+		
+		// positional access
+		buf = ByteBuffer.allocate(10);
+		assertTrue(ch.read(buf, 100) == 10);
+		assertTrue(ch.position() == 150);
+		assertTrue(ch.write(ByteBuffer.wrap(data, 0, 10), 995) == 10);
+		assertTrue(ch.size() == 1005);
+		ch.close();
+	}
+
+	@Test
+	public void sparse_large () throws IOException {
+		PagedByteChannel ch = new PagedByteChannel(4096, "rw");
+		long far = 3L * Integer.MAX_VALUE;
+		byte[] data = Util.randBytes(100);
+		
+		// a position beyond 2 GB allocates only the pages written
+		ch.position(far);
+		assertTrue(ch.write(ByteBuffer.wrap(data)) == 100);
+		assertTrue(ch.size() == far + 100);
+		assertTrue(ch.position() == far + 100);
+		assertTrue(ch.getAllocated() <= 2 * 4096);
+		
+		ByteBuffer buf = ByteBuffer.allocate(100);
+		assertTrue(ch.read(buf, far) == 100);
+		assertTrue(Util.equalArrays(buf.array(), data));
+		
+		// unwritten regions read as zeros
+		buf = ByteBuffer.allocate(5000);
+		assertTrue(ch.read(buf, 1000000) == 5000);
+		for (byte b : buf.array()) {
+			assertTrue(b == 0);
+		}
+		assertTrue(ch.getAllocated() <= 2 * 4096);
+		
+		try {
+			ch.toArray();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		ch.close();
+	}
+
+	@Test
+	public void truncate () throws IOException {
+		PagedByteChannel ch = new PagedByteChannel(64, "rw");
+		byte[] data = Util.randBytes(1000);
+		ch.write(ByteBuffer.wrap(data));
+		assertTrue(ch.getAllocated() == 16 * 64);
+		
+		// truncation releases whole pages
+		ch.truncate(100);
+		assertTrue(ch.size() == 100);
+		assertTrue(ch.position() == 100);
+		assertTrue(ch.getAllocated() == 2 * 64);
+		assertTrue(Util.equalArrays(ch.toArray(), Util.arraycopy(data, 0, 100)));
+		
+		// growth after truncation exposes zeros
+		ch.position(300);
+		ch.write(ByteBuffer.wrap(data, 0, 10));
+		byte[] a = ch.toArray();
+		assertTrue(a.length == 310);
+		for (int i = 100; i < 300; i++) {
+			assertTrue("zero expected at " + i, a[i] == 0);
+		}
+		
+		ch.truncate(0);
+		assertTrue(ch.size() == 0);
+		assertTrue(ch.getAllocated() == 0);
+		assertTrue(ch.read(ByteBuffer.allocate(10)) == -1);
+		
+		try {
+			ch.truncate(-1);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		ch.close();
+		try {
+			ch.truncate(0);
+			fail("expected ClosedChannelException");
+		} catch (ClosedChannelException e) {
+		}
+	}
+
+	@Test
+	public void transfer () throws IOException {
+		byte[] data = Util.randBytes(100000);
+		PagedByteChannel ch = new PagedByteChannel(1024, "rw");
+		ch.write(ByteBuffer.wrap(data));
+		
+		// gathering transfer to a file
+		File f = File.createTempFile("paged-", ".dat");
+		f.deleteOnExit();
+		try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ, 
+				StandardOpenOption.WRITE)) {
+			long len = ch.transferTo(500, 99000, fc);
+			assertTrue("transfer length error", len == 99000);
+			assertTrue(fc.size() == 99000);
+			
+			// transfer from a file
+			PagedByteChannel ch2 = new PagedByteChannel(1024, "rw");
+			fc.position(0);
+			len = ch2.transferFrom(fc, 10, 200000);
+			assertTrue("transfer length error", len == 99000);
+			assertTrue(ch2.size() == 99010);
+			assertTrue(ch2.position() == 0);
+			assertTrue(Util.equalArrays(Util.arraycopy(ch2.toArray(), 10, 99000), 
+					Util.arraycopy(data, 500, 99000)));
+			ch2.close();
+		}
+		f.delete();
+		
+		// plain channels
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ch.transferTo(99000, 5000, Channels.newChannel(out)) == 1000);
+		assertTrue(Util.equalArrays(out.toByteArray(), Util.arraycopy(data, 99000, 1000)));
+		assertTrue(ch.transferTo(200000, 10, Channels.newChannel(out)) == 0);
+		
+		PagedByteChannel ch3 = new PagedByteChannel("ra");
+		ch3.write(ByteBuffer.wrap(data, 0, 10));
+		long len = ch3.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(data)), 0, 50);
+		assertTrue(len == 50);
+		assertTrue(ch3.size() == 60);
+		assertTrue(Util.equalArrays(Util.arraycopy(ch3.toArray(), 10, 50), Util.arraycopy(data, 0, 50)));
+		ch3.close();
+		ch.close();
+	}
+	
+	@Test
+	public void transfer_to_self () throws IOException {
+		// the written section overlaps the section still to be read
+		byte[] data = Util.randBytes(10000);
+		PagedByteChannel ch = new PagedByteChannel(1024, "rw");
+		ch.write(ByteBuffer.wrap(data));
+		ch.position(50);
+		assertTrue(ch.transferTo(0, 8000, ch) == 8000);
+		assertTrue(ch.position() == 8050);
+		assertTrue(ch.size() == 10000);
+		byte[] expected = data.clone();
+		System.arraycopy(data, 0, expected, 50, 8000);
+		assertTrue(Util.equalArrays(ch.toArray(), expected));
+		ch.close();
+	}
+	
+	@Test
+	public void transfer_short_source () throws IOException {
+		byte[] data = Util.randBytes(10);
+		PagedByteChannel ch = new PagedByteChannel(1024, "rw");
+		
+		// only pages which receive data are allocated
+		long len = ch.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(data)), 
+				0, 512 * 1024 * 1024);
+		assertTrue(len == 10);
+		assertTrue(ch.size() == 10);
+		assertTrue(ch.getAllocated() == 1024);
+		assertTrue(Util.equalArrays(ch.toArray(), data));
+		
+		// unlimited count, source ends on a page boundary
+		byte[] data2 = Util.randBytes(2048);
+		len = ch.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(data2)), 
+				1024, Long.MAX_VALUE);
+		assertTrue(len == 2048);
+		assertTrue(ch.size() == 3072);
+		assertTrue(ch.getAllocated() == 3072);
+		assertTrue(Util.equalArrays(Util.arraycopy(ch.toArray(), 1024, 2048), data2));
+		
+		// an empty source allocates nothing
+		len = ch.transferFrom(Channels.newChannel(new java.io.ByteArrayInputStream(new byte[0])), 
+				10000, 100);
+		assertTrue(len == 0);
+		assertTrue(ch.size() == 3072);
+		assertTrue(ch.getAllocated() == 3072);
+		ch.close();
+	}
+}
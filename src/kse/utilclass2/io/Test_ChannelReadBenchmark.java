@@ -0,0 +1,167 @@
+package kse.utilclass2.io;
+
+/*
+*  File: Test_ChannelReadBenchmark.java
+* 
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created 
+* 
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the GNU Library or Lesser General Public License as 
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kse.utilclass.misc.Util;
+
+/** Multi-threaded benchmark of positional reads ({@code read(ByteBuffer, 
+ * long)}) on the byte channels of this package. A number of threads read
+ * blocks from random positions of a channel for a fixed time; the total 
+ * throughput is reported for a series of thread counts. As a reference, a 
+ * {@code CoreByteChannel} which performs positional reads exclusively is
+ * measured as well.
+ * <p>Optional arguments are the channel size in MB (default 64) and the 
+ * block size in bytes (default 4096).
+ */
+public class Test_ChannelReadBenchmark {
+
+	private static final int[] THREADS = {1, 2, 4, 8};
+	private static final long DURATION = 1000;
+	
+	private final int channelSize;
+	private final int blockSize;
+	
+public Test_ChannelReadBenchmark (int channelSize, int blockSize) {
+	this.channelSize = channelSize;
+	this.blockSize = blockSize;
+}
+
+/** Reads random blocks from the channel in the given number of threads for
+ * the benchmark duration and returns the throughput in MB per second.
+ * 
+ * @param ch {@code AbstractByteChannel}
+ * @param threads int number of reading threads
+ * @return double MB/s
+ */
+private double measure (AbstractByteChannel ch, int threads) throws InterruptedException {
+	AtomicLong total = new AtomicLong();
+	CountDownLatch start = new CountDownLatch(1);
+	CountDownLatch done = new CountDownLatch(threads);
+	long[] endTime = new long[1];
+	
+	for (int i = 0; i < threads; i++) {
+		final int seed = i;
+		Thread t = new Thread() {
+			@Override
+			public void run () {
+				Random random = new Random(seed);
+				ByteBuffer buf = ByteBuffer.allocate(blockSize);
+				int range = channelSize - blockSize;
+				long sum = 0;
+				try {
+					start.await();
+					while (System.currentTimeMillis() < endTime[0]) {
+						for (int j = 0; j < 64; j++) {
+							buf.clear();
+							sum += ch.read(buf, random.nextInt(range));
+						}
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					total.addAndGet(sum);
+					done.countDown();
+				}
+			}
+		};
+		t.start();
+	}
+	
+	long time = System.currentTimeMillis();
+	endTime[0] = time + DURATION;
+	start.countDown();
+	done.await();
+	time = System.currentTimeMillis() - time;
+	return total.get() / (1024.0 * 1024) * 1000 / time;
+}
+
+private void report (String name, AbstractByteChannel ch) throws InterruptedException {
+	System.out.print(String.format("%-22s", name));
+	for (int n : THREADS) {
+		System.out.print(String.format(" %10.0f", measure(ch, n)));
+	}
+	System.out.println();
+}
+
+private void fill (AbstractByteChannel ch, byte[] data) throws IOException {
+	ch.write(ByteBuffer.wrap(data));
+}
+
+public void run () throws IOException, InterruptedException {
+	System.out.println("Byte channel benchmark: positional reads of " + blockSize 
+			+ " byte blocks from " + (channelSize >> 20) + " MB (MB/s)");
+	System.out.print(String.format("%-22s", "threads"));
+	for (int n : THREADS) {
+		System.out.print(String.format(" %10d", n));
+	}
+	System.out.println();
+	
+	byte[] data = Util.randBytes(channelSize);
+	
+	// reference: positional reads take exclusive access
+	try (CoreByteChannel ch = new CoreByteChannel(data) {
+		@Override
+		protected boolean isConcurrentReadable () {return false;}
+	}) {
+		report("Core (exclusive)", ch);
+	}
+	
+	try (CoreByteChannel ch = new CoreByteChannel(data)) {
+		report("CoreByteChannel", ch);
+	}
+	
+	try (PagedByteChannel ch = new PagedByteChannel()) {
+		fill(ch, data);
+		report("PagedByteChannel", ch);
+	}
+	
+	try (DirectByteChannel ch = new DirectByteChannel()) {
+		fill(ch, data);
+		report("DirectByteChannel", ch);
+	}
+	
+	File f = File.createTempFile("bench-", ".dat");
+	try (MappedFileByteChannel ch = new MappedFileByteChannel(f, "rw")) {
+		ch.setFlushOnClose(false);
+		fill(ch, data);
+		report("MappedFileByteChannel", ch);
+	} finally {
+		f.delete();
+	}
+}
+
+public static void main (String[] args) throws IOException, InterruptedException {
+	int size = args.length > 0 ? Integer.parseInt(args[0]) << 20 : 64 << 20;
+	int block = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+	new Test_ChannelReadBenchmark(size, block).run();
+}
+
+}
@@ -0,0 +1,348 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CacheLoading.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import kse.utilclass.misc.Log;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * Loading support of the object caches. Loads of missing entries are
+ * coalesced per key (single-flight): while a load for a key is in progress,
+ * further requests for the key wait for its result instead of loading again.
+ * Loads run either in the calling thread or asynchronously in an executor.
+ *
+ * <p>With a refresh-ahead time set, an entry which is read through a loader
+ * is reloaded in the background when its remaining fresh time falls below
+ * the refresh-ahead time; the reader receives the current entry without
+ * waiting. The fresh time of an entry ends at its creation time plus the
+ * time limit of the cache or at its time-to-live, whichever comes first.
+ *
+ * <p>Several keys can be requested with {@code getAll()}, where the missing
+ * keys which are not already loading are loaded by one call to a bulk loader.
+ *
+ * <p>The cache is accessed through the lookup, peek and store functions 
+ * given at construction. If a statistics recorder is set, the results and 
+ * durations of loads are recorded. Instances are thread-safe.
+ *
+ * @param <K> map key class
+ * @param <V> map value class
+ */
+final class CacheLoading<K, V extends CacheObject<?>> {
+
+   /** loads in progress */
+   private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+   private final Function<K, V> lookup;
+   private final Function<K, V> peek;
+   private final BiConsumer<K, V> store;
+   private final Consumer<Map<K, V>> storeAll;
+   private final LongSupplier maxTime;
+   private volatile Executor executor = ForkJoinPool.commonPool();
+   private volatile long refreshAhead;
+   private volatile StatsRecorder stats;
+
+   /** Creates a new loading support for a cache.
+    * 
+    * @param lookup {@code Function<K, V>} cache query of a key, returns null if missing
+    * @param peek {@code Function<K, V>} cache query of a key which is not counted
+    *        in statistics, returns null if missing
+    * @param store {@code BiConsumer<K, V>} cache insertion of a mapping
+    * @param storeAll {@code Consumer<Map<K, V>>} cache insertion of a set of mappings
+    * @param maxTime {@code LongSupplier} the cache's time limit in milliseconds (0 = none)
+    */
+   CacheLoading ( Function<K, V> lookup, Function<K, V> peek, BiConsumer<K, V> store, 
+                  Consumer<Map<K, V>> storeAll, LongSupplier maxTime ) {
+      this.lookup = lookup;
+      this.peek = peek;
+      this.store = store;
+      this.storeAll = storeAll;
+      this.maxTime = maxTime;
+   }
+
+   void setExecutor ( Executor executor ) {
+      this.executor = Objects.requireNonNull(executor);
+   }
+
+   Executor getExecutor () {
+      return executor;
+   }
+
+   void setRefreshAhead ( long time ) {
+      if ( time < 0 )
+         throw new IllegalArgumentException("illegal negative argument");
+      refreshAhead = time;
+   }
+
+   long getRefreshAhead () {
+      return refreshAhead;
+   }
+
+   /** Sets the recorder of load statistics.
+    * 
+    * @param stats {@code StatsRecorder}, null for none
+    */
+   void setStats ( StatsRecorder stats ) {
+      this.stats = stats;
+   }
+
+   /** Returns the cached value for the key or loads it in the calling thread
+    * if it is missing. If a load for the key is in progress, the call waits
+    * for its result.
+    * 
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return V or null if the loader returned null
+    */
+   V get ( K key, Function<? super K, ? extends V> loader ) {
+      Objects.requireNonNull(key, "key == null");
+      Objects.requireNonNull(loader, "loader == null");
+      V v = lookup.apply(key);
+      if ( v != null ) {
+         refreshIfDue(key, v, loader);
+         return v;
+      }
+
+      CompletableFuture<V> f = new CompletableFuture<>();
+      CompletableFuture<V> prior = loads.putIfAbsent(key, f);
+      if ( prior == null ) {
+         load(key, f, loader, false);
+         prior = f;
+      }
+      return join(prior);
+   }
+
+   /** Returns the cached values for the given keys and loads the missing
+    * ones. Missing keys for which no load is in progress are loaded by a 
+    * single call to the bulk loader in the calling thread; for the others the
+    * call waits for the loads in progress. All mappings returned by the bulk 
+    * loader are stored. If the bulk loader fails, its exception is thrown to 
+    * all callers waiting for its keys.
+    * 
+    * @param keys {@code Collection<? extends K>}
+    * @param bulkLoader {@code Function<Set<K>, Map<K, V>>} receives the set of 
+    *        keys to load, returns the mappings found
+    * @return {@code Map<K, V>} the values found or loaded for the given keys, in
+    *         the order of the keys 
+    */
+   Map<K, V> getAll ( Collection<? extends K> keys, 
+                      Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader ) {
+      Objects.requireNonNull(keys, "keys == null");
+      Objects.requireNonNull(bulkLoader, "loader == null");
+      Map<K, V> result = new LinkedHashMap<>();
+      Map<K, CompletableFuture<V>> own = new LinkedHashMap<>();
+      Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+      for ( K key : keys ) {
+         Objects.requireNonNull(key, "key == null");
+         V v = lookup.apply(key);
+         if ( v != null ) {
+            result.put(key, v);
+         } else if ( !own.containsKey(key) && !pending.containsKey(key) ) {
+            CompletableFuture<V> f = new CompletableFuture<>();
+            CompletableFuture<V> prior = loads.putIfAbsent(key, f);
+            if ( prior == null ) {
+               own.put(key, f);
+            } else {
+               pending.put(key, prior);
+            }
+         }
+      }
+      
+      if ( !own.isEmpty() ) {
+         loadAll(own, bulkLoader);
+      }
+      pending.putAll(own);
+      for ( Map.Entry<K, CompletableFuture<V>> e : pending.entrySet() ) {
+         V v = join(e.getValue());
+         if ( v != null ) {
+            result.put(e.getKey(), v);
+         }
+      }
+      return result;
+   }
+
+   /** Performs the bulk load of the keys registered with the given futures
+    * and completes the futures.
+    */
+   private void loadAll ( Map<K, CompletableFuture<V>> futures, 
+                 Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader ) {
+      StatsRecorder rec = stats;
+      long start = rec == null ? 0 : System.nanoTime();
+      try {
+         Map<K, V> loaded = new LinkedHashMap<>();
+         Map<? extends K, ? extends V> m = bulkLoader.apply(
+               Collections.unmodifiableSet(futures.keySet()));
+         if ( rec != null ) {
+            rec.recordLoad(System.nanoTime() - start, m != null);
+            rec = null;
+         }
+         if ( m != null ) {
+            for ( Map.Entry<? extends K, ? extends V> e : m.entrySet() ) {
+               if ( e.getKey() != null && e.getValue() != null ) {
+                  loaded.put(e.getKey(), e.getValue());
+               }
+            }
+            storeAll.accept(loaded);
+         }
+         for ( Map.Entry<K, CompletableFuture<V>> e : futures.entrySet() ) {
+            e.getValue().complete(loaded.get(e.getKey()));
+         }
+      } catch ( Throwable e ) {
+         if ( rec != null ) {
+            rec.recordLoad(System.nanoTime() - start, false);
+         }
+         for ( CompletableFuture<V> f : futures.values() ) {
+            f.completeExceptionally(e);
+         }
+      } finally {
+         for ( Map.Entry<K, CompletableFuture<V>> e : futures.entrySet() ) {
+            loads.remove(e.getKey(), e.getValue());
+         }
+      }
+   }
+
+   /** Returns a future of the value for the key. If the value is missing,
+    * it is loaded in the executor unless a load is already in progress.
+    * 
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return {@code CompletableFuture<V>}
+    */
+   CompletableFuture<V> getAsync ( K key, Function<? super K, ? extends V> loader ) {
+      Objects.requireNonNull(key, "key == null");
+      Objects.requireNonNull(loader, "loader == null");
+      V v = lookup.apply(key);
+      if ( v != null ) {
+         refreshIfDue(key, v, loader);
+         return CompletableFuture.completedFuture(v);
+      }
+
+      CompletableFuture<V> f = new CompletableFuture<>();
+      CompletableFuture<V> prior = loads.putIfAbsent(key, f);
+      if ( prior != null ) return prior;
+      submit(key, f, loader, false);
+      return f;
+   }
+
+   /** Starts a background reload of the given entry if its fresh time 
+    * ends within the refresh-ahead time and no load is in progress.
+    */
+   private void refreshIfDue ( K key, V v, Function<? super K, ? extends V> loader ) {
+      long ahead = refreshAhead;
+      if ( ahead == 0 ) return;
+
+      long deadline = Long.MAX_VALUE, t = maxTime.getAsLong();
+      if ( t > 0 ) {
+         deadline = v.getCreationTime() + t;
+      }
+      long e = v.getExpiryTime();
+      if ( e > 0 && e < deadline ) {
+         deadline = e;
+      }
+      if ( deadline == Long.MAX_VALUE || 
+           System.currentTimeMillis() < deadline - ahead ) return;
+
+      CompletableFuture<V> f = new CompletableFuture<>();
+      if ( loads.putIfAbsent(key, f) == null ) {
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(CacheLoading.refreshIfDue) --- REFRESH OBJECT:  " + key );
+         }
+         submit(key, f, loader, true);
+      }
+   }
+
+   private void submit ( K key, CompletableFuture<V> f, Function<? super K, ? extends V> loader,
+		                 boolean reload ) {
+      try {
+         executor.execute(() -> load(key, f, loader, reload));
+      } catch ( RejectedExecutionException e ) {
+         loads.remove(key, f);
+         f.completeExceptionally(e);
+      }
+   }
+
+   /** Performs the load of a key registered with the given future. Unless
+    * reloading, the cache is queried again (peek), as a concurrent load may 
+    * have completed after the first query. A null value of the loader is not 
+    * stored and counts as a failed load.
+    */
+   private void load ( K key, CompletableFuture<V> f, Function<? super K, ? extends V> loader, 
+		               boolean reload ) {
+      StatsRecorder rec = stats;
+      long start = 0;
+      boolean loading = false;
+      try {
+         V v = reload ? null : peek.apply(key);
+         if ( v == null ) {
+            loading = true;
+            start = rec == null ? 0 : System.nanoTime();
+            v = loader.apply(key);
+            if ( rec != null ) {
+               rec.recordLoad(System.nanoTime() - start, v != null);
+               loading = false;
+            }
+            if ( v != null ) {
+               store.accept(key, v);
+            }
+         }
+         f.complete(v);
+      } catch ( Throwable e ) {
+         if ( rec != null && loading ) {
+            rec.recordLoad(System.nanoTime() - start, false);
+         }
+         f.completeExceptionally(e);
+      } finally {
+         loads.remove(key, f);
+      }
+   }
+
+   /** Waits for the given future and returns its value. Exceptions of the
+    * loader are rethrown unwrapped if they are unchecked.
+    */
+   private static <V> V join ( CompletableFuture<V> f ) {
+      try {
+         return f.join();
+      } catch ( CompletionException e ) {
+         Throwable c = e.getCause();
+         if ( c instanceof RuntimeException ) throw (RuntimeException) c;
+         if ( c instanceof Error ) throw (Error) c;
+         throw e;
+      }
+   }
+}
@@ -0,0 +1,147 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CacheMXBeanSupport.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import kse.utilclass2.misc.CacheStats.EvictionCause;
+
+/**
+ * Base implementation of {@code ObjectCacheMXBean} which draws the 
+ * counter values from the statistics recorder of a cache. Caches supply the
+ * recorder, their state values and their limits. Only the average entry age
+ * requires a pass over the entries of a cache. Registration occurs with the
+ * platform MBean server under the domain of this package.
+ */
+abstract class CacheMXBeanSupport implements ObjectCacheMXBean {
+
+   private static final StatsRecorder NO_RECORDER = new StatsRecorder();
+   
+   /** Returns the statistics recorder of the cache or null if statistics
+    * are not recorded. */
+   abstract StatsRecorder recorder ();
+   
+   /** Returns the average age of the entries of the cache (milliseconds). */
+   abstract long averageEntryAge ();
+   
+   /** Returns the counter values of the recorder, without cache state. */
+   private CacheStats counters () {
+      StatsRecorder rec = recorder();
+      return (rec == null ? NO_RECORDER : rec).snapshot(0, 0, 0);
+   }
+
+   /** Registers the given bean with the platform MBean server.
+    * 
+    * @param name String cache name (value of property "name")
+    * @param bean {@code ObjectCacheMXBean}
+    * @return {@code ObjectName} registered name
+    * @throws JMException if registration fails, e.g. the name is in use 
+    */
+   static ObjectName register ( String name, ObjectCacheMXBean bean ) throws JMException {
+      ObjectName oname = new ObjectName("kse.utilclass2.misc:type=ObjectCache,name=" 
+                                        + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(bean, oname);
+      return oname;
+   }
+
+   /** Unregisters the given name from the platform MBean server if it is
+    * registered.
+    * 
+    * @param oname {@code ObjectName}, may be null
+    * @throws JMException
+    */
+   static void unregister ( ObjectName oname ) throws JMException {
+      if ( oname != null && ManagementFactory.getPlatformMBeanServer().isRegistered(oname) ) {
+         ManagementFactory.getPlatformMBeanServer().unregisterMBean(oname);
+      }
+   }
+
+   @Override
+   public long getHitCount () {
+      return counters().getHitCount();
+   }
+
+   @Override
+   public long getMissCount () {
+      return counters().getMissCount();
+   }
+
+   @Override
+   public double getHitRate () {
+      return counters().getHitRate();
+   }
+
+   @Override
+   public long getPutCount () {
+      return counters().getPutCount();
+   }
+
+   @Override
+   public long getEvictionCountEntries () {
+      return counters().getEvictionCount(EvictionCause.ENTRIES);
+   }
+
+   @Override
+   public long getEvictionCountVolume () {
+      return counters().getEvictionCount(EvictionCause.VOLUME);
+   }
+
+   @Override
+   public long getEvictionCountTime () {
+      return counters().getEvictionCount(EvictionCause.TIME);
+   }
+
+   @Override
+   public long getEvictionCountCollected () {
+      return counters().getEvictionCount(EvictionCause.COLLECTED);
+   }
+
+   @Override
+   public long getLoadSuccessCount () {
+      return counters().getLoadSuccessCount();
+   }
+
+   @Override
+   public long getLoadFailureCount () {
+      return counters().getLoadFailureCount();
+   }
+
+   @Override
+   public double getAverageLoadTime () {
+      return counters().getAverageLoadTime();
+   }
+
+   @Override
+   public long[] getLoadTimeHistogram () {
+      return counters().getLoadTimeHistogram();
+   }
+
+   @Override
+   public long getAverageEntryAge () {
+      return averageEntryAge();
+   }
+}
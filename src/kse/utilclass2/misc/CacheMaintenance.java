@@ -0,0 +1,95 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CacheMaintenance.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.lang.ref.WeakReference;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.Consumer;
+
+import kse.utilclass.misc.Log;
+
+/**
+ * Periodic maintenance of object caches on a daemon thread shared by all
+ * caches. A maintenance task holds its cache only weakly and cancels itself
+ * when the cache has been garbage collected.
+ */
+final class CacheMaintenance {
+
+   /** shared daemon thread for maintenance tasks of all caches */
+   private static Timer timer;
+
+   private CacheMaintenance () {
+   }
+
+   /** Schedules a task which performs the given action on the given cache
+    * in the given period. The action must not hold the cache strongly.
+    *
+    * @param <T> cache class
+    * @param cache T cache to maintain
+    * @param action {@code Consumer<? super T>} maintenance action
+    * @param period long period of the task in milliseconds
+    * @return {@code TimerTask} scheduled task
+    * @throws IllegalArgumentException if period is not positive
+    */
+   static <T> TimerTask schedule ( T cache, Consumer<? super T> action, long period ) {
+      if ( period <= 0 )
+         throw new IllegalArgumentException("period must be positive");
+      TimerTask task = new Task<T>(cache, action);
+      getTimer().schedule(task, period, period);
+      return task;
+   }
+
+   private static synchronized Timer getTimer () {
+      if ( timer == null ) {
+         timer = new Timer("ObjectCache-Maintenance", true);
+      }
+      return timer;
+   }
+
+   private static final class Task<T> extends TimerTask {
+      private final WeakReference<T> ref;
+      private final Consumer<? super T> action;
+
+      Task ( T cache, Consumer<? super T> action ) {
+         ref = new WeakReference<>(cache);
+         this.action = action;
+      }
+
+      @Override
+      public void run () {
+         T cache = ref.get();
+         if ( cache == null ) {
+            cancel();
+            return;
+         }
+         try {
+            action.accept(cache);
+         } catch ( Throwable e ) {
+            Log.log(1, "(CacheMaintenance.Task) maintenance of " 
+                    + cache.getClass().getSimpleName() + " failed: " + e);
+         }
+      }
+   }
+}
@@ -0,0 +1,81 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CachePolicy.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+/**
+ * Eviction and admission policy of an object cache. A policy keeps its own
+ * record of the cache's keys, which it receives through the event methods
+ * of this interface, and names the entry to be removed if the cache exceeds
+ * one of its limits. Whether a new entry is admitted to the cache is decided
+ * implicitly: a policy may name the new entry itself as the victim.
+ *
+ * <p>The cache calls the methods of a policy in the order of its own
+ * operations and with the same synchronisation. Implementations do not need
+ * to be thread-safe if the cache is not.
+ *
+ * @param <K> map key class
+ */
+public interface CachePolicy<K> {
+
+   /** A new key has been inserted into the cache.
+    * 
+    * @param key K
+    */
+   void onInsert ( K key );
+
+   /** A key contained in the cache has been accessed (cache hit or
+    * replacement of the value).
+    * 
+    * @param key K
+    */
+   void onAccess ( K key );
+
+   /** A key not contained in the cache has been requested (cache miss).
+    * The default implementation does nothing.
+    * 
+    * @param key Object
+    */
+   default void onMiss ( Object key ) {
+   }
+
+   /** A key has been removed from the cache, for whatever reason.
+    * 
+    * @param key Object
+    */
+   void onRemove ( Object key );
+
+   /** Returns the key of the entry which should be removed next from the
+    * cache in order to fulfil its limits, or null if this policy doesn't
+    * hold a key. The returned key is not removed from the policy's record
+    * until {@code onRemove()} is called. 
+    * 
+    * @return K or null
+    */
+   K victim ();
+
+   /** Removes all keys from the record of this policy. Gathered
+    * statistics of access may be retained.
+    */
+   void clear ();
+}
@@ -0,0 +1,135 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CacheRecords.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.zip.CRC32;
+
+/**
+ * Record format of cache files (disk tier log and snapshots). A record
+ * consists of a type byte, the length of the data (int), the CRC32 checksum
+ * of the data (int) and the data, which is the Java serialisation of a key
+ * and optionally a value.
+ */
+final class CacheRecords {
+
+   static final byte END = 0;
+   static final byte PUT = 1;
+   static final byte DELETE = 2;
+
+   /** length of the record header (bytes) */
+   static final int HEADER = 9;
+
+   private CacheRecords () {
+   }
+
+   /** Returns the serialisation of the given key and value (which may be
+    * null for key records).
+    * 
+    * @param key Object
+    * @param value Object or null
+    * @return byte[]
+    * @throws IOException if an object is not serialisable
+    */
+   static byte[] serialise ( Object key, Object value ) throws IOException {
+      ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+      try ( ObjectOutputStream out = new ObjectOutputStream(bout) ) {
+         out.writeObject(key);
+         if ( value != null ) {
+            out.writeObject(value);
+         }
+      }
+      return bout.toByteArray();
+   }
+
+   /** Returns the key and, unless only the key is requested, the value of
+    * the given record data.
+    * 
+    * @param data byte[] record data
+    * @param keyOnly boolean whether only the key is deserialised
+    * @return Object[] key and value (value null if not read)
+    * @throws IOException if the data is not a valid serialisation or a 
+    *         class is unknown
+    */
+   static Object[] deserialise ( byte[] data, boolean keyOnly ) throws IOException {
+      try ( ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) ) {
+         Object key = in.readObject();
+         Object value = keyOnly ? null : in.readObject();
+         return new Object[] {key, value};
+      } catch ( ClassNotFoundException e ) {
+         throw (IOException) new InvalidObjectException("unknown class: " + e.getMessage()).initCause(e);
+      }
+   }
+
+   static int checksum ( byte[] data ) {
+      CRC32 crc = new CRC32();
+      crc.update(data);
+      return (int) crc.getValue();
+   }
+
+   /** Writes a record of the given type and data.
+    * 
+    * @param out DataOutput
+    * @param type byte record type
+    * @param data byte[] record data
+    * @throws IOException
+    */
+   static void write ( DataOutput out, byte type, byte[] data ) throws IOException {
+      out.writeByte(type);
+      out.writeInt(data.length);
+      out.writeInt(checksum(data));
+      out.write(data);
+   }
+
+   /** Reads the data of a record whose type byte has been read and verifies
+    * its checksum.
+    * 
+    * @param in DataInput
+    * @param limit long maximum data length to be expected
+    * @return byte[] record data
+    * @throws EOFException if the input ends within the record
+    * @throws StreamCorruptedException if the record is damaged
+    * @throws IOException
+    */
+   static byte[] readData ( DataInput in, long limit ) throws IOException {
+      int length = in.readInt();
+      int crc = in.readInt();
+      if ( length < 0 || length > limit )
+         throw new StreamCorruptedException("illegal record length: " + length);
+      byte[] data = new byte[length];
+      in.readFully(data);
+      if ( checksum(data) != crc )
+         throw new StreamCorruptedException("record checksum error");
+      return data;
+   }
+}
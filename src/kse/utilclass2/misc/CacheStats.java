@@ -0,0 +1,186 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: CacheStats.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the statistics of an object cache. Counts refer to
+ * the time since statistics recording was enabled. The load-time histogram
+ * has buckets of powers of two in milliseconds: bucket 0 counts loads below
+ * 1 ms, bucket i (i &gt; 0) loads from 2<sup>i-1</sup> to below 2<sup>i</sup>
+ * ms; the last bucket includes all longer loads.
+ */
+public final class CacheStats {
+
+   /** Cause of the eviction of a cache entry. */
+   public enum EvictionCause {
+      /** limit of the number of entries */
+      ENTRIES,
+      /** limit of the data volume */
+      VOLUME,
+      /** idle time limit or time-to-live */
+      TIME,
+      /** collection of the user object held by a soft or weak reference */
+      COLLECTED
+   }
+
+   /** number of buckets of the load-time histogram */
+   public static final int HISTOGRAM_BUCKETS = 16;
+
+   private final long hits;
+   private final long misses;
+   private final long puts;
+   private final long[] evictions;
+   private final long loadSuccesses;
+   private final long loadFailures;
+   private final long totalLoadTime;
+   private final long[] loadTimes;
+   private final long averageEntryAge;
+   private final int size;
+   private final long volume;
+
+   CacheStats ( long hits, long misses, long puts, long[] evictions, long loadSuccesses,
+                      long loadFailures, long totalLoadTime, long[] loadTimes, 
+                      long averageEntryAge, int size, long volume ) {
+      this.hits = hits;
+      this.misses = misses;
+      this.puts = puts;
+      this.evictions = evictions;
+      this.loadSuccesses = loadSuccesses;
+      this.loadFailures = loadFailures;
+      this.totalLoadTime = totalLoadTime;
+      this.loadTimes = loadTimes;
+      this.averageEntryAge = averageEntryAge;
+      this.size = size;
+      this.volume = volume;
+   }
+
+   /** Number of requests which returned a cached value. */
+   public long getHitCount () {
+      return hits;
+   }
+
+   /** Number of requests which found no cached value. */
+   public long getMissCount () {
+      return misses;
+   }
+
+   /** Number of requests (hits and misses). */
+   public long getRequestCount () {
+      return hits + misses;
+   }
+
+   /** Share of hits among all requests, 1.0 if there were no requests.
+    * 
+    * @return double 0.0 .. 1.0
+    */
+   public double getHitRate () {
+      long r = getRequestCount();
+      return r == 0 ? 1.0 : (double) hits / r;
+   }
+
+   /** Number of insertions and replacements of entries. */
+   public long getPutCount () {
+      return puts;
+   }
+
+   /** Number of evictions by the given cause.
+    * 
+    * @param cause {@code EvictionCause}
+    * @return long
+    */
+   public long getEvictionCount ( EvictionCause cause ) {
+      return evictions[cause.ordinal()];
+   }
+
+   /** Total number of evictions. */
+   public long getEvictionCount () {
+      long n = 0;
+      for ( long e : evictions ) {
+         n += e;
+      }
+      return n;
+   }
+
+   /** Number of loads which returned a value. */
+   public long getLoadSuccessCount () {
+      return loadSuccesses;
+   }
+
+   /** Number of loads which failed with an exception or returned null. */
+   public long getLoadFailureCount () {
+      return loadFailures;
+   }
+
+   /** Total time spent in loads (nanoseconds). */
+   public long getTotalLoadTime () {
+      return totalLoadTime;
+   }
+
+   /** Average time of a load in milliseconds, 0 if there were no loads. 
+    * 
+    * @return double milliseconds
+    */
+   public double getAverageLoadTime () {
+      long n = loadSuccesses + loadFailures;
+      return n == 0 ? 0 : totalLoadTime / 1000000.0 / n;
+   }
+
+   /** Returns a copy of the load-time histogram.
+    * 
+    * @return long[] counts of {@code HISTOGRAM_BUCKETS} buckets
+    */
+   public long[] getLoadTimeHistogram () {
+      return loadTimes.clone();
+   }
+
+   /** Average age (time since creation) of the entries contained at the 
+    * time of this snapshot.
+    * 
+    * @return long milliseconds
+    */
+   public long getAverageEntryAge () {
+      return averageEntryAge;
+   }
+
+   /** Number of entries at the time of this snapshot. */
+   public int getSize () {
+      return size;
+   }
+
+   /** Data volume at the time of this snapshot (bytes). */
+   public long getVolume () {
+      return volume;
+   }
+
+   @Override
+   public String toString () {
+      return "CacheStats [hits=" + hits + ", misses=" + misses + ", puts=" + puts 
+            + ", evictions=" + Arrays.toString(evictions) + ", loads=" + loadSuccesses 
+            + ", loadFailures=" + loadFailures + ", avgLoadTime=" 
+            + String.format("%.3f", getAverageLoadTime()) + ", avgAge=" + averageEntryAge 
+            + ", size=" + size + ", volume=" + volume + "]";
+   }
+}
@@ -0,0 +1,1149 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: ConcurrentObjectCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import kse.utilclass.misc.Log;
+import kse.utilclass2.misc.CacheStats.EvictionCause;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * A thread-safe object cache with the limitations of {@code DefaultObjectCache}:
+ * 1) number of entries, 2) cached data size, and 3) object idle time
+ * (unaccessed). Value objects V have to be sub-classes of
+ * {@code DefaultObjectCache.CacheObject<E>}; <b>null</b> keys and values are
+ * not permitted. Objects leaving the cache by removal or eviction are
+ * notified to method {@code objectReleased()}.
+ *
+ * <p>Entries are held in a {@code ConcurrentHashMap}; reads ({@code get()})
+ * are lock-free. The access order is kept in segments, each segment holding
+ * an LRU list for the keys which hash to it, guarded by its own lock. Reads
+ * record their access in a lossy buffer of the segment, which is applied to
+ * the LRU list in batches by the next thread which obtains the segment lock.
+ * If a cache limit is exceeded, the eldest entry of one of two sampled
+ * segments is evicted, the older one preferred. Eviction therefore follows
+ * an approximate LRU order over the entire cache.
+ *
+ * <p>Entries expire when their idle time exceeds the time limit or when the
+ * time-to-live of their cache object ({@code CacheObject.setTimeToLive()})
+ * has passed. Expiry is organised by a hierarchical timer wheel in each
+ * segment, which hands out due entries in amortised O(1) without scanning
+ * the cache. Wheels are advanced on writes and by {@code refresh()}; a
+ * periodic maintenance task calling {@code refresh()} can be started with
+ * {@code startMaintenance()}. Expired entries are never returned by
+ * {@code get()}.
+ *
+ * <p>Missing entries can be loaded with {@code get(key, loader)} or
+ * {@code getAsync(key, loader)}, where concurrent requests for the same key
+ * are served by a single load. With a refresh-ahead time set
+ * ({@code setRefreshAhead()}), entries read through a loader are reloaded in
+ * the background before their fresh time ends.
+ *
+ * <p>Statistics are recorded after a call to {@code setRecordingStats(true)}
+ * in counters which do not contend between threads; {@code getStats()}
+ * returns a snapshot and {@code registerMBean()} publishes them via JMX.
+ *
+ * <p><b>Security Note</b>
+ * <br>This class has the status of a container and it is by default serialisable.
+ * Serialisation, however, must fail if any object contained does not implement
+ * the {@code java.io.Serialization} interface.
+ *
+ * @param <K> map key class
+ * @param <V extends CacheObject> map value class
+ */
+public class ConcurrentObjectCache <K, V extends CacheObject<?>> extends AbstractMap<K, V>
+       implements Serializable
+{
+   private static final long serialVersionUID = 969949487903222501L;
+
+   /** size of a segment's read buffer (power of 2) */
+   private static final int READ_BUFFER_SIZE = 64;
+   /** number of recorded reads after which a drain is attempted (power of 2) */
+   private static final int DRAIN_THRESHOLD = 16;
+   private static final int MAX_SEGMENTS = 1 << 10;
+
+   /** maximum number of entries in the cache (0=unlimited) */
+   private volatile int maxEntries;
+   /** maximum cached data size (bytes; 0=unlimited) */
+   private volatile long maxVolume;
+   /** maximum entry idle time in milliseconds (0=unlimited) */
+   private volatile long maxTime;
+   /** number of segments (power of 2) */
+   private final int concurrency;
+
+   private transient ConcurrentHashMap<K, Node<K, V>> map;
+   private transient Segment<K, V>[] segments;
+   /** current total cached data volume (bytes) */
+   private transient AtomicLong actVolume;
+   /** rotating start of eviction sampling */
+   private transient AtomicInteger evictCursor;
+   /** whether the set of entries has changed since start or shutdown() */
+   private transient volatile boolean modified;
+   private transient Set<Map.Entry<K, V>> entrySet;
+   /** periodic maintenance task or null */
+   private transient TimerTask maintenanceTask;
+   /** support of loader methods */
+   private transient CacheLoading<K, V> loading;
+   /** weigher of cache objects; null for their own data size */
+   private transient volatile Weigher<K, V> weigher;
+   /** statistics recorder; null if statistics are not recorded */
+   private transient volatile StatsRecorder stats;
+   /** name of the registered MXBean or null */
+   private transient ObjectName mbeanName;
+
+   /** Creates a new object cache without limitations.
+    */
+   public ConcurrentObjectCache () {
+      this(0, 0, 0);
+   }
+
+   /** Creates a new object cache with optional size and time limitations and
+    * a number of segments suitable for the available processors.
+    *
+    * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
+    * @param maxVolume long maximum total data volume allowed in the cache (0 for unlimited)
+    * @param maxTime int maximum time in seconds allowed for an entry to remain idle in the
+    *        cache (0 for unlimited)
+    * @throws IllegalArgumentException
+    */
+   public ConcurrentObjectCache ( int maxEntries, long maxVolume, int maxTime ) {
+      this(maxEntries, maxVolume, maxTime, 4 * Runtime.getRuntime().availableProcessors());
+   }
+
+   /** Creates a new object cache with optional size and time limitations and
+    * the given estimate of concurrently modifying threads.
+    *
+    * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
+    * @param maxVolume long maximum total data volume allowed in the cache (0 for unlimited)
+    * @param maxTime int maximum time in seconds allowed for an entry to remain idle in the
+    *        cache (0 for unlimited)
+    * @param concurrencyLevel int estimated number of concurrently writing threads
+    * @throws IllegalArgumentException
+    */
+   public ConcurrentObjectCache ( int maxEntries, long maxVolume, int maxTime,
+		                          int concurrencyLevel ) {
+      if ( maxEntries < 0 | maxVolume < 0 | maxTime < 0 )
+         throw new IllegalArgumentException("illegal negative argument");
+      if ( concurrencyLevel < 1 )
+         throw new IllegalArgumentException("illegal concurrency level");
+
+      this.maxEntries = maxEntries;
+      this.maxVolume = maxVolume;
+      this.maxTime = (long)maxTime * 1000;
+
+      int n = 1;
+      while ( n < concurrencyLevel && n < MAX_SEGMENTS ) {
+    	  n <<= 1;
+      }
+      concurrency = n;
+      init();
+   }
+
+   private void init () {
+	  map = new ConcurrentHashMap<>(128, 0.75f, concurrency);
+	  @SuppressWarnings("unchecked")
+	  Segment<K, V>[] segs = (Segment<K, V>[]) new Segment<?, ?>[concurrency];
+	  segments = segs;
+	  for ( int i = 0; i < concurrency; i++ ) {
+		  segments[i] = new Segment<>(System.currentTimeMillis());
+	  }
+	  actVolume = new AtomicLong();
+	  evictCursor = new AtomicInteger();
+	  loading = new CacheLoading<K, V>(this::get, this::peek, (key, value) -> put(key, value), 
+			  this::putAll, () -> maxTime);
+   }
+
+   private Segment<K, V> segmentFor ( Object key ) {
+	  int h = key.hashCode();
+	  h ^= (h >>> 16);
+	  return segments[(h * 0x9E3779B9) >>> 16 & (concurrency - 1)];
+   }
+
+   /** Returns the current data volume claimed by the entirety of
+    * all cache objects.
+    *
+    * @return long cached data size in bytes
+    */
+   public long getVolume () {
+      return actVolume.get();
+   }
+
+   /** Sets the weigher which determines the data size of cache objects on
+    * insertion and replacement. The result is recorded as data size of the
+    * cache object. Null restores the data size given by the cache objects. 
+    * The data sizes of entries already contained are not changed.
+    * <p>NOTE: The weigher is not serialised with this cache. 
+    * 
+    * @param weigher {@code Weigher<K, V>}, may be null
+    */
+   public void setWeigher ( Weigher<K, V> weigher ) {
+      this.weigher = weigher;
+   }
+
+   /** Returns the weigher of this cache or null if the data sizes given
+    * by the cache objects are used.
+    * 
+    * @return {@code Weigher<K, V>} or null
+    */
+   public Weigher<K, V> getWeigher () {
+      return weigher;
+   }
+
+   /** Applies the weigher, if set, to the given entry and records the
+    * result as data size of the value.
+    */
+   private void weigh ( K key, V value ) {
+      Weigher<K, V> w = weigher;
+      if ( w != null ) {
+         long size = w.weigh(key, value);
+         if ( size < 0 ) 
+            throw new IllegalArgumentException("negative weight for key: " + key);
+         value.size = size;
+      }
+   }
+
+   /** Returns the number of segments of this cache.
+    *
+    * @return int
+    */
+   public int getConcurrency () {
+	  return concurrency;
+   }
+
+   @Override
+   public int size () {
+	  return map.size();
+   }
+
+   @Override
+   public boolean isEmpty () {
+	  return map.isEmpty();
+   }
+
+   @Override
+   public boolean containsKey ( Object key ) {
+	  return map.containsKey(key);
+   }
+
+   /** Returns the time at which the given cache object expires, either by
+    * exceeding the idle time limit or its own time-to-live.
+    *
+    * @param obj {@code CacheObject}
+    * @return long epoch milliseconds, Long.MAX_VALUE for no expiry
+    */
+   private long deadlineOf ( CacheObject<?> obj ) {
+	  long d = Long.MAX_VALUE, t = maxTime;
+	  if ( t > 0 ) {
+		 d = obj.accessTime + t;
+	  }
+	  long e = obj.expiryTime;
+	  if ( e > 0 && e < d ) {
+		 d = e;
+	  }
+	  return d;
+   }
+
+   /** Whether the given cache object has expired at the given time.
+    */
+   private boolean isExpired ( CacheObject<?> obj, long now ) {
+	  return now >= deadlineOf(obj);
+   }
+
+   /** Schedules the given node on its segment's timer wheel according to
+    * its deadline. Requires the segment lock.
+    */
+   private void schedule ( Segment<K, V> s, Node<K, V> n ) {
+	  long d = deadlineOf(n.value);
+	  if ( d == Long.MAX_VALUE ) {
+		 s.wheel.deschedule(n);
+	  } else {
+		 s.wheel.schedule(n, d);
+	  }
+   }
+
+   /** Advances the timer wheel of the given segment and removes the entries
+    * found expired. Entries handed out by the wheel which are not expired
+    * (e.g. accessed since they were scheduled) are scheduled again. Requires
+    * the segment lock.
+    *
+    * @param s {@code Segment}
+    * @param now long current time
+    * @return {@code List<V>} removed cache objects, to be released
+    */
+   private List<V> expire ( Segment<K, V> s, long now ) {
+	  List<V> released = new ArrayList<>(0);
+	  s.wheel.advance(now, n -> {
+		 if ( isExpired(n.value, now) ) {
+			if ( map.remove(n.key, n) ) {
+			   s.unlink(n);
+			   actVolume.addAndGet(-n.value.getDataSize());
+			   released.add(n.value);
+			   modified = true;
+			   StatsRecorder rec = stats;
+			   if ( rec != null ) {
+				  rec.recordEviction(EvictionCause.TIME);
+			   }
+			}
+		 } else {
+			schedule(s, n);
+		 }
+	  });
+	  return released;
+   }
+
+   private void release ( List<V> list ) {
+	  for ( V v : list ) {
+		 if ( Log.getLogLevel() >= 10 ) {
+			Log.log(10, "(ConcurrentObjectCache) --- EXPIRED OBJECT:  " + v);
+		 }
+		 objectReleased(v);
+	  }
+   }
+
+   /** Returns the cache object mapped to the given key or null if there is no
+    * mapping. This operation does not lock. An expired entry is removed and
+    * null returned.
+    *
+    * @param key Object
+    * @return V or null
+    */
+   @Override
+   public V get ( Object key ) {
+	  StatsRecorder rec = stats;
+	  Node<K, V> n = map.get(key);
+	  if ( n == null ) {
+		 if ( rec != null ) {
+			rec.recordMiss();
+		 }
+		 return null;
+	  }
+
+	  V v = n.value;
+	  long now = System.currentTimeMillis();
+	  if ( isExpired(v, now) ) {
+		 if ( removeNode(n, true) && rec != null ) {
+			rec.recordEviction(EvictionCause.TIME);
+		 }
+		 if ( rec != null ) {
+			rec.recordMiss();
+		 }
+		 return null;
+	  }
+	  v.accessTime = now;
+	  if ( rec != null ) {
+		 rec.recordHit();
+	  }
+	  Segment<K, V> s = segmentFor(n.key);
+	  if ( s.recordRead(n) ) {
+		 s.tryDrain();
+	  }
+      return v;
+   }
+
+   /** Returns the cache object mapped to the given key or loads it with the
+    * given loader if it is missing. The loaded object is inserted into the
+    * cache unless it is null. Concurrent calls for the same key perform only
+    * one load and wait for its result. The loader runs in the calling thread
+    * without holding a lock of the cache; it must not load the same key
+    * recursively. Runtime exceptions of the loader are thrown to all waiting
+    * callers.
+    * <p>If a refresh-ahead time is set and the mapped object approaches the
+    * end of its fresh time, it is reloaded in the background and the current
+    * object returned.
+    *
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return V or null if the loader returned null
+    */
+   public V get ( K key, Function<? super K, ? extends V> loader ) {
+	  return loading.get(key, loader);
+   }
+
+   /** Returns the cache objects mapped to the given keys and loads the
+    * missing ones with a single call to the given bulk loader. Keys for
+    * which a load is already in progress are not handed to the bulk loader;
+    * the call waits for their loads instead. All mappings returned by the
+    * bulk loader are inserted into the cache. Runtime exceptions of the bulk
+    * loader are thrown to the caller.
+    *
+    * @param keys {@code Collection<? extends K>}
+    * @param bulkLoader {@code Function<Set<K>, Map<K, V>>} receives the set of
+    *        missing keys, returns the objects found for them
+    * @return {@code Map<K, V>} objects found or loaded for the keys, in the
+    *         order of the keys; keys without object are not contained
+    */
+   public Map<K, V> getAll ( Collection<? extends K> keys,
+                  Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader ) {
+	  return loading.getAll(keys, bulkLoader);
+   }
+
+   /** Removes the mappings of the given keys from this cache.
+    *
+    * @param keys {@code Iterable<?>}
+    * @return int number of entries removed
+    */
+   public int invalidateAll ( Iterable<?> keys ) {
+	  int count = 0;
+	  for ( Object key : keys ) {
+		 if ( remove(key) != null ) {
+			count++;
+		 }
+	  }
+	  return count;
+   }
+
+   /** Returns a future of the cache object mapped to the given key. If the
+    * object is missing, it is loaded with the given loader in the load
+    * executor unless a load for the key is already in progress, whose
+    * future is returned then. The loaded object is inserted into the cache
+    * unless it is null.
+    *
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return {@code CompletableFuture<V>}
+    */
+   public CompletableFuture<V> getAsync ( K key, Function<? super K, ? extends V> loader ) {
+	  return loading.getAsync(key, loader);
+   }
+
+   /** Sets the executor for asynchronous loads and refreshes. The default
+    * is the common fork-join pool.
+    *
+    * @param executor {@code Executor}
+    */
+   public void setLoadExecutor ( Executor executor ) {
+	  loading.setExecutor(executor);
+   }
+
+   /** Sets the refresh-ahead time for objects read through a loader. An
+    * object is reloaded in the background when it is read within this time
+    * before the end of its fresh time, which is its creation time plus the
+    * time limit of this cache or its time-to-live. Zero disables
+    * refresh-ahead.
+    *
+    * @param time long refresh-ahead time in milliseconds (0 = off)
+    * @throws IllegalArgumentException if time is negative
+    */
+   public void setRefreshAhead ( long time ) {
+	  loading.setRefreshAhead(time);
+   }
+
+   /** Returns the refresh-ahead time for objects read through a loader.
+    *
+    * @return long milliseconds (0 = off)
+    */
+   public long getRefreshAhead () {
+	  return loading.getRefreshAhead();
+   }
+
+   /** Returns the unexpired cache object mapped to the given key without
+    * recording an access.
+    */
+   private V peek ( Object key ) {
+	  Node<K, V> n = map.get(key);
+	  return n == null || isExpired(n.value, System.currentTimeMillis()) ? null : n.value;
+   }
+
+   /** Sets whether this cache records statistics. Enabling starts with
+    * zero counts, disabling discards the recorded values.
+    * <p>NOTE: The statistics are not serialised with this cache.
+    *
+    * @param enable boolean
+    */
+   public synchronized void setRecordingStats ( boolean enable ) {
+	  if ( enable != (stats != null) ) {
+		 StatsRecorder rec = enable ? new StatsRecorder() : null;
+		 stats = rec;
+		 loading.setStats(rec);
+	  }
+   }
+
+   /** Whether this cache records statistics.
+    *
+    * @return boolean
+    */
+   public boolean isRecordingStats () {
+	  return stats != null;
+   }
+
+   /** Returns a snapshot of the statistics of this cache. The counts are
+    * zero if statistics are not recorded. The average entry age is
+    * computed over all entries contained, which costs O(n) time.
+    *
+    * @return {@code CacheStats}
+    */
+   public CacheStats getStats () {
+	  StatsRecorder rec = stats;
+	  if ( rec == null ) {
+		 rec = new StatsRecorder();
+	  }
+	  return rec.snapshot(averageEntryAge(), map.size(), actVolume.get());
+   }
+
+   /** Returns the average age of the entries contained, which costs O(n)
+    * time.
+    */
+   private long averageEntryAge () {
+	  long now = System.currentTimeMillis(), age = 0;
+	  int n = 0;
+	  for ( Node<K, V> node : map.values() ) {
+		 age += now - node.value.getCreationTime();
+		 n++;
+	  }
+	  return n == 0 ? 0 : age / n;
+   }
+
+   /** Registers an {@code ObjectCacheMXBean} of this cache with the platform
+    * MBean server under the name
+    * "kse.utilclass2.misc:type=ObjectCache,name=&lt;name&gt;". A previous
+    * registration of this cache is removed.
+    *
+    * @param name String cache name
+    * @return {@code ObjectName} registered name
+    * @throws JMException if registration fails, e.g. the name is in use
+    */
+   public synchronized ObjectName registerMBean ( String name ) throws JMException {
+	  unregisterMBean();
+	  mbeanName = CacheMXBeanSupport.register(name, new CacheMXBeanSupport() {
+		 @Override
+		 StatsRecorder recorder () {
+			return stats;
+		 }
+		 @Override
+		 long averageEntryAge () {
+			return ConcurrentObjectCache.this.averageEntryAge();
+		 }
+		 @Override
+		 public int getSize () {
+			return size();
+		 }
+		 @Override
+		 public long getVolume () {
+			return ConcurrentObjectCache.this.getVolume();
+		 }
+		 @Override
+		 public int getMaxEntries () {
+			return ConcurrentObjectCache.this.getMaxEntries();
+		 }
+		 @Override
+		 public long getMaxVolume () {
+			return ConcurrentObjectCache.this.getMaxVolume();
+		 }
+		 @Override
+		 public int getMaxTime () {
+			return ConcurrentObjectCache.this.getMaxTime();
+		 }
+		 @Override
+		 public boolean isRecordingStats () {
+			return ConcurrentObjectCache.this.isRecordingStats();
+		 }
+	  });
+	  return mbeanName;
+   }
+
+   /** Removes the registration of the MXBean of this cache, if there is one.
+    *
+    * @throws JMException
+    */
+   public synchronized void unregisterMBean () throws JMException {
+	  CacheMXBeanSupport.unregister(mbeanName);
+	  mbeanName = null;
+   }
+
+   @Override
+   public V put ( K key, V value ) {
+      // entry control
+      if ( key == null )
+         throw new NullPointerException("key == null");
+      if ( value == null )
+         throw new NullPointerException("value == null");
+      weigh(key, value);
+      if ( maxVolume > 0 && value.getDataSize() > maxVolume )
+         throw new IllegalArgumentException("cannot insert entry, value data size exceeds cache maximum");
+
+      Segment<K, V> s = segmentFor(key);
+      Node<K, V> node = new Node<>(key, value);
+      Node<K, V> old;
+      List<V> expired;
+      long now = System.currentTimeMillis();
+      value.accessTime = now;
+
+      s.lock();
+      try {
+    	 s.drainReadBuffer();
+    	 old = map.put(key, node);
+    	 if ( old != null ) {
+    		s.unlink(old);
+    		actVolume.addAndGet(-old.value.getDataSize());
+    	 }
+    	 s.linkLast(node);
+    	 schedule(s, node);
+    	 actVolume.addAndGet(value.getDataSize());
+         modified = true;
+         expired = expire(s, now);
+      } finally {
+    	 s.unlock();
+      }
+      release(expired);
+
+      StatsRecorder rec = stats;
+      if ( rec != null ) {
+         rec.recordPut();
+      }
+      if ( Log.getLogLevel() >= 10 ) {
+         Log.log(10, "(ConcurrentObjectCache.put) --- ENTER OBJECT:  " + key );
+      }
+      evictToLimits();
+      return old == null ? null : old.value;
+   }
+
+   @Override
+   public V remove ( Object key ) {
+	  Node<K, V> n = map.get(key);
+	  if ( n == null ) return null;
+
+      if ( Log.getLogLevel() >= 10 ) {
+         Log.log(10, "(ConcurrentObjectCache.remove) --- REMOVE OBJECT:  " + key );
+      }
+	  Segment<K, V> s = segmentFor(key);
+	  s.lock();
+	  try {
+		 n = map.remove(key);
+		 if ( n == null ) return null;
+		 s.unlink(n);
+		 actVolume.addAndGet(-n.value.getDataSize());
+         modified = true;
+	  } finally {
+		 s.unlock();
+	  }
+	  objectReleased(n.value);
+	  return n.value;
+   }
+
+   /** Removes the given node from the cache if it is still mapped and
+    * optionally notifies its release.
+    *
+    * @param n {@code Node}
+    * @param release boolean whether to call {@code objectReleased()}
+    * @return boolean true = node was removed
+    */
+   private boolean removeNode ( Node<K, V> n, boolean release ) {
+	  Segment<K, V> s = segmentFor(n.key);
+	  s.lock();
+	  try {
+		 if ( !map.remove(n.key, n) ) return false;
+		 s.unlink(n);
+		 actVolume.addAndGet(-n.value.getDataSize());
+         modified = true;
+	  } finally {
+		 s.unlock();
+	  }
+	  if ( release ) {
+		 objectReleased(n.value);
+	  }
+	  return true;
+   }
+
+   private boolean isOverLimits () {
+	  int me = maxEntries;
+	  long mv = maxVolume;
+	  return (me > 0 && map.size() > me) || (mv > 0 && actVolume.get() > mv);
+   }
+
+   /** Evicts entries until the entry and volume limits are satisfied. Each
+    * step samples the eldest entries of two segments and evicts the one
+    * with the older access time.
+    */
+   private void evictToLimits () {
+	  int empty = 0;
+	  while ( isOverLimits() && empty < concurrency ) {
+		 int c = evictCursor.getAndAdd(2);
+		 Segment<K, V> s1 = segments[c & (concurrency - 1)];
+		 Segment<K, V> s2 = segments[(c + 1) & (concurrency - 1)];
+		 Node<K, V> h1 = s1.head, h2 = s2.head;
+
+		 Node<K, V> victim = h1 == null ? h2 : h2 == null ? h1 :
+			 h1.value.accessTime <= h2.value.accessTime ? h1 : h2;
+		 if ( victim == null ) {
+			empty += 2;
+			continue;
+		 }
+		 empty = 0;
+		 if ( Log.getLogLevel() >= 10 ) {
+			Log.log(10, "(ConcurrentObjectCache.evictToLimits) --- EVICT OBJECT:  "
+					+ victim.key + ",  Vol == " + actVolume.get());
+		 }
+		 int me = maxEntries;
+		 EvictionCause cause = me > 0 && map.size() > me ? 
+				 EvictionCause.ENTRIES : EvictionCause.VOLUME;
+		 StatsRecorder rec = stats;
+		 if ( removeNode(victim, true) && rec != null ) {
+			rec.recordEviction(cause);
+		 }
+	  }
+   }
+
+   /** Runs through the segments of this cache, applies recorded accesses
+    * to the segments' access order, removes the entries which expired
+    * and evicts entries until the entry and volume limits are satisfied.
+    * The cost of expiry is proportional to the number of entries due on the
+    * segments' timer wheels, not to the size of the cache.
+    * <p>This is the routine performed by the maintenance task.
+    */
+   public void refresh () {
+	  long now = System.currentTimeMillis();
+	  for ( Segment<K, V> s : segments ) {
+		 List<V> expired;
+		 s.lock();
+		 try {
+			s.drainReadBuffer();
+			expired = expire(s, now);
+		 } finally {
+			s.unlock();
+		 }
+		 release(expired);
+	  }
+	  evictToLimits();
+   }
+
+   /** Starts a periodic maintenance task which calls {@code refresh()} on
+    * this cache, so that expired entries are removed also in the absence of
+    * write operations. The task runs on a daemon thread shared by all caches
+    * and holds this cache only weakly. A running task is replaced.
+    *
+    * @param period long period of the task in milliseconds
+    * @throws IllegalArgumentException if period is not positive
+    */
+   public synchronized void startMaintenance ( long period ) {
+	  if ( period <= 0 )
+		 throw new IllegalArgumentException("period must be positive");
+	  stopMaintenance();
+	  maintenanceTask = CacheMaintenance.schedule(this, ConcurrentObjectCache::refresh, period);
+   }
+
+   /** Stops the periodic maintenance task of this cache if it is running.
+    */
+   public synchronized void stopMaintenance () {
+	  if ( maintenanceTask != null ) {
+		 maintenanceTask.cancel();
+		 maintenanceTask = null;
+	  }
+   }
+
+   /** Whether a periodic maintenance task is running for this cache.
+    *
+    * @return boolean
+    */
+   public synchronized boolean isMaintenanceActive () {
+	  return maintenanceTask != null;
+   }
+
+   @Override
+   public void clear () {
+	  removeAll(false);
+   }
+
+   /** Operates like method <code>clear()</code> but notifies all contained
+    * objects via method <code>objectReleased()</code> after they have been
+    * removed from this cache. Resets the "modified" marker of this cache.
+    */
+   public void shutdown () {
+	  for ( V v : removeAll(true) ) {
+		 objectReleased(v);
+	  }
+   }
+
+   /** Removes all entries of this cache under the locks of all segments,
+    * so that no entry is added or removed concurrently.
+    *
+    * @param shutdown boolean true = collect the removed objects and reset
+    *        the "modified" marker
+    * @return {@code List<V>} the removed objects (empty if not shutdown)
+    */
+   private List<V> removeAll ( boolean shutdown ) {
+	  List<V> list = new ArrayList<>();
+	  for ( Segment<K, V> s : segments ) {
+		 s.lock();
+	  }
+	  try {
+		 if ( shutdown ) {
+			for ( Node<K, V> n : map.values() ) {
+			   list.add(n.value);
+			}
+		 }
+		 map.clear();
+		 for ( Segment<K, V> s : segments ) {
+			s.reset();
+		 }
+		 actVolume.set(0);
+		 modified = !shutdown;
+	  } finally {
+		 for ( Segment<K, V> s : segments ) {
+			s.unlock();
+		 }
+	  }
+	  return list;
+   }
+
+   /** Resets the "modified" marker of this object cache. */
+   public void resetModified() {
+      modified = false;
+   }
+
+   /** Returns whether the set of entries of this object cache has been modified
+    * since initialisation or last call to <code>shutdown()</code> or <code>
+    * resetModified()</code>. (This does not
+    * reflect modifications within the objects held by this cache!)
+    *
+    * @return boolean modified
+    */
+   public boolean isModified () {
+      return modified;
+   }
+
+   /** This method may be overridden by a subclass and indicates that the
+    * parameter cache object has been scheduled for release from the cache.
+    * Thus application can engage in activity connected to object removal
+    * as e.g. release or saving of associated resources. The method of this
+    * implementation does nothing.
+    * <p>This method is called without holding any lock of the cache and
+    * may be called concurrently from different threads.
+    *
+    * @param obj CacheObject cache object to be released
+    */
+   protected void objectReleased ( CacheObject<?> obj ) {
+   }
+
+   /** Maximum number of entries allowed in this cache.
+    *
+    * @return int maximum cache entries
+    */
+   public int getMaxEntries() {
+      return maxEntries;
+   }
+
+   /** Sets maximum number of entries x in this cache. Any entry x+1 will cause
+    * an eldest entry to be released from the cache. Zero sets unlimited number.
+    *
+    * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
+    * @throws IllegalArgumentException
+    */
+   public void setMaxEntries(int maxEntries) {
+      if ( maxEntries < 0 )
+         throw new IllegalArgumentException("illegal negative argument");
+      this.maxEntries = maxEntries;
+      evictToLimits();
+   }
+
+   /** The maximum cache data size in bytes.
+    * @return long maximum data size
+    */
+   public long getMaxVolume () {
+      return maxVolume;
+   }
+
+   /** Sets maximum size of data in bytes x in this cache. Entry causing at least
+    * x+1 total cache data size will trigger eldest entries to be released from
+    * the cache. Zero sets unlimited size.
+    *
+    * @param maxVolume long maximum data volume allowed in the cache
+    *        (0 for unlimited)
+    * @throws IllegalArgumentException
+    */
+   public void setMaxVolume (long maxVolume) {
+      if ( maxVolume < 0 )
+         throw new IllegalArgumentException("illegal negative argument");
+      this.maxVolume = maxVolume;
+      evictToLimits();
+   }
+
+   /** The maximum entry idle time in seconds (time since most recent access event
+    * on an entry).
+    *
+    * @return int cache entry maximum idle time
+    */
+   public int getMaxTime () {
+      return (int)(maxTime / 1000);
+   }
+
+   /** Sets maximum time in seconds that an entry is allowed to remain in cache
+    * without an access event. Zero sets unlimited time. The entries of
+    * the cache are rescheduled for expiry by this call.
+    *
+    * @param maxTime int maximum entry idle time in seconds (0 for unlimited)
+    * @throws IllegalArgumentException
+    */
+   public void setMaxTime (int maxTime) {
+      if ( maxTime < 0 )
+         throw new IllegalArgumentException("illegal negative argument");
+      this.maxTime = (long)maxTime * 1000;
+
+      for ( Segment<K, V> s : segments ) {
+    	 s.lock();
+    	 try {
+    		for ( Node<K, V> n = s.head; n != null; n = n.next ) {
+    		   schedule(s, n);
+    		}
+    	 } finally {
+    		s.unlock();
+    	 }
+      }
+   }
+
+   /** Returns a set view of the mappings of this cache. The view's iterator
+    * is weakly consistent and does not count as access to the entries.
+    * Removal through the view removes mappings from the cache.
+    *
+    * @return {@code Set<Map.Entry<K, V>>}
+    */
+   @Override
+   public Set<Map.Entry<K, V>> entrySet () {
+	  Set<Map.Entry<K, V>> es = entrySet;
+	  return es != null ? es : (entrySet = new EntrySet());
+   }
+
+   private void writeObject ( ObjectOutputStream out ) throws IOException {
+	  out.defaultWriteObject();
+	  for ( Node<K, V> n : map.values() ) {
+		 out.writeObject(n.key);
+		 out.writeObject(n.value);
+	  }
+	  out.writeObject(null);
+   }
+
+   @SuppressWarnings("unchecked")
+   private void readObject ( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+	  in.defaultReadObject();
+	  init();
+	  K key;
+	  while ( (key = (K) in.readObject()) != null ) {
+		 V value = (V) in.readObject();
+		 long t = value.accessTime;
+		 put(key, value);
+		 value.accessTime = t;
+	  }
+	  modified = false;
+   }
+
+   // -------------  INNER CLASSES  --------------
+
+   /** Map entry of the cache; a member of its segment's LRU list while it
+    * is mapped.
+    */
+   private static final class Node<K, V> extends TimerWheel.Timed {
+	  final K key;
+	  final V value;
+	  // guarded by segment lock
+	  Node<K, V> prev, next;
+	  boolean linked;
+
+	  Node ( K key, V value ) {
+		 this.key = key;
+		 this.value = value;
+	  }
+   }
+
+   /** Segment of the access order with its read buffer. List operations
+    * require the segment lock.
+    */
+   @SuppressWarnings("serial")
+   private static final class Segment<K, V> extends ReentrantLock {
+	  /** eldest entry, read without lock for eviction sampling */
+	  volatile Node<K, V> head;
+	  Node<K, V> tail;
+	  final AtomicReferenceArray<Node<K, V>> readBuffer =
+			  new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+	  final AtomicLong readCounter = new AtomicLong();
+	  TimerWheel<Node<K, V>> wheel;
+
+	  Segment ( long now ) {
+		 wheel = new TimerWheel<>(now);
+	  }
+
+	  /** Records a read access to the given node. Returns true if a drain
+	   * of the buffer is due.
+	   */
+	  boolean recordRead ( Node<K, V> n ) {
+		 long c = readCounter.getAndIncrement();
+		 readBuffer.lazySet((int)c & (READ_BUFFER_SIZE - 1), n);
+		 return ((c + 1) & (DRAIN_THRESHOLD - 1)) == 0;
+	  }
+
+	  void tryDrain () {
+		 if ( tryLock() ) {
+			try {
+			   drainReadBuffer();
+			} finally {
+			   unlock();
+			}
+		 }
+	  }
+
+	  /** Applies the recorded reads to the access order. Requires lock. */
+	  void drainReadBuffer () {
+		 for ( int i = 0; i < READ_BUFFER_SIZE; i++ ) {
+			Node<K, V> n = readBuffer.getAndSet(i, null);
+			if ( n != null && n.linked ) {
+			   moveToTail(n);
+			}
+		 }
+	  }
+
+	  void linkLast ( Node<K, V> n ) {
+		 n.prev = tail;
+		 n.next = null;
+		 if ( tail == null ) {
+			head = n;
+		 } else {
+			tail.next = n;
+		 }
+		 tail = n;
+		 n.linked = true;
+	  }
+
+	  /** Removes the node from the access list and from the timer wheel. */
+	  void unlink ( Node<K, V> n ) {
+		 if ( !n.linked ) return;
+		 wheel.deschedule(n);
+		 unlinkList(n);
+	  }
+
+	  /** Removes the node from the access list only; its timer remains
+	   * scheduled. The node must be linked. */
+	  private void unlinkList ( Node<K, V> n ) {
+		 Node<K, V> p = n.prev, x = n.next;
+		 if ( p == null ) {
+			head = x;
+		 } else {
+			p.next = x;
+		 }
+		 if ( x == null ) {
+			tail = p;
+		 } else {
+			x.prev = p;
+		 }
+		 n.prev = n.next = null;
+		 n.linked = false;
+	  }
+
+	  /** Moves the node to the youngest end of the list; the node must be
+	   * linked. This does not reschedule the node's timer. */
+	  void moveToTail ( Node<K, V> n ) {
+		 if ( n != tail ) {
+			unlinkList(n);
+			linkLast(n);
+		 }
+	  }
+
+	  void reset () {
+		 for ( Node<K, V> n = head; n != null; n = n.next ) {
+			n.linked = false;
+		 }
+		 head = tail = null;
+		 wheel = new TimerWheel<>(System.currentTimeMillis());
+		 for ( int i = 0; i < READ_BUFFER_SIZE; i++ ) {
+			readBuffer.set(i, null);
+		 }
+	  }
+   }
+
+   private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+	  @Override
+	  public Iterator<Map.Entry<K, V>> iterator () {
+		 Iterator<Node<K, V>> it = map.values().iterator();
+		 return new Iterator<Map.Entry<K, V>>() {
+			Node<K, V> current;
+
+			@Override
+			public boolean hasNext () {
+			   return it.hasNext();
+			}
+
+			@Override
+			public Map.Entry<K, V> next () {
+			   current = it.next();
+			   return new SimpleImmutableEntry<>(current.key, current.value);
+			}
+
+			@Override
+			public void remove () {
+			   if ( current == null )
+				  throw new IllegalStateException();
+			   removeNode(current, true);
+			   current = null;
+			}
+		 };
+	  }
+
+	  @Override
+	  public int size () {
+		 return map.size();
+	  }
+
+	  @Override
+	  public boolean contains ( Object o ) {
+		 if ( !(o instanceof Map.Entry) ) return false;
+		 Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+		 Node<K, V> n = e.getKey() == null ? null : map.get(e.getKey());
+		 return n != null && Objects.equals(n.value, e.getValue());
+	  }
+
+	  @Override
+	  public boolean remove ( Object o ) {
+		 if ( !contains(o) ) return false;
+		 return ConcurrentObjectCache.this.remove(((Map.Entry<?, ?>) o).getKey()) != null;
+	  }
+
+	  @Override
+	  public void clear () {
+		 ConcurrentObjectCache.this.clear();
+	  }
+   }
+}
@@ -23,12 +23,44 @@ write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
 Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 */
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.StreamCorruptedException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import kse.utilclass.misc.Log;
+import kse.utilclass2.misc.CacheStats.EvictionCause;
 
 /**
  * Offers a general purpose, scalable object cache service by implementing the Map interface.
@@ -40,6 +72,41 @@ import kse.utilclass.misc.Log;
  * 1) number of entries, 2) cached data size, and 3) object idle time (unaccessed). These parameters 
  * can be set during instance creation or modified at any later time of cache existence.    
  * 
+ * <p>Entries whose time-to-live has passed ({@code CacheObject.setTimeToLive()}) are never
+ * returned by {@code get()}. They are removed by {@code refresh()} and before entries are
+ * evicted for the limits of number and data volume, so they don't count against these limits.
+ * A periodic maintenance task calling {@code refresh()} can be started with 
+ * {@code startMaintenance()}.
+ * 
+ * <p>By default entries are evicted in the order of least recent access (LRU). An alternative
+ * eviction and admission policy can be set with {@code setPolicy()}, e.g. the frequency-aware
+ * {@code TinyLfuCachePolicy} which protects frequently used entries from being displaced by
+ * sequential scans. The policy decides about the removal of entries for the limits of number
+ * and data volume; the idle time limit is controlled by access order as before.
+ * 
+ * <p>Missing entries can be loaded with {@code get(key, loader)} or {@code getAsync(key, loader)},
+ * where concurrent requests for the same key are served by a single load. These methods
+ * synchronise on the cache instance for their access to the map; users accessing the cache
+ * from several threads have to do the same for all other calls. A refresh-ahead time can be set
+ * with {@code setRefreshAhead()}. Bulk operations {@code putAll()}, {@code getAll()} and 
+ * {@code invalidateAll()} enforce the cache limits once for the entire operation.
+ * 
+ * <p>An optional second-level tier ({@code setSecondLevel()}, e.g. {@code DiskCacheStore}) 
+ * receives the entries evicted by the cache limits; requests which miss the cache are served
+ * from the tier and the entry returns into the cache. The contents of the cache can be saved
+ * to a snapshot file and restored from it with {@code saveSnapshot()} and 
+ * {@code restoreSnapshot()}, e.g. to start warm after a restart.
+ * 
+ * <p>With {@code setReferenceMode()} the user objects can be held by soft or weak references,
+ * so that the cache yields memory to the garbage collector in addition to its fixed limits.
+ * Entries whose user object was collected are removed during maintenance ({@code put()} and
+ * {@code refresh()}) or when they are requested, and notified via {@code objectReleased()}.
+ * 
+ * <p>Statistics of hits, misses, insertions, evictions and loads are recorded after a call
+ * to {@code setRecordingStats(true)} and returned by {@code getStats()}; they can be
+ * published as MXBean with {@code registerMBean()}. Without recording, the statistics
+ * cost no more than a null check per operation.
+ * 
  * <p><b>Security Note</b>
  * <br>This class has the status of a container and it is by default serialisable.
  * Serialisation, however, must fail if any object contained does not implement
@@ -55,17 +122,64 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
        extends LinkedHashMap<K, V> 
 {
    private static final long serialVersionUID = 969949487903222429L;
+   /** Serialised form, compatible with former versions which held the volumes 
+    * in fields of type int; these carry the volumes clamped to the int range. 
+    */
+   private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("maxEntries", int.class),
+      new ObjectStreamField("maxVolume", int.class),
+      new ObjectStreamField("maxTime", long.class),
+      new ObjectStreamField("actVolume", int.class),
+      new ObjectStreamField("modified", boolean.class),
+      new ObjectStreamField("maxVolumeLong", long.class),
+      new ObjectStreamField("actVolumeLong", long.class)
+   };
    
    /** maximum number of entries in the cache (0=unlimited) */ 
    private int maxEntries;
    /** maximum cached data size (bytes; 0=unlimited) */ 
-   private int maxVolume;
+   private long maxVolume;
    /** maximum entry idle time in milliseconds (0=unlimited) */ 
    private long maxTime;
    /** current total cached data volume (bytes) */
-   private int actVolume;
+   private long actVolume;
    /** whether the set of entries has changed since start or shutdown() */
    private boolean modified;
+   /** whether a bulk insertion is in progress, which defers eviction */
+   private transient boolean bulk;
+   /** eviction policy; null for LRU by access order */
+   private transient CachePolicy<K> policy;
+   /** weigher of cache objects; null for their own data size */
+   private transient Weigher<K, V> weigher;
+   /** second-level tier receiving evicted entries or null */
+   private transient SecondLevelCache<K, V> secondLevel;
+   
+   private static final int SNAPSHOT_MAGIC = 0x4B534553;
+   /** support of loader methods, created on demand */
+   private transient CacheLoading<K, V> loading;
+   /** statistics recorder; null if statistics are not recorded */
+   private transient volatile StatsRecorder stats;
+   /** name of the registered MXBean or null */
+   private transient ObjectName mbeanName;
+   /** reference mode of user objects; null for strong references */
+   private transient ReferenceMode refMode;
+   /** queue of references to collected user objects, created on demand */
+   private transient ReferenceQueue<Object> refQueue;
+   /** timer wheel of entries with a time-to-live, created on demand */
+   private transient TimerWheel<ExpiryTimer> expiryWheel;
+   /** periodic maintenance task or null */
+   private transient TimerTask maintenanceTask;
+   
+   /** The way in which a cache holds the user objects of its entries. */
+   public enum ReferenceMode {
+      /** ordinary references, user objects are never collected */
+      STRONG,
+      /** soft references, user objects are collected when memory runs short */
+      SOFT,
+      /** weak references, user objects are collected when they are not 
+       * referenced outside the cache */
+      WEAK
+   }
 
    public DefaultObjectCache () {
       super(128, (float)0.5, true);
@@ -74,12 +188,12 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
    /** Creates a new object cache with optional size and time limitations.
     * 
     * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
-    * @param maxVolume int maximum total data volume allowed in the cache (0 for unlimited)
+    * @param maxVolume long maximum total data volume allowed in the cache (0 for unlimited)
     * @param maxTime int maximum time in seconds allowed for an entry to remain idle in the 
     *        cache (0 for unlimited)
     * @throws IllegalArgumentException
     */
-   public DefaultObjectCache ( int maxEntries, int maxVolume, int maxTime ) {
+   public DefaultObjectCache ( int maxEntries, long maxVolume, int maxTime ) {
       this();
       if ( maxEntries < 0 | maxVolume < 0 | maxTime < 0 ) 
          throw new IllegalArgumentException("illegal negative argument");
@@ -92,15 +206,462 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
    /** Returns the current data volume claimed by the entirety of
     * all cache objects.
     *  
-    * @return int cached data size in bytes
+    * @return long cached data size in bytes
     */
-   public int getVolume () {
+   public long getVolume () {
       return actVolume;
    }
    
+   /** Sets the weigher which determines the data size of cache objects on
+    * insertion and replacement. The result is recorded as data size of the
+    * cache object. Null restores the data size given by the cache objects. 
+    * The data sizes of entries already contained are not changed.
+    * <p>NOTE: The weigher is not serialised with this cache. 
+    * 
+    * @param weigher {@code Weigher<K, V>}, may be null
+    */
+   public void setWeigher ( Weigher<K, V> weigher ) {
+      this.weigher = weigher;
+   }
+   
+   /** Returns the weigher of this cache or null if the data sizes given
+    * by the cache objects are used.
+    * 
+    * @return {@code Weigher<K, V>} or null
+    */
+   public Weigher<K, V> getWeigher () {
+      return weigher;
+   }
+   
+   /** Applies the weigher, if set, to the given entry and records the
+    * result as data size of the value.
+    */
+   private void weigh ( K key, V value ) {
+      Weigher<K, V> w = weigher;
+      if ( w != null ) {
+         long size = w.weigh(key, value);
+         if ( size < 0 ) 
+            throw new IllegalArgumentException("negative weight for key: " + key);
+         value.size = size;
+      }
+   }
+   
+   /** Sets the eviction and admission policy of this cache. The keys 
+    * currently contained are handed to the policy in the order of their 
+    * access. Null restores the default LRU eviction.
+    * <p>NOTE: The policy is not serialised with this cache. 
+    * 
+    * @param policy {@code CachePolicy<K>}, may be null
+    */
+   public void setPolicy ( CachePolicy<K> policy ) {
+      if ( policy != null ) {
+         policy.clear();
+         for ( K key : keySet() ) {
+            policy.onInsert(key);
+         }
+      }
+      this.policy = policy;
+      evictByPolicy();
+   }
+   
+   /** Returns the eviction and admission policy of this cache or null
+    * if the default LRU eviction is active.
+    * 
+    * @return {@code CachePolicy<K>} or null
+    */
+   public CachePolicy<K> getPolicy () {
+      return policy;
+   }
+
+   private synchronized CacheLoading<K, V> loading () {
+      if ( loading == null ) {
+         loading = new CacheLoading<K, V>( 
+               key -> { synchronized (this) { return get(key); } },
+               key -> { synchronized (this) { return peek(key); } },
+               (key, value) -> { synchronized (this) { put(key, value); } },
+               map -> { synchronized (this) { putAll(map); } },
+               () -> maxTime );
+         loading.setStats(stats);
+      }
+      return loading;
+   }
+   
+   /** Returns the unexpired cache object mapped to the given key, without
+    * second-level tier, policy notification and statistics. As the lookup 
+    * moves a found entry to the youngest end of the access order, its 
+    * access time is renewed, so that the order of access times is kept for
+    * <code>refresh()</code>.
+    */
+   private V peek ( Object key ) {
+      V v = super.get(key);
+      if ( v == null || v.isExpired() ) return null;
+      v.accessTime = System.currentTimeMillis();
+      return v;
+   }
+   
+   /** Whether the given key is mapped to a value equal to the given object.
+    * Unlike <code>get()</code>, this does not alter the access order.
+    */
+   private boolean isMapped ( Object key, Object obj ) {
+      return entrySet().contains(new SimpleImmutableEntry<>(key, obj));
+   }
+   
+   /** Sets whether this cache records statistics. Enabling starts with
+    * zero counts, disabling discards the recorded values.
+    * <p>NOTE: The statistics are not serialised with this cache. 
+    * 
+    * @param enable boolean
+    */
+   public synchronized void setRecordingStats ( boolean enable ) {
+      if ( enable != (stats != null) ) {
+         stats = enable ? new StatsRecorder() : null;
+         if ( loading != null ) {
+            loading.setStats(stats);
+         }
+      }
+   }
+   
+   /** Whether this cache records statistics.
+    * 
+    * @return boolean
+    */
+   public boolean isRecordingStats () {
+      return stats != null;
+   }
+   
+   /** Returns a snapshot of the statistics of this cache. The counts are
+    * zero if statistics are not recorded. The average entry age is 
+    * computed over all entries contained, which costs O(n) time.
+    * 
+    * @return {@code CacheStats}
+    */
+   public CacheStats getStats () {
+      StatsRecorder rec = stats == null ? new StatsRecorder() : stats;
+      return rec.snapshot(averageEntryAge(), size(), actVolume);
+   }
+   
+   /** Returns the average age of the entries contained, which costs O(n) 
+    * time.
+    */
+   private long averageEntryAge () {
+      long now = System.currentTimeMillis(), age = 0;
+      for ( V v : super.values() ) {
+         age += now - v.getCreationTime();
+      }
+      return isEmpty() ? 0 : age / size();
+   }
+   
+   /** Registers an {@code ObjectCacheMXBean} of this cache with the platform 
+    * MBean server under the name 
+    * "kse.utilclass2.misc:type=ObjectCache,name=&lt;name&gt;". The bean
+    * reads the statistics counters without locking; it synchronises on this
+    * cache for the cache state values. A previous registration of this cache 
+    * is removed.
+    * 
+    * @param name String cache name
+    * @return {@code ObjectName} registered name
+    * @throws JMException if registration fails, e.g. the name is in use
+    */
+   public synchronized ObjectName registerMBean ( String name ) throws JMException {
+      unregisterMBean();
+      mbeanName = CacheMXBeanSupport.register(name, new CacheMXBeanSupport() {
+         @Override
+         StatsRecorder recorder () {
+            return stats;
+         }
+         @Override
+         long averageEntryAge () {
+            synchronized (DefaultObjectCache.this) { return DefaultObjectCache.this.averageEntryAge(); }
+         }
+         @Override
+         public int getSize () {
+            synchronized (DefaultObjectCache.this) { return size(); }
+         }
+         @Override
+         public long getVolume () {
+            synchronized (DefaultObjectCache.this) { return DefaultObjectCache.this.getVolume(); }
+         }
+         @Override
+         public int getMaxEntries () {
+            return DefaultObjectCache.this.getMaxEntries();
+         }
+         @Override
+         public long getMaxVolume () {
+            return DefaultObjectCache.this.getMaxVolume();
+         }
+         @Override
+         public int getMaxTime () {
+            return DefaultObjectCache.this.getMaxTime();
+         }
+         @Override
+         public boolean isRecordingStats () {
+            return DefaultObjectCache.this.isRecordingStats();
+         }
+      });
+      return mbeanName;
+   }
+   
+   /** Removes the registration of the MXBean of this cache, if there is one.
+    * 
+    * @throws JMException
+    */
+   public synchronized void unregisterMBean () throws JMException {
+      CacheMXBeanSupport.unregister(mbeanName);
+      mbeanName = null;
+   }
+   
+   /** Returns the cache object mapped to the given key or loads it with the 
+    * given loader if it is missing. The loaded object is inserted into the 
+    * cache unless it is null. Concurrent calls for the same key perform only 
+    * one load and wait for its result. The loader runs in the calling thread
+    * without holding a lock of the cache; it must not load the same key 
+    * recursively. Runtime exceptions of the loader are thrown to all waiting 
+    * callers.
+    * <p>If a refresh-ahead time is set and the mapped object approaches the
+    * end of its fresh time, it is reloaded in the background and the current
+    * object returned.
+    * 
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return V or null if the loader returned null
+    */
+   public V get ( K key, Function<? super K, ? extends V> loader ) {
+      return loading().get(key, loader);
+   }
+   
+   /** Returns the cache objects mapped to the given keys and loads the 
+    * missing ones with a single call to the given bulk loader. Keys for 
+    * which a load is already in progress are not handed to the bulk loader;
+    * the call waits for their loads instead. All mappings returned by the 
+    * bulk loader are inserted into the cache as with <code>putAll()</code>.
+    * The bulk loader runs in the calling thread without holding a lock of 
+    * the cache. Runtime exceptions of the bulk loader are thrown to the 
+    * caller.
+    * 
+    * @param keys {@code Collection<? extends K>}
+    * @param bulkLoader {@code Function<Set<K>, Map<K, V>>} receives the set of 
+    *        missing keys, returns the objects found for them
+    * @return {@code Map<K, V>} objects found or loaded for the keys, in the
+    *         order of the keys; keys without object are not contained
+    */
+   public Map<K, V> getAll ( Collection<? extends K> keys, 
+                  Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader ) {
+      return loading().getAll(keys, bulkLoader);
+   }
+   
+   /** Returns a future of the cache object mapped to the given key. If the 
+    * object is missing, it is loaded with the given loader in the load
+    * executor unless a load for the key is already in progress, whose 
+    * future is returned then. The loaded object is inserted into the cache
+    * unless it is null.
+    * 
+    * @param key K
+    * @param loader {@code Function<? super K, ? extends V>}
+    * @return {@code CompletableFuture<V>}
+    */
+   public CompletableFuture<V> getAsync ( K key, Function<? super K, ? extends V> loader ) {
+      return loading().getAsync(key, loader);
+   }
+   
+   /** Sets the executor for asynchronous loads and refreshes. The default
+    * is the common fork-join pool.
+    * 
+    * @param executor {@code Executor}
+    */
+   public void setLoadExecutor ( Executor executor ) {
+      loading().setExecutor(executor);
+   }
+   
+   /** Sets the refresh-ahead time for objects read through a loader. An
+    * object is reloaded in the background when it is read within this time
+    * before the end of its fresh time, which is its creation time plus the 
+    * time limit of this cache or its time-to-live. Zero disables 
+    * refresh-ahead.
+    * 
+    * @param time long refresh-ahead time in milliseconds (0 = off)
+    * @throws IllegalArgumentException if time is negative
+    */
+   public void setRefreshAhead ( long time ) {
+      loading().setRefreshAhead(time);
+   }
+   
+   /** Returns the refresh-ahead time for objects read through a loader.
+    * 
+    * @return long milliseconds (0 = off)
+    */
+   public long getRefreshAhead () {
+      return loading().getRefreshAhead();
+   }
+   
+   /** Sets the reference mode by which this cache holds the user objects
+    * of its entries. With SOFT or WEAK, the garbage collector may clear user
+    * objects; their entries are removed and notified via 
+    * <code>objectReleased()</code> during maintenance or when requested. The 
+    * mode applies to the entries contained and to all later insertions. 
+    * Objects leaving this cache are held strongly again, as far as their user 
+    * object is not collected.
+    * <p>While a cache object is held by reference, its field <code>object</code>
+    * is null and <code>getObject()</code> must be used to obtain the user 
+    * object; it returns null after collection. Users should therefore obtain 
+    * the user object once from a cache object and retain it for their work.
+    * <p>NOTE: The reference mode is not serialised with this cache. 
+    * 
+    * @param mode {@code ReferenceMode}
+    */
+   public void setReferenceMode ( ReferenceMode mode ) {
+      Objects.requireNonNull(mode, "mode is null");
+      ReferenceMode m = mode == ReferenceMode.STRONG ? null : mode;
+      if ( m == refMode ) return;
+      
+      refMode = m;
+      List<K> collected = new ArrayList<>();
+      for ( Entry<K, V> e : entrySet() ) {
+         V v = e.getValue();
+         // a collected entry must be removed; holding it strongly would hide it
+         if ( v.isCollected() ) {
+            collected.add(e.getKey());
+            continue;
+         }
+         v.holdStrongly();
+         hold(e.getKey(), v);
+      }
+      for ( K key : collected ) {
+         removeCollected(key);
+      }
+      expungeCollected();
+   }
+   
+   /** Returns the reference mode by which this cache holds user objects.
+    * 
+    * @return {@code ReferenceMode}
+    */
+   public ReferenceMode getReferenceMode () {
+      return refMode == null ? ReferenceMode.STRONG : refMode;
+   }
+   
+   /** Places the user object of a cache object under a soft or weak 
+    * reference, according to the reference mode.
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private void hold ( K key, V obj ) {
+      if ( refMode == null || obj.object == null ) return;
+      if ( refQueue == null ) {
+         refQueue = new ReferenceQueue<>();
+      }
+      CacheObject co = obj;
+      co.reference = refMode == ReferenceMode.SOFT ? 
+            new SoftPayload(co.object, key, co, refQueue) :
+            new WeakPayload(co.object, key, co, refQueue);
+      co.object = null;
+   }
+   
+   /** Removes the entries whose user object was collected, as reported by 
+    * the reference queue.
+    */
+   private void expungeCollected () {
+      if ( refQueue == null ) return;
+      
+      Reference<?> r;
+      while ( (r = refQueue.poll()) != null ) {
+         Object key = ((Payload) r).key();
+         CacheObject<?> owner = ((Payload) r).owner();
+         // the entry may have been replaced or held strongly meanwhile
+         if ( owner.reference == r && isMapped(key, owner) ) {
+            removeCollected(key);
+         }
+      }
+   }
+   
+   private void removeCollected ( Object key ) {
+      if ( Log.getLogLevel() >= 10 ) {
+         Log.log(10, "(DefaultObjectCache.removeCollected) --- REMOVE COLLECTED OBJECT:  " + key );
+      }
+      removeEntry(key, false);
+      if ( stats != null ) {
+         stats.recordEviction(EvictionCause.COLLECTED);
+      }
+   }
+   
+   /** Sets the second-level tier of this cache, which receives the entries
+    * evicted by the cache limits, except those whose time-to-live has 
+    * passed. A request missing this cache takes the entry from the tier 
+    * and inserts it into this cache. Removal of a key removes it from both
+    * levels. The map views of this cache reflect the first level only.
+    * <p>NOTE: The tier is not serialised with this cache. 
+    * 
+    * @param secondLevel {@code SecondLevelCache<K, V>}, may be null
+    */
+   public void setSecondLevel ( SecondLevelCache<K, V> secondLevel ) {
+      this.secondLevel = secondLevel;
+   }
+   
+   /** Returns the second-level tier of this cache or null if there is none.
+    * 
+    * @return {@code SecondLevelCache<K, V>} or null
+    */
+   public SecondLevelCache<K, V> getSecondLevel () {
+      return secondLevel;
+   }
+   
+   /** Hands an evicted entry to the second-level tier, if there is one.
+    */
+   private void demote ( K key, V obj ) {
+      obj.holdStrongly();
+      if ( secondLevel != null && !obj.isExpired() && !obj.isCollected() ) {
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(DefaultObjectCache.demote) --- DEMOTE OBJECT:  " + key );
+         }
+         secondLevel.put(key, obj);
+      }
+   }
+   
+   /** Returns the given cache object, which is restored from a file or a
+    * second-level tier, as a value of this cache. 
+    * 
+    * @param obj {@code CacheObject}
+    * @return V
+    */
+   @SuppressWarnings("unchecked")
+   V adopt ( CacheObject<?> obj ) {
+      return (V) obj;
+   }
+   
+   /** Removes entries named by the policy as long as the limits of number 
+    * of entries or data volume are exceeded.
+    */
+   private void evictByPolicy () {
+      if ( policy == null ) return;
+      
+      if ( (maxEntries > 0 && size() > maxEntries) || 
+           (maxVolume > 0 && actVolume > maxVolume) ) {
+         expireByTtl(System.currentTimeMillis());
+      }
+      while ( (maxEntries > 0 && size() > maxEntries) || 
+              (maxVolume > 0 && actVolume > maxVolume) ) {
+         K key = policy.victim();
+         if ( key == null ) break;
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(DefaultObjectCache.evictByPolicy) --- REMOVE OBJECT:  " + key 
+                        + ",  Vol == " + actVolume);
+         }
+         EvictionCause cause = maxEntries > 0 && size() > maxEntries ? 
+                               EvictionCause.ENTRIES : EvictionCause.VOLUME;
+         if ( removeEntry(key, true) == null ) {
+            // a key unknown to the cache is dropped from the policy
+            policy.onRemove(key);
+         } else if ( stats != null ) {
+            stats.recordEviction(cause);
+         }
+      }
+   }
+   
    @Override
    protected boolean removeEldestEntry(Entry<K, V> eldest) {
       boolean r1, r2, r3, res = false;
+      // eviction by policy is performed after insertion, bulk eviction
+      // after the bulk
+      if ( policy != null | bulk ) return false;
+      
       int diff = 0;
    
       // investigate violation of cache limitations
@@ -113,13 +674,20 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       if ( r2 | r3 | diff > 1 ) {
          refresh();
          
-      // if only one removal   
-      } else if ( r1 ) {
-         Log.log(10, "(DefaultObjectCache.removeEldestEntry) --- REMOVE E == "
-                      + r1 + r2 + r3 + ",  Vol == " + actVolume);
-         CacheObject<?> obj = eldest.getValue();
+      // if only one removal, unless entries whose time-to-live has passed
+      // make up for it
+      } else if ( r1 && !expireByTtl(System.currentTimeMillis()) ) {
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(DefaultObjectCache.removeEldestEntry) --- REMOVE E == "
+                         + r1 + r2 + r3 + ",  Vol == " + actVolume);
+         }
+         V obj = eldest.getValue();
          actVolume -= obj.getDataSize();
-         objectReleased(obj);
+         demote(eldest.getKey(), obj);
+         release(obj);
+         if ( stats != null ) {
+            stats.recordEviction(EvictionCause.ENTRIES);
+         }
          res = true;
       }
       return res; 
@@ -137,67 +705,336 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       boolean entryLim, volumeLim, timeLim;
       Iterator<Entry<K,V>> it;
       
-      // investigate cache limitations
-      entryLim = maxEntries > 0;
-      volumeLim = maxVolume > 0;
+      // investigate cache limitations (the policy controls number and volume)
+      entryLim = maxEntries > 0 && policy == null;
+      volumeLim = maxVolume > 0 && policy == null;
       timeLim = maxTime > 0;
       
+      expungeCollected();
+      expireByTtl(System.currentTimeMillis());
+      
       // only operate if limitation is set
       if ( entryLim | volumeLim | timeLim ) {
          Log.log(8, "(DefaultObjectCache.refresh) running cache refresh ");
          cont = true;
          // run through entries from eldest to youngest accessed
          for ( it = this.entrySet().iterator(); it.hasNext() & cont; ) {
-            CacheObject<?> obj = it.next().getValue();
-            Log.log(10, "(DefaultObjectCache.refresh) --- investigating object: " + obj);
+            Entry<K,V> entry = it.next();
+            CacheObject<?> obj = entry.getValue();
+            if ( Log.getLogLevel() >= 10 ) {
+               Log.log(10, "(DefaultObjectCache.refresh) --- investigating object: " + obj);
+            }
    
             // check cache state and entry condition for "remove entry"
             r1 = entryLim && size() > maxEntries;
             r2 = volumeLim && actVolume > maxVolume;
             r3 = timeLim && obj.getAccessAge() > maxTime;
-            Log.log(10, "(DefaultObjectCache.refresh) --- investigating object: R3 == " 
-                        + r3 + " AT=" + obj.getAccessAge());
+            if ( Log.getLogLevel() >= 10 ) {
+               Log.log(10, "(DefaultObjectCache.refresh) --- investigating object: R3 == " 
+                           + r3 + " AT=" + obj.getAccessAge());
+            }
             
             // remove entry if cache limitations are violated
-            cont = r1;
+            cont = r1 | r2 | r3;
             if ( r1 | r2 | r3 ) {
-               Log.log(10, "(DefaultObjectCache.refresh) --- REMOVE R == " 
-                           + r1 + r2 + r3 + ",  Vol == " + actVolume);
+               if ( Log.getLogLevel() >= 10 ) {
+                  Log.log(10, "(DefaultObjectCache.refresh) --- REMOVE R == " 
+                              + r1 + r2 + r3 + ",  Vol == " + actVolume);
+               }
                it.remove();
+               actVolume -= obj.getDataSize();
+               demote(entry.getKey(), entry.getValue());
+               release(obj);
+               if ( policy != null ) {
+                  policy.onRemove(entry.getKey());
+               }
+               if ( stats != null ) {
+                  stats.recordEviction(r1 ? EvictionCause.ENTRIES : 
+                                       r2 ? EvictionCause.VOLUME : EvictionCause.TIME);
+               }
+               modified();
             }
          }
+         evictByPolicy();
       }
    }
    
+   /** Schedules the time-to-live expiry of an inserted cache object on the
+    * expiry wheel. A previous schedule of the object is replaced.
+    */
+   private void scheduleExpiry ( Object key, CacheObject<?> obj ) {
+      descheduleExpiry(obj);
+      if ( obj.expiryTime > 0 ) {
+         if ( expiryWheel == null ) {
+            expiryWheel = new TimerWheel<>(System.currentTimeMillis());
+         }
+         ExpiryTimer t = new ExpiryTimer(key, obj);
+         obj.expiryTimer = t;
+         expiryWheel.schedule(t, obj.expiryTime);
+      }
+   }
+   
+   /** Removes the time-to-live expiry of a cache object leaving this cache
+    * from the expiry wheel.
+    */
+   private void descheduleExpiry ( CacheObject<?> obj ) {
+      ExpiryTimer t = obj.expiryTimer;
+      if ( t != null ) {
+         if ( expiryWheel != null ) {
+            expiryWheel.deschedule(t);
+         }
+         obj.expiryTimer = null;
+      }
+   }
+   
+   /** Removes the entries whose time-to-live has passed, as handed out by 
+    * the expiry wheel. A time-to-live set or changed on an object after its 
+    * insertion is recognised when the object's previous expiry is due or 
+    * when the object is requested.
+    * 
+    * @param now long current time
+    * @return boolean true if an entry was removed
+    */
+   private boolean expireByTtl ( long now ) {
+      if ( expiryWheel == null ) return false;
+      
+      List<ExpiryTimer> expired = new ArrayList<>(0);
+      expiryWheel.advance(now, t -> {
+         long time = t.obj.expiryTime;
+         if ( time == 0 ) {
+            t.obj.expiryTimer = null;
+         } else if ( now >= time ) {
+            expired.add(t);
+         } else {
+            expiryWheel.schedule(t, time);
+         }
+      });
+      
+      boolean removed = false;
+      for ( ExpiryTimer t : expired ) {
+         // the object may have left this cache without passing release()
+         if ( t.obj.expiryTimer != t || !isMapped(t.key, t.obj) ) continue;
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(DefaultObjectCache.expireByTtl) --- REMOVE EXPIRED OBJECT:  " + t.key );
+         }
+         removeEntry(t.key, false);
+         removed = true;
+         if ( stats != null ) {
+            stats.recordEviction(EvictionCause.TIME);
+         }
+      }
+      return removed;
+   }
+   
+   /** Starts a periodic maintenance task which calls {@code refresh()} on
+    * this cache, so that expired entries are removed also in the absence of
+    * write operations. The task synchronises on this cache for the refresh.
+    * It runs on a daemon thread shared by all caches and holds this cache 
+    * only weakly. A running task is replaced.
+    *
+    * @param period long period of the task in milliseconds
+    * @throws IllegalArgumentException if period is not positive
+    */
+   public synchronized void startMaintenance ( long period ) {
+      if ( period <= 0 )
+         throw new IllegalArgumentException("period must be positive");
+      stopMaintenance();
+      maintenanceTask = CacheMaintenance.schedule(this, c -> {
+         synchronized ( c ) {
+            c.refresh();
+         }
+      }, period);
+   }
+
+   /** Stops the periodic maintenance task of this cache if it is running.
+    */
+   public synchronized void stopMaintenance () {
+      if ( maintenanceTask != null ) {
+         maintenanceTask.cancel();
+         maintenanceTask = null;
+      }
+   }
+
+   /** Whether a periodic maintenance task is running for this cache.
+    *
+    * @return boolean
+    */
+   public synchronized boolean isMaintenanceActive () {
+      return maintenanceTask != null;
+   }
+   
+   /** Returns the cache object mapped to the given key or null if there is
+    * no mapping. An object whose time-to-live has passed is removed and null
+    * returned.
+    * 
+    * @param key Object
+    * @return V or null
+    */
    @Override
    public V get (Object key) {
       V v = super.get(key);
-      if ( v != null ) {
-         v.accessTime = System.currentTimeMillis();
+      if ( v != null && v.isExpired() ) {
+         remove(key);
+         if ( stats != null ) {
+            stats.recordEviction(EvictionCause.TIME);
+         }
+         v = null;
+      } else if ( v != null && v.isCollected() ) {
+         removeCollected(key);
+         v = null;
+      }
+      if ( v == null ) {
+         if ( secondLevel != null && (v = secondLevel.take(key)) != null 
+              && !v.isExpired() ) {
+            if ( Log.getLogLevel() >= 10 ) {
+               Log.log(10, "(DefaultObjectCache.get) --- PROMOTE OBJECT:  " + key );
+            }
+            @SuppressWarnings("unchecked")
+            K k = (K) key;
+            v = adopt(v);
+            put(k, v);
+            if ( stats != null ) {
+               stats.recordHit();
+            }
+            return v;
+         }
+         if ( policy != null ) {
+            policy.onMiss(key);
+         }
+         if ( stats != null ) {
+            stats.recordMiss();
+         }
+         return null;
+      }
+      v.accessTime = System.currentTimeMillis();
+      if ( policy != null ) {
+         @SuppressWarnings("unchecked")
+         K k = (K) key;
+         policy.onAccess(k);
+      }
+      if ( stats != null ) {
+         stats.recordHit();
+      }
+      if ( Log.getLogLevel() >= 10 ) {
          Log.log(10, "(DefaultObjectCache.get) --- GETTING OBJECT:  " + key );
       }
       return v;
    }
 
+   /** Removes all entries of this cache, including those of a second-level
+    * tier.
+    */
    @Override
    public void clear() {
+      // objects leaving this cache are held strongly again
+      for ( CacheObject<?> o : super.values() ) {
+         o.holdStrongly();
+         descheduleExpiry(o);
+      }
       super.clear();
       actVolume = 0;
+      expiryWheel = null;
+      if ( policy != null ) {
+         policy.clear();
+      }
+      if ( secondLevel != null ) {
+         secondLevel.clear();
+      }
       modified();
    }
 
    /** Operates like method <code>clear()</code> but notifies all contained 
     * objects via method <code>objectReleased()</code> before they are removed
-    * from this cache. Resets the "modified" marker of this cache.
+    * from this cache. Resets the "modified" marker of this cache. The entries
+    * of a second-level tier are retained.
     */
    public void shutdown () {
       for ( CacheObject<?> o : super.values() ) {
+         o.holdStrongly();
          objectReleased(o);
       }
-      clear();
+      SecondLevelCache<K, V> tier = secondLevel;
+      secondLevel = null;
+      try {
+         clear();
+      } finally {
+         secondLevel = tier;
+      }
       resetModified();
    }
    
+   /** Writes the entries of this cache to the given file, in the order of
+    * their access (eldest first). The file is replaced when it is complete.
+    * Entries of a second-level tier and entries whose time-to-live has 
+    * passed are not included. Each entry is written as a record with checksum.
+    * 
+    * @param file File snapshot file
+    * @return int number of entries written
+    * @throws java.io.NotSerializableException if a key or value is not serialisable
+    * @throws IOException
+    */
+   public int saveSnapshot ( File file ) throws IOException {
+      File tmp = new File(file.getPath() + ".tmp");
+      int count = 0;
+      try ( DataOutputStream out = new DataOutputStream( 
+            new BufferedOutputStream(new FileOutputStream(tmp), 65536)) ) {
+         out.writeInt(SNAPSHOT_MAGIC);
+         for ( Entry<K, V> e : entrySet() ) {
+            if ( e.getValue().isCollected() || e.getValue().isExpired() ) continue;
+            CacheRecords.write(out, CacheRecords.PUT, 
+                               CacheRecords.serialise(e.getKey(), e.getValue()));
+            count++;
+         }
+         out.writeByte(CacheRecords.END);
+      } catch ( IOException e ) {
+         tmp.delete();
+         throw e;
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Log.log(8, "(DefaultObjectCache.saveSnapshot) saved " + count + " entries to " + file);
+      return count;
+   }
+   
+   /** Inserts the entries of a snapshot file, written by 
+    * <code>saveSnapshot()</code>, into this cache. The entries keep their
+    * time of last access; entries whose time-to-live has passed are 
+    * skipped. The limits of this cache apply. If the file is damaged, the
+    * entries before the damage are inserted and an exception is thrown.
+    * 
+    * @param file File snapshot file
+    * @return int number of entries inserted
+    * @throws StreamCorruptedException if the file is damaged or not a snapshot
+    * @throws IOException
+    */
+   public int restoreSnapshot ( File file ) throws IOException {
+      int count = 0;
+      long limit = file.length();
+      try ( DataInputStream in = new DataInputStream( 
+            new BufferedInputStream(new FileInputStream(file), 65536)) ) {
+         if ( in.readInt() != SNAPSHOT_MAGIC )
+            throw new StreamCorruptedException("not a cache snapshot: " + file);
+         
+         byte type;
+         while ( (type = in.readByte()) != CacheRecords.END ) {
+            if ( type != CacheRecords.PUT )
+               throw new StreamCorruptedException("illegal record type: " + type);
+            Object[] rec = CacheRecords.deserialise(CacheRecords.readData(in, limit), false);
+            CacheObject<?> obj = (CacheObject<?>) rec[1];
+            if ( obj.isExpired() ) continue;
+            
+            long t = obj.accessTime;
+            @SuppressWarnings("unchecked")
+            K key = (K) rec[0];
+            V v = adopt(obj);
+            put(key, v);
+            v.accessTime = t;
+            count++;
+         }
+      }
+      Log.log(8, "(DefaultObjectCache.restoreSnapshot) restored " + count + " entries from " + file);
+      return count;
+   }
+   
    /** Resets the "modified" marker of this object cache. */
    public void resetModified() {
       modified = false;
@@ -225,8 +1062,10 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
          throw new NullPointerException("key == null");
       if ( value == null ) 
          throw new NullPointerException("value == null");
+      weigh(key, value);
       if ( maxVolume > 0 && value.getDataSize() > maxVolume ) 
          throw new IllegalArgumentException("cannot insert entry, value data size exceeds cache maximum");
+      expungeCollected();
       
       V v = null;
       actVolume += value.getDataSize();
@@ -236,26 +1075,123 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       // via "removeEldestEntry"
       try {
          v = super.put(key, value);
-         Log.log(10, "(DefaultObjectCache.put) --- ENTER OBJECT:  " + key );
+         if ( Log.getLogLevel() >= 10 ) {
+            Log.log(10, "(DefaultObjectCache.put) --- ENTER OBJECT:  " + key );
+         }
          modified();
       } catch ( RuntimeException e ) {
          actVolume -= value.getDataSize();
          throw e;
       }
       value.accessTime = System.currentTimeMillis();
+      if ( v != null && v != value ) {
+         descheduleExpiry(v);
+      }
+      scheduleExpiry(key, value);
+      hold(key, value);
+      if ( stats != null ) {
+         stats.recordPut();
+      }
       if ( v != null ) {
          actVolume -= v.getDataSize();
+         if ( v != value ) {
+            v.holdStrongly();
+         }
+      } else if ( secondLevel != null ) {
+         // a previous value in the second level is outdated
+         secondLevel.remove(key);
+      }
+      if ( policy != null ) {
+         if ( v == null ) {
+            policy.onInsert(key);
+         } else {
+            policy.onAccess(key);
+         }
+         if ( !bulk ) {
+            evictByPolicy();
+         }
       }
       return v; 
    }
 
+   /** Inserts all mappings of the given map into this cache. The limits of
+    * the cache are enforced once after all insertions, in a single eviction 
+    * pass; meanwhile the cache may exceed its limits. If an insertion fails, 
+    * the mappings inserted before remain and the limits are enforced before
+    * the exception is thrown.
+    * 
+    * @param m {@code Map<? extends K, ? extends V>}
+    * @throws IllegalArgumentException if the data size of a value exceeds
+    *         the volume limit
+    */
+   @Override
+   public void putAll ( Map<? extends K, ? extends V> m ) {
+      // a nested call leaves eviction to the outer bulk
+      boolean outer = !bulk;
+      bulk = true;
+      try {
+         for ( Map.Entry<? extends K, ? extends V> e : m.entrySet() ) {
+            put(e.getKey(), e.getValue());
+         }
+      } finally {
+         if ( outer ) {
+            bulk = false;
+            refresh();
+            evictByPolicy();
+         }
+      }
+   }
+   
+   /** Removes the mappings of the given keys from this cache and from the 
+    * second-level tier, if there is one. 
+    * 
+    * @param keys {@code Iterable<?>}
+    * @return int number of entries removed from this cache
+    */
+   public int invalidateAll ( Iterable<?> keys ) {
+      int count = 0;
+      for ( Object key : keys ) {
+         if ( remove(key) != null ) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /** Removes the mapping of the given key from this cache and from the 
+    * second-level tier, if there is one. Returns the removed value of this 
+    * cache.
+    * 
+    * @param key Object
+    * @return V or null
+    */
    @Override
    public V remove(Object key) {
-      Log.log(10, "(DefaultObjectCache.remove) --- REMOVE OBJECT:  " + key );
+      if ( Log.getLogLevel() >= 10 ) {
+         Log.log(10, "(DefaultObjectCache.remove) --- REMOVE OBJECT:  " + key );
+      }
+      V v = removeEntry(key, false);
+      if ( secondLevel != null ) {
+         secondLevel.remove(key);
+      }
+      return v;
+   }
+
+   /** Removes the mapping of the given key and releases its object. An
+    * evicted object is handed to the second-level tier.
+    */
+   @SuppressWarnings("unchecked")
+   private V removeEntry ( Object key, boolean evict ) {
       V v = super.remove(key);
       if ( v != null ) {
-         objectReleased(v);
+         if ( evict ) {
+            demote((K) key, v);
+         }
+         release(v);
          actVolume -= v.getDataSize();
+         if ( policy != null ) {
+            policy.onRemove(key);
+         }
          modified();
       }
       return v;
@@ -272,6 +1208,28 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
    protected void objectReleased ( CacheObject<?> obj ) {
    }
    
+   /** Releases a cache object which has left this cache by notifying
+    * <code>objectReleased()</code> and <code>objectDisposed()</code>.
+    */
+   private void release ( CacheObject<?> obj ) {
+      obj.holdStrongly();
+      descheduleExpiry(obj);
+      try {
+         objectReleased(obj);
+      } finally {
+         objectDisposed(obj);
+      }
+   }
+   
+   /** Called after <code>objectReleased()</code> for a cache object which
+    * has left this cache, so that cache implementations can free resources
+    * held for the object. The method of this implementation does nothing.
+    * 
+    * @param obj CacheObject cache object released
+    */
+   void objectDisposed ( CacheObject<?> obj ) {
+   }
+   
    /** Maximum number of entries allowed in this cache.
     * 
     * @return int maximum cache entries
@@ -293,9 +1251,9 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
    }
 
    /** The maximum cache data size in bytes. 
-    * @return int maximum data size
+    * @return long maximum data size
     */
-   public int getMaxVolume () {
+   public long getMaxVolume () {
       return maxVolume;
    }
 
@@ -303,11 +1261,11 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
     * x+1 total cache data size will trigger the eldest entry to be released from 
     * the cache. Zero sets unlimited size.
     * 
-    * @param maxVolume int maximum data volume allowed in the cache 
+    * @param maxVolume long maximum data volume allowed in the cache 
     *        (0 for unlimited)
     * @throws IllegalArgumentException
     */
-   public void setMaxVolume (int maxVolume) {
+   public void setMaxVolume (long maxVolume) {
       if ( maxVolume < 0 ) 
          throw new IllegalArgumentException("illegal negative argument");
       this.maxVolume = maxVolume;
@@ -336,6 +1294,33 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       this.maxTime = (long)maxTime * 1000;
    }
    
+   private void writeObject ( ObjectOutputStream out ) throws IOException {
+      ObjectOutputStream.PutField f = out.putFields();
+      f.put("maxEntries", maxEntries);
+      f.put("maxVolume", (int) Math.min(maxVolume, Integer.MAX_VALUE));
+      f.put("maxTime", maxTime);
+      f.put("actVolume", (int) Math.min(actVolume, Integer.MAX_VALUE));
+      f.put("modified", modified);
+      f.put("maxVolumeLong", maxVolume);
+      f.put("actVolumeLong", actVolume);
+      out.writeFields();
+   }
+   
+   private void readObject ( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+      ObjectInputStream.GetField f = in.readFields();
+      maxEntries = f.get("maxEntries", 0);
+      maxTime = f.get("maxTime", 0L);
+      modified = f.get("modified", false);
+      // streams of former versions hold the volumes as int only
+      maxVolume = f.defaulted("maxVolumeLong") ? f.get("maxVolume", 0) : f.get("maxVolumeLong", 0L);
+      actVolume = f.defaulted("actVolumeLong") ? f.get("actVolume", 0) : f.get("actVolumeLong", 0L);
+      
+      // the entries are read by the superclass without put()
+      for ( Entry<K, V> e : entrySet() ) {
+         scheduleExpiry(e.getKey(), e.getValue());
+      }
+   }
+   
    // -------------  INNER CLASSES  --------------
    
    /** Defines the wrapper cache object type. It can be seen as a set containing
@@ -344,10 +1329,31 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
     */
    public static class CacheObject<E> implements java.io.Serializable {
 	  private static final long serialVersionUID = 732382959263720223L;
+      /** Serialised form, compatible with former versions which held the 
+       * data size in a field of type int; it carries the size clamped to the 
+       * int range. 
+       */
+      private static final ObjectStreamField[] serialPersistentFields = {
+         new ObjectStreamField("object", Object.class),
+         new ObjectStreamField("size", int.class),
+         new ObjectStreamField("accessTime", long.class),
+         new ObjectStreamField("creationTime", long.class),
+         new ObjectStreamField("expiryTime", long.class),
+         new ObjectStreamField("volume", long.class)
+      };
       
       protected E object;
-      protected int size;
+      protected long size;
       protected long accessTime;
+      /** epoch time of creation of this wrapper */
+      protected long creationTime;
+      /** epoch time of expiry by time-to-live (0 = none) */
+      protected long expiryTime;
+      /** reference to the user object while a cache holds it softly or 
+       * weakly; field 'object' is null then */
+      transient Reference<E> reference;
+      /** timer of the time-to-live expiry while a cache holds this object */
+      transient ExpiryTimer expiryTimer;
       
       /** Creates a new wrapper object for a given user object of type E
        * and a nominal data size of zero. This constructor can be used if the
@@ -365,33 +1371,53 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
        * zero can be given.
        *  
        * @param obj E user object
-       * @param volume int non-negative data size in bytes
+       * @param volume long non-negative data size in bytes
        * @throws NullPointerException
        * @throws IllegalArgumentException
        */
-      public CacheObject ( E obj, int volume ) {
+      public CacheObject ( E obj, long volume ) {
     	 Objects.requireNonNull(obj, "object is null");
          if ( volume < 0 )
             throw new IllegalArgumentException("negative volume value");
          
          object = obj;
          size = volume;
-         accessTime = System.currentTimeMillis();
+         accessTime = creationTime = System.currentTimeMillis();
       }
 
-      /** Returns the wrapped user object. 
+      /** Returns the wrapped user object. If a cache holds the user object
+       * by a soft or weak reference, the result is null after the user object 
+       * has been collected.
        * 
-       * @return Object wrapped user object (cached)
+       * @return Object wrapped user object (cached) or null
        */
       public E getObject() {
-         return object;
+         E o = object;
+         if ( o == null ) {
+            Reference<E> r = reference;
+            if ( r != null ) {
+               o = r.get();
+            }
+         }
+         return o;
+      }
+      
+      /** Whether the user object of this cache object, held by a soft or 
+       * weak reference, has been collected.
+       * 
+       * @return boolean
+       */
+      public boolean isCollected () {
+         Reference<E> r = reference;
+         return r != null && r.get() == null;
       }
 
-      /** Returns the user object data size (as reported).
+      /** Returns the user object data size (as reported or determined
+       * by the weigher of a cache).
        * 
-       * @return int object data size
+       * @return long object data size
        */
-      public int getDataSize() {
+      public long getDataSize() {
          return size;
       }
 
@@ -404,6 +1430,46 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
          return accessTime;
       }
 
+      /** Returns the absolute time (epoch time) at which this cache object
+       * was created, which for loaded objects is their time of loading.
+       * 
+       * @return long epoch time (milliseconds)
+       */
+      public long getCreationTime() {
+         return creationTime;
+      }
+
+      /** Sets a time-to-live for this cache object, counting from now. 
+       * After this time the object expires from a cache regardless of its
+       * access events. The time-to-live should be set before the object
+       * is inserted into a cache. Zero removes the time-to-live.
+       * 
+       * @param ttl long time-to-live in milliseconds (0 for unlimited)
+       * @throws IllegalArgumentException if ttl is negative
+       */
+      public void setTimeToLive ( long ttl ) {
+         if ( ttl < 0 )
+            throw new IllegalArgumentException("negative time-to-live");
+         expiryTime = ttl == 0 ? 0 : System.currentTimeMillis() + ttl;
+      }
+
+      /** Returns the absolute time (epoch time) at which this object expires
+       * by its time-to-live, or zero if no time-to-live is set.
+       * 
+       * @return long epoch time (milliseconds) or 0
+       */
+      public long getExpiryTime () {
+         return expiryTime;
+      }
+
+      /** Whether the time-to-live of this cache object has passed.
+       * 
+       * @return boolean
+       */
+      public boolean isExpired () {
+         return expiryTime > 0 && System.currentTimeMillis() >= expiryTime;
+      }
+
       /** Returns the time elapsed since last access occurred
        *  to this cache object.
        *  
@@ -415,7 +1481,7 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       
       @Override
       public int hashCode() {
-         return object.hashCode();
+         return Objects.hashCode(getObject());
       }
 
       /** Two cache objects are equal if their wrapped objects
@@ -424,14 +1490,98 @@ public class DefaultObjectCache <K, V extends DefaultObjectCache.CacheObject<?>>
       @Override
       public boolean equals (Object obj) {
          return obj != null && obj instanceof CacheObject &&
-        		object.equals(((CacheObject<?>)obj).object);
+        		Objects.equals(getObject(), ((CacheObject<?>)obj).getObject());
       }
 
       @Override
       public String toString () {
-         return "CacheObject: ".concat(object.toString());
+         return "CacheObject: " + getObject();
+      }
+      
+      /** Restores the strong reference to the user object, if it was held
+       * by a soft or weak reference and has not been collected.
+       */
+      void holdStrongly () {
+         Reference<E> r = reference;
+         if ( r != null ) {
+            object = r.get();
+            reference = null;
+         }
+      }
+      
+      /** Writes the user object also if it is held by reference. */
+      private void writeObject ( ObjectOutputStream out ) throws IOException {
+         ObjectOutputStream.PutField f = out.putFields();
+         f.put("object", getObject());
+         f.put("size", (int) Math.min(size, Integer.MAX_VALUE));
+         f.put("accessTime", accessTime);
+         f.put("creationTime", creationTime);
+         f.put("expiryTime", expiryTime);
+         f.put("volume", size);
+         out.writeFields();
+      }
+      
+      @SuppressWarnings("unchecked")
+      private void readObject ( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+         ObjectInputStream.GetField f = in.readFields();
+         object = (E) f.get("object", null);
+         accessTime = f.get("accessTime", 0L);
+         creationTime = f.get("creationTime", accessTime);
+         expiryTime = f.get("expiryTime", 0L);
+         // streams of former versions hold the size as int only
+         size = f.defaulted("volume") ? f.get("size", 0) : f.get("volume", 0L);
+      }
+   }
+
+   /** Timer of the time-to-live expiry of a cache object on the expiry wheel. */
+   private static final class ExpiryTimer extends TimerWheel.Timed {
+      final Object key;
+      final CacheObject<?> obj;
+      
+      ExpiryTimer ( Object key, CacheObject<?> obj ) {
+         this.key = key;
+         this.obj = obj;
+      }
+   }
+   
+   /** Reference to a user object with the key and cache object it belongs to. */
+   private interface Payload {
+      Object key ();
+      CacheObject<?> owner ();
+   }
+   
+   private static final class SoftPayload<E> extends SoftReference<E> implements Payload {
+      private final Object key;
+      private final CacheObject<E> owner;
+      
+      SoftPayload ( E referent, Object key, CacheObject<E> owner, ReferenceQueue<? super E> q ) {
+         super(referent, q);
+         this.key = key;
+         this.owner = owner;
       }
+
+      @Override
+      public Object key () {return key;}
+
+      @Override
+      public CacheObject<?> owner () {return owner;}
+   }
+   
+   private static final class WeakPayload<E> extends WeakReference<E> implements Payload {
+      private final Object key;
+      private final CacheObject<E> owner;
       
+      WeakPayload ( E referent, Object key, CacheObject<E> owner, ReferenceQueue<? super E> q ) {
+         super(referent, q);
+         this.key = key;
+         this.owner = owner;
+      }
+
+      @Override
+      public Object key () {return key;}
+
+      @Override
+      public CacheObject<?> owner () {return owner;}
    }
 
 }
@@ -0,0 +1,416 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: DiskCacheStore.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import kse.utilclass.misc.Log;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * A disk-based second-level tier for object caches. Entries are stored in a
+ * log-structured file of serialised key/value records; each record carries
+ * a CRC32 checksum. Insertions and removals append records to the end of the
+ * file, while an index of the live records is held in memory. When the share
+ * of live data falls below one half, the file is compacted by copying the
+ * live records into a new file, which then replaces the old one.
+ *
+ * <p>The file persists: opening an existing file rebuilds the index by
+ * scanning its records, so that the tier is warm after a restart. A damaged
+ * or incomplete tail of the file, e.g. after a crash, is cut off. Records
+ * which fail their checksum when read are dropped.
+ *
+ * <p>The tier can be limited by data volume (bytes of live records); if the
+ * limit is exceeded, the entries stored longest are removed. Keys and values
+ * must be serialisable. Instances are thread-safe.
+ *
+ * @param <K> map key class
+ * @param <V> map value class
+ */
+public class DiskCacheStore<K, V extends CacheObject<?>> implements SecondLevelCache<K, V>, Closeable {
+
+   private static final int MAGIC = 0x4B534543;
+   private static final int VERSION = 1;
+   private static final int FILE_HEADER = 8;
+   /** minimum file size for compaction */
+   private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+   private final File file;
+   private final long maxVolume;
+   private RandomAccessFile raf;
+   private FileChannel channel;
+   /** locations of live records in the order of insertion */
+   private final LinkedHashMap<Object, Location> index = new LinkedHashMap<>();
+   /** end of the file (append position) */
+   private long fileEnd;
+   /** total size of live records (bytes) */
+   private long liveBytes;
+   private boolean closed;
+
+   /** Opens a disk tier on the given file without volume limit. An 
+    * existing file is recovered, otherwise a new file is created.
+    * 
+    * @param file File log file
+    * @throws IOException
+    */
+   public DiskCacheStore ( File file ) throws IOException {
+      this(file, 0);
+   }
+
+   /** Opens a disk tier on the given file with the given volume limit.
+    * An existing file is recovered, otherwise a new file is created.
+    * 
+    * @param file File log file
+    * @param maxVolume long maximum size of live records in bytes (0 for unlimited)
+    * @throws IOException if the file cannot be opened or is not a cache 
+    *         store file
+    * @throws IllegalArgumentException if maxVolume is negative
+    */
+   public DiskCacheStore ( File file, long maxVolume ) throws IOException {
+      if ( maxVolume < 0 ) 
+         throw new IllegalArgumentException("illegal negative argument");
+      this.file = file;
+      this.maxVolume = maxVolume;
+      open();
+   }
+
+   private void open () throws IOException {
+      boolean exists = file.isFile() && file.length() >= FILE_HEADER;
+      long end = exists ? recover() : -1;
+      if ( exists && end < 0 )
+         throw new IOException("not a cache store file: " + file);
+
+      raf = new RandomAccessFile(file, "rw");
+      channel = raf.getChannel();
+      if ( end < 0 ) {
+         index.clear();
+         liveBytes = 0;
+         ByteBuffer b = ByteBuffer.allocate(FILE_HEADER);
+         b.putInt(MAGIC).putInt(VERSION).flip();
+         channel.truncate(0);
+         channel.write(b, 0);
+         end = FILE_HEADER;
+      } else if ( end < channel.size() ) {
+         Log.log(3, "(DiskCacheStore.open) truncating damaged file tail at " + end + ": " + file);
+         channel.truncate(end);
+      }
+      fileEnd = end;
+      evictToLimit();
+   }
+
+   /** Rebuilds the index from the records of the file. Returns the end of
+    * the valid records or -1 if the file is not a cache file.
+    */
+   private long recover () throws IOException {
+      long length = file.length();
+      try ( DataInputStream in = new DataInputStream(new BufferedInputStream(
+    		  new FileInputStream(file), 65536)) ) {
+         if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+            return -1;
+         }
+         long pos = FILE_HEADER;
+         while ( pos < length ) {
+            try {
+               byte type = in.readByte();
+               byte[] data = CacheRecords.readData(in, length - pos - CacheRecords.HEADER);
+               Object key = CacheRecords.deserialise(data, true)[0];
+               int size = CacheRecords.HEADER + data.length;
+               Location old = index.remove(key);
+               if ( old != null ) {
+                  liveBytes -= old.length;
+               }
+               if ( type == CacheRecords.PUT ) {
+                  index.put(key, new Location(pos, size));
+                  liveBytes += size;
+               }
+               pos += size;
+            } catch ( IOException e ) {
+               // damaged or incomplete record: end of valid data
+               Log.log(3, "(DiskCacheStore.recover) invalid record at " + pos + ": " + e);
+               break;
+            }
+         }
+         return pos;
+      }
+   }
+
+   /** Appends a record to the file and returns its location. */
+   private Location append ( byte type, byte[] data ) throws IOException {
+      int size = CacheRecords.HEADER + data.length;
+      ByteBuffer b = ByteBuffer.allocate(size);
+      b.put(type).putInt(data.length).putInt(CacheRecords.checksum(data)).put(data).flip();
+      long pos = fileEnd;
+      while ( b.hasRemaining() ) {
+         channel.write(b, pos + b.position());
+      }
+      fileEnd += size;
+      return new Location(pos, size);
+   }
+
+   private void checkOpen () {
+      if ( closed )
+         throw new IllegalStateException("store is closed");
+   }
+
+   /** Stores the given entry. Failures of storage are logged and the entry
+    * is dropped.
+    * 
+    * @param key K
+    * @param value V
+    */
+   @Override
+   public synchronized void put ( K key, V value ) {
+      checkOpen();
+      try {
+         byte[] data = CacheRecords.serialise(key, value);
+         Location loc = append(CacheRecords.PUT, data);
+         Location old = index.remove(key);
+         if ( old != null ) {
+            liveBytes -= old.length;
+         }
+         index.put(key, loc);
+         liveBytes += loc.length;
+         evictToLimit();
+         compactIfUseful();
+      } catch ( IOException e ) {
+         Log.log(3, "(DiskCacheStore.put) unable to store entry " + key + ": " + e);
+         removeEntry(key);
+      }
+   }
+
+   /** Returns the value stored for the given key without removing it, or
+    * null if there is none or the record is damaged.
+    * 
+    * @param key Object
+    * @return V or null
+    */
+   @SuppressWarnings("unchecked")
+   public synchronized V get ( Object key ) {
+      checkOpen();
+      Location loc = index.get(key);
+      if ( loc == null ) return null;
+
+      try {
+         ByteBuffer b = ByteBuffer.allocate(loc.length);
+         while ( b.hasRemaining() ) {
+            if ( channel.read(b, loc.position + b.position()) < 0 ) 
+               throw new EOFException();
+         }
+         b.flip();
+         DataInputStream in = new DataInputStream(new ByteArrayInputStream(b.array()));
+         in.readByte();
+         byte[] data = CacheRecords.readData(in, loc.length);
+         return (V) CacheRecords.deserialise(data, false)[1];
+      } catch ( IOException | ClassCastException e ) {
+         Log.log(3, "(DiskCacheStore.get) dropping unreadable entry " + key + ": " + e);
+         removeEntry(key);
+         return null;
+      }
+   }
+
+   @Override
+   public synchronized V take ( Object key ) {
+      V v = get(key);
+      if ( v != null ) {
+         removeEntry(key);
+      }
+      return v;
+   }
+
+   @Override
+   public synchronized void remove ( Object key ) {
+      checkOpen();
+      removeEntry(key);
+   }
+
+   /** Removes the key from the index and appends a deletion record. */
+   private void removeEntry ( Object key ) {
+      Location loc = index.remove(key);
+      if ( loc == null ) return;
+      liveBytes -= loc.length;
+      try {
+         append(CacheRecords.DELETE, CacheRecords.serialise(key, null));
+      } catch ( IOException e ) {
+         Log.log(3, "(DiskCacheStore.removeEntry) unable to write deletion " + key + ": " + e);
+      }
+   }
+
+   @Override
+   public synchronized boolean containsKey ( Object key ) {
+      return index.containsKey(key);
+   }
+
+   @Override
+   public synchronized int size () {
+      return index.size();
+   }
+
+   /** Returns the total size of the live records.
+    * 
+    * @return long bytes
+    */
+   public synchronized long getVolume () {
+      return liveBytes;
+   }
+
+   /** Returns the current length of the log file.
+    * 
+    * @return long bytes
+    */
+   public synchronized long getFileSize () {
+      return fileEnd;
+   }
+
+   /** Returns the volume limit of this store.
+    * 
+    * @return long bytes (0 for unlimited)
+    */
+   public long getMaxVolume () {
+      return maxVolume;
+   }
+
+   @Override
+   public synchronized void clear () {
+      checkOpen();
+      index.clear();
+      liveBytes = 0;
+      try {
+         channel.truncate(FILE_HEADER);
+         fileEnd = FILE_HEADER;
+      } catch ( IOException e ) {
+         Log.log(3, "(DiskCacheStore.clear) unable to truncate file: " + e);
+      }
+   }
+
+   private void evictToLimit () {
+      if ( maxVolume == 0 ) return;
+      for ( Iterator<Map.Entry<Object, Location>> it = index.entrySet().iterator();
+            liveBytes > maxVolume && it.hasNext(); ) {
+         Map.Entry<Object, Location> e = it.next();
+         it.remove();
+         liveBytes -= e.getValue().length;
+         try {
+            append(CacheRecords.DELETE, CacheRecords.serialise(e.getKey(), null));
+         } catch ( IOException ex ) {
+            Log.log(3, "(DiskCacheStore.evictToLimit) unable to write deletion: " + ex);
+         }
+      }
+   }
+
+   private void compactIfUseful () throws IOException {
+      if ( fileEnd > MIN_COMPACTION_SIZE && liveBytes < (fileEnd - FILE_HEADER) / 2 ) {
+         compact();
+      }
+   }
+
+   /** Rewrites the file with the live records only. The new file replaces
+    * the old one when it is complete.
+    * 
+    * @throws IOException
+    */
+   public synchronized void compact () throws IOException {
+      checkOpen();
+      File tmp = new File(file.getPath() + ".tmp");
+      LinkedHashMap<Object, Location> moved = new LinkedHashMap<>();
+      long pos = FILE_HEADER;
+
+      try ( RandomAccessFile out = new RandomAccessFile(tmp, "rw") ) {
+         FileChannel target = out.getChannel();
+         target.truncate(0);
+         ByteBuffer b = ByteBuffer.allocate(FILE_HEADER);
+         b.putInt(MAGIC).putInt(VERSION).flip();
+         target.write(b, 0);
+         for ( Map.Entry<Object, Location> e : index.entrySet() ) {
+            Location loc = e.getValue();
+            long n = 0;
+            while ( n < loc.length ) {
+               n += channel.transferTo(loc.position + n, loc.length - n, target.position(pos + n));
+            }
+            moved.put(e.getKey(), new Location(pos, loc.length));
+            pos += loc.length;
+         }
+         target.force(false);
+      }
+
+      channel.close();
+      raf.close();
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      raf = new RandomAccessFile(file, "rw");
+      channel = raf.getChannel();
+      index.clear();
+      index.putAll(moved);
+      fileEnd = pos;
+      Log.log(8, "(DiskCacheStore.compact) compacted to " + pos + " bytes: " + file);
+   }
+
+   /** Writes all data to the storage device.
+    * 
+    * @throws IOException
+    */
+   public synchronized void flush () throws IOException {
+      checkOpen();
+      channel.force(false);
+   }
+
+   /** Writes all data to the storage device and closes the file. The 
+    * entries remain in the file for the next opening of a store on it.
+    */
+   @Override
+   public synchronized void close () throws IOException {
+      if ( closed ) return;
+      closed = true;
+      try {
+         channel.force(false);
+      } finally {
+         raf.close();
+      }
+   }
+
+   // -------------  INNER CLASSES  --------------
+
+   private static final class Location {
+      final long position;
+      final int length;
+
+      Location ( long position, int length ) {
+         this.position = position;
+         this.length = length;
+      }
+   }
+}
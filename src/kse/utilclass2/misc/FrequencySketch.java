@@ -0,0 +1,134 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: FrequencySketch.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+/**
+ * A compact count-min sketch estimating the access frequency of objects.
+ * Each counter has 4 bits (maximum 15); 16 counters are packed into a long
+ * value. An object is counted in four counters of the table, selected by
+ * differently seeded hash values, and its frequency is estimated as the
+ * minimum of these counters.
+ *
+ * <p>The sketch ages: after a number of increments which is ten times the
+ * capacity, all counters are halved, so that past popularity fades out.
+ * The table takes 8 bytes per 16 counters for the next power of two of the
+ * capacity.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class FrequencySketch {
+
+   private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+                                         0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final long ONE_MASK = 0x1111111111111111L;
+
+   private final long[] table;
+   private final int tableMask;
+   private final int sampleSize;
+   private int additions;
+
+   /** Creates a new sketch for the given number of distinct objects
+    * expected to be relevant (e.g. the cache capacity).
+    * 
+    * @param capacity int expected number of objects
+    */
+   FrequencySketch ( int capacity ) {
+      int n = Math.max(16, Math.min(capacity, 1 << 30));
+      n = Integer.highestOneBit(n - 1) << 1;
+      table = new long[n];
+      tableMask = n - 1;
+      sampleSize = (int) Math.min(10L * Math.max(capacity, 1), Integer.MAX_VALUE);
+   }
+
+   /** Returns the estimated number of occurrences of the given object,
+    * ranging from 0 to 15.
+    * 
+    * @param o Object
+    * @return int frequency
+    */
+   int frequency ( Object o ) {
+      int hash = spread(o.hashCode());
+      int start = (hash & 3) << 2;
+      int freq = 15;
+      for ( int i = 0; i < 4; i++ ) {
+         int index = indexOf(hash, i);
+         int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+         freq = Math.min(freq, count);
+      }
+      return freq;
+   }
+
+   /** Increments the occurrence count of the given object if it is not
+    * already at its maximum.
+    * 
+    * @param o Object
+    */
+   void increment ( Object o ) {
+      int hash = spread(o.hashCode());
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for ( int i = 0; i < 4; i++ ) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if ( added && ++additions >= sampleSize ) {
+         reset();
+      }
+   }
+
+   /** Increments counter j (0..15) of the table slot i, unless it is at
+    * its maximum.
+    */
+   private boolean incrementAt ( int i, int j ) {
+      int offset = j << 2;
+      long mask = 0xfL << offset;
+      if ( (table[i] & mask) != mask ) {
+         table[i] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   /** Halves all counters (aging). */
+   private void reset () {
+      int odd = 0;
+      for ( int i = 0; i < table.length; i++ ) {
+         odd += Long.bitCount(table[i] & ONE_MASK);
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions = (additions - (odd >>> 2)) >>> 1;
+   }
+
+   private int indexOf ( int hash, int i ) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & tableMask;
+   }
+
+   private static int spread ( int x ) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+   }
+}
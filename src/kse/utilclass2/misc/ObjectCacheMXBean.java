@@ -0,0 +1,70 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: ObjectCacheMXBean.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+/**
+ * JMX management interface of an object cache, exposing its limits and 
+ * the values of its statistics. Counts are zero if the cache does not 
+ * record statistics.
+ */
+public interface ObjectCacheMXBean {
+
+   int getSize ();
+
+   long getVolume ();
+
+   int getMaxEntries ();
+
+   long getMaxVolume ();
+
+   int getMaxTime ();
+
+   boolean isRecordingStats ();
+
+   long getHitCount ();
+
+   long getMissCount ();
+
+   double getHitRate ();
+
+   long getPutCount ();
+
+   long getEvictionCountEntries ();
+
+   long getEvictionCountVolume ();
+
+   long getEvictionCountTime ();
+
+   long getEvictionCountCollected ();
+
+   long getLoadSuccessCount ();
+
+   long getLoadFailureCount ();
+
+   double getAverageLoadTime ();
+
+   long[] getLoadTimeHistogram ();
+
+   long getAverageEntryAge ();
+}
@@ -0,0 +1,307 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: OffHeapObjectCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * An object cache for byte array payloads which keeps the payload data
+ * outside of the Java heap, in slabs of direct byte buffers or of a
+ * memory-mapped file. Keys and cache metadata remain on the heap. The
+ * limitations of {@code DefaultObjectCache} (entries, data volume, idle
+ * time) apply as usual; the data size of an entry is the length of its
+ * payload. Removed and evicted objects are notified to
+ * {@code objectReleased()}, where their payload is still readable, and
+ * their storage is freed afterwards.
+ *
+ * <p>Payloads are stored with {@code putBytes()} and read with
+ * {@code getBytes()}, which returns a heap copy of the payload. The cache
+ * objects ({@code OffHeapObject}) are created by the cache; reading their
+ * object after they have left the cache returns null, unless they were
+ * replaced by {@code put()}, in which case the payload is returned with
+ * them on the heap.
+ *
+ * <p>Storage is allocated sequentially in slabs; sparse slabs are compacted
+ * when a new slab is required (see {@code SlabStore}). Slabs are retained
+ * for reuse until the cache is closed. This class is not thread-safe and
+ * not serialisable.
+ *
+ * @param <K> map key class
+ */
+public class OffHeapObjectCache<K> extends DefaultObjectCache<K, OffHeapObjectCache.OffHeapObject> {
+
+   private static final long serialVersionUID = -2084537611906478802L;
+
+   /** default slab size (4 MB) */
+   public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+   private transient SlabStore store;
+
+   /** Creates a new off-heap cache with direct buffer slabs of the default
+    * size and optional size and time limitations.
+    * 
+    * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
+    * @param maxVolume long maximum total payload volume allowed in the cache (0 for unlimited)
+    * @param maxTime int maximum time in seconds allowed for an entry to remain idle in the 
+    *        cache (0 for unlimited)
+    * @throws IllegalArgumentException
+    */
+   public OffHeapObjectCache ( int maxEntries, long maxVolume, int maxTime ) {
+      super(maxEntries, maxVolume, maxTime);
+      try {
+         store = new SlabStore(DEFAULT_SLAB_SIZE, null);
+      } catch ( IOException e ) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /** Creates a new off-heap cache with the given slab size and optional 
+    * size and time limitations. If a file is given, slabs are memory-mapped
+    * regions of this file, otherwise direct buffers. The file is overwritten
+    * and serves as backing store only; it can be deleted after the cache is
+    * closed.
+    * 
+    * @param maxEntries int maximum entries allowed in the cache (0 for unlimited)
+    * @param maxVolume long maximum total payload volume allowed in the cache (0 for unlimited)
+    * @param maxTime int maximum time in seconds allowed for an entry to remain idle in the 
+    *        cache (0 for unlimited)
+    * @param slabSize int size of a slab in bytes
+    * @param file File backing file for mapped slabs, null for direct buffers
+    * @throws IOException if the file cannot be opened
+    * @throws IllegalArgumentException
+    */
+   public OffHeapObjectCache ( int maxEntries, long maxVolume, int maxTime,
+		                       int slabSize, File file ) throws IOException {
+      super(maxEntries, maxVolume, maxTime);
+      store = new SlabStore(slabSize, file);
+   }
+
+   /** Stores a copy of the given data in this cache under the given key.
+    * 
+    * @param key K
+    * @param data byte[] payload
+    * @return {@code OffHeapObject} the new cache object
+    * @throws IllegalArgumentException if the data size exceeds the volume limit
+    */
+   public OffHeapObject putBytes ( K key, byte[] data ) {
+      OffHeapObject obj = new OffHeapObject(store, store.allocate(data));
+      put(key, obj);
+      return obj;
+   }
+
+   /** Returns a copy of the payload mapped to the given key or null if 
+    * there is no mapping. This counts as access to the entry.
+    * 
+    * @param key Object
+    * @return byte[] or null
+    */
+   public byte[] getBytes ( Object key ) {
+      OffHeapObject obj = get(key);
+      return obj == null ? null : obj.getObject();
+   }
+
+   /** Inserts a cache object of this cache. A replaced object receives its
+    * payload on the heap and is returned. A cache object must not be mapped
+    * to more than one key.
+    * 
+    * @param key K
+    * @param value {@code OffHeapObject} object created by this cache
+    * @return {@code OffHeapObject} replaced object or null
+    * @throws IllegalArgumentException if the object was not created by this
+    *         cache or has left it
+    */
+   @Override
+   public OffHeapObject put ( K key, OffHeapObject value ) {
+      if ( value != null && (value.store != store || value.slot == null || 
+           !value.slot.isLive()) )
+         throw new IllegalArgumentException("foreign or released cache object");
+      
+      OffHeapObject old;
+      try {
+         old = super.put(key, value);
+      } catch ( RuntimeException e ) {
+         // the rejected object is not inserted
+         if ( value != null ) {
+            value.release(false);
+         }
+         throw e;
+      }
+      if ( old != null && old != value ) {
+         old.release(true);
+      }
+      return old;
+   }
+
+   /** Stores the payload of a restored cache object in the off-heap storage,
+    * retaining its times.
+    */
+   @Override
+   OffHeapObject adopt ( CacheObject<?> obj ) {
+      if ( obj instanceof OffHeapObject ) {
+         return (OffHeapObject) obj;
+      }
+      OffHeapObject o = new OffHeapObject(store, store.allocate((byte[]) obj.getObject()));
+      o.accessTime = obj.accessTime;
+      o.expiryTime = obj.expiryTime;
+      o.creationTime = obj.creationTime;
+      return o;
+   }
+
+   /** Off-heap payloads are not subject to garbage collection; only
+    * {@code ReferenceMode.STRONG} is accepted.
+    * 
+    * @param mode {@code ReferenceMode}
+    * @throws UnsupportedOperationException for modes other than STRONG
+    */
+   @Override
+   public void setReferenceMode ( ReferenceMode mode ) {
+      if ( mode != ReferenceMode.STRONG )
+         throw new UnsupportedOperationException("reference mode not supported: " + mode);
+   }
+
+   /** The data size of an off-heap entry is the length of its stored 
+    * payload, which the cache accounts for its volume limit; only null
+    * (no weigher) is accepted.
+    * 
+    * @param weigher {@code Weigher<K, OffHeapObject>}, must be null
+    * @throws UnsupportedOperationException if the weigher is not null
+    */
+   @Override
+   public void setWeigher ( Weigher<K, OffHeapObject> weigher ) {
+      if ( weigher != null )
+         throw new UnsupportedOperationException("weigher not supported");
+   }
+
+   @Override
+   void objectDisposed ( CacheObject<?> obj ) {
+      ((OffHeapObject) obj).release(false);
+   }
+
+   @Override
+   public void clear () {
+      for ( OffHeapObject obj : values() ) {
+         obj.slot = null;
+      }
+      super.clear();
+      store.clear();
+   }
+
+   /** Removes all entries and releases the off-heap storage of this cache.
+    * Contained objects are notified via {@code objectReleased()}. The cache
+    * cannot store payloads after this call.
+    * 
+    * @throws IOException if closing a backing file fails
+    */
+   public void close () throws IOException {
+      shutdown();
+      store.close();
+   }
+
+   /** Returns the total size of the off-heap storage held by this cache,
+    * including unused space.
+    * 
+    * @return long bytes
+    */
+   public long getStorageAllocated () {
+      return store.getAllocated();
+   }
+
+   private void writeObject ( ObjectOutputStream out ) throws IOException {
+      throw new NotSerializableException(getClass().getName());
+   }
+
+   // -------------  INNER CLASSES  --------------
+
+   /** Cache object of an off-heap cache. The payload is read from the 
+    * off-heap storage on each call to {@code getObject()}.
+    */
+   public static final class OffHeapObject extends CacheObject<byte[]> {
+      private static final long serialVersionUID = 3302960217735484619L;
+
+      private final transient SlabStore store;
+      private transient SlabStore.Slot slot;
+
+      OffHeapObject ( SlabStore store, SlabStore.Slot slot ) {
+         super(new byte[0], slot.length);
+         this.store = store;
+         this.slot = slot;
+         object = null;
+      }
+
+      /** Returns a copy of the payload of this object, or null if this
+       * object has left its cache.
+       * 
+       * @return byte[] or null
+       */
+      @Override
+      public byte[] getObject () {
+         SlabStore.Slot s = slot;
+         return s != null && s.isLive() ? store.read(s) : object;
+      }
+
+      /** Frees the storage of this object, optionally moving the payload
+       * to the heap.
+       */
+      void release ( boolean keep ) {
+         SlabStore.Slot s = slot;
+         if ( s == null ) return;
+         if ( keep && s.isLive() ) {
+            object = store.read(s);
+         }
+         store.free(s);
+         slot = null;
+      }
+
+      @Override
+      public int hashCode () {
+         return System.identityHashCode(this);
+      }
+
+      @Override
+      public boolean equals ( Object obj ) {
+         return obj == this;
+      }
+
+      @Override
+      public String toString () {
+         return "OffHeapObject: " + getDataSize() + " bytes";
+      }
+
+      /** Serialises as a plain cache object with the payload. */
+      private Object writeReplace () throws ObjectStreamException {
+         byte[] data = getObject();
+         CacheObject<byte[]> obj = new CacheObject<>(data == null ? new byte[0] : data, getDataSize());
+         obj.accessTime = accessTime;
+         obj.expiryTime = expiryTime;
+         obj.creationTime = creationTime;
+         return obj;
+      }
+   }
+}
@@ -0,0 +1,76 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: SecondLevelCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * A second-level storage tier of an object cache. The tier receives the
+ * entries evicted from the cache by its limits and serves requests which
+ * miss the cache. Entries are exclusive to one of the levels: a value found
+ * in the tier is taken out of it and returns to the cache.
+ *
+ * @param <K> map key class
+ * @param <V> map value class
+ */
+public interface SecondLevelCache<K, V extends CacheObject<?>> {
+
+   /** Stores an entry evicted from the cache, replacing any previous entry
+    * for the key.
+    * 
+    * @param key K
+    * @param value V
+    */
+   void put ( K key, V value );
+
+   /** Removes and returns the value stored for the given key, or returns
+    * null if there is none.
+    * 
+    * @param key Object
+    * @return V or null
+    */
+   V take ( Object key );
+
+   /** Removes the entry for the given key if it is stored.
+    * 
+    * @param key Object
+    */
+   void remove ( Object key );
+
+   /** Whether an entry is stored for the given key.
+    * 
+    * @param key Object
+    * @return boolean
+    */
+   boolean containsKey ( Object key );
+
+   /** Returns the number of stored entries.
+    * 
+    * @return int
+    */
+   int size ();
+
+   /** Removes all entries. */
+   void clear ();
+}
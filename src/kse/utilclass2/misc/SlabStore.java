@@ -0,0 +1,326 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: SlabStore.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import kse.utilclass2.io.BufferRelease;
+
+/**
+ * Storage of byte records outside of the Java heap. Records are placed into
+ * slabs of a fixed size, which are direct byte buffers or memory-mapped
+ * regions of a file. Allocation within a slab is sequential (bump pointer);
+ * freed space is only counted. A record larger than the slab size receives
+ * a slab of its own, which is always a direct buffer (also with a backing 
+ * file) and is released explicitly when the record is freed.
+ *
+ * <p>When the current slab is exhausted, a new one is taken from the pool
+ * of empty slabs or created. At this time the sparsest slab in use is
+ * compacted if less than half of its space is live: its records are moved
+ * into the new slab and the emptied slab returns to the pool. Slabs whose
+ * records are all freed return to the pool immediately.
+ *
+ * <p>Records are referred to by {@code Slot} objects, which are kept on
+ * the heap by the user and updated when a record is moved. This class is
+ * not thread-safe.
+ */
+final class SlabStore implements Closeable {
+
+   /** the minimum share of live space of a slab which is not compacted */
+   private static final double COMPACTION_THRESHOLD = 0.5;
+
+   private final int slabSize;
+   private final FileChannel channel;
+   /** end of mapped regions in the file */
+   private long fileEnd;
+   private final ArrayList<Slab> slabs = new ArrayList<>();
+   private final ArrayDeque<Slab> pool = new ArrayDeque<>();
+   private Slab current;
+   private long allocated;
+   private long used;
+
+   /** Creates a new store with the given slab size. If a file is given,
+    * slabs are memory-mapped regions of this file, otherwise direct 
+    * buffers. The content of the file is overwritten.
+    * 
+    * @param slabSize int size of a slab in bytes
+    * @param file File backing file for mapped slabs, null for direct buffers
+    * @throws IOException
+    * @throws IllegalArgumentException if slabSize is below 1
+    */
+   SlabStore ( int slabSize, File file ) throws IOException {
+      if ( slabSize < 1 )
+         throw new IllegalArgumentException("illegal slab size: " + slabSize);
+      this.slabSize = slabSize;
+      if ( file != null ) {
+         RandomAccessFile raf = new RandomAccessFile(file, "rw");
+         raf.setLength(0);
+         channel = raf.getChannel();
+      } else {
+         channel = null;
+      }
+   }
+
+   /** Stores the given data as a new record and returns its slot.
+    * 
+    * @param data byte[]
+    * @return {@code Slot}
+    */
+   Slot allocate ( byte[] data ) {
+      Slot slot = new Slot(data.length);
+      Slab s = slabFor(data.length);
+      write(s, slot, ByteBuffer.wrap(data));
+      used += data.length;
+      return slot;
+   }
+
+   /** Returns a copy of the data of the given record.
+    * 
+    * @param slot {@code Slot}
+    * @return byte[]
+    * @throws IllegalStateException if the record has been freed
+    */
+   byte[] read ( Slot slot ) {
+      Slab s = slot.slab;
+      if ( s == null )
+         throw new IllegalStateException("record is freed");
+      byte[] data = new byte[slot.length];
+      ByteBuffer b = s.buffer.duplicate();
+      b.position(slot.offset);
+      b.get(data);
+      return data;
+   }
+
+   /** Frees the record of the given slot. Does nothing if the record is
+    * already freed.
+    * 
+    * @param slot {@code Slot}
+    */
+   void free ( Slot slot ) {
+      Slab s = slot.slab;
+      if ( s == null ) return;
+      slot.slab = null;
+      s.live -= slot.length;
+      used -= slot.length;
+      if ( s.live == 0 ) {
+         if ( s == current ) {
+            s.reset();
+         } else {
+            recycle(s);
+         }
+      }
+   }
+
+   /** Frees all records. */
+   void clear () {
+      for ( Slab s : slabs ) {
+         for ( Slot slot : s.slots ) {
+            slot.slab = null;
+         }
+         release(s);
+      }
+      slabs.clear();
+      current = null;
+      used = 0;
+   }
+
+   /** Returns the total size of all slabs, including empty slabs in the 
+    * pool.
+    * 
+    * @return long bytes
+    */
+   long getAllocated () {
+      return allocated;
+   }
+
+   /** Returns the total size of live records.
+    * 
+    * @return long bytes
+    */
+   long getUsed () {
+      return used;
+   }
+
+   /** Frees all records and releases all slabs, whose memory or mappings
+    * are released explicitly. Closes the backing file if there is one.
+    */
+   @Override
+   public void close () throws IOException {
+      clear();
+      for ( Slab s : pool ) {
+         BufferRelease.release(s.buffer);
+      }
+      pool.clear();
+      allocated = 0;
+      if ( channel != null ) {
+         channel.close();
+      }
+   }
+
+   /** Returns the slab which receives a record of the given length. */
+   private Slab slabFor ( int length ) {
+      if ( length > slabSize ) {
+         Slab s = new Slab(ByteBuffer.allocateDirect(length));
+         allocated += length;
+         slabs.add(s);
+         return s;
+      }
+      Slab c = current;
+      if ( c != null && c.capacity() - c.top >= length ) {
+         return c;
+      }
+
+      c = pool.isEmpty() ? newSlab() : pool.poll();
+      slabs.add(c);
+      current = c;
+      compact(length);
+      return c;
+   }
+
+   /** Moves the records of the sparsest slab into the current slab if the
+    * slab is below the compaction threshold and its records fit.
+    */
+   private void compact ( int reserve ) {
+      Slab sparse = null;
+      double ratio = COMPACTION_THRESHOLD;
+      for ( Slab s : slabs ) {
+         if ( s == current || s.capacity() != slabSize ) continue;
+         double r = (double) s.live / s.capacity();
+         if ( r < ratio ) {
+            sparse = s;
+            ratio = r;
+         }
+      }
+      if ( sparse == null || 
+           sparse.live > current.capacity() - current.top - reserve ) return;
+
+      for ( Slot slot : sparse.slots ) {
+         if ( slot.slab == sparse ) {
+            ByteBuffer b = sparse.buffer.duplicate();
+            b.position(slot.offset).limit(slot.offset + slot.length);
+            write(current, slot, b);
+         }
+      }
+      sparse.live = 0;
+      recycle(sparse);
+   }
+
+   /** Writes the given data as the record of the slot at the top of 
+    * the slab.
+    */
+   private void write ( Slab s, Slot slot, ByteBuffer data ) {
+      ByteBuffer b = s.buffer.duplicate();
+      b.position(s.top);
+      b.put(data);
+      slot.slab = s;
+      slot.offset = s.top;
+      s.top += slot.length;
+      s.live += slot.length;
+      s.slots.add(slot);
+   }
+
+   private void recycle ( Slab s ) {
+      slabs.remove(s);
+      release(s);
+   }
+
+   /** Returns an emptied slab to the pool; the buffer of an oversized slab 
+    * is released.
+    */
+   private void release ( Slab s ) {
+      s.reset();
+      if ( s.capacity() == slabSize ) {
+         pool.add(s);
+      } else {
+         allocated -= s.capacity();
+         BufferRelease.release(s.buffer);
+      }
+   }
+
+   /** Creates a slab of the standard size, mapped at the end of the file
+    * if there is one.
+    */
+   private Slab newSlab () {
+      ByteBuffer b;
+      if ( channel == null ) {
+         b = ByteBuffer.allocateDirect(slabSize);
+      } else {
+         try {
+            b = channel.map(FileChannel.MapMode.READ_WRITE, fileEnd, slabSize);
+         } catch ( IOException e ) {
+            throw new IllegalStateException("unable to map slab", e);
+         }
+         fileEnd += slabSize;
+      }
+      allocated += slabSize;
+      return new Slab(b);
+   }
+
+   // -------------  INNER CLASSES  --------------
+
+   /** Reference to a record in the store. */
+   static final class Slot {
+      final int length;
+      Slab slab;
+      int offset;
+
+      Slot ( int length ) {
+         this.length = length;
+      }
+
+      /** Whether the record of this slot is stored. */
+      boolean isLive () {
+         return slab != null;
+      }
+   }
+
+   private static final class Slab {
+      final ByteBuffer buffer;
+      /** slots placed in this slab, including freed ones */
+      final ArrayList<Slot> slots = new ArrayList<>();
+      int top;
+      long live;
+
+      Slab ( ByteBuffer buffer ) {
+         this.buffer = buffer;
+      }
+
+      int capacity () {
+         return buffer.capacity();
+      }
+
+      void reset () {
+         top = 0;
+         live = 0;
+         slots.clear();
+      }
+   }
+}
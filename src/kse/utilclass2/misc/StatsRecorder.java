@@ -0,0 +1,99 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: StatsRecorder.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.concurrent.atomic.LongAdder;
+
+import kse.utilclass2.misc.CacheStats.EvictionCause;
+
+/**
+ * Recorder of cache statistics. Counters are {@code LongAdder} instances,
+ * so that recording from several threads does not contend. A cache which
+ * does not record statistics holds no recorder.
+ */
+final class StatsRecorder {
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder puts = new LongAdder();
+   private final LongAdder[] evictions = adders(EvictionCause.values().length);
+   private final LongAdder loadSuccesses = new LongAdder();
+   private final LongAdder loadFailures = new LongAdder();
+   private final LongAdder totalLoadTime = new LongAdder();
+   private final LongAdder[] loadTimes = adders(CacheStats.HISTOGRAM_BUCKETS);
+
+   private static LongAdder[] adders ( int n ) {
+      LongAdder[] a = new LongAdder[n];
+      for ( int i = 0; i < n; i++ ) {
+         a[i] = new LongAdder();
+      }
+      return a;
+   }
+
+   void recordHit () {
+      hits.increment();
+   }
+
+   void recordMiss () {
+      misses.increment();
+   }
+
+   void recordPut () {
+      puts.increment();
+   }
+
+   void recordEviction ( EvictionCause cause ) {
+      evictions[cause.ordinal()].increment();
+   }
+
+   /** Records a load of the given duration.
+    * 
+    * @param nanos long duration in nanoseconds
+    * @param success boolean whether a value was loaded
+    */
+   void recordLoad ( long nanos, boolean success ) {
+      (success ? loadSuccesses : loadFailures).increment();
+      totalLoadTime.add(nanos);
+      long ms = nanos / 1000000;
+      int bucket = Math.min(64 - Long.numberOfLeadingZeros(ms), CacheStats.HISTOGRAM_BUCKETS - 1);
+      loadTimes[bucket].increment();
+   }
+
+   /** Returns a snapshot of the recorded values together with the given
+    * cache state values.
+    */
+   CacheStats snapshot ( long averageEntryAge, int size, long volume ) {
+      return new CacheStats(hits.sum(), misses.sum(), puts.sum(), sums(evictions), 
+            loadSuccesses.sum(), loadFailures.sum(), totalLoadTime.sum(), sums(loadTimes),
+            averageEntryAge, size, volume);
+   }
+
+   private static long[] sums ( LongAdder[] a ) {
+      long[] s = new long[a.length];
+      for ( int i = 0; i < a.length; i++ ) {
+         s[i] = a[i].sum();
+      }
+      return s;
+   }
+}
@@ -0,0 +1,210 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_CacheStats.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import kse.utilclass2.misc.CacheStats.EvictionCause;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+public class TestC_CacheStats {
+
+private static void sleep (long ms) {
+	try {
+		Thread.sleep(ms);
+	} catch (InterruptedException e) {
+	}
+}
+
+@Test
+public void default_cache () {
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>(3, 0, 0);
+	assertFalse(cache.isRecordingStats());
+	cache.put("a", new CacheObject<>("a"));
+	cache.get("a");
+	assertEquals(0, cache.getStats().getHitCount());
+	assertEquals(1, cache.getStats().getSize());
+	
+	cache.setRecordingStats(true);
+	assertTrue(cache.isRecordingStats());
+	for (int i = 0; i < 5; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i, 10));
+	}
+	assertTrue(cache.get("k4") != null);
+	assertTrue(cache.get("k3") != null);
+	assertNull(cache.get("k0"));
+	
+	CacheStats st = cache.getStats();
+	assertEquals(5, st.getPutCount());
+	assertEquals(2, st.getHitCount());
+	assertEquals(1, st.getMissCount());
+	assertEquals(3, st.getRequestCount());
+	assertEquals(3, st.getEvictionCount(EvictionCause.ENTRIES));
+	assertEquals(3, st.getEvictionCount());
+	assertEquals(3, st.getSize());
+	assertEquals(30, st.getVolume());
+	assertTrue(st.getAverageEntryAge() >= 0);
+	assertTrue(Math.abs(st.getHitRate() - 2.0 / 3) < 1E-9);
+	
+	// volume and time causes
+	cache.setMaxEntries(0);
+	cache.setMaxVolume(20);
+	cache.refresh();
+	assertEquals(1, cache.getStats().getEvictionCount(EvictionCause.VOLUME));
+	CacheObject<String> o = new CacheObject<>("t");
+	o.setTimeToLive(1);
+	cache.put("t", o);
+	sleep(5);
+	assertNull(cache.get("t"));
+	assertTrue(cache.getStats().getEvictionCount(EvictionCause.TIME) >= 1);
+	
+	// disabling discards the values
+	cache.setRecordingStats(false);
+	cache.setRecordingStats(true);
+	assertEquals(0, cache.getStats().getPutCount());
+}
+
+@Test
+public void policy_evictions () {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>(10, 0, 0);
+	cache.setPolicy(new TinyLfuCachePolicy<>(10));
+	cache.setRecordingStats(true);
+	for (int i = 0; i < 30; i++) {
+		cache.put(i, new CacheObject<>(i));
+	}
+	assertEquals(10, cache.size());
+	assertEquals(20, cache.getStats().getEvictionCount(EvictionCause.ENTRIES));
+}
+
+@Test
+public void loads () {
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>();
+	cache.setRecordingStats(true);
+	cache.get("a", k -> new CacheObject<>(k));
+	cache.get("a", k -> new CacheObject<>(k));
+	cache.get("n", k -> null);
+	try {
+		cache.get("x", k -> { throw new IllegalStateException(); });
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	
+	CacheStats st = cache.getStats();
+	assertEquals(1, st.getLoadSuccessCount());
+	assertEquals(2, st.getLoadFailureCount());
+	assertEquals(1, st.getHitCount());
+	assertEquals(3, st.getMissCount());
+	long[] h = st.getLoadTimeHistogram();
+	assertEquals(CacheStats.HISTOGRAM_BUCKETS, h.length);
+	long sum = 0;
+	for (long c : h) sum += c;
+	assertEquals(3, sum);
+	assertTrue(st.getAverageLoadTime() >= 0);
+	
+	ConcurrentObjectCache<String, CacheObject<String>> cc = new ConcurrentObjectCache<>(2, 0, 0);
+	cc.setRecordingStats(true);
+	cc.get("a", k -> new CacheObject<>(k));
+	cc.get("b", k -> new CacheObject<>(k));
+	cc.get("c", k -> new CacheObject<>(k));
+	cc.get("c");
+	st = cc.getStats();
+	assertEquals(3, st.getLoadSuccessCount());
+	assertEquals(3, st.getPutCount());
+	assertEquals(3, st.getMissCount());
+	assertEquals(1, st.getHitCount());
+	assertEquals(1, st.getEvictionCount(EvictionCause.ENTRIES));
+	assertEquals(2, st.getSize());
+}
+
+@Test
+public void mbean () throws JMException {
+	ConcurrentObjectCache<String, CacheObject<String>> cache = new ConcurrentObjectCache<>(100, 0, 0);
+	cache.setRecordingStats(true);
+	cache.put("a", new CacheObject<>("a"));
+	cache.get("a");
+	cache.get("b");
+	
+	ObjectName name = cache.registerMBean("test-cache");
+	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	try {
+		assertTrue(server.isRegistered(name));
+		assertEquals(1L, server.getAttribute(name, "HitCount"));
+		assertEquals(1L, server.getAttribute(name, "MissCount"));
+		assertEquals(100, server.getAttribute(name, "MaxEntries"));
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "RecordingStats"));
+		
+		DefaultObjectCache<String, CacheObject<String>> other = new DefaultObjectCache<>();
+		try {
+			other.registerMBean("test-cache");
+			fail("expected JMException");
+		} catch (JMException e) {
+		}
+	} finally {
+		cache.unregisterMBean();
+	}
+	assertFalse(server.isRegistered(name));
+}
+
+@Test
+public void mbean_counters_unlocked () throws Exception {
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>();
+	cache.setRecordingStats(true);
+	cache.put("a", new CacheObject<>("a"));
+	cache.get("a");
+	ObjectName name = cache.registerMBean("test-cache-2");
+	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	try {
+		assertEquals(1, server.getAttribute(name, "Size"));
+		assertTrue((Long) server.getAttribute(name, "AverageEntryAge") >= 0);
+		
+		// counters are read while another thread holds the cache
+		Object[] result = new Object[1];
+		synchronized (cache) {
+			Thread reader = new Thread(() -> {
+				try {
+					result[0] = server.getAttribute(name, "HitCount");
+				} catch (JMException e) {
+				}
+			});
+			reader.start();
+			reader.join(5000);
+		}
+		assertEquals(1L, result[0]);
+	} finally {
+		cache.unregisterMBean();
+	}
+}
+}
@@ -0,0 +1,537 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_ConcurrentObjectCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import kse.utilclass.io.Serialiser;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+public class TestC_ConcurrentObjectCache {
+
+/** Cache which counts released objects. */
+private static class CountingCache extends ConcurrentObjectCache<String, CacheObject<String>> {
+	private static final long serialVersionUID = 1L;
+	AtomicInteger released = new AtomicInteger();
+	
+	CountingCache (int maxEntries, int maxVolume, int maxTime, int concurrency) {
+		super(maxEntries, maxVolume, maxTime, concurrency);
+	}
+
+	@Override
+	protected void objectReleased (CacheObject<?> obj) {
+		released.incrementAndGet();
+	}
+}
+
+@Test
+public void basic_operations () {
+	CountingCache cache = new CountingCache(0, 0, 0, 8);
+	assertEquals(8, cache.getConcurrency());
+	assertTrue(cache.isEmpty());
+	assertFalse(cache.isModified());
+	
+	try {
+		cache.put(null, new CacheObject<>("a"));
+		fail("expected NullPointerException");
+	} catch (NullPointerException e) {
+	}
+	try {
+		cache.put("a", null);
+		fail("expected NullPointerException");
+	} catch (NullPointerException e) {
+	}
+	
+	assertNull(cache.put("a", new CacheObject<>("alpha", 10)));
+	assertNull(cache.put("b", new CacheObject<>("beta", 20)));
+	assertEquals(2, cache.size());
+	assertEquals(30, cache.getVolume());
+	assertTrue(cache.isModified());
+	assertEquals("alpha", cache.get("a").getObject());
+	assertNull(cache.get("x"));
+	assertTrue(cache.containsKey("b"));
+	
+	// replacement does not release
+	CacheObject<String> old = cache.put("a", new CacheObject<>("alpha2", 5));
+	assertEquals("alpha", old.getObject());
+	assertEquals(25, cache.getVolume());
+	assertEquals(0, cache.released.get());
+	
+	// removal releases
+	assertEquals("beta", cache.remove("b").getObject());
+	assertNull(cache.remove("b"));
+	assertEquals(1, cache.released.get());
+	assertEquals(5, cache.getVolume());
+	
+	// entry set view
+	cache.put("c", new CacheObject<>("gamma"));
+	assertEquals(2, cache.entrySet().size());
+	assertTrue(cache.keySet().contains("c"));
+	cache.keySet().remove("c");
+	assertFalse(cache.containsKey("c"));
+	assertEquals(2, cache.released.get());
+	
+	cache.resetModified();
+	cache.shutdown();
+	assertTrue(cache.isEmpty());
+	assertEquals(0, cache.getVolume());
+	assertEquals(3, cache.released.get());
+	assertFalse(cache.isModified());
+}
+
+@Test
+public void shutdown_releases_after_removal () {
+	List<String> seen = new ArrayList<>();
+	ConcurrentObjectCache<String, CacheObject<String>> cache = 
+			new ConcurrentObjectCache<String, CacheObject<String>>(0, 0, 0, 4) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void objectReleased (CacheObject<?> obj) {
+			// the cache is empty when objects are notified; entries added
+			// by the handler are kept
+			seen.add(obj.getObject() + ":" + size());
+			put("r-" + obj.getObject(), new CacheObject<>("x"));
+		}
+	};
+	for (int i = 0; i < 10; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	cache.shutdown();
+	assertEquals(10, seen.size());
+	for (String s : seen) {
+		assertTrue(s, s.endsWith(":" + seen.indexOf(s)));
+	}
+	assertEquals(10, cache.size());
+	assertTrue(cache.containsKey("r-v3"));
+	assertFalse(cache.containsKey("k3"));
+}
+
+@Test
+public void entry_limit () {
+	CountingCache cache = new CountingCache(100, 0, 0, 4);
+	for (int i = 0; i < 100; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	assertEquals(100, cache.size());
+	
+	// keep a hot set accessed
+	for (int r = 0; r < 50; r++) {
+		for (int i = 0; i < 10; i++) {
+			assertTrue(cache.get("k" + i) != null);
+		}
+	}
+	try { Thread.sleep(5); } catch (InterruptedException e) {}
+	for (int i = 0; i < 10; i++) {
+		cache.get("k" + i);
+	}
+	
+	for (int i = 100; i < 150; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	assertEquals(100, cache.size());
+	assertEquals(50, cache.released.get());
+	for (int i = 0; i < 10; i++) {
+		assertTrue("hot entry evicted: k" + i, cache.containsKey("k" + i));
+	}
+	
+	// lowering the limit evicts
+	cache.setMaxEntries(20);
+	assertEquals(20, cache.size());
+}
+
+@Test
+public void volume_limit () {
+	CountingCache cache = new CountingCache(0, 1000, 0, 4);
+	try {
+		cache.put("big", new CacheObject<>("big", 1001));
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	for (int i = 0; i < 50; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i, 100));
+		assertTrue(cache.getVolume() <= 1000);
+	}
+	assertEquals(10, cache.size());
+	assertEquals(1000, cache.getVolume());
+	assertEquals(40, cache.released.get());
+}
+
+@Test
+public void time_limit () throws InterruptedException {
+	CountingCache cache = new CountingCache(0, 0, 1, 4);
+	assertEquals(1, cache.getMaxTime());
+	cache.put("a", new CacheObject<>("alpha"));
+	cache.put("b", new CacheObject<>("beta"));
+	Thread.sleep(600);
+	assertTrue(cache.get("a") != null);
+	Thread.sleep(600);
+	
+	// idle entry b is dropped on read, a still valid
+	assertNull(cache.get("b"));
+	assertTrue(cache.containsKey("a"));
+	assertEquals(1, cache.released.get());
+	
+	Thread.sleep(1100);
+	cache.refresh();
+	assertTrue(cache.isEmpty());
+	assertEquals(2, cache.released.get());
+}
+
+@Test
+public void time_limit_after_reads () throws InterruptedException {
+	CountingCache cache = new CountingCache(0, 0, 1, 1);
+	cache.put("x", new CacheObject<>("xx"));
+	cache.put("y", new CacheObject<>("yy"));
+	
+	// enough reads to drain the read buffer into the access order
+	for (int i = 0; i < 16; i++) {
+		assertTrue(cache.get("x") != null);
+	}
+	
+	// read entry which turned idle is expired like any other
+	Thread.sleep(1300);
+	cache.refresh();
+	assertTrue(cache.isEmpty());
+	assertEquals(2, cache.released.get());
+}
+
+@Test
+public void concurrent_access () throws InterruptedException {
+	CountingCache cache = new CountingCache(500, 0, 0, 16);
+	AtomicInteger errors = new AtomicInteger();
+	List<Thread> threads = new ArrayList<>();
+	for (int t = 0; t < 8; t++) {
+		final int base = t;
+		threads.add(new Thread(() -> {
+			for (int i = 0; i < 20000; i++) {
+				String key = "k" + ((i * 7 + base) % 2000);
+				CacheObject<String> v = cache.get(key);
+				if (v == null) {
+					cache.put(key, new CacheObject<>(key, 1));
+				} else if (!v.getObject().equals(key)) {
+					errors.incrementAndGet();
+				}
+				if (i % 100 == 0) {
+					cache.remove("k" + (i % 2000));
+				}
+			}
+		}));
+	}
+	for (Thread th : threads) {
+		th.start();
+	}
+	for (Thread th : threads) {
+		th.join();
+	}
+	
+	assertEquals(0, errors.get());
+	assertTrue("size = " + cache.size(), cache.size() <= 500);
+	assertEquals(cache.size(), cache.getVolume());
+}
+
+@SuppressWarnings("unchecked")
+@Test
+public void serialisation () throws IOException {
+	ConcurrentObjectCache<String, CacheObject<String>> cache = new ConcurrentObjectCache<>(50, 0, 0);
+	for (int i = 0; i < 20; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i, i));
+	}
+	Serialiser sss = new Serialiser();
+	byte[] ser = sss.serialise(cache);
+	ConcurrentObjectCache<String, CacheObject<String>> cache2 = 
+			(ConcurrentObjectCache<String, CacheObject<String>>) sss.deserialiseObject(ser);
+	assertEquals(20, cache2.size());
+	assertEquals(cache.getVolume(), cache2.getVolume());
+	assertEquals(50, cache2.getMaxEntries());
+	assertEquals("v7", cache2.get("k7").getObject());
+	assertFalse(cache2.isModified());
+}
+
+private static class TimedInt extends TimerWheel.Timed {
+	final int id;
+	TimedInt (int id) {this.id = id;}
+}
+
+@Test
+public void timer_wheel () {
+	long start = 1_000_000L;
+	TimerWheel<TimedInt> wheel = new TimerWheel<>(start);
+	Random rand = new Random(5);
+	List<TimedInt> timers = new ArrayList<>();
+	for (int i = 0; i < 2000; i++) {
+		TimedInt t = new TimedInt(i);
+		// deadlines between 1 ms and ca. 6 hours
+		long d = start + 1 + (long)(Math.pow(rand.nextDouble(), 4) * 6 * 3600_000L);
+		wheel.schedule(t, d);
+		assertTrue(t.isScheduled());
+		timers.add(t);
+	}
+	
+	// descheduled timers are never handed out
+	TimedInt removed = timers.remove(7);
+	wheel.deschedule(removed);
+	assertFalse(removed.isScheduled());
+	
+	// advance in irregular steps; due timers expire or are rescheduled
+	List<TimedInt> expired = new ArrayList<>();
+	long now = start;
+	while (now < start + 7 * 3600_000L) {
+		now += 1 + rand.nextInt(200_000);
+		final long t = now;
+		wheel.advance(now, timer -> {
+			if (timer.deadline <= t) {
+				expired.add(timer);
+			} else {
+				wheel.schedule(timer, timer.deadline);
+			}
+		});
+		
+		// timers expire not later than one level-0 span after deadline
+		for (TimedInt timer : timers) {
+			if (timer.deadline + 64 < t) {
+				assertFalse("late timer " + timer.id, timer.isScheduled());
+			}
+		}
+	}
+	assertEquals(timers.size(), expired.size());
+	assertFalse(expired.contains(removed));
+}
+
+@Test
+public void time_to_live () throws InterruptedException {
+	CountingCache cache = new CountingCache(0, 0, 0, 4);
+	CacheObject<String> obj = new CacheObject<>("short");
+	obj.setTimeToLive(150);
+	assertTrue(obj.getExpiryTime() > 0);
+	assertFalse(obj.isExpired());
+	cache.put("s", obj);
+	cache.put("l", new CacheObject<>("long"));
+	
+	// maintenance task removes the entry without any cache activity
+	cache.startMaintenance(50);
+	assertTrue(cache.isMaintenanceActive());
+	Thread.sleep(600);
+	assertTrue(obj.isExpired());
+	assertFalse(cache.containsKey("s"));
+	assertTrue(cache.containsKey("l"));
+	assertEquals(1, cache.released.get());
+	cache.stopMaintenance();
+	assertFalse(cache.isMaintenanceActive());
+	
+	// expired entry is not returned by get
+	obj = new CacheObject<>("short");
+	obj.setTimeToLive(50);
+	cache.put("s", obj);
+	Thread.sleep(80);
+	assertNull(cache.get("s"));
+	assertEquals(2, cache.released.get());
+	
+	// idle time limit is applied from the timer wheel
+	cache.setMaxTime(1);
+	Thread.sleep(1200);
+	cache.refresh();
+	assertTrue(cache.isEmpty());
+	
+	try {
+		obj.setTimeToLive(-1);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+@Test
+public void loading () throws Exception {
+	ConcurrentObjectCache<String, CacheObject<String>> cache = new ConcurrentObjectCache<>(0, 0, 0, 4);
+	AtomicInteger loads = new AtomicInteger();
+	CountDownLatch start = new CountDownLatch(1);
+	Function<String, CacheObject<String>> loader = key -> {
+		loads.incrementAndGet();
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+		}
+		return new CacheObject<>(key.toUpperCase());
+	};
+	
+	// concurrent misses are served by a single load
+	List<Thread> threads = new ArrayList<>();
+	AtomicInteger correct = new AtomicInteger();
+	for (int t = 0; t < 8; t++) {
+		Thread th = new Thread(() -> {
+			try {
+				start.await();
+			} catch (InterruptedException e) {
+			}
+			if ("KEY".equals(cache.get("key", loader).getObject())) {
+				correct.incrementAndGet();
+			}
+		});
+		threads.add(th);
+		th.start();
+	}
+	start.countDown();
+	for (Thread th : threads) {
+		th.join();
+	}
+	assertEquals(8, correct.get());
+	assertEquals(1, loads.get());
+	assertEquals("KEY", cache.get("key").getObject());
+	
+	// a present entry is not loaded
+	assertEquals("KEY", cache.get("key", loader).getObject());
+	assertEquals(1, loads.get());
+	
+	// null is not stored, exceptions reach the caller
+	assertNull(cache.get("none", key -> null));
+	assertFalse(cache.containsKey("none"));
+	try {
+		cache.get("bad", key -> {throw new IllegalStateException("failed");});
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	assertFalse(cache.containsKey("bad"));
+	
+	// asynchronous loading
+	CompletableFuture<CacheObject<String>> f1 = cache.getAsync("async", loader);
+	CompletableFuture<CacheObject<String>> f2 = cache.getAsync("async", loader);
+	assertTrue(f1 == f2);
+	assertEquals("ASYNC", f1.get().getObject());
+	assertEquals(2, loads.get());
+	assertTrue(cache.getAsync("async", loader).isDone());
+	
+	// refresh-ahead reloads an entry near the end of its fresh time (10 s),
+	// due 1 s after the load
+	ConcurrentObjectCache<String, CacheObject<String>> rc = new ConcurrentObjectCache<>(0, 0, 10, 4);
+	rc.setLoadExecutor(Runnable::run);
+	rc.setRefreshAhead(9000);
+	assertEquals(9000, rc.getRefreshAhead());
+	AtomicInteger version = new AtomicInteger();
+	Function<String, CacheObject<String>> vloader = key -> new CacheObject<>(key + version.incrementAndGet());
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	Thread.sleep(1500);
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	assertEquals("a2", rc.get("a").getObject());
+	assertEquals(2, version.get());
+	
+	try {
+		rc.setRefreshAhead(-1);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+@Test
+public void weigher () {
+	// volumes beyond the int range
+	long gb = 1L << 30;
+	ConcurrentObjectCache<String, CacheObject<String>> cache = new ConcurrentObjectCache<>(0, 5 * gb, 0, 4);
+	assertEquals(5 * gb, cache.getMaxVolume());
+	for (int i = 0; i < 4; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i, gb));
+	}
+	assertEquals(4 * gb, cache.getVolume());
+	cache.put("k4", new CacheObject<>("v4", 2 * gb));
+	assertTrue(cache.getVolume() <= 5 * gb);
+	
+	// byte array weigher, applied on insertion and replacement
+	ConcurrentObjectCache<String, CacheObject<byte[]>> bc = new ConcurrentObjectCache<>(0, 1000, 0, 4);
+	bc.setWeigher(Weigher.byteArrayLength());
+	assertTrue(bc.getWeigher() != null);
+	bc.put("a", new CacheObject<>(new byte[300]));
+	bc.put("b", new CacheObject<>(new byte[500]));
+	assertEquals(800, bc.getVolume());
+	bc.put("a", new CacheObject<>(new byte[100]));
+	assertEquals(600, bc.getVolume());
+	assertEquals(100, bc.get("a").getDataSize());
+	try {
+		bc.put("c", new CacheObject<>(new byte[1001]));
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	bc.put("c", new CacheObject<>(new byte[600]));
+	assertTrue(bc.getVolume() <= 1000);
+	bc.remove("c");
+	bc.clear();
+	assertEquals(0, bc.getVolume());
+	
+	// serialised size weigher
+	ConcurrentObjectCache<String, CacheObject<String>> sc = new ConcurrentObjectCache<>(0, 0, 0, 4);
+	sc.setWeigher(Weigher.serializedSize());
+	sc.put("a", new CacheObject<>("alpha"));
+	long small = sc.getVolume();
+	assertTrue(small > 5);
+	sc.put("b", new CacheObject<>(new String(new char[1000]).replace('\0', 'x')));
+	assertTrue(sc.getVolume() > small + 1000);
+	
+	sc.setWeigher((key, value) -> -1);
+	try {
+		sc.put("c", new CacheObject<>("gamma"));
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+
+@Test
+public void bulk_operations () {
+	ConcurrentObjectCache<Integer, CacheObject<Integer>> cache = new ConcurrentObjectCache<>(20, 0, 0);
+	cache.put(1, new CacheObject<>(1));
+	AtomicInteger calls = new AtomicInteger();
+	Map<Integer, CacheObject<Integer>> res = cache.getAll(Arrays.asList(1, 2, 3), keys -> {
+		calls.incrementAndGet();
+		assertEquals(2, keys.size());
+		Map<Integer, CacheObject<Integer>> m = new HashMap<>();
+		for (Integer k : keys) {
+			m.put(k, new CacheObject<>(k));
+		}
+		return m;
+	});
+	assertEquals(1, calls.get());
+	assertEquals(3, res.size());
+	assertEquals(3, cache.size());
+	assertEquals(2, cache.invalidateAll(Arrays.asList(1, 2)));
+	assertEquals(1, cache.size());
+}
+}
@@ -0,0 +1,598 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_DefaultObjectCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import kse.utilclass2.misc.CacheStats.EvictionCause;
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+import kse.utilclass2.misc.DefaultObjectCache.ReferenceMode;
+
+public class TestC_DefaultObjectCache {
+
+/** Cache which counts released objects. */
+private static class CountingCache extends DefaultObjectCache<Integer, CacheObject<byte[]>> {
+	private static final long serialVersionUID = 1L;
+	int released;
+	
+	CountingCache (int maxEntries, long maxVolume, int maxTime) {
+		super(maxEntries, maxVolume, maxTime);
+	}
+
+	@Override
+	protected void objectReleased (CacheObject<?> obj) {
+		released++;
+	}
+}
+
+/** Cache which counts refresh passes. */
+private static class RefreshCountingCache extends DefaultObjectCache<Integer, CacheObject<Integer>> {
+	private static final long serialVersionUID = 1L;
+	int refreshs;
+	
+	RefreshCountingCache (int maxEntries, long maxVolume, int maxTime) {
+		super(maxEntries, maxVolume, maxTime);
+	}
+
+	@Override
+	public void refresh () {
+		refreshs++;
+		super.refresh();
+	}
+}
+
+/** Runs the garbage collector until the given object is collected. */
+private static boolean collect (CacheObject<?> obj) {
+	for (int i = 0; i < 50 && !obj.isCollected(); i++) {
+		System.gc();
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+		}
+	}
+	return obj.isCollected();
+}
+
+@Test
+public void reference_mode () {
+	CountingCache cache = new CountingCache(0, 0, 0);
+	assertEquals(ReferenceMode.STRONG, cache.getReferenceMode());
+	cache.setRecordingStats(true);
+	List<byte[]> retained = new ArrayList<>();
+	for (int i = 0; i < 10; i++) {
+		byte[] data = new byte[1000];
+		if (i < 5) retained.add(data);
+		cache.put(i, new CacheObject<>(data, 1000));
+	}
+	assertEquals(10000, cache.getVolume());
+	
+	// weak references: unretained objects are collected and their entries removed
+	cache.setReferenceMode(ReferenceMode.WEAK);
+	assertEquals(ReferenceMode.WEAK, cache.getReferenceMode());
+	List<CacheObject<byte[]>> weak = new ArrayList<>();
+	for (int i = 5; i < 10; i++) {
+		weak.add(cache.get(i));
+	}
+	for (CacheObject<byte[]> o : weak) {
+		assertTrue(collect(o));
+		assertNull(o.getObject());
+	}
+	assertNull(cache.get(9));
+	cache.refresh();
+	assertEquals(5, cache.size());
+	assertEquals(5000, cache.getVolume());
+	assertEquals(5, cache.released);
+	assertEquals(5, cache.getStats().getEvictionCount(EvictionCause.COLLECTED));
+	for (int i = 0; i < 5; i++) {
+		assertTrue(cache.get(i).getObject() == retained.get(i));
+	}
+	
+	// removed objects are held strongly again
+	CacheObject<byte[]> o0 = cache.remove(0);
+	assertTrue(o0.object == retained.get(0));
+	assertFalse(o0.isCollected());
+	
+	// soft references survive without memory shortage
+	cache.setReferenceMode(ReferenceMode.SOFT);
+	cache.put(20, new CacheObject<>(new byte[1000], 1000));
+	System.gc();
+	assertTrue(cache.get(20).getObject() != null);
+	
+	// strong mode restores the user objects
+	cache.setReferenceMode(ReferenceMode.STRONG);
+	for (CacheObject<byte[]> o : cache.values()) {
+		assertTrue(o.object != null);
+	}
+	retained.clear();
+	System.gc();
+	assertEquals(5, cache.size());
+}
+
+@Test
+public void reference_mode_clear () {
+	for (ReferenceMode mode : new ReferenceMode[] {ReferenceMode.SOFT, ReferenceMode.WEAK}) {
+		CountingCache cache = new CountingCache(0, 0, 0);
+		cache.setReferenceMode(mode);
+		CacheObject<byte[]> o1 = new CacheObject<>(new byte[1000], 1000);
+		CacheObject<byte[]> o2 = new CacheObject<>(new byte[1000], 1000);
+		cache.put(1, o1);
+		cache.put(2, o2);
+		
+		// objects leaving by clear() or shutdown() are held strongly again
+		cache.clear();
+		System.gc();
+		assertTrue(o1.object != null);
+		assertFalse(o1.isCollected());
+		
+		cache.put(2, o2);
+		cache.shutdown();
+		System.gc();
+		assertTrue(o2.object != null);
+		assertFalse(o2.isCollected());
+		assertEquals(1, cache.released);
+	}
+}
+
+@Test
+public void reference_mode_switch () {
+	CountingCache cache = new CountingCache(0, 0, 0);
+	cache.setReferenceMode(ReferenceMode.WEAK);
+	byte[] data = new byte[1000];
+	CacheObject<byte[]> kept = new CacheObject<>(data, 1000);
+	CacheObject<byte[]> lost = new CacheObject<>(new byte[1000], 1000);
+	cache.put(1, kept);
+	cache.put(2, lost);
+	assertTrue(collect(lost));
+
+	// switching mode removes collected entries instead of holding them strongly
+	cache.setReferenceMode(ReferenceMode.STRONG);
+	assertEquals(1, cache.size());
+	assertEquals(1000, cache.getVolume());
+	assertEquals(1, cache.released);
+	assertNull(cache.get(2));
+	assertTrue(cache.get(1).object == data);
+}
+
+@Test
+public void bulk_operations () {
+	RefreshCountingCache cache = new RefreshCountingCache(100, 2000, 0);
+	Map<Integer, CacheObject<Integer>> map = new LinkedHashMap<>();
+	for (int i = 0; i < 1000; i++) {
+		map.put(i, new CacheObject<>(i, 10));
+	}
+	cache.putAll(map);
+	assertEquals(1, cache.refreshs);
+	assertEquals(100, cache.size());
+	assertEquals(1000, cache.getVolume());
+	for (int i = 900; i < 1000; i++) {
+		assertTrue(cache.containsKey(i));
+	}
+	
+	// a failing insertion leaves the cache within its limits
+	map.clear();
+	for (int i = 0; i < 150; i++) {
+		map.put(2000 + i, new CacheObject<>(i, i == 149 ? 5000 : 10));
+	}
+	try {
+		cache.putAll(map);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	assertEquals(100, cache.size());
+	assertEquals(1000, cache.getVolume());
+	assertTrue(cache.containsKey(2148));
+	
+	// bulk eviction with a policy
+	cache.clear();
+	cache.setPolicy(new TinyLfuCachePolicy<>(100));
+	map.clear();
+	for (int i = 0; i < 300; i++) {
+		map.put(i, new CacheObject<>(i, 1));
+	}
+	cache.putAll(map);
+	assertEquals(100, cache.size());
+	assertEquals(100, cache.getVolume());
+	
+	List<Integer> keys = new ArrayList<>(new ArrayList<>(cache.keySet()).subList(0, 3));
+	keys.add(-1);
+	assertEquals(3, cache.invalidateAll(keys));
+	assertEquals(97, cache.size());
+	assertEquals(97, cache.getVolume());
+}
+
+@Test
+public void get_all () {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>(50, 0, 0);
+	cache.setRecordingStats(true);
+	for (int i = 0; i < 10; i++) {
+		cache.put(i, new CacheObject<>(i));
+	}
+	
+	List<Set<Integer>> calls = new ArrayList<>();
+	Map<Integer, CacheObject<Integer>> res = cache.getAll(Arrays.asList(5, 15, 3, 16, 17, 15), keys -> {
+		calls.add(keys);
+		Map<Integer, CacheObject<Integer>> m = new HashMap<>();
+		for (Integer k : keys) {
+			if (k != 17) m.put(k, new CacheObject<>(k * 10));
+		}
+		return m;
+	});
+	assertEquals(1, calls.size());
+	assertEquals(3, calls.get(0).size());
+	assertTrue(calls.get(0).containsAll(Arrays.asList(15, 16, 17)));
+	assertEquals(Arrays.asList(5, 3, 15, 16), new ArrayList<>(res.keySet()));
+	assertEquals(150, (int) res.get(15).getObject());
+	assertEquals(12, cache.size());
+	assertEquals(1, cache.getStats().getLoadSuccessCount());
+	
+	// all present: no loader call
+	res = cache.getAll(Arrays.asList(15, 16), keys -> { fail("unexpected load"); return null; });
+	assertEquals(2, res.size());
+	
+	// loader exception
+	try {
+		cache.getAll(Arrays.asList(30, 31), keys -> { throw new IllegalStateException(); });
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	assertEquals(1, cache.getStats().getLoadFailureCount());
+	assertFalse(cache.containsKey(30));
+}
+
+private static CacheObject<Integer> ttlObject (int v, long ttl) {
+	CacheObject<Integer> obj = new CacheObject<>(v);
+	obj.setTimeToLive(ttl);
+	return obj;
+}
+
+@Test
+public void ttl_expiry () throws InterruptedException {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>(3, 0, 0);
+	cache.setRecordingStats(true);
+	cache.put(2, new CacheObject<>(2));
+	cache.put(3, new CacheObject<>(3));
+	cache.put(1, ttlObject(1, 50));
+	Thread.sleep(200);
+	
+	// the expired entry is removed instead of the eldest entry
+	cache.put(4, new CacheObject<>(4));
+	assertEquals(3, cache.size());
+	assertFalse(cache.containsKey(1));
+	assertTrue(cache.containsKey(2));
+	assertEquals(1, cache.getStats().getEvictionCount(EvictionCause.TIME));
+	
+	// same with an eviction policy
+	cache = new DefaultObjectCache<>(3, 0, 0);
+	cache.setPolicy(new TinyLfuCachePolicy<Integer>(3));
+	cache.put(2, new CacheObject<>(2));
+	cache.put(3, new CacheObject<>(3));
+	cache.put(1, ttlObject(1, 50));
+	Thread.sleep(200);
+	cache.put(4, new CacheObject<>(4));
+	assertEquals(3, cache.size());
+	assertFalse(cache.containsKey(1));
+	assertTrue(cache.containsKey(4));
+	
+	// refresh removes expired entries without limits set
+	cache = new DefaultObjectCache<>();
+	cache.put(1, ttlObject(1, 50));
+	cache.put(2, ttlObject(2, 60000));
+	cache.put(3, new CacheObject<>(3));
+	Thread.sleep(200);
+	assertEquals(3, cache.size());
+	cache.refresh();
+	assertEquals(2, cache.size());
+	assertFalse(cache.containsKey(1));
+	assertEquals(0, cache.getVolume());
+	
+	// an expired entry is not returned by get
+	cache.put(5, ttlObject(5, 50));
+	assertTrue(cache.get(5) != null);
+	Thread.sleep(200);
+	assertNull(cache.get(5));
+	assertFalse(cache.containsKey(5));
+}
+
+@SuppressWarnings("unchecked")
+@Test
+public void ttl_expiry_schedule () throws Exception {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>();
+	
+	// a replaced entry does not expire by the time-to-live of its former value
+	cache.put(1, ttlObject(1, 50));
+	cache.put(1, ttlObject(1, 60000));
+	
+	// a time-to-live removed after insertion is recognised
+	CacheObject<Integer> obj = ttlObject(2, 50);
+	cache.put(2, obj);
+	obj.setTimeToLive(0);
+	
+	// a removed entry's timer has no effect on a new entry of equal value
+	cache.put(3, ttlObject(3, 50));
+	cache.remove(3);
+	cache.put(3, new CacheObject<>(3));
+	
+	cache.put(4, ttlObject(4, 50));
+	DefaultObjectCache<Integer, CacheObject<Integer>> copy = 
+			(DefaultObjectCache<Integer, CacheObject<Integer>>) serialCopy(cache);
+	Thread.sleep(200);
+	cache.refresh();
+	assertEquals(3, cache.size());
+	assertTrue(cache.containsKey(1));
+	assertTrue(cache.containsKey(2));
+	assertTrue(cache.containsKey(3));
+	
+	// the entries of a deserialised cache expire 
+	copy.refresh();
+	assertEquals(3, copy.size());
+	assertFalse(copy.containsKey(4));
+	
+	// entries re-inserted after clear() expire
+	cache.clear();
+	cache.put(5, ttlObject(5, 50));
+	cache.put(6, new CacheObject<>(6));
+	Thread.sleep(200);
+	cache.refresh();
+	assertEquals(1, cache.size());
+	assertFalse(cache.containsKey(5));
+}
+
+@Test
+public void maintenance () throws InterruptedException {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>();
+	cache.put(1, ttlObject(1, 50));
+	cache.put(2, new CacheObject<>(2));
+	assertFalse(cache.isMaintenanceActive());
+	cache.startMaintenance(20);
+	assertTrue(cache.isMaintenanceActive());
+	
+	// the task removes the expired entry without further access
+	long limit = System.currentTimeMillis() + 10000;
+	boolean removed = false;
+	while (!removed && System.currentTimeMillis() < limit) {
+		Thread.sleep(20);
+		synchronized (cache) {
+			removed = !cache.containsKey(1);
+		}
+	}
+	assertTrue(removed);
+	synchronized (cache) {
+		assertTrue(cache.containsKey(2));
+	}
+	
+	cache.stopMaintenance();
+	assertFalse(cache.isMaintenanceActive());
+	try {
+		cache.startMaintenance(0);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+@Test
+public void loading () throws Exception {
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>();
+	AtomicInteger loads = new AtomicInteger();
+	CountDownLatch start = new CountDownLatch(1);
+	Function<String, CacheObject<String>> loader = key -> {
+		loads.incrementAndGet();
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+		}
+		return new CacheObject<>(key.toUpperCase());
+	};
+	
+	// concurrent misses are served by a single load
+	List<Thread> threads = new ArrayList<>();
+	AtomicInteger correct = new AtomicInteger();
+	for (int t = 0; t < 8; t++) {
+		Thread th = new Thread(() -> {
+			try {
+				start.await();
+			} catch (InterruptedException e) {
+			}
+			if ("KEY".equals(cache.get("key", loader).getObject())) {
+				correct.incrementAndGet();
+			}
+		});
+		threads.add(th);
+		th.start();
+	}
+	start.countDown();
+	for (Thread th : threads) {
+		th.join();
+	}
+	assertEquals(8, correct.get());
+	assertEquals(1, loads.get());
+	synchronized (cache) {
+		assertEquals("KEY", cache.get("key").getObject());
+	}
+	
+	// a present entry is not loaded
+	assertEquals("KEY", cache.get("key", loader).getObject());
+	assertEquals(1, loads.get());
+	
+	// null is not stored, exceptions reach the caller
+	assertNull(cache.get("none", key -> null));
+	assertFalse(cache.containsKey("none"));
+	try {
+		cache.get("bad", key -> {throw new IllegalStateException("failed");});
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	assertFalse(cache.containsKey("bad"));
+	
+	// asynchronous loading
+	CompletableFuture<CacheObject<String>> f1 = cache.getAsync("async", loader);
+	CompletableFuture<CacheObject<String>> f2 = cache.getAsync("async", loader);
+	assertTrue(f1 == f2);
+	assertEquals("ASYNC", f1.get().getObject());
+	assertEquals(2, loads.get());
+	assertTrue(cache.getAsync("async", loader).isDone());
+	
+	// refresh-ahead reloads an entry near the end of its fresh time (10 s),
+	// due 1 s after the load
+	DefaultObjectCache<String, CacheObject<String>> rc = new DefaultObjectCache<>(0, 0, 10);
+	rc.setLoadExecutor(Runnable::run);
+	rc.setRefreshAhead(9000);
+	assertEquals(9000, rc.getRefreshAhead());
+	AtomicInteger version = new AtomicInteger();
+	Function<String, CacheObject<String>> vloader = key -> new CacheObject<>(key + version.incrementAndGet());
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	Thread.sleep(1500);
+	assertEquals("a1", rc.get("a", vloader).getObject());
+	assertEquals("a2", rc.get("a").getObject());
+	assertEquals(2, version.get());
+	
+	try {
+		rc.setRefreshAhead(-1);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+
+private static Object serialCopy (Object obj) throws IOException, ClassNotFoundException {
+	ByteArrayOutputStream bout = new ByteArrayOutputStream();
+	try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+		out.writeObject(obj);
+	}
+	try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+		return in.readObject();
+	}
+}
+
+@Test
+@SuppressWarnings("unchecked")
+public void serialisation () throws Exception {
+	// the serialised form keeps the int fields of former versions
+	ObjectStreamClass oc = ObjectStreamClass.lookup(CacheObject.class);
+	assertEquals(int.class, oc.getField("size").getType());
+	assertEquals(long.class, oc.getField("volume").getType());
+	oc = ObjectStreamClass.lookup(DefaultObjectCache.class);
+	assertEquals(int.class, oc.getField("maxVolume").getType());
+	assertEquals(int.class, oc.getField("actVolume").getType());
+	
+	// volumes beyond the int range survive
+	long gb = 1L << 30;
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>(10, 5 * gb, 60);
+	CacheObject<String> obj = new CacheObject<>("a", 3 * gb);
+	obj.setTimeToLive(60000);
+	cache.put("a", obj);
+	cache.put("b", new CacheObject<>("b", 100));
+	
+	DefaultObjectCache<String, CacheObject<String>> copy = 
+			(DefaultObjectCache<String, CacheObject<String>>) serialCopy(cache);
+	assertEquals(10, copy.getMaxEntries());
+	assertEquals(5 * gb, copy.getMaxVolume());
+	assertEquals(60, copy.getMaxTime());
+	assertEquals(3 * gb + 100, copy.getVolume());
+	CacheObject<String> c = copy.get("a");
+	assertEquals("a", c.getObject());
+	assertEquals(3 * gb, c.getDataSize());
+	assertEquals(obj.getExpiryTime(), c.getExpiryTime());
+	assertEquals(obj.getCreationTime(), c.getCreationTime());
+	
+	// a user object held by weak reference is written
+	cache.setReferenceMode(ReferenceMode.WEAK);
+	String value = new String("w");
+	cache.put("w", new CacheObject<>(value));
+	copy = (DefaultObjectCache<String, CacheObject<String>>) serialCopy(cache);
+	assertEquals("w", copy.get("w").getObject());
+}
+
+@Test
+public void weigher () {
+	// volumes beyond the int range
+	long gb = 1L << 30;
+	DefaultObjectCache<String, CacheObject<String>> dc = new DefaultObjectCache<>(0, 3 * gb, 0);
+	dc.put("a", new CacheObject<>("a", 2 * gb));
+	dc.put("b", new CacheObject<>("b", 2 * gb));
+	assertEquals(1, dc.size());
+	assertEquals(2 * gb, dc.getVolume());
+	
+	// byte array weigher, applied on insertion and replacement
+	DefaultObjectCache<String, CacheObject<byte[]>> bc = new DefaultObjectCache<>(0, 1000, 0);
+	bc.setWeigher(Weigher.byteArrayLength());
+	assertTrue(bc.getWeigher() != null);
+	bc.put("a", new CacheObject<>(new byte[300]));
+	bc.put("b", new CacheObject<>(new byte[500]));
+	assertEquals(800, bc.getVolume());
+	bc.put("a", new CacheObject<>(new byte[100]));
+	assertEquals(600, bc.getVolume());
+	assertEquals(100, bc.get("a").getDataSize());
+	bc.put("c", new CacheObject<>(new byte[600]));
+	assertTrue(bc.getVolume() <= 1000);
+	
+	// serialised size weigher
+	DefaultObjectCache<String, CacheObject<String>> sc = new DefaultObjectCache<>();
+	sc.setWeigher(Weigher.serializedSize());
+	sc.put("a", new CacheObject<>("alpha"));
+	long small = sc.getVolume();
+	assertTrue(small > 5);
+	sc.put("b", new CacheObject<>(new String(new char[1000]).replace('\0', 'x')));
+	assertTrue(sc.getVolume() > small + 1000);
+	
+	DefaultObjectCache<String, CacheObject<Object>> oc = new DefaultObjectCache<>();
+	oc.setWeigher(Weigher.serializedSize());
+	try {
+		oc.put("x", new CacheObject<>(new Object()));
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	assertTrue(oc.isEmpty());
+	
+	sc.setWeigher((key, value) -> -1);
+	try {
+		sc.put("c", new CacheObject<>("gamma"));
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+}
+}
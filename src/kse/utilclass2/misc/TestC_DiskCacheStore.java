@@ -0,0 +1,292 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_DiskCacheStore.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+public class TestC_DiskCacheStore {
+
+private static File tempFile () throws IOException {
+	File f = File.createTempFile("cachestore-", ".dat");
+	f.delete();
+	f.deleteOnExit();
+	return f;
+}
+
+@Test
+public void store_operations () throws IOException {
+	File f = tempFile();
+	DiskCacheStore<String, CacheObject<String>> store = new DiskCacheStore<>(f);
+	assertEquals(0, store.size());
+	assertNull(store.get("a"));
+	
+	store.put("a", new CacheObject<>("alpha", 5));
+	store.put("b", new CacheObject<>("beta"));
+	store.put("c", new CacheObject<>("gamma"));
+	assertEquals(3, store.size());
+	assertTrue(store.containsKey("b"));
+	assertEquals("alpha", store.get("a").getObject());
+	assertEquals(5, store.get("a").getDataSize());
+	
+	// replacement and removal
+	store.put("a", new CacheObject<>("alpha2"));
+	assertEquals("alpha2", store.get("a").getObject());
+	assertEquals("beta", store.take("b").getObject());
+	assertFalse(store.containsKey("b"));
+	assertNull(store.take("b"));
+	store.remove("c");
+	store.remove("x");
+	assertEquals(1, store.size());
+	store.put("d", new CacheObject<>("delta"));
+	store.close();
+	
+	try {
+		store.get("a");
+		fail("expected IllegalStateException");
+	} catch (IllegalStateException e) {
+	}
+	
+	// reopening recovers the live entries
+	store = new DiskCacheStore<>(f);
+	assertEquals(2, store.size());
+	assertEquals("alpha2", store.get("a").getObject());
+	assertEquals("delta", store.get("d").getObject());
+	assertFalse(store.containsKey("b"));
+	assertFalse(store.containsKey("c"));
+	
+	store.clear();
+	assertEquals(0, store.size());
+	assertEquals(0, store.getVolume());
+	store.close();
+	store = new DiskCacheStore<>(f);
+	assertEquals(0, store.size());
+	store.close();
+	f.delete();
+}
+
+@Test
+public void damaged_file () throws IOException {
+	File f = tempFile();
+	DiskCacheStore<String, CacheObject<String>> store = new DiskCacheStore<>(f);
+	for (int i = 0; i < 10; i++) {
+		store.put("k" + i, new CacheObject<>("value" + i));
+	}
+	long size = store.getFileSize();
+	store.close();
+	
+	// an incomplete record at the end is cut off
+	try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+		raf.seek(size);
+		raf.write(new byte[] {1, 0, 0, 1, 0, 7});
+	}
+	store = new DiskCacheStore<>(f);
+	assertEquals(10, store.size());
+	assertEquals(size, store.getFileSize());
+	assertEquals(size, f.length());
+	store.close();
+	
+	// a damaged record fails its checksum: it and the following are lost
+	try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+		raf.seek(size - 3);
+		raf.write(0x55);
+	}
+	store = new DiskCacheStore<>(f);
+	assertEquals(9, store.size());
+	assertFalse(store.containsKey("k9"));
+	assertEquals("value8", store.get("k8").getObject());
+	store.close();
+	
+	// a foreign file is not opened
+	File g = tempFile();
+	try (RandomAccessFile raf = new RandomAccessFile(g, "rw")) {
+		raf.write("some other content".getBytes());
+	}
+	try {
+		new DiskCacheStore<String, CacheObject<String>>(g);
+		fail("expected IOException");
+	} catch (IOException e) {
+	}
+	f.delete();
+	g.delete();
+}
+
+@Test
+public void compaction_limit () throws IOException {
+	File f = tempFile();
+	DiskCacheStore<String, CacheObject<byte[]>> store = new DiskCacheStore<>(f, 100000);
+	assertEquals(100000, store.getMaxVolume());
+	for (int i = 0; i < 2000; i++) {
+		store.put("k" + (i % 50), new CacheObject<>(new byte[1000 + i]));
+		assertTrue(store.getVolume() <= 100000);
+	}
+	// automatic compaction keeps the file small
+	assertTrue(store.getFileSize() < 2 * 1024 * 1024 + 100000);
+	int n = store.size();
+	assertTrue(n > 10 && n < 50);
+	
+	store.compact();
+	assertEquals(store.getVolume() + 8, store.getFileSize());
+	assertEquals(n, store.size());
+	assertEquals(1000 + 1999, store.get("k49").getObject().length);
+	store.close();
+	
+	store = new DiskCacheStore<>(f, 100000);
+	assertEquals(n, store.size());
+	assertEquals(1000 + 1999, store.get("k49").getObject().length);
+	store.close();
+	f.delete();
+}
+
+@Test
+public void second_level () throws IOException {
+	File f = tempFile();
+	DiskCacheStore<String, CacheObject<String>> store = new DiskCacheStore<>(f);
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>(10, 0, 0);
+	cache.setSecondLevel(store);
+	assertTrue(cache.getSecondLevel() == store);
+	
+	for (int i = 0; i < 30; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	assertEquals(10, cache.size());
+	assertEquals(20, store.size());
+	
+	// misses are served from the second level
+	for (int i = 0; i < 30; i++) {
+		assertEquals("v" + i, cache.get("k" + i).getObject());
+		assertTrue(cache.size() <= 10);
+	}
+	assertEquals(20, store.size());
+	assertNull(cache.get("x"));
+	
+	// removal and replacement apply to both levels
+	cache.remove("k0");
+	assertNull(cache.get("k0"));
+	cache.put("k1", new CacheObject<>("new"));
+	assertEquals("new", cache.get("k1").getObject());
+	
+	// expired objects are not demoted
+	CacheObject<String> obj = new CacheObject<>("short");
+	obj.setTimeToLive(1);
+	cache.put("s", obj);
+	try {
+		Thread.sleep(5);
+	} catch (InterruptedException e) {
+	}
+	for (int i = 100; i < 110; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	assertFalse(store.containsKey("s"));
+	assertNull(cache.get("s"));
+	
+	// shutdown retains the second level, clear removes it
+	int n = store.size();
+	cache.shutdown();
+	assertEquals(n, store.size());
+	cache.clear();
+	assertEquals(0, store.size());
+	store.close();
+	f.delete();
+}
+
+@Test
+public void snapshot () throws IOException, InterruptedException {
+	File f = tempFile();
+	DefaultObjectCache<String, CacheObject<String>> cache = new DefaultObjectCache<>(100, 0, 0);
+	for (int i = 0; i < 50; i++) {
+		cache.put("k" + i, new CacheObject<>("v" + i));
+	}
+	cache.get("k0");
+	long t = cache.get("k5").getAccessTime();
+	assertEquals(50, cache.saveSnapshot(f));
+	
+	Thread.sleep(5);
+	DefaultObjectCache<String, CacheObject<String>> cache2 = new DefaultObjectCache<>(100, 0, 0);
+	assertEquals(50, cache2.restoreSnapshot(f));
+	assertEquals(new ArrayList<>(cache.keySet()), new ArrayList<>(cache2.keySet()));
+	
+	// access times are retained (reading through get() would renew them)
+	for (Map.Entry<String, CacheObject<String>> e : cache2.entrySet()) {
+		if (e.getKey().equals("k5")) {
+			assertEquals(t, e.getValue().getAccessTime());
+		}
+	}
+	assertEquals("v7", cache2.get("k7").getObject());
+	
+	// a damaged snapshot is detected
+	try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+		raf.seek(f.length() / 2);
+		raf.write(~raf.read());
+	}
+	DefaultObjectCache<String, CacheObject<String>> cache3 = new DefaultObjectCache<>(100, 0, 0);
+	try {
+		cache3.restoreSnapshot(f);
+		fail("expected StreamCorruptedException");
+	} catch (StreamCorruptedException e) {
+	}
+	assertTrue(cache3.size() > 0 && cache3.size() < 50);
+	
+	// off-heap cache with snapshot and second level
+	OffHeapObjectCache<String> oc = new OffHeapObjectCache<>(5, 0, 0);
+	File g = tempFile();
+	DiskCacheStore<String, OffHeapObjectCache.OffHeapObject> store = new DiskCacheStore<>(g);
+	oc.setSecondLevel(store);
+	List<byte[]> data = new ArrayList<>();
+	for (int i = 0; i < 10; i++) {
+		byte[] d = ("payload-" + i).getBytes();
+		data.add(d);
+		oc.putBytes("k" + i, d);
+	}
+	assertEquals(5, store.size());
+	assertTrue(Arrays.equals(data.get(0), oc.getBytes("k0")));
+	assertEquals(5, oc.saveSnapshot(f));
+	
+	OffHeapObjectCache<String> oc2 = new OffHeapObjectCache<>(5, 0, 0);
+	assertEquals(5, oc2.restoreSnapshot(f));
+	assertTrue(Arrays.equals(data.get(0), oc2.getBytes("k0")));
+	oc.close();
+	oc2.close();
+	store.close();
+	f.delete();
+	g.delete();
+}
+
+}
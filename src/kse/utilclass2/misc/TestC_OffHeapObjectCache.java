@@ -0,0 +1,241 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_OffHeapObjectCache.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+import kse.utilclass2.misc.OffHeapObjectCache.OffHeapObject;
+
+public class TestC_OffHeapObjectCache {
+
+/** Cache which records the payloads of released objects. */
+private static class RecordingCache extends OffHeapObjectCache<String> {
+	private static final long serialVersionUID = 1L;
+	List<byte[]> released = new ArrayList<>();
+	
+	RecordingCache (int maxEntries, long maxVolume, int slabSize, File file) throws IOException {
+		super(maxEntries, maxVolume, 0, slabSize, file);
+	}
+
+	@Override
+	protected void objectReleased (CacheObject<?> obj) {
+		released.add((byte[]) obj.getObject());
+	}
+}
+
+private static byte[] data (Random rand, int length) {
+	byte[] b = new byte[length];
+	rand.nextBytes(b);
+	return b;
+}
+
+@Test
+public void basic_operations () throws IOException {
+	Random rand = new Random(7);
+	RecordingCache cache = new RecordingCache(0, 0, 1024, null);
+	byte[] a = data(rand, 100), b = data(rand, 300);
+	
+	OffHeapObject oa = cache.putBytes("a", a);
+	cache.putBytes("b", b);
+	assertEquals(2, cache.size());
+	assertEquals(400, cache.getVolume());
+	assertTrue(Arrays.equals(a, cache.getBytes("a")));
+	assertTrue(Arrays.equals(b, cache.get("b").getObject()));
+	assertTrue(Arrays.equals(a, oa.getObject()));
+	assertNull(cache.getBytes("x"));
+	
+	// replacement returns the old object with its payload on the heap
+	byte[] a2 = data(rand, 50);
+	cache.putBytes("a", a2);
+	assertTrue(Arrays.equals(a, oa.getObject()));
+	assertTrue(Arrays.equals(a2, cache.getBytes("a")));
+	assertEquals(350, cache.getVolume());
+	cache.putBytes("tmp", a2);
+	
+	// removal notifies the readable payload
+	cache.remove("b");
+	assertEquals(1, cache.released.size());
+	assertTrue(Arrays.equals(b, cache.released.get(0)));
+	assertFalse(cache.containsKey("b"));
+	
+	// a large record receives its own slab
+	byte[] big = data(rand, 5000);
+	cache.putBytes("big", big);
+	assertTrue(Arrays.equals(big, cache.getBytes("big")));
+	assertTrue(cache.getStorageAllocated() >= 5000 + 1024);
+	cache.remove("big");
+	
+	// released objects have no payload
+	OffHeapObject ob = cache.get("tmp");
+	cache.remove("tmp");
+	assertNull(ob.getObject());
+	try {
+		cache.put("c", ob);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	cache.clear();
+	assertEquals(0, cache.getVolume());
+	assertTrue(cache.isEmpty());
+	cache.putBytes("d", b);
+	assertTrue(Arrays.equals(b, cache.getBytes("d")));
+	cache.close();
+	assertEquals(0, cache.getStorageAllocated());
+}
+
+@Test
+public void limits () throws IOException {
+	Random rand = new Random(8);
+	RecordingCache cache = new RecordingCache(0, 1000, 4096, null);
+	Map<String, byte[]> payloads = new HashMap<>();
+	for (int i = 0; i < 20; i++) {
+		byte[] d = data(rand, 100);
+		payloads.put("k" + i, d);
+		cache.putBytes("k" + i, d);
+		assertTrue(cache.getVolume() <= 1000);
+	}
+	assertEquals(10, cache.size());
+	assertEquals(10, cache.released.size());
+	for (int i = 0; i < 10; i++) {
+		assertTrue(Arrays.equals(payloads.get("k" + i), cache.released.get(i)));
+	}
+	for (int i = 10; i < 20; i++) {
+		assertTrue(Arrays.equals(payloads.get("k" + i), cache.getBytes("k" + i)));
+	}
+	
+	try {
+		cache.putBytes("huge", new byte[1001]);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	assertEquals(10, cache.size());
+	cache.close();
+}
+
+@Test
+public void compaction () throws IOException {
+	Random rand = new Random(9);
+	File file = File.createTempFile("offheap-", ".dat");
+	file.deleteOnExit();
+	
+	// direct and memory-mapped slabs
+	for (File f : new File[] {null, file}) {
+		RecordingCache cache = new RecordingCache(0, 50000, 8192, f);
+		Map<String, byte[]> payloads = new HashMap<>();
+		for (int i = 0; i < 5000; i++) {
+			String key = "k" + rand.nextInt(400);
+			byte[] d = data(rand, 20 + rand.nextInt(400));
+			cache.putBytes(key, d);
+			payloads.put(key, d);
+			if (rand.nextInt(4) == 0) {
+				String rk = "k" + rand.nextInt(400);
+				cache.remove(rk);
+				payloads.remove(rk);
+			}
+		}
+		
+		// storage stays bounded by the volume limit plus compaction slack
+		assertTrue(cache.getVolume() <= 50000);
+		assertTrue(cache.getStorageAllocated() <= 4 * 50000);
+		
+		// remaining entries are intact after records have been moved
+		for (String key : new ArrayList<>(cache.keySet())) {
+			assertTrue(Arrays.equals(payloads.get(key), cache.get(key).getObject()));
+		}
+		cache.close();
+	}
+	file.delete();
+}
+
+@Test
+public void oversized_records () throws IOException {
+	Random rand = new Random(11);
+	File file = File.createTempFile("offheap-", ".dat");
+	file.deleteOnExit();
+	
+	// records beyond the slab size are held outside the file and released
+	RecordingCache cache = new RecordingCache(0, 0, 1024, file);
+	byte[] d = null;
+	for (int i = 0; i < 200; i++) {
+		d = data(rand, 4096);
+		cache.putBytes("big", d);
+	}
+	assertEquals(4096, cache.getStorageAllocated());
+	assertTrue(file.length() <= 1024);
+	assertTrue(Arrays.equals(d, cache.get("big").getObject()));
+	
+	// small records share the mapped slabs
+	cache.putBytes("small", data(rand, 100));
+	assertEquals(4096 + 1024, cache.getStorageAllocated());
+	assertEquals(1024, file.length());
+	cache.remove("big");
+	assertEquals(1024, cache.getStorageAllocated());
+	cache.clear();
+	cache.close();
+	file.delete();
+}
+
+@Test
+public void unsupported_settings () throws IOException {
+	RecordingCache cache = new RecordingCache(0, 0, 1024, null);
+	cache.setWeigher(null);
+	assertNull(cache.getWeigher());
+	try {
+		cache.setWeigher((key, value) -> 1);
+		fail("expected UnsupportedOperationException");
+	} catch (UnsupportedOperationException e) {
+	}
+	assertNull(cache.getWeigher());
+	
+	cache.setReferenceMode(DefaultObjectCache.ReferenceMode.STRONG);
+	try {
+		cache.setReferenceMode(DefaultObjectCache.ReferenceMode.SOFT);
+		fail("expected UnsupportedOperationException");
+	} catch (UnsupportedOperationException e) {
+	}
+	
+	// payload sizes remain the volume of the cache
+	cache.putBytes("a", new byte[100]);
+	assertEquals(100, cache.getVolume());
+	cache.close();
+}
+
+}
@@ -0,0 +1,181 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TestC_TinyLfuCachePolicy.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+public class TestC_TinyLfuCachePolicy {
+
+@Test
+public void frequency_sketch () {
+	FrequencySketch sketch = new FrequencySketch(512);
+	assertEquals(0, sketch.frequency("a"));
+	for (int i = 0; i < 5; i++) {
+		sketch.increment("a");
+	}
+	sketch.increment("b");
+	assertTrue(sketch.frequency("a") >= 5);
+	assertTrue(sketch.frequency("b") >= 1);
+	
+	// counters saturate at 15
+	for (int i = 0; i < 30; i++) {
+		sketch.increment("c");
+	}
+	assertEquals(15, sketch.frequency("c"));
+	
+	// aging halves the counters after 10 x capacity increments
+	for (int i = 0; i < 5200; i++) {
+		sketch.increment(Integer.valueOf(i));
+	}
+	assertTrue(sketch.frequency("c") < 15);
+}
+
+@Test
+public void policy_operations () {
+	TinyLfuCachePolicy<String> policy = new TinyLfuCachePolicy<>(10);
+	assertEquals(10, policy.getCapacity());
+	assertNull(policy.victim());
+	
+	try {
+		new TinyLfuCachePolicy<String>(0);
+		fail("expected IllegalArgumentException");
+	} catch (IllegalArgumentException e) {
+	}
+	
+	// window holds 1 key, others go to probation
+	policy.onInsert("a");
+	assertEquals("a", policy.victim());
+	policy.onInsert("b");
+	policy.onInsert("c");
+	assertEquals(3, policy.size());
+	
+	// a frequent key in probation wins against a new candidate
+	policy.onAccess("a");
+	policy.onAccess("a");
+	policy.onMiss("x");
+	policy.onInsert("x");
+	policy.onAccess("c");
+	String v = policy.victim();
+	assertTrue(!v.equals("c") && !v.equals("x"));
+	
+	policy.onRemove("a");
+	policy.onRemove("b");
+	policy.onRemove("unknown");
+	assertEquals(2, policy.size());
+	policy.clear();
+	assertEquals(0, policy.size());
+	assertNull(policy.victim());
+}
+
+@Test
+public void scan_resistance () {
+	int capacity = 100;
+	DefaultObjectCache<Integer, CacheObject<Integer>> lru = new DefaultObjectCache<>(capacity, 0, 0);
+	DefaultObjectCache<Integer, CacheObject<Integer>> lfu = new DefaultObjectCache<>(capacity, 0, 0);
+	lfu.setPolicy(new TinyLfuCachePolicy<Integer>(capacity));
+	assertTrue(lfu.getPolicy() != null);
+	
+	// hot set of 50 keys, repeatedly accessed
+	for (int r = 0; r < 5; r++) {
+		for (int i = 0; i < 50; i++) {
+			access(lru, i);
+			access(lfu, i);
+		}
+	}
+	
+	// a scan of one-time keys
+	for (int i = 1000; i < 1500; i++) {
+		access(lru, i);
+		access(lfu, i);
+	}
+	assertEquals(capacity, lru.size());
+	assertEquals(capacity, lfu.size());
+	
+	int lruHits = 0, lfuHits = 0;
+	for (int i = 0; i < 50; i++) {
+		if (lru.containsKey(i)) lruHits++;
+		if (lfu.containsKey(i)) lfuHits++;
+	}
+	assertEquals(0, lruHits);
+	assertTrue(lfuHits >= 45);
+	
+	// restoring LRU
+	lfu.setPolicy(null);
+	assertNull(lfu.getPolicy());
+	for (int i = 2000; i < 2200; i++) {
+		access(lfu, i);
+	}
+	assertEquals(capacity, lfu.size());
+	assertTrue(lfu.containsKey(2199));
+}
+
+@Test
+public void volume_limit () {
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>(0, 1000, 0);
+	for (int i = 0; i < 10; i++) {
+		cache.put(i, new CacheObject<>(i, 100));
+	}
+	assertEquals(1000, cache.getVolume());
+	
+	// setting a policy on a filled cache
+	cache.setMaxVolume(500);
+	cache.setPolicy(new TinyLfuCachePolicy<Integer>(10));
+	assertEquals(500, cache.getVolume());
+	assertEquals(5, cache.size());
+	
+	cache.put(20, new CacheObject<>(20, 300));
+	assertTrue(cache.getVolume() <= 500);
+	
+	cache.clear();
+	assertEquals(0, cache.getVolume());
+	assertEquals(0, ((TinyLfuCachePolicy<Integer>)cache.getPolicy()).size());
+}
+
+@Test
+public void refresh_volume () {
+	// entries removed by refresh are deducted from the volume
+	DefaultObjectCache<Integer, CacheObject<Integer>> cache = new DefaultObjectCache<>(0, 0, 0);
+	for (int i = 0; i < 10; i++) {
+		cache.put(i, new CacheObject<>(i, 100));
+	}
+	cache.setMaxVolume(400);
+	cache.refresh();
+	assertEquals(4, cache.size());
+	assertEquals(400, cache.getVolume());
+}
+
+private static void access (DefaultObjectCache<Integer, CacheObject<Integer>> cache, int key) {
+	if (cache.get(key) == null) {
+		cache.put(key, new CacheObject<>(key));
+	}
+}
+
+}
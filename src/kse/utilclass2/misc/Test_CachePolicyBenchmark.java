@@ -0,0 +1,155 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: Test_CachePolicyBenchmark.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/** Trace-replay benchmark comparing the hit rates of {@code DefaultObjectCache}
+ * with its default LRU eviction and with {@code TinyLfuCachePolicy}. Each
+ * key of a trace is requested from the cache and inserted on a miss.
+ * <p>Without arguments, two synthetic traces are replayed over a series of
+ * cache sizes: a Zipf distributed access pattern and the same pattern
+ * interrupted by sequential scans of one-time keys. Alternatively the name of
+ * a trace file (one key per line) and an optional cache size can be given as
+ * arguments.
+ */
+public class Test_CachePolicyBenchmark {
+
+	private static final int[] SIZES = {100, 500, 1000, 5000};
+	private static final int KEY_SPACE = 50000;
+	private static final int TRACE_LENGTH = 1000000;
+	
+	private Random random = new Random(44);
+
+/** Returns a trace of Zipf distributed keys (exponent 0.9). 
+ * 
+ * @param length int trace length
+ * @param scanLength int length of inserted scans, 0 for none
+ * @return long[] trace
+ */
+private long[] zipfTrace (int length, int scanLength) {
+	double[] cumulative = new double[KEY_SPACE];
+	double sum = 0;
+	for (int i = 0; i < KEY_SPACE; i++) {
+		sum += 1 / Math.pow(i + 1, 0.9);
+		cumulative[i] = sum;
+	}
+	
+	long[] trace = new long[length];
+	long scanKey = KEY_SPACE;
+	for (int i = 0; i < length; ) {
+		// every 50,000 requests a scan of new keys
+		if (scanLength > 0 && i % 50000 == 0) {
+			for (int j = 0; j < scanLength && i < length; j++) {
+				trace[i++] = scanKey++;
+			}
+			if (i == length) break;
+		}
+		int pos = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+		trace[i++] = pos < 0 ? -(pos + 1) : pos;
+	}
+	return trace;
+}
+
+private long[] readTrace (String path) throws IOException {
+	List<Long> list = new ArrayList<>();
+	try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			if (!line.isEmpty()) {
+				list.add(Long.valueOf(line.hashCode()));
+			}
+		}
+	}
+	long[] trace = new long[list.size()];
+	for (int i = 0; i < trace.length; i++) {
+		trace[i] = list.get(i);
+	}
+	return trace;
+}
+
+/** Replays the given trace on a cache of the given size and returns the 
+ * hit rate in percent.
+ * 
+ * @param trace long[] key sequence
+ * @param size int maximum cache entries
+ * @param tinyLfu boolean whether TinyLFU policy is used (LRU otherwise)
+ * @return double hit rate (%)
+ */
+private double replay (long[] trace, int size, boolean tinyLfu) {
+	DefaultObjectCache<Long, CacheObject<Long>> cache = new DefaultObjectCache<>(size, 0, 0);
+	if (tinyLfu) {
+		cache.setPolicy(new TinyLfuCachePolicy<Long>(size));
+	}
+	
+	int hits = 0;
+	for (long k : trace) {
+		Long key = k;
+		if (cache.get(key) != null) {
+			hits++;
+		} else {
+			cache.put(key, new CacheObject<>(key));
+		}
+	}
+	return hits * 100.0 / trace.length;
+}
+
+private void report (String name, long[] trace, int[] sizes) {
+	System.out.println(name + " (" + trace.length + " requests)");
+	System.out.println("      size      LRU %  TinyLFU %");
+	for (int n : sizes) {
+		double lru = replay(trace, n, false);
+		double lfu = replay(trace, n, true);
+		System.out.println(String.format("%10d %10.2f %10.2f", n, lru, lfu));
+	}
+	System.out.println();
+}
+
+public void run () {
+	System.out.println("Object cache benchmark: hit rates of eviction policies");
+	System.out.println();
+	report("Zipf", zipfTrace(TRACE_LENGTH, 0), SIZES);
+	report("Zipf with scans", zipfTrace(TRACE_LENGTH, 10000), SIZES);
+}
+
+public static void main (String[] args) throws IOException {
+	Test_CachePolicyBenchmark bm = new Test_CachePolicyBenchmark();
+	if (args.length > 0) {
+		int[] sizes = args.length > 1 ? new int[] {Integer.parseInt(args[1])} : SIZES;
+		bm.report(args[0], bm.readTrace(args[0]), sizes);
+	} else {
+		bm.run();
+	}
+}
+
+}
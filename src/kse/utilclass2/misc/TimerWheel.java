@@ -0,0 +1,180 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TimerWheel.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel for scheduling objects of type
+ * {@code TimerWheel.Timed} to millisecond deadlines. The wheel has four
+ * levels of 64 buckets each, with bucket spans of 64 milliseconds, ca. 4
+ * seconds, ca. 4.4 minutes and ca. 4.7 hours. A timed object is placed in
+ * the bucket of the lowest level which covers its distance to the deadline.
+ * When time advances past a bucket, its objects are handed out as due;
+ * objects of upper levels are then typically rescheduled into a lower level.
+ * Scheduling, descheduling and expiry cost O(1) amortised execution time.
+ *
+ * <p>The wheel does not compare deadlines with exact precision: objects are
+ * handed out as due when their bucket is passed, which may be up to one
+ * bucket span early. The receiver of due objects decides whether an object
+ * expires or is scheduled again. Deadlines beyond the span of the wheel
+ * are handed out early accordingly.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <T> class of timed objects
+ */
+final class TimerWheel<T extends TimerWheel.Timed> {
+
+   /** bit-shifts of the bucket span (milliseconds) for each level */
+   private static final int[] SHIFT = {6, 12, 18, 24};
+   private static final int BUCKETS = 64;
+
+   /** bucket sentinels of circular lists [level][bucket] */
+   private final Timed[][] wheel;
+   /** time of last advance (epoch milliseconds) */
+   private long time;
+
+   /** Creates a new timer wheel starting at the given time.
+    *
+    * @param now long current time (epoch milliseconds)
+    */
+   TimerWheel ( long now ) {
+      time = now;
+      wheel = new Timed[SHIFT.length][BUCKETS];
+      for ( Timed[] level : wheel ) {
+         for ( int i = 0; i < BUCKETS; i++ ) {
+            Timed s = new Timed();
+            s.wheelPrev = s.wheelNext = s;
+            level[i] = s;
+         }
+      }
+   }
+
+   /** Returns the time of the last advance of this wheel.
+    *
+    * @return long epoch milliseconds
+    */
+   long getTime () {
+      return time;
+   }
+
+   /** Schedules the given object to the given deadline. If the object is
+    * already scheduled, it is moved.
+    *
+    * @param t T timed object
+    * @param deadline long epoch milliseconds
+    */
+   void schedule ( T t, long deadline ) {
+      deschedule(t);
+      t.deadline = deadline;
+      Timed s = findBucket(deadline);
+      t.wheelPrev = s.wheelPrev;
+      t.wheelNext = s;
+      s.wheelPrev.wheelNext = t;
+      s.wheelPrev = t;
+   }
+
+   /** Removes the given object from this wheel if it is scheduled.
+    *
+    * @param t T timed object
+    */
+   void deschedule ( T t ) {
+      if ( t.wheelNext != null ) {
+         t.wheelPrev.wheelNext = t.wheelNext;
+         t.wheelNext.wheelPrev = t.wheelPrev;
+         t.wheelPrev = t.wheelNext = null;
+      }
+   }
+
+   private Timed findBucket ( long deadline ) {
+      // a past deadline goes into the current bucket
+      if ( deadline < time ) {
+         deadline = time;
+      }
+      long duration = deadline - time;
+      int last = SHIFT.length - 1;
+      for ( int i = 0; i < last; i++ ) {
+         if ( duration < 1L << SHIFT[i + 1] ) {
+            return wheel[i][(int)(deadline >>> SHIFT[i]) & (BUCKETS - 1)];
+         }
+      }
+      return wheel[last][(int)(deadline >>> SHIFT[last]) & (BUCKETS - 1)];
+   }
+
+   /** Advances the time of this wheel to the given value and hands out
+    * the objects of all buckets passed to the given action. Objects are
+    * descheduled before they are handed out; the action may schedule them
+    * again.
+    *
+    * @param now long current time (epoch milliseconds)
+    * @param due {@code Consumer<T>} receiver of due objects
+    */
+   void advance ( long now, Consumer<T> due ) {
+      long previous = time;
+      if ( now <= previous ) return;
+      time = now;
+
+      for ( int i = 0; i < SHIFT.length; i++ ) {
+         long prevTicks = previous >>> SHIFT[i];
+         long delta = (now >>> SHIFT[i]) - prevTicks;
+         if ( delta <= 0 ) break;
+         expire(wheel[i], prevTicks, delta, due);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void expire ( Timed[] buckets, long prevTicks, long delta, Consumer<T> due ) {
+      int steps = (int) Math.min(delta + 1, BUCKETS);
+      int start = (int)(prevTicks & (BUCKETS - 1));
+
+      for ( int i = 0; i < steps; i++ ) {
+         Timed s = buckets[(start + i) & (BUCKETS - 1)];
+         Timed t = s.wheelNext;
+         if ( t == s ) continue;
+
+         // detach the bucket's list before handing out
+         s.wheelPrev.wheelNext = null;
+         s.wheelPrev = s.wheelNext = s;
+         while ( t != null ) {
+            Timed next = t.wheelNext;
+            t.wheelPrev = t.wheelNext = null;
+            due.accept((T) t);
+            t = next;
+         }
+      }
+   }
+
+   /** Base class of objects which can be scheduled on a timer wheel.
+    */
+   static class Timed {
+      long deadline;
+      Timed wheelPrev, wheelNext;
+
+      /** Whether this object is scheduled on a timer wheel. */
+      boolean isScheduled () {
+         return wheelNext != null;
+      }
+   }
+}
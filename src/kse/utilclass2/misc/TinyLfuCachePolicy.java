@@ -0,0 +1,223 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: TinyLfuCachePolicy.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.util.HashMap;
+
+/**
+ * Windowed TinyLFU (W-TinyLFU) eviction and admission policy for object
+ * caches. New keys enter a small LRU window (1% of the capacity). Keys
+ * leaving the window become candidates of the main space, which is a
+ * segmented LRU consisting of a probation and a protected segment (80% of
+ * the main space). A key in probation is promoted to the protected segment
+ * when accessed again; keys leaving the protected segment are demoted to
+ * probation.
+ *
+ * <p>When the cache has to remove an entry, the policy compares the
+ * estimated access frequency of the latest candidate with that of the
+ * eldest key in probation, and names the less frequent one as victim. The
+ * frequencies are gathered by a count-min sketch over all accesses,
+ * including cache misses, and age over time. This way a sequence of
+ * one-time accesses (a scan) cannot displace the frequently used keys of
+ * the cache, while the window still admits bursts of new keys.
+ *
+ * <p>The capacity given at construction determines the segment sizes and
+ * the size of the sketch; it should correspond to the entry limit of the
+ * cache. This class is not thread-safe.
+ *
+ * @param <K> map key class
+ */
+public class TinyLfuCachePolicy<K> implements CachePolicy<K> {
+
+   private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+   private final HashMap<K, Node<K>> nodes = new HashMap<>();
+   /** sentinels of the segment lists, eldest entry at 'next' */
+   @SuppressWarnings("unchecked")
+   private final Node<K>[] lists = (Node<K>[]) new Node<?>[3];
+   private final int[] sizes = new int[3];
+   private final FrequencySketch sketch;
+   private final int capacity;
+   private final int maxWindow;
+   private final int maxProtected;
+
+   /** Creates a new policy for the given cache capacity.
+    * 
+    * @param capacity int expected maximum number of cache entries
+    * @throws IllegalArgumentException if capacity is below 1
+    */
+   public TinyLfuCachePolicy ( int capacity ) {
+      if ( capacity < 1 )
+         throw new IllegalArgumentException("capacity below 1");
+      this.capacity = capacity;
+      maxWindow = Math.max(1, capacity / 100);
+      maxProtected = (int)((capacity - maxWindow) * 8L / 10);
+      sketch = new FrequencySketch(capacity);
+      for ( int i = 0; i < lists.length; i++ ) {
+         Node<K> s = new Node<>(null, i);
+         s.prev = s.next = s;
+         lists[i] = s;
+      }
+   }
+
+   /** Returns the capacity for which this policy was created.
+    * 
+    * @return int number of entries
+    */
+   public int getCapacity () {
+      return capacity;
+   }
+
+   /** Returns the estimated access frequency of the given key (0..15).
+    * 
+    * @param key Object
+    * @return int frequency
+    */
+   public int frequency ( Object key ) {
+      return sketch.frequency(key);
+   }
+
+   @Override
+   public void onInsert ( K key ) {
+      if ( nodes.containsKey(key) ) {
+         onAccess(key);
+         return;
+      }
+      sketch.increment(key);
+      Node<K> n = new Node<>(key, WINDOW);
+      nodes.put(key, n);
+      linkLast(n);
+
+      // the eldest key of the window becomes a candidate in probation
+      if ( sizes[WINDOW] > maxWindow ) {
+         Node<K> c = lists[WINDOW].next;
+         unlink(c);
+         c.region = PROBATION;
+         linkLast(c);
+      }
+   }
+
+   @Override
+   public void onAccess ( K key ) {
+      sketch.increment(key);
+      Node<K> n = nodes.get(key);
+      if ( n == null ) return;
+
+      unlink(n);
+      if ( n.region == PROBATION ) {
+         n.region = PROTECTED;
+         linkLast(n);
+
+         // demote the eldest protected key to probation
+         if ( sizes[PROTECTED] > maxProtected ) {
+            Node<K> d = lists[PROTECTED].next;
+            unlink(d);
+            d.region = PROBATION;
+            linkLast(d);
+         }
+      } else {
+         linkLast(n);
+      }
+   }
+
+   @Override
+   public void onMiss ( Object key ) {
+      sketch.increment(key);
+   }
+
+   @Override
+   public void onRemove ( Object key ) {
+      Node<K> n = nodes.remove(key);
+      if ( n != null ) {
+         unlink(n);
+      }
+   }
+
+   @Override
+   public K victim () {
+      Node<K> probation = lists[PROBATION];
+      Node<K> victim = probation.next;
+      Node<K> candidate = probation.prev;
+
+      // no probation: evict from the window first, then from protected
+      if ( victim == probation ) {
+         Node<K> s = sizes[WINDOW] > 0 ? lists[WINDOW] : lists[PROTECTED];
+         return s.next.key;
+      }
+      if ( victim == candidate ) {
+         return victim.key;
+      }
+
+      // admission: the candidate must be more frequent than the victim
+      return sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+             ? victim.key : candidate.key;
+   }
+
+   @Override
+   public void clear () {
+      nodes.clear();
+      for ( int i = 0; i < lists.length; i++ ) {
+         Node<K> s = lists[i];
+         s.prev = s.next = s;
+         sizes[i] = 0;
+      }
+   }
+
+   /** Returns the number of keys recorded by this policy.
+    * 
+    * @return int
+    */
+   public int size () {
+      return nodes.size();
+   }
+
+   private void linkLast ( Node<K> n ) {
+      Node<K> s = lists[n.region];
+      n.prev = s.prev;
+      n.next = s;
+      s.prev.next = n;
+      s.prev = n;
+      sizes[n.region]++;
+   }
+
+   private void unlink ( Node<K> n ) {
+      n.prev.next = n.next;
+      n.next.prev = n.prev;
+      n.prev = n.next = null;
+      sizes[n.region]--;
+   }
+
+   // -------------  INNER CLASSES  --------------
+
+   private static final class Node<K> {
+      final K key;
+      int region;
+      Node<K> prev, next;
+
+      Node ( K key, int region ) {
+         this.key = key;
+         this.region = region;
+      }
+   }
+}
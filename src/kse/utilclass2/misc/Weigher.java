@@ -0,0 +1,91 @@
+package kse.utilclass2.misc;
+
+/*
+*  File: Weigher.java
+*
+*  Project JUtilClasses
+*  @author Wolfgang Keller
+*  Created
+*
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+*
+This program is not public domain software but copyright protected to the
+author(s) stated above. However, you can use, redistribute and/or modify it
+under the terms of the GNU Library or Lesser General Public License as
+published by the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import kse.utilclass2.misc.DefaultObjectCache.CacheObject;
+
+/**
+ * Strategy which determines the data size (weight) of a cache entry for the
+ * volume limit of an object cache. A cache with a weigher applies it to each
+ * value on insertion and replacement and records the result as the data size
+ * of the cache object, replacing the size given at its construction.
+ *
+ * @param <K> map key class
+ * @param <V> map value class
+ */
+@FunctionalInterface
+public interface Weigher<K, V extends CacheObject<?>> {
+
+   /** Returns the data size of the given cache entry.
+    * 
+    * @param key K
+    * @param value V
+    * @return long non-negative data size in bytes
+    */
+   long weigh ( K key, V value );
+
+   /** Returns a weigher for cache objects wrapping byte arrays, which 
+    * weighs the length of the array.
+    * 
+    * @return {@code Weigher<K, V>}
+    */
+   static <K, V extends CacheObject<byte[]>> Weigher<K, V> byteArrayLength () {
+      return (key, value) -> value.getObject().length;
+   }
+
+   /** Returns a weigher which weighs the length of the Java serialisation
+    * of the wrapped user object. The object is serialised for each call,
+    * without buffering the result.
+    * 
+    * @return {@code Weigher<K, V>}
+    * @throws IllegalArgumentException from {@code weigh()} if the object
+    *         cannot be serialised
+    */
+   static <K, V extends CacheObject<?>> Weigher<K, V> serializedSize () {
+      return (key, value) -> {
+         long[] count = new long[1];
+         OutputStream counter = new OutputStream() {
+            @Override
+            public void write ( int b ) {
+               count[0]++;
+            }
+
+            @Override
+            public void write ( byte[] b, int off, int len ) {
+               count[0] += len;
+            }
+         };
+         try ( ObjectOutputStream out = new ObjectOutputStream(counter) ) {
+            out.writeObject(value.getObject());
+         } catch ( IOException e ) {
+            throw new IllegalArgumentException("object not serialisable: " + key, e);
+         }
+         return count[0];
+      };
+   }
+}